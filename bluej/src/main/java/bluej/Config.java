@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -29,17 +29,22 @@ import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.net.MalformedURLException;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -152,6 +157,8 @@ public final class Config
     private static File greenfootLibDir;
     private static boolean initialised = false;
     private static boolean isGreenfoot = false;
+    // The contents of definition files being read in advance during initialisation, by file:
+    private static final Map<File, CompletableFuture<byte[]>> prefetchedDefs = new HashMap<>();
     private static List<String> debugVMArgs = new ArrayList<>();
     /** whether this is the debug vm or not. */
     private static boolean isDebugVm = true; // Default to true, will be corrected on main VM
@@ -194,11 +201,19 @@ public final class Config
         
         isGreenfoot = bootingGreenfoot;
 
-        screenBounds = calculateScreenBounds();
-
         // construct paths for the configuration directories
         Config.bluejLibDir = bluejLibDir;
         Config.greenfootLibDir = new File(bluejLibDir, "greenfoot");
+
+        // The definition files don't depend on each other, so read them in parallel
+        // (while the screen bounds are found) rather than one after another:
+        prefetchDefs("bluej.defs", "moe.defs", DEFAULT_LANGUAGE + File.separator + "labels",
+                DEFAULT_LANGUAGE + File.separator + "frame-labels");
+        if (bootingGreenfoot) {
+            prefetchDefs("greenfoot.defs", DEFAULT_LANGUAGE + File.separator + "greenfoot/greenfoot-labels");
+        }
+
+        screenBounds = calculateScreenBounds();
         
         // setup our heirarchy of property objects if it is not done yet:
         if(systemProps == null)
@@ -260,6 +275,9 @@ public final class Config
         // Create a property containing the BlueJ version string
         // put it in command_props so it won't be saved to a file
         commandProps.setProperty("bluej.version", Boot.BLUEJ_VERSION);
+
+        // Discard any which weren't used (e.g. if the system properties were already loaded):
+        prefetchedDefs.clear();
     }
 
     /**
@@ -796,7 +814,7 @@ public final class Config
         Properties defs = new Properties(parentProperties);
 
         try {
-            defs.load(new FileInputStream(propsFile));
+            defs.load(openDefs(propsFile));
         }
         catch(IOException e) {
             Debug.reportError("Unable to load definitions file: " + propsFile);
@@ -805,6 +823,53 @@ public final class Config
         return defs;
     }
 
+    /**
+     * Start reading the given definition files (relative to the lib directory) in the
+     * background, to be used by {@link #openDefs}.
+     */
+    private static void prefetchDefs(String... filenames)
+    {
+        for (String filename : filenames)
+        {
+            File file = new File(bluejLibDir, filename);
+            prefetchedDefs.put(file, CompletableFuture.supplyAsync(() -> {
+                try
+                {
+                    return Files.readAllBytes(file.toPath());
+                }
+                catch (IOException e)
+                {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Open a definition file: from its prefetched contents, if it is being read in
+     * advance (waiting for it if need be), otherwise from the file.
+     */
+    private static InputStream openDefs(File file) throws IOException
+    {
+        CompletableFuture<byte[]> prefetched = prefetchedDefs.remove(file);
+        if (prefetched == null)
+        {
+            return new FileInputStream(file);
+        }
+        try
+        {
+            return new ByteArrayInputStream(prefetched.join());
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Load the label property file for the currently defined language.
      * Install the default language (English) as the default properties
@@ -819,7 +884,7 @@ public final class Config
         String frameLabels = DEFAULT_LANGUAGE + File.separator + "frame-labels";
         File frameLabelFile = new File(bluejLibDir, frameLabels);
         try{
-            labels.load(new FileInputStream(frameLabelFile));
+            labels.load(openDefs(frameLabelFile));
         }
         catch(Exception e){
             Debug.reportError("Unable to load greenfoot labels file: " + frameLabelFile);
@@ -832,7 +897,7 @@ public final class Config
             String greenfootLabels = DEFAULT_LANGUAGE + File.separator + "greenfoot/greenfoot-labels";
             File greenfootLabelFile = new File(bluejLibDir, greenfootLabels);
             try{
-                labels.load(new FileInputStream(greenfootLabelFile));
+                labels.load(openDefs(greenfootLabelFile));
             }
             catch(IOException e){
                 Debug.reportError("Unable to load greenfoot labels file: " + greenfootLabelFile);
@@ -843,7 +908,7 @@ public final class Config
             String languageFileName = language + File.separator + "labels";
             File languageFile = new File(bluejLibDir, languageFileName);
             try{
-                labels.load(new FileInputStream(languageFile));
+                labels.load(openDefs(languageFile));
             }
             catch(Exception e){
                 Debug.reportError("Unable to load definitions file: " + languageFile);
@@ -853,7 +918,7 @@ public final class Config
             String languageFrameLabels = language + File.separator + "frame-labels";
             File languageFrameLabelFile = new File(bluejLibDir, languageFrameLabels);
             try{
-                labels.load(new FileInputStream(languageFrameLabelFile));
+                labels.load(openDefs(languageFrameLabelFile));
             }
             catch(Exception e){
                 Debug.reportError("Unable to load frame labels file: " + languageFrameLabelFile);
@@ -862,7 +927,7 @@ public final class Config
             if(isGreenfoot()) {
                 File greenfootLabels = new File(bluejLibDir, language + File.separator + "greenfoot/greenfoot-labels");
                 try{
-                    labels.load(new FileInputStream(greenfootLabels));
+                    labels.load(openDefs(greenfootLabels));
                 }
                 catch(Exception e){
                     Debug.reportError("Unable to load greenfoot labels file: " + greenfootLabels);
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -29,6 +29,7 @@ import bluej.pkgmgr.Project;
 import bluej.prefmgr.PrefMgr;
 import bluej.utility.Debug;
 import bluej.utility.DialogManager;
+import bluej.utility.ImportScanner;
 import bluej.utility.Utility;
 import bluej.utility.javafx.FXPlatformRunnable;
 import bluej.utility.javafx.JavaFXUtil;
@@ -125,7 +126,12 @@ public class Main
         Properties commandLineProps = boot.getCommandLineProperties();
         File bluejLibDir = Boot.getBluejLibDir();
 
+        StartupTimeline.phaseStarted("configuration");
         Config.initialise(bluejLibDir, commandLineProps, boot.isGreenfoot());
+        StartupTimeline.phaseFinished("configuration");
+        
+        // Get the index of importable types ready in the background, for the first project:
+        ImportScanner.prepareIndex();
 
         CompletableFuture<Stage> futureMainWindow = new CompletableFuture<>();
         // Must do this after Config initialisation:
@@ -165,6 +171,7 @@ public class Main
         
         // process command line arguments, start BlueJ!
         Platform.runLater(() -> {
+            StartupTimeline.phaseStarted("initial windows");
             List<ExtensionWrapper> loadedExtensions = ExtensionsManager.getInstance().getLoadedExtensions(null);
             DataCollector.bluejOpened(getOperatingSystem(), getJavaVersion(), getBlueJVersion(), getInterfaceLanguage(), loadedExtensions);
             Stage stage = processArgs(args);
@@ -230,6 +237,9 @@ public class Main
         Stage window = guiHandler.initialOpenComplete(oneOpened);
         
         Boot.getInstance().disposeSplashWindow();
+        StartupTimeline.phaseFinished("initial windows");
+        Boot.getInstance().startupFinished();
+        Debug.log(StartupTimeline.getSummary());
         ExtensionsManager.getInstance().delegateEvent(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
         
         return window;
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2012,2016  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2016,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -38,7 +38,7 @@ import threadchecker.OnThread;
 import threadchecker.Tag;
 
 //package-visible
-@OnThread(Tag.FXPlatform)
+@OnThread(Tag.Any)
 class CodeAnonymiser
 {
     public static String anonymise(String sourceCode)
@@ -90,7 +90,7 @@ class CodeAnonymiser
         
         int importOrPackageLine;
         
-        JavaLexer lexer = new JavaLexer(new StringReader(sourceCode));
+        JavaLexer lexer = new JavaLexer(sourceCode);
         lexer.setGenerateWhitespaceTokens(true);
         
         importOrPackageLine = -1;
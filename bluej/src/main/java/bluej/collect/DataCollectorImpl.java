@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2012,2013,2014,2015,2016,2017,2019,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2013,2014,2015,2016,2017,2019,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -44,9 +44,16 @@ import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.ClassTarget.SourceFileInfo;
 import bluej.stride.generic.Frame;
 import bluej.utility.Utility;
+import bluej.utility.javafx.FXPlatformRunnable;
+import bluej.utility.javafx.JavaFXUtil;
+import difflib.ChangeDelta;
+import difflib.Chunk;
+import difflib.DeleteDelta;
 import difflib.Delta;
 import difflib.DiffUtils;
+import difflib.InsertDelta;
 import difflib.Patch;
+import javafx.util.Duration;
 import org.apache.http.entity.mime.MultipartEntity;
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -77,6 +84,32 @@ public class DataCollectorImpl
      */
     private static IdentityHashMap<Inspector, Package> inspectorPackages = new IdentityHashMap<Inspector, Package>();
 
+    /**
+     * How long an edit made while typing is held (see edit()), for further edits to
+     * the same file to replace it.
+     */
+    private static final Duration EDIT_COALESCE_DELAY = Duration.seconds(1);
+
+    /**
+     * An edit being held, with the package of the edited file.
+     */
+    private static class PendingEdit
+    {
+        private final Package pkg;
+        private final EditedFileInfo editedFile;
+
+        private PendingEdit(Package pkg, EditedFileInfo editedFile)
+        {
+            this.pkg = pkg;
+            this.editedFile = editedFile;
+        }
+    }
+
+    // The edits being held, by file, in the order the files were first edited:
+    private static final LinkedHashMap<File, PendingEdit> pendingEdits = new LinkedHashMap<>();
+    // Cancels the scheduled submission of the held edits, or null if none are held:
+    private static FXPlatformRunnable cancelPendingEditsFlush;
+
     /**
      * Submits an event with no extra data.  A useful short-hand for calling submitEvent
      * with no content in the event.
@@ -143,6 +176,9 @@ public class DataCollectorImpl
      */
     private static synchronized void submitEvent(final Project project, final Package pkg, final EventName eventName, final Event evt)
     {
+        // Keep events in order, by submitting any held edits first:
+        flushPendingEdits();
+
         final String projectName = project == null ? null : project.getProjectName();
         final String projectPathHash = project == null ? null : CollectUtility.md5Hash(project.getProjectDir().getAbsolutePath());
         final String packageName = pkg == null ? null : pkg.getQualifiedName();
@@ -457,15 +493,66 @@ public class DataCollectorImpl
     }
 
 
+    /**
+     * Records an edit to one or more files.  An edit which need not be sent if it only
+     * affects one line (i.e. one made while typing) is held for a short time, and replaced
+     * if the file is edited again meanwhile, so that a burst of typing gives one event.
+     * A held edit is submitted before any other event.
+     */
     static void edit(final Package pkg, List<EditedFileInfo> editedFiles)
+    {
+        if (editedFiles.size() == 1 && !editedFiles.get(0).includeOneLineEdits)
+        {
+            pendingEdits.put(editedFiles.get(0).path, new PendingEdit(pkg, editedFiles.get(0)));
+            if (cancelPendingEditsFlush == null)
+            {
+                cancelPendingEditsFlush = JavaFXUtil.runAfter(EDIT_COALESCE_DELAY, () -> {
+                    cancelPendingEditsFlush = null;
+                    flushPendingEdits();
+                });
+            }
+            return;
+        }
+
+        // This edit includes the latest content, so any held edit of the same files is not needed:
+        for (EditedFileInfo editedFile : editedFiles)
+        {
+            pendingEdits.remove(editedFile.path);
+        }
+        submitEdit(pkg, editedFiles);
+    }
+
+    /**
+     * Submit any edits being held (see edit()).
+     */
+    private static void flushPendingEdits()
+    {
+        if (pendingEdits.isEmpty())
+        {
+            return;
+        }
+        if (cancelPendingEditsFlush != null)
+        {
+            cancelPendingEditsFlush.run();
+            cancelPendingEditsFlush = null;
+        }
+        List<PendingEdit> edits = new ArrayList<>(pendingEdits.values());
+        pendingEdits.clear();
+        for (PendingEdit edit : edits)
+        {
+            submitEdit(edit.pkg, Collections.singletonList(edit.editedFile));
+        }
+    }
+
+    private static void submitEdit(final Package pkg, List<EditedFileInfo> editedFiles)
     {
         final Project proj = pkg.getProject();
         final ProjectDetails projDetails = new ProjectDetails(proj);
-        // Generate FileKeys and anonymous source for all the files:
+        // Generate FileKeys for all the files.  The source is anonymised when the event
+        // is sent, off the FX thread:
         for (EditedFileInfo editedFile : editedFiles)
         {
             editedFile.fileKey = new FileKey(projDetails, CollectUtility.toPath(projDetails, editedFile.path));
-            editedFile.anonSource = Arrays.asList(Utility.splitLines(CodeAnonymiser.anonymise(editedFile.source)));
         }
                 
         submitEvent(proj, pkg, EventName.EDIT, new Event() {
@@ -487,12 +574,18 @@ public class DataCollectorImpl
                 for (EditedFileInfo editedFile : editedFiles)
                 {
 
+                    String anonymised = CodeAnonymiser.anonymise(editedFile.source);
+                    editedFile.anonSource = Arrays.asList(Utility.splitLines(anonymised));
+
                     List<String> previousDoc = fileVersions.get(editedFile.fileKey);
-                    if (previousDoc == null)
+                    // If we don't have the version the server has (e.g. it has been dropped
+                    // from fileVersions), we can't send a diff, so send the whole file:
+                    boolean complete = previousDoc == null;
+                    if (complete)
                         previousDoc = new ArrayList<String>(); // Diff against empty file
 
 
-                    Patch patch = DiffUtils.diff(previousDoc, editedFile.anonSource);
+                    Patch patch = diffLines(previousDoc, editedFile.anonSource);
 
                     if (patch.getDeltas().isEmpty() || (isOneLineDiff(patch) && !editedFile.includeOneLineEdits))
                     {
@@ -500,9 +593,15 @@ public class DataCollectorImpl
                         continue;
                     }
 
-                    String diff = makeDiff(patch);
-
-                    addSourceHistoryItem(mpe, CollectUtility.toPath(projDetails, editedFile.path), editedFile.editType, diff, editedFile.generatedFrom == null ? null : CollectUtility.toPath(projDetails, editedFile.generatedFrom));
+                    String generatedFrom = editedFile.generatedFrom == null ? null : CollectUtility.toPath(projDetails, editedFile.generatedFrom);
+                    if (complete)
+                    {
+                        addSourceHistoryItem(mpe, CollectUtility.toPath(projDetails, editedFile.path), "complete", anonymised, generatedFrom);
+                    }
+                    else
+                    {
+                        addSourceHistoryItem(mpe, CollectUtility.toPath(projDetails, editedFile.path), editedFile.editType, makeDiff(patch), generatedFrom);
+                    }
 
                     if (editedFile.strideEditReason != null && editedFile.strideEditReason.getText() != null)
                     {
@@ -534,6 +633,57 @@ public class DataCollectorImpl
         });
     }
     
+    /**
+     * Diff two versions of a file.  Usually only a few lines have changed, so the lines
+     * which are the same at the start and end are skipped before diffing the rest.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @OnThread(Tag.Any)
+    // protected for testing purposes
+    protected static Patch diffLines(List<String> original, List<String> revised)
+    {
+        int maxCommon = Math.min(original.size(), revised.size());
+        int prefix = 0;
+        while (prefix < maxCommon && original.get(prefix).equals(revised.get(prefix)))
+        {
+            prefix += 1;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && original.get(original.size() - 1 - suffix).equals(revised.get(revised.size() - 1 - suffix)))
+        {
+            suffix += 1;
+        }
+
+        Patch middle = DiffUtils.diff(original.subList(prefix, original.size() - suffix),
+                revised.subList(prefix, revised.size() - suffix));
+        if (prefix == 0)
+        {
+            return middle;
+        }
+
+        // Move the deltas to their positions in the whole file:
+        Patch patch = new Patch();
+        for (Delta delta : (List<Delta>)middle.getDeltas())
+        {
+            Chunk orig = new Chunk(delta.getOriginal().getPosition() + prefix, delta.getOriginal().getLines());
+            Chunk rev = new Chunk(delta.getRevised().getPosition() + prefix, delta.getRevised().getLines());
+            if (delta instanceof InsertDelta)
+            {
+                patch.addDelta(new InsertDelta(orig, rev));
+            }
+            else if (delta instanceof DeleteDelta)
+            {
+                patch.addDelta(new DeleteDelta(orig, rev));
+            }
+            else
+            {
+                patch.addDelta(new ChangeDelta(orig, rev));
+            }
+        }
+        return patch;
+    }
+
     @SuppressWarnings("unchecked")
     @OnThread(Tag.Any)
     // protected for testing purposes
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2013,2016,2018,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 2013,2016,2018,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,24 +26,15 @@ import bluej.Config;
 import bluej.extensions2.event.ApplicationEvent;
 import bluej.extmgr.ExtensionsManager;
 import bluej.pkgmgr.Project;
+import bluej.utility.Debug;
 import javafx.application.Platform;
-import org.apache.http.Header;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.mime.MultipartEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.HttpConnectionParams;
-import org.apache.http.params.HttpParams;
-import org.apache.http.util.EntityUtils;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import javax.swing.*;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +43,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * This class that handles submitting compilation data to the remote server.
  * 
+ * Events are formed into requests in order, and put in an EventSpool (on disk), from
+ * which a SpoolSender sends them.  Events which can't be sent, because the network or
+ * the server is down, are retried, and are kept to be sent in a later session.
+ * 
  * The class has nothing to do with collecting the data, and deliberately
  * does not depend on any other BlueJ classes.  Package-visible.
  * 
@@ -63,6 +58,10 @@ class DataSubmitter
         //For testing:
         //"http://localhost:3000/master_events";
 
+    // How long sending can fail for before we give up (for this session):
+    private static final long GIVE_UP_MILLIS = 5 * 60 * 1000;
+    // The number of files whose last sent version we keep, to send diffs against:
+    private static final int MAX_FILE_VERSIONS = 200;
     
     private static AtomicBoolean givenUp = new AtomicBoolean(false);
     
@@ -76,12 +75,27 @@ class DataSubmitter
     private static int sequenceNum;
 
     /**
-     * The versions of the files as we have last sent them to the server.
+     * The spool of events waiting to be sent, and its sender.  Created when the first
+     * event is submitted; only touched while synchronized on queue.
+     */
+    private static EventSpool spool;
+    private static SpoolSender sender;
+
+    /**
+     * The versions of the files as we have last sent them to the server, least recently
+     * used first.  If a file's version has been dropped, the next edit of the file sends its
+     * whole content (a "complete" source history) rather than a diff.
      * 
-     * Should only be accessed by the postData method, which is running on
-     * the event-sending thread
+     * Should only be accessed by the processQueue method, which is running on
+     * the event-processing thread
      */
-    private static Map<FileKey, List<String> > fileVersions = new HashMap<FileKey, List<String> >();
+    private static Map<FileKey, List<String> > fileVersions = new LinkedHashMap<FileKey, List<String> >(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileKey, List<String>> eldest)
+        {
+            return size() > MAX_FILE_VERSIONS;
+        }
+    };
     
     /**
      * Submit data to be posted to the server. The data is added to a queue which is processed by
@@ -98,6 +112,13 @@ class DataSubmitter
         synchronized (queue) {
             queue.add(evt);
             
+            if (spool == null) {
+                spool = new EventSpool(Config.getUserConfigFile("blackbox-spool"));
+                int timeout = Boot.isTrialRecording() ? 30000 : 10000;
+                sender = new SpoolSender(spool, submitUrl, timeout, GIVE_UP_MILLIS, DataSubmitter::giveUp);
+                sender.start();
+            }
+            
             if (! isRunning) {
                 new Thread("Process Blackbox queue") {
                     @OnThread(value = Tag.Worker, ignoreParent = true)
@@ -112,13 +133,15 @@ class DataSubmitter
     }
     
     /**
-     * Process the queue of items to be posted to the server.
+     * Process the queue of items to be posted to the server, forming each into a request
+     * and adding it to the spool.
      */
     @OnThread(Tag.Worker)
     private static void processQueue()
     {
         while (true) {
             Event evt;
+            EventSpool eventSpool;
             synchronized (queue) {
                 if (queue.isEmpty()) {
                     isRunning = false;
@@ -126,89 +149,74 @@ class DataSubmitter
                     return;
                 }
                 evt = queue.remove(0);
+                eventSpool = spool;
             }
-            
 
             if (!givenUp.get())
             {
-                givenUp.set(!postData(evt));
-                // If we just gave up on this event:
-                if (givenUp.get())
-                {
-                    Platform.runLater(() ->
-                    {
-                        ExtensionsManager.getInstance().delegateEvent(new ApplicationEvent(ApplicationEvent.EventType.DATA_SUBMISSION_FAILED_EVENT));
-                        if (Boot.isTrialRecording()) {
-                            // If we just gave up, and we are specifically in a trial, show a dialog
-                            // to the user warning them of this:
-                            new DataSubmissionFailedDialog().show();
-                            Project.getProjects().forEach(project -> project.setAllEditorStatus(" - NOT RECORDING"));
-                        }
-                    });
-                }
+                spoolData(evt, eventSpool);
             }
         }
     }
     
     /**
-     * Actually post the data to the server.
-     * 
-     * Returns false if there was an error.
+     * Form the request for an event, and add it to the spool.
      */
     @OnThread(Tag.Worker)
-    private static boolean postData(Event evt)
-    {   
-        HttpParams params = new BasicHttpParams();
-        HttpConnectionParams.setConnectionTimeout(params, Boot.isTrialRecording() ? 30000 : 10000);
-        HttpConnectionParams.setSoTimeout(params, Boot.isTrialRecording() ? 30000 : 10000);
-        HttpClient client = new DefaultHttpClient(params);
-        
-        try {
-            HttpPost post = new HttpPost(submitUrl);
-
-            MultipartEntity mpe = evt.makeData(sequenceNum, fileVersions);
-            if (mpe == null)
-            {
-                return true; // nothing to send, no error
-            }
-            
-            //Only increment sequence number if we actually send data:
-            sequenceNum += 1;
-            post.setEntity(mpe);
-            HttpResponse response = client.execute(post);
-            
-            for (Header h : response.getAllHeaders())
-            {
-                if ("X-Status".equals(h.getName()) && !"Created".equals(h.getValue()))
-                {
-                    return false;
-                }
-            }
-            
-            if (response.getStatusLine().getStatusCode() != 200)
-            {
-                return false;
-            }
-            
-            evt.success(fileVersions);
-                
-            EntityUtils.consume(response.getEntity());
+    private static void spoolData(Event evt, EventSpool eventSpool)
+    {
+        MultipartEntity mpe = evt.makeData(sequenceNum, fileVersions);
+        if (mpe == null)
+        {
+            return; // nothing to send, no error
         }
-        catch (ClientProtocolException cpe) {
-            return false;
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try
+        {
+            mpe.writeTo(body);
         }
-        catch (IOException ioe) {
-            //For now:
-            ioe.printStackTrace();
-            
-            return false;
+        catch (IOException ioe)
+        {
+            Debug.reportError("Could not form Blackbox event", ioe);
+            giveUp();
+            return;
         }
         
-        return true;
+        //Only increment sequence number if we actually send data:
+        sequenceNum += 1;
+        eventSpool.add(mpe.getContentType().getValue(), body.toByteArray());
+        
+        // Events are sent in order, so later events can be diffed against this one
+        // as soon as it is spooled:
+        evt.success(fileVersions);
     }
     
     /**
-     * Waits until all pending events have been sent to the server, or the timeout expires.  If events are still being added in parallel
+     * Stop recording events, and tell the user (and extensions).
+     */
+    @OnThread(Tag.Worker)
+    private static void giveUp()
+    {
+        // If we just gave up:
+        if (!givenUp.getAndSet(true))
+        {
+            Platform.runLater(() ->
+            {
+                ExtensionsManager.getInstance().delegateEvent(new ApplicationEvent(ApplicationEvent.EventType.DATA_SUBMISSION_FAILED_EVENT));
+                if (Boot.isTrialRecording()) {
+                    // If we just gave up, and we are specifically in a trial, show a dialog
+                    // to the user warning them of this:
+                    new DataSubmissionFailedDialog().show();
+                    Project.getProjects().forEach(project -> project.setAllEditorStatus(" - NOT RECORDING"));
+                }
+            });
+        }
+    }
+    
+    /**
+     * Waits until all pending events have been sent to the server, or the timeout expires.  Events
+     * not sent by then stay in the spool, to be sent in a later session.  If events are still being added in parallel
      * to this call, there will be undefined behaviour.
      */
     public static void waitForQueueFlush(int maxMillis)
@@ -235,6 +243,17 @@ class DataSubmitter
         {
             //Just finish anyway...
         }
+        
+        EventSpool eventSpool;
+        synchronized (queue)
+        {
+            eventSpool = spool;
+        }
+        long waitTime = endTime - System.currentTimeMillis();
+        if (eventSpool != null && waitTime > 0)
+        {
+            eventSpool.waitUntilEmpty(waitTime);
+        }
     }
 
     public static void initSequence()
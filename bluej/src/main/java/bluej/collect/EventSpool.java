@@ -0,0 +1,574 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A spool of events (already formed into HTTP request bodies) waiting to be sent to the
+ * Blackbox server.  The events are kept on disk, so that events which could not be sent
+ * (e.g. because the server or the network was down) are sent in a later session.
+ *
+ * <p>The events are stored in segment files, which are only ever appended to.  Each
+ * record in a segment has a checksum, so that a record only partly written (because
+ * BlueJ was killed) is ignored.  The number of records sent from each segment is kept
+ * in a small file beside it, and a segment is deleted once all its records have been sent.
+ * A new segment is started in each session, and when the current one gets large.
+ * Each segment's name includes the number of the first segment of its session, so that
+ * the events of one session can be told apart from another's (see removeSession).
+ *
+ * <p>Only one BlueJ at a time can use the spool directory.  If it is in use (or can't
+ * be used), events are only spooled in memory.
+ *
+ * <p>The spool is thread-safe.
+ */
+@OnThread(Tag.Any)
+class EventSpool
+{
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SENT_SUFFIX = ".sent";
+    private static final String SESSION_SEPARATOR = "-";
+    private static final long MAX_SEGMENT_SIZE = 1024 * 1024;
+
+    /**
+     * An event in the spool.
+     */
+    static class Record
+    {
+        final String contentType;
+        final byte[] body;
+        // The session the record was added in:
+        final long session;
+        // The segment the record is in, or null if only in memory:
+        private final Segment segment;
+
+        private Record(String contentType, byte[] body, long session, Segment segment)
+        {
+            this.contentType = contentType;
+            this.body = body;
+            this.session = session;
+            this.segment = segment;
+        }
+    }
+
+    /**
+     * A segment file, with the position of each record in it which has not yet been sent.
+     */
+    private static class Segment
+    {
+        private final File file;
+        private final File sentFile;
+        // The number of the first segment of the session this segment was written in:
+        private final long session;
+        private final LinkedList<Long> unsentOffsets = new LinkedList<>();
+        private int sentCount;
+        private long length;
+
+        private Segment(File dir, long number, long session)
+        {
+            String name = String.format("%016d", number) + SESSION_SEPARATOR + String.format("%016d", session);
+            this.file = new File(dir, name + SEGMENT_SUFFIX);
+            this.sentFile = new File(dir, name + SENT_SUFFIX);
+            this.session = session;
+        }
+    }
+
+    // The directory, or null if spooling in memory only:
+    private final File dir;
+    // Held while we are using the directory:
+    private FileLock dirLock;
+    // Segments in order, oldest first; the last one may be the one being written:
+    private final LinkedList<Segment> segments = new LinkedList<>();
+    private long nextSegmentNumber = 1;
+    // The session number of this session, i.e. the number of its first segment:
+    private final long session;
+    // The channel for writing to the last segment, or null if not yet writing:
+    private FileChannel currentChannel;
+    // Set if writing to disk has failed, after which we spool in memory only:
+    private boolean diskFailed;
+    // Records held in memory only.  These always follow any records on disk:
+    private final LinkedList<Record> memoryRecords = new LinkedList<>();
+    // Records read from disk by peek(), which have not yet been removed:
+    private Record nextRecord;
+
+    /**
+     * Open the spool in the given directory, reading any events left unsent by a previous
+     * session.
+     * 
+     * @param dir  The spool directory, or null to spool in memory only.
+     */
+    EventSpool(File dir)
+    {
+        File usedDir = null;
+        if (dir != null)
+        {
+            try
+            {
+                Files.createDirectories(dir.toPath());
+                FileChannel lockChannel = FileChannel.open(new File(dir, "spool.lock").toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                try
+                {
+                    dirLock = lockChannel.tryLock();
+                }
+                catch (OverlappingFileLockException e)
+                {
+                    // Already in use by this BlueJ
+                }
+                if (dirLock == null)
+                {
+                    // Another BlueJ is using the spool:
+                    lockChannel.close();
+                }
+                else
+                {
+                    usedDir = dir;
+                    readSegments(dir);
+                }
+            }
+            catch (IOException e)
+            {
+                Debug.message("Could not open Blackbox spool: " + e.getMessage());
+                segments.clear();
+                usedDir = null;
+            }
+        }
+        this.dir = usedDir;
+        this.session = nextSegmentNumber;
+    }
+
+    /**
+     * Read the segments in the directory, and the records not yet sent from them.
+     */
+    private void readSegments(File dir) throws IOException
+    {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        // Pairs of segment number and session number:
+        List<long[]> numbers = new ArrayList<>();
+        for (File file : files == null ? new File[0] : files)
+        {
+            String name = file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length());
+            int separator = name.indexOf(SESSION_SEPARATOR);
+            try
+            {
+                if (separator != -1)
+                {
+                    numbers.add(new long[] {Long.parseLong(name.substring(0, separator)), Long.parseLong(name.substring(separator + 1))});
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                // Not one of ours
+            }
+        }
+        numbers.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        for (long[] number : numbers)
+        {
+            nextSegmentNumber = number[0] + 1;
+            Segment segment = new Segment(dir, number[0], number[1]);
+            segment.sentCount = readSentCount(segment);
+            try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                long offset = 0;
+                int index = 0;
+                while (readRecord(channel, offset) != null)
+                {
+                    if (index >= segment.sentCount)
+                    {
+                        segment.unsentOffsets.add(offset);
+                    }
+                    offset = channel.position();
+                    index += 1;
+                }
+                // Discard any partly written record at the end:
+                channel.truncate(offset);
+                segment.length = offset;
+            }
+
+            if (segment.unsentOffsets.isEmpty())
+            {
+                delete(segment);
+            }
+            else
+            {
+                segments.add(segment);
+            }
+        }
+    }
+
+    private static int readSentCount(Segment segment)
+    {
+        try
+        {
+            return Integer.parseInt(new String(Files.readAllBytes(segment.sentFile.toPath()), StandardCharsets.UTF_8).trim());
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * Read the record at the given offset, leaving the channel positioned after it.
+     * Returns null if there is no complete, valid record there.
+     */
+    private static Record readRecord(FileChannel channel, long offset) throws IOException
+    {
+        channel.position(offset);
+        ByteBuffer header = ByteBuffer.allocate(8);
+        if (!readFully(channel, header))
+        {
+            return null;
+        }
+        int contentTypeLength = header.getInt(0);
+        int bodyLength = header.getInt(4);
+        if (contentTypeLength < 0 || bodyLength < 0 || offset + 12L + contentTypeLength + bodyLength > channel.size())
+        {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.allocate(contentTypeLength + bodyLength + 4);
+        if (!readFully(channel, data))
+        {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        crc.update(data.array(), 0, contentTypeLength + bodyLength);
+        if ((int)crc.getValue() != data.getInt(contentTypeLength + bodyLength))
+        {
+            return null;
+        }
+        String contentType = new String(data.array(), 0, contentTypeLength, StandardCharsets.UTF_8);
+        byte[] body = new byte[bodyLength];
+        System.arraycopy(data.array(), contentTypeLength, body, 0, bodyLength);
+        return new Record(contentType, body, 0, null);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add an event to the end of the spool.  When this returns, the event is on disk
+     * (unless spooling in memory only).
+     */
+    synchronized void add(String contentType, byte[] body)
+    {
+        if (dir != null && !diskFailed)
+        {
+            try
+            {
+                append(contentType, body);
+                notifyAll();
+                return;
+            }
+            catch (IOException e)
+            {
+                Debug.message("Could not write to Blackbox spool: " + e.getMessage());
+                // Keep the events in order, by not writing any more to disk:
+                diskFailed = true;
+                closeCurrent();
+            }
+        }
+        memoryRecords.add(new Record(contentType, body, session, null));
+        notifyAll();
+    }
+
+    private void append(String contentType, byte[] body) throws IOException
+    {
+        Segment current = segments.peekLast();
+        if (currentChannel == null || current.length >= MAX_SEGMENT_SIZE)
+        {
+            closeCurrent();
+            current = new Segment(dir, nextSegmentNumber++, session);
+            currentChannel = FileChannel.open(current.file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            segments.add(current);
+        }
+
+        byte[] contentTypeBytes = contentType.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(contentTypeBytes.length + body.length + 12);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(contentTypeBytes.length);
+        out.writeInt(body.length);
+        out.write(contentTypeBytes);
+        out.write(body);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int)crc.getValue());
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        currentChannel.position(current.length);
+        while (buffer.hasRemaining())
+        {
+            currentChannel.write(buffer);
+        }
+        currentChannel.force(false);
+        current.unsentOffsets.add(current.length);
+        current.length += buffer.capacity();
+    }
+
+    /**
+     * Get the first event in the spool, without removing it, waiting until there is one.
+     * 
+     * @return  The event, or null if the thread is interrupted.
+     */
+    synchronized Record peek()
+    {
+        while (true)
+        {
+            if (nextRecord != null)
+            {
+                return nextRecord;
+            }
+
+            Segment segment = segments.peekFirst();
+            if (segment != null && !segment.unsentOffsets.isEmpty())
+            {
+                try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ))
+                {
+                    Record record = readRecord(channel, segment.unsentOffsets.getFirst());
+                    if (record != null)
+                    {
+                        nextRecord = new Record(record.contentType, record.body, segment.session, segment);
+                        return nextRecord;
+                    }
+                }
+                catch (IOException e)
+                {
+                    Debug.message("Could not read from Blackbox spool: " + e.getMessage());
+                }
+                // We can't read the record; skip it:
+                nextRecord = new Record(null, null, segment.session, segment);
+                remove(nextRecord);
+                continue;
+            }
+            if (!memoryRecords.isEmpty())
+            {
+                return memoryRecords.getFirst();
+            }
+
+            try
+            {
+                wait();
+            }
+            catch (InterruptedException e)
+            {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Remove the given event (which must have been returned by peek()), after it has
+     * been sent.
+     */
+    synchronized void remove(Record record)
+    {
+        if (record.segment == null)
+        {
+            memoryRecords.remove(record);
+        }
+        else
+        {
+            Segment segment = record.segment;
+            segment.unsentOffsets.removeFirst();
+            segment.sentCount += 1;
+            nextRecord = null;
+            updateSent(segment);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Remove all the events of the given session (that of a record returned by peek()),
+     * e.g. because the server has rejected one, and so can't make sense of the rest.
+     * 
+     * @return The number of events removed.
+     */
+    synchronized int removeSession(long session)
+    {
+        int removed = 0;
+        for (Segment segment : new ArrayList<>(segments))
+        {
+            if (segment.session == session)
+            {
+                removed += segment.unsentOffsets.size();
+                segment.sentCount += segment.unsentOffsets.size();
+                segment.unsentOffsets.clear();
+                if (nextRecord != null && nextRecord.segment == segment)
+                {
+                    nextRecord = null;
+                }
+                updateSent(segment);
+            }
+        }
+        if (session == this.session)
+        {
+            removed += memoryRecords.size();
+            memoryRecords.clear();
+        }
+        notifyAll();
+        return removed;
+    }
+
+    /**
+     * Record how many of a segment's events have been sent, deleting the segment if
+     * they all have (and it is not still being written).
+     */
+    private void updateSent(Segment segment)
+    {
+        boolean writing = segment == segments.peekLast() && currentChannel != null;
+        if (segment.unsentOffsets.isEmpty() && (!writing || segment.length >= MAX_SEGMENT_SIZE))
+        {
+            // Finished with this segment:
+            if (writing)
+            {
+                closeCurrent();
+            }
+            segments.remove(segment);
+            delete(segment);
+        }
+        else
+        {
+            try
+            {
+                Files.write(segment.sentFile.toPath(), Integer.toString(segment.sentCount).getBytes(StandardCharsets.UTF_8));
+            }
+            catch (IOException e)
+            {
+                // The worst that can happen is that the event is sent again in a later session
+                Debug.message("Could not write to Blackbox spool: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the number of events in the spool.
+     */
+    synchronized int size()
+    {
+        int size = memoryRecords.size();
+        for (Segment segment : segments)
+        {
+            size += segment.unsentOffsets.size();
+        }
+        return size;
+    }
+
+    /**
+     * Wait until the spool is empty, or the given time has passed.
+     * 
+     * @return true if the spool is empty.
+     */
+    synchronized boolean waitUntilEmpty(long maxMillis)
+    {
+        long endTime = System.currentTimeMillis() + maxMillis;
+        try
+        {
+            while (size() > 0)
+            {
+                long waitTime = endTime - System.currentTimeMillis();
+                if (waitTime <= 0)
+                {
+                    return false;
+                }
+                wait(waitTime);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Just finish
+        }
+        return size() == 0;
+    }
+
+    /**
+     * Close the spool's files.  Events not yet sent stay on disk, and are sent in a
+     * later session.
+     */
+    synchronized void close()
+    {
+        closeCurrent();
+        if (dirLock != null)
+        {
+            try
+            {
+                dirLock.channel().close();
+            }
+            catch (IOException e)
+            {
+                // Nothing to do
+            }
+            dirLock = null;
+        }
+    }
+
+    private void closeCurrent()
+    {
+        if (currentChannel != null)
+        {
+            try
+            {
+                currentChannel.close();
+            }
+            catch (IOException e)
+            {
+                // Nothing to do
+            }
+            currentChannel = null;
+        }
+    }
+
+    private static void delete(Segment segment)
+    {
+        segment.file.delete();
+        segment.sentFile.delete();
+    }
+}
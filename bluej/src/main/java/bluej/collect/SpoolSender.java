@@ -0,0 +1,261 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.util.EntityUtils;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Sends the events in an EventSpool to the server, in order, on its own thread.  One
+ * HTTP client (and so one kept-alive connection) is used for all the events.
+ *
+ * <p>If an event can't be sent because of a network or server error, it is tried
+ * again after a delay, which doubles after each failure (up to a maximum).  If the
+ * server rejects an event, or sending has failed for longer than a given time, the
+ * failure listener is called (once); events which can be sent are still sent after that.
+ * The later events of a session in which an event was rejected are not sent, since
+ * they may be diffs against the content of the rejected event.
+ */
+class SpoolSender
+{
+    private static final long INITIAL_RETRY_DELAY = 1000;
+    // A connection idle for longer than this is closed rather than re-used, since the
+    // server may have closed it (see post):
+    private static final long MAX_IDLE_MILLIS = 2000;
+    private static final long MAX_RETRY_DELAY = 5 * 60 * 1000;
+
+    private static enum Result { SENT, REJECTED, FAILED }
+
+    private final EventSpool spool;
+    private final String url;
+    private final long failureMillis;
+    private final Runnable failureListener;
+    private final HttpClient client;
+    private final Thread thread;
+
+    private volatile boolean stopped;
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private int sentCount;
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private int failedCount;
+
+    /**
+     * Construct a SpoolSender.  Call start() to start sending.
+     * 
+     * @param spool            The spool to send from
+     * @param url              The URL to post each event to
+     * @param timeoutMillis    The connection and read timeout for each post
+     * @param failureMillis    How long sending may fail for before failureListener is called
+     * @param failureListener  Called (on the sending thread) if sending fails
+     */
+    @OnThread(Tag.Any)
+    SpoolSender(EventSpool spool, String url, int timeoutMillis, long failureMillis, Runnable failureListener)
+    {
+        this.spool = spool;
+        this.url = url;
+        this.failureMillis = failureMillis;
+        this.failureListener = failureListener;
+
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, timeoutMillis);
+        HttpConnectionParams.setSoTimeout(params, timeoutMillis);
+        // The stale check blocks for a millisecond before each re-use of the connection,
+        // which limits us to well under 1000 events/s; we close idle connections instead:
+        HttpConnectionParams.setStaleCheckingEnabled(params, false);
+        client = new DefaultHttpClient(params);
+
+        thread = new Thread("Send Blackbox events") {
+            @OnThread(value = Tag.Worker, ignoreParent = true)
+            public void run()
+            {
+                sendEvents();
+            }
+        };
+        thread.setDaemon(true);
+    }
+
+    @OnThread(Tag.Any)
+    void start()
+    {
+        thread.start();
+    }
+
+    /**
+     * Stop sending.  Events not yet sent stay in the spool.
+     */
+    @OnThread(Tag.Any)
+    void stop()
+    {
+        stopped = true;
+        thread.interrupt();
+        try
+        {
+            thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            // Just finish
+        }
+        client.getConnectionManager().shutdown();
+    }
+
+    /**
+     * Get the number of events sent, and the number of failed attempts to send an event.
+     */
+    @OnThread(Tag.Any)
+    synchronized int[] getCounts()
+    {
+        return new int[] {sentCount, failedCount};
+    }
+
+    @OnThread(Tag.Worker)
+    private void sendEvents()
+    {
+        long retryDelay = INITIAL_RETRY_DELAY;
+        long failingSince = 0;
+        long lastPost = 0;
+        boolean reportedFailure = false;
+        while (!stopped)
+        {
+            EventSpool.Record record = spool.peek();
+            if (record == null)
+            {
+                return; // Interrupted
+            }
+
+            // Without the stale check, a connection the server has closed while idle would
+            // fail the post, so don't re-use it:
+            if (System.currentTimeMillis() - lastPost > MAX_IDLE_MILLIS)
+            {
+                client.getConnectionManager().closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            }
+            Result result = post(record);
+            lastPost = System.currentTimeMillis();
+            synchronized (this)
+            {
+                if (result == Result.SENT)
+                {
+                    sentCount += 1;
+                }
+                else
+                {
+                    failedCount += 1;
+                }
+            }
+
+            if (result == Result.SENT)
+            {
+                spool.remove(record);
+                retryDelay = INITIAL_RETRY_DELAY;
+                failingSince = 0;
+                continue;
+            }
+
+            if (result == Result.REJECTED)
+            {
+                // Sending it again won't help, and the server can't make sense of the
+                // rest of the session without it:
+                spool.removeSession(record.session);
+            }
+            else if (failingSince == 0)
+            {
+                failingSince = System.currentTimeMillis();
+            }
+
+            if (!reportedFailure && (result == Result.REJECTED || System.currentTimeMillis() - failingSince >= failureMillis))
+            {
+                reportedFailure = true;
+                failureListener.run();
+            }
+
+            if (result == Result.FAILED)
+            {
+                try
+                {
+                    Thread.sleep(retryDelay);
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Post one event to the server.
+     */
+    @OnThread(Tag.Worker)
+    private Result post(EventSpool.Record record)
+    {
+        HttpPost post = new HttpPost(url);
+        ByteArrayEntity entity = new ByteArrayEntity(record.body);
+        entity.setContentType(record.contentType);
+        post.setEntity(entity);
+        try
+        {
+            HttpResponse response = client.execute(post);
+            try
+            {
+                for (Header h : response.getAllHeaders())
+                {
+                    if ("X-Status".equalsIgnoreCase(h.getName()) && !"Created".equals(h.getValue()))
+                    {
+                        return Result.REJECTED;
+                    }
+                }
+
+                int status = response.getStatusLine().getStatusCode();
+                if (status == 200)
+                {
+                    return Result.SENT;
+                }
+                // Server errors, timeouts and rate limiting may go away:
+                return status >= 500 || status == 408 || status == 429 ? Result.FAILED : Result.REJECTED;
+            }
+            finally
+            {
+                // Releases the connection for the next post:
+                EntityUtils.consume(response.getEntity());
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            post.abort();
+            return Result.FAILED;
+        }
+    }
+}
@@ -128,6 +128,16 @@ public abstract class DebuggerObject
      */
     public abstract String getElementValueString(int index);
 
+    /**
+     * Discard any field or element values which have been cached from the debug VM,
+     * so that they will be fetched afresh when next requested. Cached values are
+     * otherwise discarded automatically when a debug VM thread is halted or resumed,
+     * but this must be called before re-reading values from a VM that is running freely.
+     */
+    public void discardCachedValues()
+    {
+    }
+
     /**
      * Return the JDI object. This exposes the JDI to Inspectors.
      * If JDI is not being used, it should return null.
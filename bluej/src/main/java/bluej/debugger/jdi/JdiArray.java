@@ -21,6 +21,10 @@
  */
 package bluej.debugger.jdi;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import bluej.debugger.DebuggerObject;
 import bluej.debugger.gentype.GenTypeArray;
 import bluej.debugger.gentype.GenTypeArrayClass;
@@ -43,7 +47,27 @@ import threadchecker.Tag;
  */
 public class JdiArray extends JdiObject
 {
+    // Elements are fetched from the debug VM in windows of this many elements:
+    private static final int WINDOW_SIZE = 128;
+    // The maximum number of windows cached at once:
+    private static final int MAX_CACHED_WINDOWS = 32;
+    
     private JavaType componentType;
+    
+    @OnThread(Tag.Any)
+    private int length = -1; // lazily fetched; the length of an array never changes
+    
+    // Cached element windows, keyed by window number, valid for the epoch windowsEpoch:
+    @OnThread(Tag.Any)
+    private final Map<Integer, List<Value>> cachedWindows = new LinkedHashMap<Integer, List<Value>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Value>> eldest)
+        {
+            return size() > MAX_CACHED_WINDOWS;
+        }
+    };
+    @OnThread(Tag.Any)
+    private int windowsEpoch;
 
     @OnThread(Tag.Any)
     protected JdiArray(ArrayReference obj)
@@ -166,9 +190,46 @@ public class JdiArray extends JdiObject
     }
 
     @Override
-    public int getElementCount()
+    @OnThread(Tag.Any)
+    public synchronized int getElementCount()
+    {
+        if (length == -1) {
+            length = ((ArrayReference) obj).length();
+        }
+        return length;
+    }
+    
+    /**
+     * Get the value of an array element. Elements are fetched from the debug VM
+     * a window at a time, and the window is cached until the value epoch changes,
+     * so that displaying a range of elements requires only one round trip.
+     */
+    @OnThread(Tag.Any)
+    private synchronized Value getElementValue(int index)
+    {
+        int epoch = getValueEpoch();
+        if (epoch != windowsEpoch) {
+            cachedWindows.clear();
+            windowsEpoch = epoch;
+        }
+        
+        int window = index / WINDOW_SIZE;
+        List<Value> values = cachedWindows.get(window);
+        if (values == null) {
+            int start = window * WINDOW_SIZE;
+            int count = Math.min(WINDOW_SIZE, getElementCount() - start);
+            values = ((ArrayReference) obj).getValues(start, count);
+            cachedWindows.put(window, values);
+        }
+        return values.get(index - window * WINDOW_SIZE);
+    }
+    
+    @Override
+    @OnThread(Tag.Any)
+    public synchronized void discardCachedValues()
     {
-        return ((ArrayReference) obj).length();
+        super.discardCachedValues();
+        cachedWindows.clear();
     }
     
     @Override
@@ -180,7 +241,7 @@ public class JdiArray extends JdiObject
     @Override
     public String getElementValueString(int index)
     {
-        Value val = ((ArrayReference) obj).getValue(index);
+        Value val = getElementValue(index);
         return JdiUtils.getJdiUtils().getValueString(val);
     }
 
@@ -194,7 +255,7 @@ public class JdiArray extends JdiObject
     @OnThread(Tag.FXPlatform)
     public DebuggerObject getElementObject(int index)
     {
-        Value val = ((ArrayReference) obj).getValue(index);
+        Value val = getElementValue(index);
         return JdiObject.getDebuggerObject((ObjectReference) val, componentType);
     }
 }
@@ -616,40 +616,14 @@ public class JdiDebugger extends Debugger
                 int i = 1;
                 while (i < arrayRef.length())
                 {
-                    
-                    String actualMethodName = ((StringReference) arrayRef.getValue(i)).value();
-                    String displayTestName = ((StringReference) arrayRef.getValue(i + 1)).value();
-                    String failureType = ((StringReference) arrayRef.getValue(i + 8)).value();
-                    
-                    if (failureType.equals("success"))
-                    {
-                        results.add(new JdiTestResult(className, actualMethodName, displayTestName, 0));
-                        
-                    }
-                    else
+                    String[] details = new String[JdiTestResult.RESULT_DETAILS_LENGTH];
+                    for (int j = 0; j < details.length; j++)
                     {
-                        String exMsg = ((StringReference) arrayRef.getValue(i + 2)).value();
-                        String traceMsg = ((StringReference) arrayRef.getValue(i + 3)).value();
-                        String failureClass = ((StringReference) arrayRef.getValue(i + 4)).value();
-                        String failureSource = ((StringReference) arrayRef.getValue(i + 5)).value();
-                        String failureMethod = ((StringReference) arrayRef.getValue(i + 6)).value();
-                        int lineNo = Integer.parseInt(((StringReference) arrayRef.getValue(i + 7)).value());
-                        SourceLocation failPoint = new SourceLocation(failureClass, failureSource,
-                                failureMethod, lineNo);
-
-                        if (failureType.equals("failure"))
-                        {
-                            results.add(new JdiTestResultFailure(className, actualMethodName, displayTestName, exMsg, traceMsg,
-                                    failPoint, 0));
-                        }
-                        else
-                        {
-                            results.add(new JdiTestResultError(className, actualMethodName, displayTestName, exMsg, traceMsg,
-                                    failPoint, 0));
-                        }
+                        details[j] = ((StringReference) arrayRef.getValue(i + j)).value();
                     }
+                    results.add(JdiTestResult.fromDetails(className, details));
 
-                    i = i + 9;
+                    i = i + JdiTestResult.RESULT_DETAILS_LENGTH;
                 }
                 testResultsWithRunTime.setTotalRunTime(runTimeMs);
                 testResultsWithRunTime.setResults(results);
@@ -874,6 +848,7 @@ public class JdiDebugger extends Debugger
             ll = listenerList.toArray(new DebuggerListener[listenerList.size()]);
             machineState = newState;
         }
+        JdiObject.advanceValueEpoch();
         
         for (DebuggerListener l : ll) {
             l.processDebuggerEvent(new DebuggerEvent(this, DebuggerEvent.DEBUGGER_STATECHANGED,
@@ -1238,6 +1213,7 @@ public class JdiDebugger extends Debugger
     @OnThread(Tag.VMEventHandler)
     void threadHalted(final JdiThread thread)
     {
+        JdiObject.advanceValueEpoch();
         DebuggerEvent event = new DebuggerEvent(this, DebuggerEvent.THREAD_HALT_UNKNOWN, thread, null);
         
         boolean skipUpdate = false;
@@ -1262,6 +1238,7 @@ public class JdiDebugger extends Debugger
     @OnThread(Tag.VMEventHandler)
     void threadResumed(final JdiThread thread)
     {
+        JdiObject.advanceValueEpoch();
         DebuggerEvent event = new DebuggerEvent(this, DebuggerEvent.THREAD_CONTINUE, thread, null);
         
         boolean skipUpdate = false;
@@ -85,7 +85,7 @@ public class JdiField extends DebuggerField
     {
         Value value;
         if (object != null) {
-            value = object.obj.getValue(field);
+            value = object.getFieldValue(field);
         }
         else {
             value = field.declaringType().getValue(field);
@@ -100,7 +100,7 @@ public class JdiField extends DebuggerField
     {
         Value value;
         if (object != null) {
-            value = object.obj.getValue(field);
+            value = object.getFieldValue(field);
         }
         else {
             value = field.declaringType().getValue(field);
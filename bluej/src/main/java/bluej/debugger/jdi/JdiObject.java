@@ -22,8 +22,11 @@
 package bluej.debugger.jdi;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import bluej.debugger.DebuggerClass;
 import bluej.debugger.DebuggerField;
@@ -36,6 +39,7 @@ import com.sun.jdi.ArrayReference;
 import com.sun.jdi.Field;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -104,6 +108,32 @@ public class JdiObject extends DebuggerObject
     }
     
     
+    /**
+     * The value epoch is advanced whenever the debug VM may have run code (a thread was
+     * halted or resumed, or the machine state changed). Remote values cached by a
+     * JdiObject are only valid for the epoch in which they were fetched.
+     */
+    @OnThread(Tag.Any)
+    private static final AtomicInteger valueEpoch = new AtomicInteger();
+
+    /**
+     * Invalidate all remote values cached by existing JdiObjects.
+     */
+    @OnThread(Tag.Any)
+    static void advanceValueEpoch()
+    {
+        valueEpoch.incrementAndGet();
+    }
+
+    /**
+     * Get the current value epoch.
+     */
+    @OnThread(Tag.Any)
+    static int getValueEpoch()
+    {
+        return valueEpoch.get();
+    }
+    
     // -- instance methods --
 
     @OnThread(Tag.Any)
@@ -111,6 +141,14 @@ public class JdiObject extends DebuggerObject
     GenTypeClass genType = null; // the generic type, if known
     @OnThread(Tag.Any)
     private final List<Field> fields = new ArrayList<>();
+    @OnThread(Tag.Any)
+    private List<DebuggerField> debuggerFields; // lazily built from fields, immutable
+    
+    // Field values fetched (in a single request) during the epoch cachedFieldsEpoch:
+    @OnThread(Tag.Any)
+    private Map<Field, Value> cachedFieldValues;
+    @OnThread(Tag.Any)
+    private int cachedFieldsEpoch;
     
     // used by JdiArray.
     protected JdiObject()
@@ -263,17 +301,49 @@ public class JdiObject extends DebuggerObject
     
     @Override
     @OnThread(Tag.Any)
-    public List<DebuggerField> getFields()
+    public synchronized List<DebuggerField> getFields()
     {
-        List<Field> visibleFields = obj.referenceType().visibleFields();
-        List<DebuggerField> rlist = new ArrayList<DebuggerField>(fields.size());
-        for (Field field : fields) {
-            if (! checkIgnoreField(field)) {
-                boolean visible = visibleFields.remove(field);
-                rlist.add(new JdiField(field, this, !visible));
+        // The set of fields of a class cannot change, so we only need to build the list once:
+        if (debuggerFields == null) {
+            List<Field> visibleFields = obj.referenceType().visibleFields();
+            List<DebuggerField> rlist = new ArrayList<DebuggerField>(fields.size());
+            for (Field field : fields) {
+                if (! checkIgnoreField(field)) {
+                    boolean visible = visibleFields.remove(field);
+                    rlist.add(new JdiField(field, this, !visible));
+                }
             }
+            debuggerFields = Collections.unmodifiableList(rlist);
         }
-        return rlist;
+        return debuggerFields;
+    }
+    
+    /**
+     * Get the value of a field of this object. The values of all fields are fetched
+     * from the debug VM in a single request, and cached until the value epoch changes,
+     * so that reading every field (as an inspector does) requires only one round trip.
+     */
+    @OnThread(Tag.Any)
+    synchronized Value getFieldValue(Field field)
+    {
+        int epoch = valueEpoch.get();
+        if (cachedFieldValues == null || cachedFieldsEpoch != epoch) {
+            cachedFieldValues = obj.getValues(fields);
+            cachedFieldsEpoch = epoch;
+        }
+        
+        if (cachedFieldValues.containsKey(field)) {
+            return cachedFieldValues.get(field);
+        }
+        // Not one of our fields (shouldn't happen); ask the VM directly:
+        return obj.getValue(field);
+    }
+    
+    @Override
+    @OnThread(Tag.Any)
+    public synchronized void discardCachedValues()
+    {
+        cachedFieldValues = null;
     }
 
     @OnThread(Tag.Any)
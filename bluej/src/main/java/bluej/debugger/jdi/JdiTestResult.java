@@ -43,6 +43,59 @@ public class JdiTestResult extends DebuggerTestResult
     protected String exceptionMsg, traceMsg;  // null if no failure
     protected int runTimeMs;
 
+    /**
+     * The number of strings describing each test result, as returned from the test VM.
+     */
+    public static final int RESULT_DETAILS_LENGTH = 9;
+
+    /**
+     * Construct a test result from the strings describing it, as returned from the test VM
+     * (see ExecServer.runTestMethod for the format).
+     * 
+     * @param className  the fully qualified name of the test class
+     * @param details    the RESULT_DETAILS_LENGTH strings describing the result
+     */
+    public static JdiTestResult fromDetails(String className, String[] details)
+    {
+        String actualMethodName = details[0];
+        String displayTestName = details[1];
+        String failureType = details[8];
+
+        if (failureType.equals("success"))
+        {
+            return new JdiTestResult(className, actualMethodName, displayTestName, 0);
+        }
+
+        String exMsg = details[2];
+        String traceMsg = details[3];
+        String failureClass = details[4];
+        String failureSource = details[5];
+        String failureMethod = details[6];
+        int lineNo = Integer.parseInt(details[7]);
+        SourceLocation failPoint = new SourceLocation(failureClass, failureSource,
+                failureMethod, lineNo);
+
+        if (failureType.equals("failure"))
+        {
+            return new JdiTestResultFailure(className, actualMethodName, displayTestName, exMsg, traceMsg,
+                    failPoint, 0);
+        }
+        else
+        {
+            return new JdiTestResultError(className, actualMethodName, displayTestName, exMsg, traceMsg,
+                    failPoint, 0);
+        }
+    }
+
+    /**
+     * Construct an error result for a test which could not be run to completion, for
+     * example because the VM running it terminated.
+     */
+    public static JdiTestResult errorResult(String className, String methodName, String message)
+    {
+        return new JdiTestResultError(className, methodName, methodName, message, "", null, 0);
+    }
+
     JdiTestResult(String className, String methodName, String displayName, int runTimeMs)
     {
         if (className == null || methodName == null)
@@ -64,6 +64,8 @@ public class FieldList extends ScrollPane
     private final ContentPane content = new ContentPane();
     // The latest data:
     private final List<FieldInfo> curData = new ArrayList<>();
+    // The value label for each row of curData:
+    private final List<Label> valueLabels = new ArrayList<>();
     // The currently selected row index:
     private final IntegerProperty selectedRow = new SimpleIntegerProperty(-1);
     // A placeholder shown where are no fields:
@@ -102,22 +104,39 @@ public class FieldList extends ScrollPane
 
     /**
      * Sets the new fields and values.  If this is identical, the update is skipped.
+     * If only some values have changed, only those rows are updated.
+     * 
+     * @return true if the displayed data changed, false if it was identical.
      */
-    public void setData(List<FieldInfo> listData)
+    public boolean setData(List<FieldInfo> listData)
     {
         if (listData.equals(curData))
-            return;
+            return false;
+        
+        if (sameDescriptions(listData))
+        {
+            // Same fields as before; just push the changed values into the existing rows:
+            for (int i = 0; i < listData.size(); i++)
+            {
+                String value = listData.get(i).getValue();
+                if (!value.equals(curData.get(i).getValue()))
+                {
+                    setValueLabel(valueLabels.get(i), value);
+                }
+            }
+            curData.clear();
+            curData.addAll(listData);
+            return true;
+        }
         
         List<Node> children = new ArrayList<>();
+        valueLabels.clear();
         for (int i = 0; i < listData.size(); i++)
         {
             FieldInfo field = listData.get(i);
-            Label valueLabel = new Label(field.getValue());
-            if (OBJECT_REFERENCE.equals(valueLabel.getText()))
-            {
-                valueLabel.setGraphic(new ImageView(objectrefIcon));
-                valueLabel.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
-            }
+            Label valueLabel = new Label();
+            setValueLabel(valueLabel, field.getValue());
+            valueLabels.add(valueLabel);
             Pane wrapper = new BorderPane(valueLabel);
             JavaFXUtil.addStyleClass(wrapper, "inspector-field-value-wrapper");
             JavaFXUtil.addStyleClass(valueLabel, "inspector-field-value-label");
@@ -141,6 +160,41 @@ public class FieldList extends ScrollPane
         select(-1);
         select(sel);
         requestLayout();
+        return true;
+    }
+
+    /**
+     * Checks whether the given data has exactly the same rows (field descriptions)
+     * as the currently displayed data, ignoring values.
+     */
+    private boolean sameDescriptions(List<FieldInfo> listData)
+    {
+        if (listData.size() != curData.size())
+            return false;
+        for (int i = 0; i < listData.size(); i++)
+        {
+            if (!listData.get(i).getDescription().equals(curData.get(i).getDescription()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the content of a value label, using an icon for object references.
+     */
+    private static void setValueLabel(Label valueLabel, String value)
+    {
+        valueLabel.setText(value);
+        if (OBJECT_REFERENCE.equals(value))
+        {
+            valueLabel.setGraphic(new ImageView(objectrefIcon));
+            valueLabel.setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        }
+        else
+        {
+            valueLabel.setGraphic(null);
+            valueLabel.setContentDisplay(ContentDisplay.LEFT);
+        }
     }
     
     /**
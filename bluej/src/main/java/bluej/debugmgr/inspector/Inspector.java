@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2014,2015,2016,2017,2018,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2014,2015,2016,2017,2018,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,8 +26,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.event.EventHandler;
 import javafx.event.EventType;
 import javafx.scene.Cursor;
@@ -57,7 +55,6 @@ import bluej.testmgr.record.ObjectInspectInvokerRecord;
 import bluej.utility.DialogManager;
 import bluej.utility.javafx.JavaFXUtil;
 import javafx.stage.WindowEvent;
-import javafx.util.Duration;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -175,38 +172,54 @@ public abstract class Inspector extends Stage
 
         //setOnShown(e -> org.scenicview.ScenicView.show(getScene()));
 
-        // If appropriate (object/class inspector in Greenfoot), update the
-        // inspector content every second while the window is showing:
-        final Timeline autoUpdate = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            update();
-        }));
-        autoUpdate.setCycleCount(Timeline.INDEFINITE);
+        // If appropriate (object/class inspector in Greenfoot), keep the
+        // inspector content up to date while the window is showing:
         addEventHandler(WindowEvent.ANY, e -> {
             boolean shown = e.getEventType() == WindowEvent.WINDOW_SHOWN;
             boolean hidden = e.getEventType() == WindowEvent.WINDOW_HIDDEN;
             
             if (hidden)
             {
-                autoUpdate.stop();
+                InspectorAutoUpdater.getInstance().unregister(this);
             }
             else if (shown && shouldAutoUpdate())
             {
                 // Start updating:
-                autoUpdate.playFromStart();
+                InspectorAutoUpdater.getInstance().register(this);
             }
         });
         
+        // User input may change the inspected objects (e.g. in Greenfoot), so update promptly:
+        addEventFilter(MouseEvent.MOUSE_PRESSED, e -> InspectorAutoUpdater.wake());
+        addEventFilter(KeyEvent.KEY_PRESSED, e -> InspectorAutoUpdater.wake());
+
         initFieldList();
         
         
     }
 
     /**
-     * Should we auto-update the inspector window every second while it is showing?
+     * Something has happened in the debug VM (e.g. a debugger event) which may have
+     * changed inspected objects: update any auto-updating inspectors promptly.
+     */
+    public static void debugVMEventOccurred()
+    {
+        InspectorAutoUpdater.wake();
+    }
+
+    /**
+     * Should we auto-update the inspector window periodically while it is showing?
      * Currently true for class and object inspectors in Greenfoot only.
      */
     protected abstract boolean shouldAutoUpdate();
 
+    /**
+     * Discard any values cached from the debug VM, before an auto-update.
+     */
+    protected void discardCachedValues()
+    {
+    }
+
     /**
      * Initializes the list of fields. This creates the component that shows the
      * fields.
@@ -302,17 +315,40 @@ public abstract class Inspector extends Stage
      * 
      */
     public void update()
+    {
+        refresh();
+    }
+
+    /**
+     * Update the field values shown, as {@link #update()}, but first discarding any values
+     * cached from the debug VM (which runs freely between auto-updates).
+     * 
+     * @return true if any of the displayed values changed.
+     */
+    boolean autoUpdate()
+    {
+        discardCachedValues();
+        return refresh();
+    }
+
+    /**
+     * Update the field values shown.
+     * 
+     * @return true if any of the displayed values changed.
+     */
+    private boolean refresh()
     {
         final List<FieldInfo> listData = getListData();
 
         int prevSelection = fieldList.selectedIndexProperty().get();
         
-        fieldList.setData(listData);
+        boolean changed = fieldList.setData(listData);
         //fieldList.setTableHeader(null);
 
         // Ensures that an element (if any exist) is always selected, preferably previously selected item:
         if (!listData.isEmpty())
             fieldList.select(prevSelection == -1 || prevSelection >= listData.size() ? 0 : prevSelection);
+        return changed;
     }
 
     /**
@@ -0,0 +1,151 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugmgr.inspector;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Drives the auto-update of all showing inspectors (class and object inspectors in
+ * Greenfoot) from a single shared timer, rather than one timer per inspector.
+ *
+ * <p>Each inspector has its own update interval, which adapts to how often its
+ * content actually changes: an inspector whose values changed is updated again
+ * after the minimum interval, whereas one whose values were unchanged backs off
+ * (doubling its interval up to a maximum, which is kept well under a second so that
+ * an object which starts changing is not seen to lag).  Any debugger event or user
+ * input in an inspector (see {@link #wake()}) updates all the inspectors at the next
+ * tick and resets their intervals to the minimum.
+ */
+@OnThread(Tag.FXPlatform)
+final class InspectorAutoUpdater
+{
+    // The length of one timer tick; intervals are measured in ticks:
+    private static final Duration TICK = Duration.millis(100);
+    // The minimum interval (in ticks) between updates of an inspector:
+    private static final int MIN_INTERVAL = 2;
+    // The maximum interval (in ticks) between updates of an inspector:
+    private static final int MAX_INTERVAL = 6;
+
+    private static InspectorAutoUpdater instance;
+
+    // The registered inspectors, and their scheduling state:
+    private final Map<Inspector, Schedule> inspectors = new IdentityHashMap<>();
+    private final Timeline timeline;
+
+    private static class Schedule
+    {
+        int interval = MIN_INTERVAL; // current interval, in ticks
+        int remaining = MIN_INTERVAL; // ticks until next update
+    }
+
+    private InspectorAutoUpdater()
+    {
+        timeline = new Timeline(new KeyFrame(TICK, e -> tick()));
+        timeline.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /**
+     * Get the single auto-updater instance.
+     */
+    static InspectorAutoUpdater getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new InspectorAutoUpdater();
+        }
+        return instance;
+    }
+
+    /**
+     * Start auto-updating the given inspector.  Has no effect if it is already registered.
+     */
+    void register(Inspector inspector)
+    {
+        inspectors.putIfAbsent(inspector, new Schedule());
+        if (inspectors.size() == 1)
+        {
+            timeline.playFromStart();
+        }
+    }
+
+    /**
+     * Stop auto-updating the given inspector.
+     */
+    void unregister(Inspector inspector)
+    {
+        if (inspectors.remove(inspector) != null && inspectors.isEmpty())
+        {
+            timeline.stop();
+        }
+    }
+
+    /**
+     * Something may have changed the inspected objects (a debugger event, or user input):
+     * update all the inspectors at the next tick, and go back to the minimum interval.
+     */
+    static void wake()
+    {
+        if (instance != null)
+        {
+            for (Schedule schedule : instance.inspectors.values())
+            {
+                schedule.interval = MIN_INTERVAL;
+                schedule.remaining = 1;
+            }
+        }
+    }
+
+    /**
+     * Update all inspectors which are due for an update, and adjust their intervals.
+     */
+    private void tick()
+    {
+        // Copy, as an update may cause an inspector to be closed and unregistered:
+        for (Map.Entry<Inspector, Schedule> entry : new IdentityHashMap<>(inspectors).entrySet())
+        {
+            Schedule schedule = entry.getValue();
+            schedule.remaining -= 1;
+            if (schedule.remaining > 0)
+            {
+                continue;
+            }
+
+            boolean changed = entry.getKey().autoUpdate();
+            if (changed)
+            {
+                schedule.interval = MIN_INTERVAL;
+            }
+            else
+            {
+                schedule.interval = Math.min(schedule.interval * 2, MAX_INTERVAL);
+            }
+            schedule.remaining = schedule.interval;
+        }
+    }
+}
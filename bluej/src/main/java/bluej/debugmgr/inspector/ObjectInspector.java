@@ -236,6 +236,12 @@ public class ObjectInspector extends Inspector
         return Config.isGreenfoot();
     }
 
+    @Override
+    protected void discardCachedValues()
+    {
+        obj.discardCachedValues();
+    }
+
     /**
      * True if this inspector is used to display a method call result.
      */
@@ -2774,7 +2774,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
      */
     private boolean checkCodeIsOnImportStatement(String code)
     {
-        JavaLexer l = new JavaLexer(new StringReader(code));
+        JavaLexer l = new JavaLexer(code);
         boolean isInImportStatement = false;
         for (LocatableToken t = l.nextToken(); t.getType() != JavaTokenTypes.EOF && t.getType() != JavaTokenTypes.LITERAL_class
             && t.getType() != JavaTokenTypes.LITERAL_interface && t.getType() != JavaTokenTypes.LITERAL_enum; t = l.nextToken())
@@ -2823,7 +2823,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         List<String> userCodeImportsList = new ArrayList<>();
         boolean parsingUserCodeImport = false;
         StringBuilder userCodeImportSB = new StringBuilder();
-        JavaLexer l = new JavaLexer(new StringReader(this.getText(new SourceLocation(1, 1), getLineColumnFromOffset(getTextLength()))));
+        JavaLexer l = new JavaLexer(this.getText(new SourceLocation(1, 1), getLineColumnFromOffset(getTextLength())));
         for (LocatableToken t = l.nextToken(); t.getType() != JavaTokenTypes.EOF && t.getType() != JavaTokenTypes.LITERAL_class 
             && t.getType() != JavaTokenTypes.LITERAL_interface && t.getType() != JavaTokenTypes.LITERAL_enum; t = l.nextToken())
         {
@@ -55,7 +55,6 @@ import javafx.scene.control.IndexRange;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.StringReader;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -690,7 +689,7 @@ public class FlowErrorManager implements ErrorQuery
                         //and we keep the position information of the beginning of the type declaration.
                         //** If the error starts at "." then we need to get information related to the end of the pretoken right
                         String codeAfterError = editor.getText(startErrorPosSourceLocation, editor.getLineColumnFromOffset(editor.getTextLength()));
-                        JavaLexer l = new JavaLexer(new StringReader((codeAfterError.startsWith(".")) ? (codeBeforeError + ".") : codeBeforeError));
+                        JavaLexer l = new JavaLexer((codeAfterError.startsWith(".")) ? (codeBeforeError + ".") : codeBeforeError);
                         List<String> fullTypePreTokens = new ArrayList<>();
                         boolean feedPreTokens = false;
                         LocatableToken lastToken = null;
@@ -29,8 +29,6 @@ import java.io.Reader;
 import java.lang.ref.WeakReference;
 import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
@@ -46,7 +44,8 @@ public class HoleDocument implements Document
     private int holeStart; // Index of first character in the hole.
     private int holeEnd; // Index of first character in array after the hole
     
-    private final ArrayList<LineInformation> lineInformation = new ArrayList<>();
+    // The lengths and attributes of the lines:
+    private final LineTree lines = new LineTree();
 
     /**
      * We need to know all the positions so we can update them all.  But we don't want
@@ -62,36 +61,41 @@ public class HoleDocument implements Document
         content = new char[128];
         holeStart = 0;
         holeEnd = content.length;
-        lineInformation.add(new LineInformation(null));
     }
 
     @Override
     public void replaceText(int startCharIncl, int endCharExcl, String text)
     {
-        // Get rid of any new line positions that were in removed region:
-        int linesRemoved = 0;
-        int indexToInsertNewNewlines = 1;
-        for (Iterator<LineInformation> iterator = lineInformation.iterator(); iterator.hasNext(); )
+        // Work out the new line structure.  The line containing the start of the change
+        // is kept, the lines beginning within the replaced region are removed, and a new
+        // line is added for each newline in the inserted text:
+        int firstLine = lines.getLineFromPosition(startCharIncl);
+        int lastLine = lines.getLineFromPosition(endCharExcl);
+        int linesRemoved = lastLine - firstLine;
+        int prefixLength = startCharIncl - lines.getLineStart(firstLine);
+        int suffixLength = lines.getLineStart(lastLine) + lines.getLineLength(lastLine) - endCharExcl;
+
+        int linesAdded = 0;
+        for (int i = 0; i < text.length(); i++)
         {
-            LineInformation lineInformation = iterator.next();
-            if (lineInformation.lineStart == null)
-            {
-                // Unremovable first line -- skip
-                continue;
-            }
-            
-            TrackedPosition lineStartPosition = lineInformation.lineStart;
-            if (lineStartPosition.position <= startCharIncl)
+            if (text.charAt(i) == '\n')
             {
-                indexToInsertNewNewlines++;
+                linesAdded += 1;
             }
-            else if (lineStartPosition.position > startCharIncl && lineStartPosition.position <= endCharExcl)
+        }
+        int[] newLineLengths = new int[linesAdded + 1];
+        int newLineIndex = 0;
+        int newLineStart = -prefixLength;
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) == '\n')
             {
-                linesRemoved += 1;
-                iterator.remove();
+                newLineLengths[newLineIndex++] = i - newLineStart;
+                newLineStart = i + 1;
             }
-            
         }
+        newLineLengths[linesAdded] = text.length() - newLineStart + suffixLength;
+        lines.replaceLines(firstLine, lastLine, newLineLengths);
         
         // Start by moving the hole to the modification location:
         if (holeStart < startCharIncl)
@@ -123,7 +127,9 @@ public class HoleDocument implements Document
         if (holeEnd - holeStart < additionAmount)
         {
             // Hole not big enough, need to enlarge:
-            int extraLength = additionAmount + GROWTH_MARGIN;
+            // (Grow in proportion to the current size, so that typing into a large document
+            // does not need to copy the whole content every few keystrokes.)
+            int extraLength = additionAmount + Math.max(GROWTH_MARGIN, content.length / 4);
             char[] newContent = new char[content.length + extraLength];
             System.arraycopy(content, 0, newContent, 0, holeStart);
             System.arraycopy(content, holeEnd, newContent, holeEnd + extraLength, content.length - holeEnd);
@@ -132,7 +138,7 @@ public class HoleDocument implements Document
         }
         
         // Add new content by copying into hole
-        System.arraycopy(text.toCharArray(), 0, content, holeStart, text.length());
+        text.getChars(0, text.length(), content, holeStart);
         holeStart += text.length();
 
         for (Iterator<WeakReference<TrackedPosition>> iterator = trackedPositions.iterator(); iterator.hasNext(); )
@@ -149,18 +155,6 @@ public class HoleDocument implements Document
             }
         }
         
-        int linesAdded = 0;
-        // Now add new positions for the added newlines:
-        for (int i = 0; i < text.length(); i++)
-        {
-            if (text.charAt(i) == '\n')
-            {
-                lineInformation.add(indexToInsertNewNewlines, new LineInformation(trackPosition(i + 1 + startCharIncl, Bias.BACK)));
-                indexToInsertNewNewlines += 1;
-                linesAdded += 1;
-            }
-        }
-
         // Take a copy in case one of the listeners removes themselves
         // (would lead to a concurrent modification exception if we iterated over the original list):
         List<DocumentListener> listenersCopy = new ArrayList<>(this.listeners);
@@ -185,60 +179,13 @@ public class HoleDocument implements Document
     @Override
     public int getLineFromPosition(int position)
     {
-        int index = Collections.binarySearch(getLineStartPositions(), position);
-        if (index >= 0)
-        {
-            // Line begins there exactly:
-            return index;
-        }
-        else
-        {
-            return -2-index;
-        }
-    }
-
-    /**
-     * A read-only list of the current line start positions in the document.
-     */
-    private List<Integer> getLineStartPositions()
-    {
-        // No need to copy when we are read-only, just make a dummy list object: 
-        return new AbstractList<Integer>() {
-
-            @Override
-            public int size()
-            {
-                return lineInformation.size();
-            }
-
-            @Override
-            public Integer get(int index)
-            {
-                if (index == 0)
-                {
-                    return 0;
-                }
-                else
-                {
-                    return lineInformation.get(index).lineStart.position;
-                }
-            }
-        };
+        return lines.getLineFromPosition(position);
     }
 
     @Override
     public int getColumnFromPosition(int position)
     {
-        int lineStartIndex = getLineFromPosition(position);
-        if (lineStartIndex <= 0)
-        {
-            // First line:
-            return position;
-        }
-        else
-        {
-            return position - lineInformation.get(lineStartIndex).lineStart.position;
-        }
+        return position - lines.getLineStart(lines.getLineFromPosition(position));
     }
 
     @Override
@@ -251,22 +198,18 @@ public class HoleDocument implements Document
     
     public List<CharSequence> getLines()
     {
-        List<Integer> lineStarts = getLineStartPositions();
-        
         return new AbstractList<CharSequence>()
         {
             @Override
             public CharSequence get(int lineIndex)
             {
-                int startChar = lineStarts.get(lineIndex);
-                int endChar = lineIndex + 1 >= lineStarts.size() ? getLength() : (lineStarts.get(lineIndex + 1) - 1);
-                return subSequence(startChar, endChar);
+                return subSequence(getLineStart(lineIndex), getLineEnd(lineIndex));
             }
 
             @Override
             public int size()
             {
-                return lineStarts.size();
+                return lines.getLineCount();
             }
         };
     }
@@ -340,26 +283,27 @@ public class HoleDocument implements Document
     @Override
     public int getLineStart(int lineNumber)
     {
-        return getLineStartPositions().get(lineNumber);
+        return lines.getLineStart(lineNumber);
     }
 
     @Override
     public int getLineEnd(int lineNumber)
     {
-        if (lineNumber + 1 < lineInformation.size())
-        {
-            return getLineStartPositions().get(lineNumber + 1) - 1;
-        }
-        else
-        {
-            return getLength();
-        }
+        return lines.getLineStart(lineNumber) + lines.getLineLength(lineNumber);
     }
 
     @Override
     public int getLineCount()
     {
-        return lineInformation.size();
+        return lines.getLineCount();
+    }
+
+    @Override
+    public int getLineLength(int lineIndex)
+    {
+        // Include the newline, except on the last line:
+        int length = lines.getLineLength(lineIndex);
+        return lineIndex + 1 < lines.getLineCount() ? length + 1 : length;
     }
 
     @Override
@@ -381,9 +325,9 @@ public class HoleDocument implements Document
 
     public boolean hasLineAttribute(int lineIndex, Object attributeKey)
     {
-        if (lineIndex >= 0 && lineIndex < lineInformation.size())
+        if (lineIndex >= 0 && lineIndex < lines.getLineCount())
         {
-            return lineInformation.get(lineIndex).lineAttributes.containsKey(attributeKey);
+            return lines.hasLineAttribute(lineIndex, attributeKey);
         }
         else
         {
@@ -393,18 +337,15 @@ public class HoleDocument implements Document
     
     public void addLineAttribute(int lineIndex, Object key, Object value)
     {
-        if (lineIndex >= 0 && lineIndex < lineInformation.size())
+        if (lineIndex >= 0 && lineIndex < lines.getLineCount())
         {
-            lineInformation.get(lineIndex).lineAttributes.put(key, value);
+            lines.addLineAttribute(lineIndex, key, value);
         }
     }
     
     public void removeLineAttributeThroughout(Object key)
     {
-        for (LineInformation information : lineInformation)
-        {
-            information.lineAttributes.remove(key);
-        }
+        lines.removeLineAttributeThroughout(key);
     }
 
     @Override
@@ -418,32 +359,9 @@ public class HoleDocument implements Document
      */
     public String getLongestLine()
     {
-        List<Integer> lineStarts = getLineStartPositions();
-        int longestIndex = 0;
-        int longestLength = 0;
-        for (int line = 0; line + 1 < lineStarts.size(); line++)
-        {
-            int length = lineStarts.get(line + 1) - lineStarts.get(line);
-            if (length > longestLength)
-            {
-                longestLength = length;
-                longestIndex = line;
-            }
-        }
-        return getLines().get(longestIndex).toString();
+        return getLines().get(lines.getLongestLineIndex()).toString();
     }
 
-    private static class LineInformation
-    {
-        private final TrackedPosition lineStart;
-        private final HashMap<Object, Object> lineAttributes = new HashMap<>();
-
-        public LineInformation(TrackedPosition lineStart)
-        {
-            this.lineStart = lineStart;
-        }
-    }
-    
     // Adapted from StringReader
     @OnThread(value = Tag.FXPlatform, ignoreParent = true)
     private class HoleReader extends Reader
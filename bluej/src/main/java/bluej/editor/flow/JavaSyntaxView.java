@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2011,2014,2015,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2011,2014,2015,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -59,8 +59,10 @@ import threadchecker.OnThread;
 import threadchecker.Tag;
 
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A Swing view implementation that does syntax colouring and adds some utility.
@@ -81,6 +83,16 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
 {
     /** Maximum amount of document to reparse in one hit (advisory) */
     private final static int MAX_PARSE_PIECE = 8000;
+    /** The time (in milliseconds) that the reparse runner may use per slice, normally */
+    private final static long PARSE_SLICE_MILLIS = 15;
+    /** The time (in milliseconds) that the reparse runner may use per slice, while the user is typing */
+    private final static long TYPING_PARSE_SLICE_MILLIS = 3;
+    /** How long (in milliseconds) after an edit we consider the user to still be typing */
+    private final static long TYPING_MILLIS = 500;
+    /** A reparse run which took longer than this (in milliseconds) is reported in the debug log */
+    private final static long REPORT_PARSE_MILLIS = 250;
+    /** A document (or an insertion) of at least this many characters is parsed on a worker thread */
+    private final static int BACKGROUND_PARSE_CHARS = 20000;
     
     /** (NaviView) Paint method inner scope? if false, whole method will be highlighted as a single block */
     private static final boolean PAINT_METHOD_INNER = false;
@@ -130,6 +142,12 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     // Each item in the list maps the list index (as number of spaces) to indent amount
     private final List<Double> cachedSpaceSizes = new ArrayList<>();
     private FlowReparseRunner reparseRunner;
+    // The parse of a snapshot running on a worker thread, if any (see parseInBackground):
+    private BackgroundParse backgroundParse;
+    // The number of edits made to the document, so that we can tell if a background parse is out of date:
+    private int editCount;
+    // The time (from System.currentTimeMillis) of the most recent edit:
+    private long lastEditTime;
     // The latest lines rendered, used to keep track of what needs re-rendering when we scroll:
     private int latestRenderStartIncl = 0;
     private int latestRenderEndIncl = Integer.MAX_VALUE - 1_000_000;
@@ -182,7 +200,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
      */
     private final Map<Integer, List<SingleNestedScope>> pendingScopeBackgrounds = new HashMap<>();
     
-    private final Map<Integer, List<StyledSegment>> styledLines = new HashMap<>();
+    private final LineStyleCache styledLines = new LineStyleCache();
     
     private final LiveScopeBackgrounds scopeBackgrounds; 
 
@@ -397,6 +415,9 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
             // We can discard the MoeSyntaxEvent: the reparse will update scopes/syntax
             //}
             document.addListener(true, (start, oldText, newText, linesRemoved, linesAdded) -> {
+                editCount += 1;
+                // Move cached styles along with their lines:
+                styledLines.linesReplaced(document.getLineFromPosition(start), linesRemoved, linesAdded);
                 if (oldText.length() != 0)
                 {
                     scopeBackgrounds.linesRemoved(document.getLineFromPosition(start), linesRemoved);
@@ -406,10 +427,91 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
                 {
                     scopeBackgrounds.linesAdded(document.getLineFromPosition(start), linesAdded);
                     fireInsertUpdate(start, newText.length());
-                }                
+                }
+                if (newText.length() >= BACKGROUND_PARSE_CHARS)
+                {
+                    parseInBackground();
+                }
+                else if (backgroundParse != null)
+                {
+                    // The snapshot is now out of date, and while the user is typing the time-sliced
+                    // reparse on the FX thread gets the edited lines highlighted sooner:
+                    backgroundParse.cancel();
+                    backgroundParse = null;
+                }
                 scheduleReparseRunner();
             });
             
+            if (document.getLength() >= BACKGROUND_PARSE_CHARS)
+            {
+                parseInBackground();
+            }
+            scheduleReparseRunner();
+        }
+    }
+
+    /**
+     * Parse the whole document on a worker thread, over a snapshot of its text, and then
+     * swap the resulting node tree in on the FX thread (if the document has not changed
+     * in the meantime).  This keeps the parse of a large document off the FX thread; the
+     * reparse runner stays idle while the background parse is in progress.
+     */
+    private void parseInBackground()
+    {
+        if (display == null || isPrinting())
+        {
+            return;
+        }
+        if (backgroundParse != null)
+        {
+            backgroundParse.cancel();
+        }
+        BackgroundParse parse = new BackgroundParse(new SnapshotDocument(document.getFullContent(), parentResolver), editCount);
+        backgroundParse = parse;
+        new Thread("Editor parser") {
+            @Override
+            @OnThread(value = Tag.Worker, ignoreParent = true)
+            public void run()
+            {
+                parse.run();
+                JavaFXUtil.runPlatformLater(() -> backgroundParseFinished(parse));
+            }
+        }.start();
+    }
+
+    /**
+     * Called on the FX thread once a background parse has finished (or given up).
+     */
+    private void backgroundParseFinished(BackgroundParse parse)
+    {
+        if (parse != backgroundParse)
+        {
+            // Cancelled or superseded; whoever did that has taken care of the parse queue.
+            return;
+        }
+        backgroundParse = null;
+
+        if (parse.isComplete() && parse.editCount == editCount)
+        {
+            long begin = System.nanoTime();
+            rootNode = parse.snapshot.publish(this);
+            reparseRecordTree = new NodeTree<ReparseRecord>();
+            // The indents and scopes of the old tree are no longer valid.  The scopes are
+            // measured against the display, so they must be worked out here:
+            updateDamage(null);
+            restyleLines(0, document.getLineCount() - 1);
+            applyPendingScopeBackgrounds();
+            display.repaint();
+            long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            if (parse.parseMillis + publishMillis >= REPORT_PARSE_MILLIS)
+            {
+                Debug.log("Editor background parse: " + parse.parseMillis + "ms parsing on worker, "
+                        + publishMillis + "ms on FX thread to publish");
+            }
+        }
+        else
+        {
+            // The document changed (or the parse failed), so reparse the live tree as usual:
             scheduleReparseRunner();
         }
     }
@@ -442,11 +544,29 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
         if (!syntaxHighlighting.get() || rootNode == null)
             return Collections.singletonList(new StyledSegment(Collections.emptyList(), lineContent.toString()));
 
-        // If there is a cached style and the content matches, use that:
-        List<StyledSegment> cached = styledLines.get(lineIndex);
-        if (cached != null && lineContent.equals(asCharSequence(cached)))
-            return cached;
+        long startTime = System.nanoTime();
+        try
+        {
+            // If there is a cached style, use that:
+            List<StyledSegment> cached = styledLines.get(lineIndex, lineContent.length());
+            if (cached != null)
+                return cached;
+
+            List<StyledSegment> lineStyle = calculateTokenStylesFor(lineIndex, lineContent);
+            styledLines.put(lineIndex, lineStyle, lineContent.length());
+            return lineStyle;
+        }
+        finally
+        {
+            styledLines.recordStylingTime(System.nanoTime() - startTime);
+        }
+    }
 
+    /**
+     * Calculates the syntax token styles for a given line of code, using the parsed node structure.
+     */
+    private List<StyledSegment> calculateTokenStylesFor(int lineIndex, CharSequence lineContent)
+    {
         ArrayList<StyledSegment> lineStyle = new ArrayList<>();
         int curPosInLine = 0;
         int lineStart = document.getLineStart(lineIndex);
@@ -483,59 +603,24 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
                 lineStyle.add(new StyledSegment(Collections.emptyList(), ""));
             }
         }
-        styledLines.put(lineIndex, lineStyle);
         return lineStyle;
     }
 
-    private CharSequence asCharSequence(List<StyledSegment> styledSegments)
+    /**
+     * Gets the proportion of line style lookups which have been satisfied from the cache.
+     */
+    public double getStyleCacheHitRatio()
     {
-        int length = styledSegments.stream().mapToInt(s -> s.getText().length()).sum();
-        return new CharSequence()
-        {
-            // Speed up sequential access with a cache:
-            
-            // Which segment was the last character in?
-            int lastSegmentIndex = 0;
-            // What is the start of that segment relative to the start of the whole content?
-            int lastSegmentStart = 0;
-            
-            @Override
-            public int length()
-            {
-                return length;
-            }
-
-            @Override
-            public char charAt(int index)
-            {
-                if (index < lastSegmentStart)
-                {
-                    // Start again
-                    lastSegmentIndex = 0;
-                    lastSegmentStart = 0;
-                }
-                do
-                {
-                    // Is it in this segment?:
-                    String lastSegmentText = styledSegments.get(lastSegmentIndex).getText();
-                    if (index - lastSegmentStart < lastSegmentText.length())
-                    {
-                        return lastSegmentText.charAt(index - lastSegmentStart);
-                    }
-                    // Otherwise, next segment:
-                    lastSegmentStart += lastSegmentText.length();
-                    lastSegmentIndex += 1;
-                }
-                while (lastSegmentIndex < styledSegments.size());
-                throw new StringIndexOutOfBoundsException(index);
-            }
+        return styledLines.getHitRatio();
+    }
 
-            @Override
-            public CharSequence subSequence(int start, int end)
-            {
-                throw new UnsupportedOperationException();
-            }
-        };
+    /**
+     * Gets the time (in nanoseconds) spent working out syntax highlighting for the
+     * most recently rendered frame.
+     */
+    public long getLastFrameHighlightNanos()
+    {
+        return styledLines.getLastFrameNanos();
     }
 
     /**
@@ -2017,6 +2102,14 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
      *               the reparse when it occurs must parse at least this much.
      */
     public void scheduleReparse(int pos, int size)
+    {
+        addReparseRecord(reparseRecordTree, pos, size);
+    }
+
+    /**
+     * Add a reparse record to the given tree, merging it with any existing records it overlaps.
+     */
+    private static void addReparseRecord(NodeTree<ReparseRecord> reparseRecordTree, int pos, int size)
     {
         NodeAndPosition<ReparseRecord> existing = reparseRecordTree.findNodeAtOrAfter(pos);
         if (existing != null) {
@@ -2050,6 +2143,12 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     @Override
     public void flushReparseQueue()
     {
+        if (backgroundParse != null)
+        {
+            // The caller needs the tree now, so it's quicker to parse here than wait:
+            backgroundParse.cancel();
+            backgroundParse = null;
+        }
         while (pollReparseQueue(document.getLength())) ;
         // Queue now empty, so flush backgrounds:
         applyPendingScopeBackgrounds();
@@ -2122,37 +2221,10 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
                 return false;
             }
 
-            NodeAndPosition<ReparseRecord> nap = reparseRecordTree.findNodeAtOrAfter(0);
-            if (nap != null) {
-                int pos = nap.getPosition();
-
-                ParsedNode pn = rootNode;
-                int ppos = 0;
-                if (pn != null) {
-                    // Find the ParsedNode to handle the reparse.
-                    NodeAndPosition<ParsedNode> cn = pn.findNodeAt(pos, ppos);
-                    while (cn != null && cn.getEnd() == pos) {
-                        cn = cn.nextSibling();
-                    }
-                    while (cn != null && cn.getPosition() <= pos) {
-                        ppos = cn.getPosition();
-                        pn = cn.getNode();
-                        cn = pn.findNodeAt(nap.getPosition(), ppos);
-                        while (cn != null && cn.getEnd() == pos) {
-                            cn = cn.nextSibling();
-                        }
-                    }
-
-                    //Debug.message("Reparsing: " + ppos + " " + pos);
-                    SyntaxEvent mse = new SyntaxEvent(-1, -1, false, false);
-                    pn.reparse(this, ppos, pos, maxParse, mse);
-                    // Dump tree (for debugging):
-                    //Debug.message("Dumping tree:");
-                    //dumpTree(parsedNode.getChildren(0), "");
-
-                    updateDamage(mse);
-                    return true;
-                }
+            SyntaxEvent mse = new SyntaxEvent(-1, -1, false, false);
+            if (reparseNext(rootNode, reparseRecordTree, this, maxParse, mse)) {
+                updateDamage(mse);
+                return true;
             }
             return false;
         }
@@ -2173,6 +2245,47 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
         }
     }
 
+    /**
+     * Perform the first queued reparse in the given tree (which belongs to the given document and
+     * node structure), parsing approximately maxParse characters.  Changes to the node
+     * structure are recorded in the given event.  Returns false if the queue was empty.
+     */
+    private static boolean reparseNext(ParsedNode root, NodeTree<ReparseRecord> reparseRecordTree,
+            ReparseableDocument document, int maxParse, SyntaxEvent mse)
+    {
+        NodeAndPosition<ReparseRecord> nap = reparseRecordTree.findNodeAtOrAfter(0);
+        if (nap != null) {
+            int pos = nap.getPosition();
+
+            ParsedNode pn = root;
+            int ppos = 0;
+            if (pn != null) {
+                // Find the ParsedNode to handle the reparse.
+                NodeAndPosition<ParsedNode> cn = pn.findNodeAt(pos, ppos);
+                while (cn != null && cn.getEnd() == pos) {
+                    cn = cn.nextSibling();
+                }
+                while (cn != null && cn.getPosition() <= pos) {
+                    ppos = cn.getPosition();
+                    pn = cn.getNode();
+                    cn = pn.findNodeAt(nap.getPosition(), ppos);
+                    while (cn != null && cn.getEnd() == pos) {
+                        cn = cn.nextSibling();
+                    }
+                }
+
+                //Debug.message("Reparsing: " + ppos + " " + pos);
+                pn.reparse(document, ppos, pos, maxParse, mse);
+                // Dump tree (for debugging):
+                //Debug.message("Dumping tree:");
+                //dumpTree(parsedNode.getChildren(0), "");
+
+                return true;
+            }
+        }
+        return false;
+    }
+
     public ReparseableDocument.Element getDefaultRootElement()
     {
         // This is a different kind of element, which is only there to return a wrapper for the paragraphs:
@@ -2273,7 +2386,14 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     public void markSectionParsed(int pos, int size)
     {
         repaintLines(pos, size, true);
+        removeReparseRecords(reparseRecordTree, pos, size);
+    }
 
+    /**
+     * Remove the given section from the reparse records in the given tree.
+     */
+    private static void removeReparseRecords(NodeTree<ReparseRecord> reparseRecordTree, int pos, int size)
+    {
         NodeAndPosition<ReparseRecord> existing = reparseRecordTree.findNodeAtOrAfter(pos);
         while (existing != null && existing.getPosition() <= pos) {
             NodeAndPosition<ReparseRecord> next = existing.nextSibling();
@@ -2294,7 +2414,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
                 // Now we may have to insert a new node, if the middle portion
                 // of the existing node was removed.
                 if (existingEnd > pos + size) {
-                    scheduleReparse(pos + size, existingEnd - (pos + size));
+                    addReparseRecord(reparseRecordTree, pos + size, existingEnd - (pos + size));
                     return;
                 }
             }
@@ -2325,7 +2445,9 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     @Override
     @OnThread(value = Tag.FXPlatform, ignoreParent = true)
     public void renderedLines(int fromLineIndexIncl, int toLineIndexIncl)
-    {        
+    {
+        styledLines.endFrame();
+
         int newBeforeStartIncl = fromLineIndexIncl;
         int newBeforeEndIncl = latestRenderStartIncl - 1;
         
@@ -2358,6 +2480,11 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
 
     private void scheduleReparseRunner()
     {
+        if (backgroundParse != null)
+        {
+            // The whole document will be replaced when the background parse is published:
+            return;
+        }
         if (reparseRunner == null && !isPrinting() && display != null)
         {
             if (display.sceneProperty().get() == null)
@@ -2392,6 +2519,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     protected void fireInsertUpdate(int offset, int length)
     {
         duringUpdate = true;
+        lastEditTime = System.currentTimeMillis();
 
         if (reparseRecordTree != null) {
             NodeAndPosition<ReparseRecord> napRr = reparseRecordTree.findNodeAtOrAfter(offset);
@@ -2423,6 +2551,7 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     protected void fireRemoveUpdate(int offset, int length)
     {
         duringUpdate = true;
+        lastEditTime = System.currentTimeMillis();
 
         NodeAndPosition<ReparseRecord> napRr = (reparseRecordTree != null) ?
             reparseRecordTree.findNodeAtOrAfter(offset) : null;
@@ -2537,52 +2666,364 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
      */
     public void restyleLines(int start, int end)
     {
-        for (int i = start; i <= end; i++)
-        {
-            styledLines.remove(i);
-        }
+        styledLines.invalidate(start, end);
     }
 
     /**
      * Process the document re-parse queue.
      * 
-     * <p>This is a Runnable which runs on the Swing/AWT event queue. It performs
+     * <p>This is a Runnable which runs on the FX thread. It performs
      * a small amount of re-parsing before re-queing itself, which allows input
      * to be processed in the meantime.
      * 
+     * <p>While the user is typing, the runner uses a much smaller time slice, and
+     * only runs once per frame (after layout), so that neither keystrokes nor
+     * rendering of the frame wait for the parser.  Otherwise it re-queues itself
+     * immediately, so that the parse completes as soon as possible.
+     * 
      * @author Davin McCall
      */
     @OnThread(value = Tag.FXPlatform, ignoreParent = true)
     private class FlowReparseRunner implements FXPlatformRunnable
     {
-        private int procTime; //the time allowed for the incremental parsing before re-queueing
-        
-        public FlowReparseRunner()
-        {
-            this.procTime = 15;
-        }
+        // Statistics for this run (i.e. until the queue is empty), for reporting:
+        private final long runStart = System.currentTimeMillis();
+        private long parseNanos;
+        private long longestSliceNanos;
+        private int slices;
         
         public void run()
         {
-            long begin = System.currentTimeMillis();
-            if (document != null && pollReparseQueue()) {
+            if (backgroundParse != null)
+            {
+                // Leave it to the background parse; we're rescheduled if that doesn't work out:
+                reparseRunner = null;
+                return;
+            }
+            long begin = System.nanoTime();
+            boolean typing = System.currentTimeMillis() - lastEditTime < TYPING_MILLIS;
+            long procTime = TimeUnit.MILLISECONDS.toNanos(typing ? TYPING_PARSE_SLICE_MILLIS : PARSE_SLICE_MILLIS);
+            boolean more = document != null && pollReparseQueue();
+            if (more) {
                 // Continue processing
-                while (System.currentTimeMillis() - begin < this.procTime) {
+                while (System.nanoTime() - begin < procTime) {
                     if (! pollReparseQueue()) {
+                        more = false;
                         break;
                     }
                 }
-                JavaFXUtil.runPlatformLater(this);
+            }
+            recordSlice(System.nanoTime() - begin);
+            
+            if (more) {
+                Scene scene = display.sceneProperty().get();
+                // There's no layout pulse unless the scene is showing (e.g. while the editor
+                // is hidden), so we only wait for one if it is:
+                boolean showing = scene != null && scene.getWindow() != null && scene.getWindow().isShowing();
+                if (typing && showing) {
+                    // Let the next frame (and any keystrokes) go first:
+                    JavaFXUtil.runAfterNextLayout(scene, this);
+                    display.requestLayout();
+                }
+                else {
+                    JavaFXUtil.runPlatformLater(this);
+                }
             }
             else {
                 // Mark that we are no longer scheduled.  Reapply backgrounds and syntax highlighting:
                 applyPendingScopeBackgrounds();
                 display.repaint();
                 reparseRunner = null;
+                report();
+            }
+        }
+
+        private void recordSlice(long sliceNanos)
+        {
+            parseNanos += sliceNanos;
+            longestSliceNanos = Math.max(longestSliceNanos, sliceNanos);
+            slices += 1;
+        }
+
+        /**
+         * Report the time spent parsing on the FX thread, if it was significant.
+         */
+        private void report()
+        {
+            long parseMillis = TimeUnit.NANOSECONDS.toMillis(parseNanos);
+            if (parseMillis >= REPORT_PARSE_MILLIS)
+            {
+                Debug.log("Editor reparse: " + parseMillis + "ms parsing in " + slices + " slices (longest "
+                        + TimeUnit.NANOSECONDS.toMillis(longestSliceNanos) + "ms) over "
+                        + (System.currentTimeMillis() - runStart) + "ms");
             }
         }
     }
 
+    /**
+     * A parse of a snapshot of the document, run on a worker thread (see parseInBackground).
+     */
+    private static class BackgroundParse
+    {
+        private final SnapshotDocument snapshot;
+        // The document's edit count when the snapshot was taken:
+        private final int editCount;
+        private volatile boolean cancelled;
+        // Written by the worker, then read on the FX thread once it has finished:
+        private volatile boolean complete;
+        private volatile long parseMillis;
+
+        public BackgroundParse(SnapshotDocument snapshot, int editCount)
+        {
+            this.snapshot = snapshot;
+            this.editCount = editCount;
+        }
+
+        @OnThread(Tag.Worker)
+        @SuppressWarnings("threadchecker")
+        public void run()
+        {
+            // The parser code is tagged for the FX thread, but the snapshot and its node tree
+            // are only used by this thread until they are published (on the FX thread), and
+            // parsing doesn't call the entity resolver (types and imports are resolved lazily):
+            long begin = System.nanoTime();
+            try
+            {
+                complete = snapshot.parse(this);
+            }
+            catch (RuntimeException e)
+            {
+                Debug.reportError("Exception during background parse", e);
+            }
+            parseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        }
+
+        @OnThread(Tag.Any)
+        public void cancel()
+        {
+            cancelled = true;
+        }
+
+        @OnThread(Tag.Any)
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        @OnThread(Tag.Any)
+        public boolean isComplete()
+        {
+            return complete;
+        }
+    }
+
+    /**
+     * A copy of the document text, which is parsed on a worker thread.  Parsed nodes keep
+     * hold of their document, so once the parsed tree has been published to the live view,
+     * the snapshot forwards everything to that view.
+     */
+    private static class SnapshotDocument implements ReparseableDocument
+    {
+        private final String text;
+        private final ParsedCUNode root;
+        private final NodeTree<ReparseRecord> reparseRecordTree = new NodeTree<ReparseRecord>();
+        // The start position of each line, worked out when first needed:
+        private int[] lineStarts;
+        // The live view, once the parsed tree has been published:
+        private JavaSyntaxView live;
+
+        public SnapshotDocument(String text, EntityResolver parentResolver)
+        {
+            this.text = text;
+            this.root = new ParsedCUNode(parentResolver);
+        }
+
+        /**
+         * Parse the whole snapshot.  Returns false if the parse was cancelled before it completed.
+         */
+        private boolean parse(BackgroundParse parse)
+        {
+            root.textInserted(this, 0, 0, text.length(), new SyntaxEvent(0, text.length(), true, false));
+            while (!parse.isCancelled())
+            {
+                if (!reparseNext(root, reparseRecordTree, this, MAX_PARSE_PIECE, new SyntaxEvent(-1, -1, false, false)))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Hand the parsed tree over to the given view, which this document forwards to from now on.
+         */
+        private ParsedCUNode publish(JavaSyntaxView live)
+        {
+            this.live = live;
+            return root;
+        }
+
+        @Override
+        public void scheduleReparse(int pos, int size)
+        {
+            if (live != null)
+            {
+                live.scheduleReparse(pos, size);
+            }
+            else
+            {
+                addReparseRecord(reparseRecordTree, pos, size);
+            }
+        }
+
+        @Override
+        public void markSectionParsed(int pos, int size)
+        {
+            if (live != null)
+            {
+                live.markSectionParsed(pos, size);
+            }
+            else
+            {
+                removeReparseRecords(reparseRecordTree, pos, size);
+            }
+        }
+
+        @Override
+        public void flushReparseQueue()
+        {
+            if (live != null)
+            {
+                live.flushReparseQueue();
+            }
+            else
+            {
+                while (reparseNext(root, reparseRecordTree, this, text.length(), new SyntaxEvent(-1, -1, false, false))) ;
+            }
+        }
+
+        @Override
+        public ParsedCUNode getParser()
+        {
+            return live != null ? live.getParser() : root;
+        }
+
+        @Override
+        public int getLength()
+        {
+            return live != null ? live.getLength() : text.length();
+        }
+
+        @Override
+        public Reader makeReader(int startPos, int endPos)
+        {
+            return live != null ? live.makeReader(startPos, endPos) : new StringReader(text.substring(startPos, endPos));
+        }
+
+        @Override
+        public ReparseableDocument.Element getDefaultRootElement()
+        {
+            if (live != null)
+            {
+                return live.getDefaultRootElement();
+            }
+            if (lineStarts == null)
+            {
+                lineStarts = findLineStarts(text);
+            }
+            int[] starts = lineStarts;
+            int length = text.length();
+            return new ReparseableDocument.Element()
+            {
+                @Override
+                public ReparseableDocument.Element getElement(int index)
+                {
+                    if (index >= starts.length)
+                        return null;
+
+                    int pos = starts[index];
+                    int end = index == starts.length - 1 ? length : starts[index + 1];
+                    return new ReparseableDocument.Element()
+                    {
+                        @Override
+                        public ReparseableDocument.Element getElement(int index)
+                        {
+                            return null;
+                        }
+
+                        @Override
+                        public int getStartOffset()
+                        {
+                            return pos;
+                        }
+
+                        @Override
+                        public int getEndOffset()
+                        {
+                            return end;
+                        }
+
+                        @Override
+                        public int getElementIndex(int offset)
+                        {
+                            return -1;
+                        }
+
+                        @Override
+                        public int getElementCount()
+                        {
+                            return 0;
+                        }
+                    };
+                }
+
+                @Override
+                public int getStartOffset()
+                {
+                    return 0;
+                }
+
+                @Override
+                public int getEndOffset()
+                {
+                    return length;
+                }
+
+                @Override
+                public int getElementIndex(int offset)
+                {
+                    int index = Arrays.binarySearch(starts, offset);
+                    // If not an exact match, the line is the one before the insertion point:
+                    return index >= 0 ? index : -index - 2;
+                }
+
+                @Override
+                public int getElementCount()
+                {
+                    return starts.length;
+                }
+            };
+        }
+
+        private static int[] findLineStarts(String text)
+        {
+            int lines = 1;
+            for (int i = 0; i < text.length(); i++)
+            {
+                if (text.charAt(i) == '\n')
+                    lines += 1;
+            }
+            int[] starts = new int[lines];
+            int line = 1;
+            for (int i = 0; i < text.length(); i++)
+            {
+                if (text.charAt(i) == '\n')
+                    starts[line++] = i + 1;
+            }
+            return starts;
+        }
+    }
+
     /*
      * We'll keep track of recent events, to aid in hunting down bugs in the event
      * that we get an unexpected exception.
@@ -2633,7 +3074,34 @@ public class JavaSyntaxView implements ReparseableDocument, LineDisplayListener
     {
         return document.getFullContent();
     }
-    
+
+    /**
+     * Change the content of the document to the given text.  Only the part which differs
+     * from the current content (between their common prefix and suffix) is replaced, so that
+     * only that part needs to be reparsed.
+     */
+    @OnThread(Tag.FXPlatform)
+    public void updateFullText(String text)
+    {
+        String current = document.getFullContent();
+        int maxCommon = Math.min(current.length(), text.length());
+        int prefix = 0;
+        while (prefix < maxCommon && current.charAt(prefix) == text.charAt(prefix))
+        {
+            prefix += 1;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && current.charAt(current.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix))
+        {
+            suffix += 1;
+        }
+        if (prefix != current.length() || prefix != text.length())
+        {
+            document.replaceText(prefix, current.length() - suffix, text.substring(prefix, text.length() - suffix));
+        }
+    }
+
     public static interface Display
     {
         public ReadOnlyObjectProperty<Scene> sceneProperty();
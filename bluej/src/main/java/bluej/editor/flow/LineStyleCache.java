@@ -0,0 +1,180 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.editor.base.TextLine.StyledSegment;
+
+import java.util.List;
+
+/**
+ * A cache of the syntax-highlighting token styles for each line of a document.
+ *
+ * <p>Cached styles move with their lines: when lines are inserted or removed, the
+ * styles of the following lines are shifted accordingly rather than discarded, and
+ * only the lines whose content actually changed are invalidated.  So a cache entry
+ * is valid as long as it is present, and does not need to be checked against the
+ * line content when it is used.
+ *
+ * <p>The entries are kept as attributes of the lines of a {@link LineTree}, so that
+ * inserting or removing lines takes logarithmic time in the length of the document,
+ * rather than shifting the entries of all the following lines.
+ *
+ * <p>The cache also keeps statistics on its hit ratio, and on the time spent styling
+ * lines in each frame.
+ */
+class LineStyleCache
+{
+    // The key of the line attribute holding a line's Entry:
+    private static final Object STYLES = new Object();
+
+    private static class Entry
+    {
+        private final List<StyledSegment> styles;
+        // The length of the styled line, as a sanity check:
+        private final int length;
+
+        private Entry(List<StyledSegment> styles, int length)
+        {
+            this.styles = styles;
+            this.length = length;
+        }
+    }
+
+    // A line for each line of the document, up to the last line which has been styled.
+    // The line lengths are not used.
+    private LineTree lines = new LineTree();
+
+    private long hits;
+    private long misses;
+    // Time spent styling lines during the current frame, and the last completed frame:
+    private long frameNanos;
+    private long lastFrameNanos;
+
+    /**
+     * Gets the cached styles for the given line, or null if there are none.
+     *
+     * @param lineIndex  The line index (zero-based)
+     * @param length     The current length of the line
+     */
+    List<StyledSegment> get(int lineIndex, int length)
+    {
+        Entry entry = lineIndex < lines.getLineCount() ? (Entry) lines.getLineAttribute(lineIndex, STYLES) : null;
+        if (entry != null && entry.length == length)
+        {
+            hits += 1;
+            return entry.styles;
+        }
+        misses += 1;
+        return null;
+    }
+
+    /**
+     * Stores the styles for the given line.
+     */
+    void put(int lineIndex, List<StyledSegment> styles, int length)
+    {
+        int lastLine = lines.getLineCount() - 1;
+        if (lineIndex > lastLine)
+        {
+            // Add lines up to this one (the last line keeps its entry):
+            lines.replaceLines(lastLine, lastLine, new int[lineIndex - lastLine + 1]);
+        }
+        lines.addLineAttribute(lineIndex, STYLES, new Entry(styles, length));
+    }
+
+    /**
+     * Updates the cache for an edit to the document.  The edit starts in the given line,
+     * removes the given number of line breaks and adds the given number of line breaks.
+     * The content of the first line and the added lines has changed; all following lines
+     * are unchanged, but move by (linesAdded - linesRemoved).
+     */
+    void linesReplaced(int firstLine, int linesRemoved, int linesAdded)
+    {
+        int lastLine = lines.getLineCount() - 1;
+        if (firstLine > lastLine)
+        {
+            return;
+        }
+        lines.replaceLines(firstLine, Math.min(firstLine + linesRemoved, lastLine), new int[linesAdded + 1]);
+        // The first line keeps its attributes, but its content has changed:
+        lines.removeLineAttribute(firstLine, STYLES);
+    }
+
+    /**
+     * Invalidates the cached styles for the lines between start and end (inclusive).
+     */
+    void invalidate(int start, int end)
+    {
+        int lastLine = lines.getLineCount() - 1;
+        if (start <= 0 && end >= lastLine)
+        {
+            clear();
+            return;
+        }
+        for (int i = start; i <= end && i <= lastLine; i++)
+        {
+            lines.removeLineAttribute(i, STYLES);
+        }
+    }
+
+    /**
+     * Invalidates all cached styles.
+     */
+    void clear()
+    {
+        lines = new LineTree();
+    }
+
+    /**
+     * Records time spent styling a line (whether or not it was found in the cache).
+     */
+    void recordStylingTime(long nanos)
+    {
+        frameNanos += nanos;
+    }
+
+    /**
+     * Marks the end of a frame (i.e. that lines have been rendered).
+     */
+    void endFrame()
+    {
+        lastFrameNanos = frameNanos;
+        frameNanos = 0;
+    }
+
+    /**
+     * Gets the proportion of lookups which have found styles in the cache.
+     */
+    double getHitRatio()
+    {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    /**
+     * Gets the time (in nanoseconds) spent styling lines for the last rendered frame.
+     */
+    long getLastFrameNanos()
+    {
+        return lastFrameNanos;
+    }
+}
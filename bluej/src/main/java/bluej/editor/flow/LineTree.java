@@ -0,0 +1,418 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * The lines of a document, kept in a balanced tree (a treap, ordered by line index)
+ * so that mapping between line numbers and character positions, and replacing lines,
+ * take logarithmic rather than linear time.
+ *
+ * <p>Each node represents one line and stores only that line's length (excluding the
+ * newline which terminates every line but the last).  Line start positions are not
+ * stored; they are computed by summing the lengths held in each subtree, so an edit
+ * only needs to touch the lines it actually changes, and never shifts the positions
+ * of the lines after it.
+ *
+ * <p>Each line may also have a set of attributes (see {@link HoleDocument#addLineAttribute}).
+ */
+class LineTree
+{
+    private static class Node
+    {
+        // The length of this line, excluding its newline:
+        int length;
+        // The line attributes; null if none have been set:
+        HashMap<Object, Object> attributes;
+        final int priority;
+        Node left;
+        Node right;
+
+        // Summary of the subtree rooted at this node:
+        int count; // number of lines
+        int chars; // total length, counting a newline after every line
+        int maxLength; // length of the longest line
+        int attributed; // number of lines with non-empty attributes
+
+        Node(int length, HashMap<Object, Object> attributes, int priority)
+        {
+            this.length = length;
+            this.attributes = attributes;
+            this.priority = priority;
+            update();
+        }
+
+        /**
+         * Recalculate the subtree summary after a change to this node or its children.
+         */
+        void update()
+        {
+            count = 1;
+            chars = length + 1;
+            maxLength = length;
+            attributed = (attributes != null && !attributes.isEmpty()) ? 1 : 0;
+            if (left != null)
+            {
+                count += left.count;
+                chars += left.chars;
+                maxLength = Math.max(maxLength, left.maxLength);
+                attributed += left.attributed;
+            }
+            if (right != null)
+            {
+                count += right.count;
+                chars += right.chars;
+                maxLength = Math.max(maxLength, right.maxLength);
+                attributed += right.attributed;
+            }
+        }
+    }
+
+    // Fixed seed, so that the tree shape (and thus performance) is repeatable:
+    private final Random random = new Random(0x1ee7);
+    private Node root;
+    // Results of split(), to avoid allocating a pair for every call:
+    private Node splitLeft;
+    private Node splitRight;
+
+    /**
+     * Create a tree with a single empty line.
+     */
+    LineTree()
+    {
+        root = newNode(0, null);
+    }
+
+    private Node newNode(int length, HashMap<Object, Object> attributes)
+    {
+        return new Node(length, attributes, random.nextInt());
+    }
+
+    /**
+     * Gets the number of lines.  This is always at least one.
+     */
+    int getLineCount()
+    {
+        return root.count;
+    }
+
+    /**
+     * Gets the position of the start of the given line.
+     */
+    int getLineStart(int lineIndex)
+    {
+        int start = 0;
+        Node node = root;
+        while (node != null)
+        {
+            int leftCount = node.left == null ? 0 : node.left.count;
+            if (lineIndex < leftCount)
+            {
+                node = node.left;
+            }
+            else
+            {
+                start += node.left == null ? 0 : node.left.chars;
+                if (lineIndex == leftCount)
+                {
+                    return start;
+                }
+                start += node.length + 1;
+                lineIndex -= leftCount + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * Gets the length of the given line, excluding its newline (if any).
+     */
+    int getLineLength(int lineIndex)
+    {
+        return findLine(lineIndex).length;
+    }
+
+    /**
+     * Gets the index of the line containing the given position.  A position at the
+     * start of a line is in that line; the end of the document is in the last line.
+     */
+    int getLineFromPosition(int position)
+    {
+        int lineIndex = 0;
+        Node node = root;
+        while (true)
+        {
+            int leftChars = node.left == null ? 0 : node.left.chars;
+            if (node.left != null && position < leftChars)
+            {
+                node = node.left;
+                continue;
+            }
+            position -= leftChars;
+            lineIndex += node.left == null ? 0 : node.left.count;
+            if (position <= node.length || node.right == null)
+            {
+                return lineIndex;
+            }
+            position -= node.length + 1;
+            lineIndex += 1;
+            node = node.right;
+        }
+    }
+
+    /**
+     * Gets the index of the longest line (the first, if several are equally long).
+     */
+    int getLongestLineIndex()
+    {
+        int target = root.maxLength;
+        int lineIndex = 0;
+        Node node = root;
+        while (true)
+        {
+            if (node.left != null && node.left.maxLength == target)
+            {
+                node = node.left;
+                continue;
+            }
+            lineIndex += node.left == null ? 0 : node.left.count;
+            if (node.length == target)
+            {
+                return lineIndex;
+            }
+            lineIndex += 1;
+            node = node.right;
+        }
+    }
+
+    /**
+     * Replaces the lines from firstLine to lastLine (both inclusive) with new lines of
+     * the given lengths.  The first new line keeps the attributes of firstLine; the
+     * attributes of the other replaced lines are discarded.
+     */
+    void replaceLines(int firstLine, int lastLine, int[] newLengths)
+    {
+        split(root, firstLine);
+        Node before = splitLeft;
+        split(splitRight, lastLine - firstLine + 1);
+        Node replaced = splitLeft;
+        Node after = splitRight;
+
+        Node first = findFirst(replaced);
+        Node middle = newNode(newLengths[0], first.attributes);
+        for (int i = 1; i < newLengths.length; i++)
+        {
+            middle = merge(middle, newNode(newLengths[i], null));
+        }
+        root = merge(merge(before, middle), after);
+    }
+
+    /**
+     * Checks whether the given line has an attribute with the given key.
+     */
+    boolean hasLineAttribute(int lineIndex, Object key)
+    {
+        HashMap<Object, Object> attributes = findLine(lineIndex).attributes;
+        return attributes != null && attributes.containsKey(key);
+    }
+
+    /**
+     * Gets the value of the attribute with the given key on the given line, or null if
+     * the line doesn't have that attribute.
+     */
+    Object getLineAttribute(int lineIndex, Object key)
+    {
+        HashMap<Object, Object> attributes = findLine(lineIndex).attributes;
+        return attributes == null ? null : attributes.get(key);
+    }
+
+    /**
+     * Sets an attribute on the given line.
+     */
+    void addLineAttribute(int lineIndex, Object key, Object value)
+    {
+        addLineAttribute(root, lineIndex, key, value);
+    }
+
+    private static void addLineAttribute(Node node, int lineIndex, Object key, Object value)
+    {
+        int leftCount = node.left == null ? 0 : node.left.count;
+        if (lineIndex < leftCount)
+        {
+            addLineAttribute(node.left, lineIndex, key, value);
+        }
+        else if (lineIndex > leftCount)
+        {
+            addLineAttribute(node.right, lineIndex - leftCount - 1, key, value);
+        }
+        else
+        {
+            if (node.attributes == null)
+            {
+                node.attributes = new HashMap<>();
+            }
+            node.attributes.put(key, value);
+        }
+        node.update();
+    }
+
+    /**
+     * Removes the attribute with the given key from the given line.
+     */
+    void removeLineAttribute(int lineIndex, Object key)
+    {
+        removeLineAttribute(root, lineIndex, key);
+    }
+
+    private static void removeLineAttribute(Node node, int lineIndex, Object key)
+    {
+        int leftCount = node.left == null ? 0 : node.left.count;
+        if (lineIndex < leftCount)
+        {
+            removeLineAttribute(node.left, lineIndex, key);
+        }
+        else if (lineIndex > leftCount)
+        {
+            removeLineAttribute(node.right, lineIndex - leftCount - 1, key);
+        }
+        else if (node.attributes != null)
+        {
+            node.attributes.remove(key);
+        }
+        node.update();
+    }
+
+    /**
+     * Removes the attribute with the given key from all lines.  Only the parts of the
+     * tree which contain lines with attributes are visited.
+     */
+    void removeLineAttributeThroughout(Object key)
+    {
+        removeLineAttribute(root, key);
+    }
+
+    private static void removeLineAttribute(Node node, Object key)
+    {
+        if (node == null || node.attributed == 0)
+        {
+            return;
+        }
+        removeLineAttribute(node.left, key);
+        removeLineAttribute(node.right, key);
+        if (node.attributes != null)
+        {
+            node.attributes.remove(key);
+        }
+        node.update();
+    }
+
+    private Node findLine(int lineIndex)
+    {
+        Node node = root;
+        while (node != null)
+        {
+            int leftCount = node.left == null ? 0 : node.left.count;
+            if (lineIndex < leftCount)
+            {
+                node = node.left;
+            }
+            else if (lineIndex == leftCount)
+            {
+                return node;
+            }
+            else
+            {
+                lineIndex -= leftCount + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    private static Node findFirst(Node node)
+    {
+        while (node.left != null)
+        {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * Split the given subtree into its first numLines lines (put in splitLeft) and the rest
+     * (put in splitRight).
+     */
+    private void split(Node node, int numLines)
+    {
+        if (node == null)
+        {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        int leftCount = node.left == null ? 0 : node.left.count;
+        if (numLines <= leftCount)
+        {
+            split(node.left, numLines);
+            node.left = splitRight;
+            node.update();
+            splitRight = node;
+        }
+        else
+        {
+            split(node.right, numLines - leftCount - 1);
+            node.right = splitLeft;
+            node.update();
+            splitLeft = node;
+        }
+    }
+
+    /**
+     * Join two subtrees, with all lines of a before all lines of b.
+     */
+    private static Node merge(Node a, Node b)
+    {
+        if (a == null)
+        {
+            return b;
+        }
+        if (b == null)
+        {
+            return a;
+        }
+        if (a.priority > b.priority)
+        {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        else
+        {
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
+    }
+}
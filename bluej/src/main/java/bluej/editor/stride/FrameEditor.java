@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -364,15 +364,16 @@ public class FrameEditor implements Editor
             if (source == null)
                 return new SaveResult(Utility.serialiseCodeToString(lastSource.toXML()), null); // classFrame not initialised yet
 
-            // Save Frame source:
+            // Save Frame source (serialised once, for the file and for lastSavedSource):
+            String savedSource = Utility.serialiseCodeToString(source.toXML());
             try (FileOutputStream os = new FileOutputStream(frameFilename))
             {
-                Utility.serialiseCodeTo(source.toXML(), os);
+                os.write(savedSource.getBytes(Charset.forName("UTF-8")));
             }
 
             lastSavedJava = saveJava(panel.getSource(), true);
             changedSinceLastSave = false;
-            lastSavedSource = Utility.serialiseCodeToString(source.toXML());
+            lastSavedSource = savedSource;
         
             setSaved();
             panel.saved();
@@ -429,7 +430,7 @@ public class FrameEditor implements Editor
         // to make sure all the source positions have been recorded.
         javaSource.set(js);
 
-        return new SaveJavaResult(js, javaString, source.toXML().buildLocationMap());
+        return new SaveJavaResult(js, javaString, source.getLocationMap());
     }
 
     /**
@@ -1195,7 +1196,7 @@ public class FrameEditor implements Editor
         if (el == null)
             return;
         Stream<CodeElement> allElements = Stream.concat(Stream.of((CodeElement)el), el.streamContained());
-        LocationMap rootPathMap = el.toXML().buildLocationMap();
+        LocationMap rootPathMap = el.getLocationMap();
         // We must start these futures going on the FX thread
         List<Future<List<DirectSlotError>>> futures = allElements.flatMap(e -> e.findDirectLateErrors(panel, rootPathMap)).collect(Collectors.toList());
         // Then wait for them on another thread
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -132,6 +132,7 @@ import javafx.scene.text.TextFlow;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import javafx.util.Pair;
+import nu.xom.Element;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -1889,8 +1890,11 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
         }
 
         editor.recordEdits(StrideEditReason.FLUSH);
+        // The current state is the one the frames match; it must be read before it is
+        // stored as a delta by the move:
+        Element previous = undoRedoManager.canUndo() ? undoRedoManager.getCurrent().getRootElement() : null;
         undoRedoManager.startRestoring();
-        updateClassContents(undoRedoManager.undo());
+        updateClassContents(previous, undoRedoManager.undo());
         undoRedoManager.stopRestoring();
         editor.recordEdits(StrideEditReason.UNDO_GLOBAL);
     }
@@ -1899,19 +1903,24 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
     public void redo()
     {
         editor.recordEdits(StrideEditReason.FLUSH);
+        Element previous = undoRedoManager.canRedo() ? undoRedoManager.getCurrent().getRootElement() : null;
         undoRedoManager.startRestoring();
-        updateClassContents(undoRedoManager.redo());
+        updateClassContents(previous, undoRedoManager.redo());
         undoRedoManager.stopRestoring();
         editor.recordEdits(StrideEditReason.REDO_GLOBAL);
     }
 
     @OnThread(Tag.FXPlatform)
-    private void updateClassContents(FrameState state)
+    private void updateClassContents(Element previous, FrameState state)
     {
         if (state != null) {
-            final ClassElement classElement = state.getClassElement(projectResolver,
-                    editor.getPackage().getQualifiedName());
-            getTopLevelFrame().restoreCast(classElement);
+            // Only restore the members which differ from the previous state, if we can:
+            if (previous == null || !getTopLevelFrame().restoreChanged(previous, state.getRootElement()))
+            {
+                final ClassElement classElement = state.getClassElement(projectResolver,
+                        editor.getPackage().getQualifiedName());
+                getTopLevelFrame().restoreCast(classElement);
+            }
             getTopLevelFrame().regenerateCode();
             Node n = state.recallFocus(getTopLevelFrame());
             if (n != null)
@@ -2933,14 +2942,14 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
     }
 
     /**
-     * It invokes the buildLocationMap method in the LocatableElement to build a location map.
-     * This location map is dependent on the latest version of the code, and will invalid as soon as the code changes in future.
+     * Gets the location map of the latest version of the code (built once per version of the code).
+     * This location map will be invalid as soon as the code changes in future.
      *
      * @return A map from JavaFragment to XPath String identifying the location of that fragment.
      */
     private LocationMap getLocationMap()
     {
-        return getTopLevelFrame().getCode().toXML().buildLocationMap();
+        return getTopLevelFrame().getCode().getLocationMap();
     }
 
     /**
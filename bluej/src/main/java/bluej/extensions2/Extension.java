@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2014,2019,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2014,2019,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -57,11 +57,11 @@ public abstract class Extension
     /**
      * Obtains the minor version of the Extensions API.
      *
-     * @return An integer indicating the minor version of the Extensions API. Currently 3.
+     * @return An integer indicating the minor version of the Extensions API. Currently 4.
      */
     protected static final int getExtensionsAPIVersionMinor()
     {
-        return 3;
+        return 4;
     }
 
     /**
@@ -127,4 +127,23 @@ public abstract class Extension
     {
         return null;
     }
+
+    /**
+     * Should return true if this extension's event listeners may be called on a thread other
+     * than the FX thread.  If so, BlueJ delivers the events to this extension in order, on a
+     * thread of its own, and does not wait for them to be handled (except for package events,
+     * which are handled before BlueJ continues), so that a listener which takes a long time
+     * does not hold up BlueJ.  The listeners must then use <code>Platform.runLater</code>
+     * for anything which must be done on the FX thread.
+     *
+     * <p>This is called once, after {@link #isCompatible()} and before {@link #startup(BlueJ)}.
+     * The default is false: events are delivered on the FX thread.
+     *
+     * @return <code>true</code> if events may be delivered to this extension on another thread.
+     * @since Extension API 3.4
+     */
+    public boolean handlesEventsInBackground()
+    {
+        return false;
+    }
 }
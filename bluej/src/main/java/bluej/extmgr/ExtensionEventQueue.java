@@ -0,0 +1,335 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.extmgr;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import bluej.Config;
+import bluej.extensions2.event.ExtensionEvent;
+import javafx.application.Platform;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A queue of events waiting to be delivered to one extension.  Events are added when
+ * they occur, without waiting for the extension to handle them, and are delivered in
+ * order on the FX thread (where extensions expect them).  The queue is drained a slice
+ * of time at a time, so that a burst of events, or an extension which is slow to handle
+ * them, does not hold up the rest of BlueJ (or delivery to other extensions) for long.
+ * A single listener call which is slow still holds up the FX thread until it returns,
+ * so an extension which handles events in the background (see
+ * Extension.handlesEventsInBackground()) has its events delivered on a thread of its own
+ * instead.
+ *
+ * <p>Each queue has a maximum size.  What happens to an event when the queue is full is
+ * set by the overflow policy (see bluej.defs).
+ */
+@OnThread(Tag.Any)
+class ExtensionEventQueue
+{
+    /**
+     * What to do with a new event when the queue is full.
+     */
+    enum OverflowPolicy
+    {
+        // Deliver the queued events at once, on the FX thread (no events are lost):
+        DELIVER,
+        // Drop the oldest queued event:
+        DROP_OLDEST,
+        // Drop the new event:
+        DROP_NEWEST
+    }
+
+    // How long to deliver events for before letting the FX thread do other work:
+    private static final long DRAIN_SLICE_NANOS = 10_000_000;
+
+    private static final boolean QUEUED = "queued".equals(Config.getPropString("bluej.extensions.eventDispatch", "direct"));
+    private static final int CAPACITY = Math.max(1, Config.getPropInteger("bluej.extensions.eventQueue.size", 1000));
+    private static final OverflowPolicy OVERFLOW_POLICY = getOverflowPolicy();
+
+    private static class QueuedEvent
+    {
+        private final ExtensionEvent event;
+        private final long queuedTime;
+
+        private QueuedEvent(ExtensionEvent event, long queuedTime)
+        {
+            this.event = event;
+            this.queuedTime = queuedTime;
+        }
+    }
+
+    private final ExtensionWrapper wrapper;
+    // Runs the deliveries: on the FX thread, or on the extension's own thread (see getExecutor):
+    private Executor executor;
+    private final ArrayDeque<QueuedEvent> queue = new ArrayDeque<>();
+    private boolean drainScheduled;
+    private boolean flushScheduled;
+    // The thread delivering events, or null if none is:
+    private Thread deliveringThread;
+
+    private long delivered;
+    private long dropped;
+    private int maxDepth;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    ExtensionEventQueue(ExtensionWrapper wrapper)
+    {
+        this.wrapper = wrapper;
+    }
+
+    /**
+     * Whether events should be delivered via queues.  If not (the default), they are
+     * delivered directly, on the thread where they occur.
+     */
+    static boolean isQueuedDispatch()
+    {
+        return QUEUED;
+    }
+
+    private static OverflowPolicy getOverflowPolicy()
+    {
+        switch (Config.getPropString("bluej.extensions.eventQueue.overflow", "deliver"))
+        {
+            case "dropOldest":
+                return OverflowPolicy.DROP_OLDEST;
+            case "dropNewest":
+                return OverflowPolicy.DROP_NEWEST;
+            default:
+                return OverflowPolicy.DELIVER;
+        }
+    }
+
+    /**
+     * Get the executor which delivers the events: the FX thread, or a thread for this
+     * extension if it handles events in the background.
+     */
+    private synchronized Executor getExecutor()
+    {
+        if (executor == null)
+        {
+            if (wrapper.handlesEventsInBackground())
+            {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), r -> {
+                            Thread thread = new Thread(r, "Extension events: " + wrapper.getExtensionClassName());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+            else
+            {
+                executor = Platform::runLater;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Add an event to the queue, to be delivered on the FX thread (or the extension's own thread).
+     */
+    void add(ExtensionEvent event)
+    {
+        boolean deliverNow = false;
+        synchronized (this)
+        {
+            if (queue.size() >= CAPACITY)
+            {
+                switch (OVERFLOW_POLICY)
+                {
+                    case DROP_NEWEST:
+                        dropped += 1;
+                        return;
+                    case DROP_OLDEST:
+                        queue.removeFirst();
+                        dropped += 1;
+                        break;
+                    default:
+                        deliverNow = true;
+                        break;
+                }
+            }
+            queue.addLast(new QueuedEvent(event, System.nanoTime()));
+            maxDepth = Math.max(maxDepth, queue.size());
+            if (deliverNow && !Platform.isFxApplicationThread() && !wrapper.handlesEventsInBackground())
+            {
+                // Listeners must only be called on the FX thread.  We can't wait for it here
+                // (it may be waiting for us), so the queue goes over its size until then:
+                scheduleFlush();
+                return;
+            }
+            else if (!deliverNow)
+            {
+                scheduleDrain();
+            }
+        }
+        if (deliverNow)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Deliver all the queued events now, on this thread.
+     */
+    void flush()
+    {
+        Thread previous;
+        synchronized (this)
+        {
+            flushScheduled = false;
+            // Wait for any other thread to finish delivering, to keep the events in order:
+            while (deliveringThread != null && deliveringThread != Thread.currentThread())
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    // Keep waiting
+                }
+            }
+            previous = deliveringThread;
+            deliveringThread = Thread.currentThread();
+        }
+        try
+        {
+            while (deliverNext())
+            {
+            }
+        }
+        finally
+        {
+            finishDelivering(previous);
+        }
+    }
+
+    /**
+     * Deliver queued events, for a slice of time.  This is run by the executor (see getExecutor).
+     */
+    private void drain()
+    {
+        Thread previous;
+        synchronized (this)
+        {
+            drainScheduled = false;
+            if (deliveringThread != null && deliveringThread != Thread.currentThread())
+            {
+                // The other thread will deliver the rest, or schedule us again:
+                return;
+            }
+            previous = deliveringThread;
+            deliveringThread = Thread.currentThread();
+        }
+        try
+        {
+            long end = System.nanoTime() + DRAIN_SLICE_NANOS;
+            while (System.nanoTime() < end && deliverNext())
+            {
+            }
+        }
+        finally
+        {
+            finishDelivering(previous);
+        }
+    }
+
+    private synchronized void finishDelivering(Thread previous)
+    {
+        deliveringThread = previous;
+        notifyAll();
+        if (previous == null && !queue.isEmpty())
+        {
+            scheduleDrain();
+        }
+    }
+
+    private synchronized void scheduleFlush()
+    {
+        if (!flushScheduled)
+        {
+            flushScheduled = true;
+            getExecutor().execute(this::flush);
+        }
+    }
+
+    private synchronized void scheduleDrain()
+    {
+        if (!drainScheduled)
+        {
+            drainScheduled = true;
+            getExecutor().execute(this::drain);
+        }
+    }
+
+    /**
+     * Deliver the next event, if there is one.
+     * 
+     * @return true if an event was delivered.
+     */
+    private boolean deliverNext()
+    {
+        QueuedEvent next;
+        synchronized (this)
+        {
+            next = queue.pollFirst();
+        }
+        if (next == null)
+        {
+            return false;
+        }
+
+        wrapper.safeEventOccurred(next.event);
+
+        long latency = System.nanoTime() - next.queuedTime;
+        synchronized (this)
+        {
+            delivered += 1;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        }
+        return true;
+    }
+
+    /**
+     * Get the statistics of this queue, for display: the number of events delivered and
+     * dropped, the current and largest number of queued events, and the average and
+     * largest time (in milliseconds) from an event occurring to the extension having handled it.
+     */
+    synchronized String[] getStatistics()
+    {
+        double averageLatency = delivered == 0 ? 0.0 : totalLatencyNanos / 1e6 / delivered;
+        return new String[] {
+            Long.toString(delivered), Long.toString(dropped),
+            Integer.toString(queue.size()), Integer.toString(maxDepth),
+            String.format("%.1f", averageLatency), String.format("%.1f", maxLatencyNanos / 1e6)
+        };
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2013,2014,2016,2018,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2013,2014,2016,2018,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -61,6 +62,9 @@ import java.util.jar.Manifest;
  */
 public class ExtensionWrapper
 {
+    // Events which take at least this long to handle are reported (see safeEventOccurred):
+    private static final long SLOW_EVENT_NANOS = Config.getPropInteger("bluej.extensions.slowEvent", 200) * 1_000_000L;
+
     private final ExtensionPrefManager prefManager;
 
     private File extensionJarFileName;
@@ -75,6 +79,13 @@ public class ExtensionWrapper
     private String  extensionStatusString;
     private Project project;
 
+    // Events waiting to be delivered (if events are queued; see ExtensionsManager.delegateEvent):
+    private final ExtensionEventQueue eventQueue = new ExtensionEventQueue(this);
+    // Whether the extension's listeners may be called on a thread other than the FX thread:
+    private boolean eventsInBackground;
+    // The number of events which the extension was slow to handle:
+    private final AtomicInteger slowEvents = new AtomicInteger();
+
     /**
      * Construct a new ExtensionWrapper for the given jar file.
      * 
@@ -213,6 +224,8 @@ public class ExtensionWrapper
             return;
         }
 
+        eventsInBackground = safeHandlesEventsInBackground();
+
         // Ok, time to really start everything... This MUST be here.... after all is initialised
         safeStartup(extensionBluej);
         extensionStatusString = Config.getString("extmgr.status.loaded");
@@ -262,6 +275,8 @@ public class ExtensionWrapper
      */
     void terminate()
     {
+        // Deliver any events which occurred before termination (e.g. the package closing):
+        eventQueue.flush();
         safeTerminate();
 
         // Needed to signal to the revalidate (below) that this instance is no longer here.            
@@ -399,6 +414,45 @@ public class ExtensionWrapper
         return "ExtensionWrapper: "+ extensionClass.getName();
     }
 
+    /**
+     * Check whether events are delivered to this extension on a thread of its own, rather
+     * than on the FX thread (see Extension.handlesEventsInBackground()).  If so, they are
+     * always queued.
+     */
+    boolean handlesEventsInBackground()
+    {
+        return eventsInBackground;
+    }
+
+    /**
+     * Queue an event, to be delivered to the extension on the FX thread (or on the
+     * extension's own thread; see handlesEventsInBackground()).
+     */
+    void queueEvent(ExtensionEvent event)
+    {
+        if (isValid()) {
+            eventQueue.add(event);
+        }
+    }
+
+    /**
+     * Deliver an event to the extension now, after any queued events (so that they are
+     * still seen in order).
+     */
+    void deliverEventNow(ExtensionEvent event)
+    {
+        eventQueue.flush();
+        safeEventOccurred(event);
+    }
+
+    /**
+     * Gets the statistics of the event queue, for display (see ExtensionEventQueue.getStatistics()).
+     */
+    String[] getEventStatistics()
+    {
+        return eventQueue.getStatistics();
+    }
+
     /* 
      * ====================== ERROR WRAPPED CALLS HERE =========================
      * We need to wrap all calls from BlueJ to the Extension into a try/catch;
@@ -406,7 +460,8 @@ public class ExtensionWrapper
      */
 
     /**
-     * Informs any registered listeners that an event has occurred.
+     * Informs any registered listeners that an event has occurred.  If the listeners take
+     * a long time to handle it, that is reported in the debug log.
      */
     public void safeEventOccurred(ExtensionEvent event)
     {
@@ -414,6 +469,7 @@ public class ExtensionWrapper
             return;
         }
 
+        long start = System.nanoTime();
         try {
             ExtensionBridge.delegateEvent(extensionBluej,event);
         }
@@ -422,6 +478,17 @@ public class ExtensionWrapper
             exc.printStackTrace();
             return;
         }
+
+        long time = System.nanoTime() - start;
+        if (time >= SLOW_EVENT_NANOS) {
+            int count = slowEvents.incrementAndGet();
+            // Report the first slow event, and then less and less often:
+            if (Integer.bitCount(count) == 1) {
+                Debug.message("Extension " + getExtensionClassName() + " took " + time / 1_000_000 + " ms to handle "
+                        + event.getClass().getSimpleName() + " (" + count + " slow event(s) so far)"
+                        + (eventsInBackground ? "" : "; it does not handle events in the background, so BlueJ waited for it"));
+            }
+        }
     }
 
     
@@ -528,6 +595,21 @@ public class ExtensionWrapper
     }
 
     
+    /**
+     * Ask the extension whether its listeners may be called on another thread.
+     */
+    private boolean safeHandlesEventsInBackground()
+    {
+        try {
+            return extensionInstance.handlesEventsInBackground();
+        }
+        catch (Throwable exc) {
+            Debug.message("ExtensionWrapper.safeHandlesEventsInBackground: Class="+getExtensionClassName()+" Exception="+exc.getMessage());
+            exc.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Call the startup method in a safe way
      */
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2016,2019,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2016,2019,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -54,6 +54,7 @@ public class ExtensionsDialog
     private final String projectLongString = Config.getString("extmgr.projectExtensionLong");
     private final String locationTag = Config.getString("extmgr.details.location");
     private final String versionTag = Config.getString("extmgr.details.version");
+    private final String eventsTag = Config.getString("extmgr.details.events");
     private Dialog<Void> mainFrame;
     private VBox extensionsVBox;
 
@@ -98,8 +99,9 @@ public class ExtensionsDialog
                 boolean isProject = wrapper.getProject() != null;
                 String extensionFileName = wrapper.getExtensionFileName();
                 URL url = wrapper.safeGetURL();
+                String[] eventStatistics = wrapper.getEventStatistics();
                 // But create the TitledPane on the FX thread:
-                extensionsVBox.getChildren().add(makeDisplay(extensionName, extensionStatus, extensionVersion, extensionDescription, isProject, extensionFileName, url));
+                extensionsVBox.getChildren().add(makeDisplay(extensionName, extensionStatus, extensionVersion, extensionDescription, isProject, extensionFileName, url, eventStatistics));
             });
         }
     }
@@ -109,7 +111,7 @@ public class ExtensionsDialog
         mainFrame.showAndWait();
     }
 
-    private TitledPane makeDisplay(String extensionName, String extensionStatus, String extensionVersion, String extensionDescription, boolean isProject, String extensionFileName, URL url)
+    private TitledPane makeDisplay(String extensionName, String extensionStatus, String extensionVersion, String extensionDescription, boolean isProject, String extensionFileName, URL url, String[] eventStatistics)
     {
         String typeShort = isProject ? projectString : systemString;
         String typeLong = isProject ? projectLongString : systemLongString;
@@ -125,6 +127,11 @@ public class ExtensionsDialog
         mainPanel.getChildren().add(new Label(locationTag + " " + extensionFileName +
             " (" + extensionStatus +')'));
 
+        if (ExtensionEventQueue.isQueuedDispatch())
+        {
+            mainPanel.getChildren().add(new Label(Utility.mergeStrings(eventsTag, eventStatistics)));
+        }
+
         Text description = new Text(extensionDescription);
         mainPanel.getChildren().add(new TextFlow(description));
         if (url != null)
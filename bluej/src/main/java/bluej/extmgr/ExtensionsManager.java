@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2013,2016,2019,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2012,2013,2016,2019,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -374,13 +374,29 @@ public class ExtensionsManager
     }
 
     /**
-     * Delegates an event to all known extensions.
+     * Delegates an event to all known extensions.  If queued dispatch has been set
+     * (see bluej.defs), the event is queued for each extension, and delivered later on
+     * the FX thread; this returns without waiting for it to be delivered.  Events for an
+     * extension which handles events in the background are always queued, and delivered
+     * on that extension's own thread.  Package events are always delivered before this
+     * returns, as extensions rely on seeing a package closing before it is closed.
      */
     public void delegateEvent(ExtensionEvent event)
     {
+        boolean queuedDispatch = ExtensionEventQueue.isQueuedDispatch();
+        boolean lifecycle = event instanceof PackageEvent;
         synchronized(extensions) {            
             for (ExtensionWrapper wrapper : extensions) {
-                wrapper.safeEventOccurred(event);
+                boolean queued = queuedDispatch || wrapper.handlesEventsInBackground();
+                if (queued && lifecycle) {
+                    wrapper.deliverEventNow(event);
+                }
+                else if (queued) {
+                    wrapper.queueEvent(event);
+                }
+                else {
+                    wrapper.safeEventOccurred(event);
+                }
             }
         }
     }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2013,2014,2016,2017,2018,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2013,2014,2016,2017,2018,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -318,7 +318,7 @@ public class SelectionController
                 selection.add(target);
                 if (!haveFocused)
                 {
-                    target.getNode().requestFocus();
+                    target.requestFocus();
                     haveFocused = true;
                 }
             }
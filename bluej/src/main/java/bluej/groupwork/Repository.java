@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2012,2016,2018  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2010,2012,2016,2018,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -93,8 +93,13 @@ public interface Repository
      *                Whether to include remote files (files which do not exist locally, but which
      *                do exist in the repository), regardless of whether they are listed in the
      *                files argument.
+     * @param fullWalk
+     *                Whether every file must be checked, rather than only those which are known
+     *                to have changed since the status was last found.  This should be true when
+     *                the status will be acted on (e.g. to commit), since a change may not have
+     *                been noticed.
      */
-    public TeamworkCommand getStatus(StatusListener listener, FileFilter filter, boolean includeRemote);
+    public TeamworkCommand getStatus(StatusListener listener, FileFilter filter, boolean includeRemote, boolean fullWalk);
     
     /**
      * Get a list of modules in the repository. The module names (String) are added
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2015,2016,2017,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2015,2016,2017,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -93,4 +93,12 @@ public interface TeamworkProvider
      * @return String with the stored name in the repo.
      */
     public String getYourNameFromRepo(File projectPath) ;
+
+    /**
+     * Release anything held for the project in the given directory (such as a cache of
+     * its status), because the project has been closed.
+     * 
+     * @param projectPath path to the BlueJ project
+     */
+    public void projectClosed(File projectPath);
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2015,2016,2017,2018,2019,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2015,2016,2017,2018,2019,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -364,4 +364,10 @@ public class GitProvider implements TeamworkProvider
         }
         return result;
     }
+
+    @Override
+    public void projectClosed(File projectPath)
+    {
+        GitStatusCache.closeCache(projectPath);
+    }
 }
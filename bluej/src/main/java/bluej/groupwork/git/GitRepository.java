@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2015,2016,2017,2019,2020  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2015,2016,2017,2019,2020,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -132,9 +132,9 @@ public class GitRepository implements Repository
     }
 
     @Override
-    public TeamworkCommand getStatus(StatusListener listener, FileFilter filter, boolean includeRemote) 
+    public TeamworkCommand getStatus(StatusListener listener, FileFilter filter, boolean includeRemote, boolean fullWalk)
     {
-        return new GitStatusCommand(this, listener, filter, includeRemote);
+        return new GitStatusCommand(this, listener, filter, includeRemote, fullWalk);
     }
 
     @Override
@@ -230,6 +230,15 @@ public class GitRepository implements Repository
         return this.projectPath;
     }
 
+    /**
+     * Get the cache of the working tree's status, used by status commands.  This is shared
+     * by all the repository objects for the project.
+     */
+    GitStatusCache getStatusCache()
+    {
+        return GitStatusCache.getCache(projectPath);
+    }
+
     public String getBranch(){
         return branch;
     }
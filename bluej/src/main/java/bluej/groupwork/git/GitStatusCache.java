@@ -0,0 +1,460 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import bluej.Config;
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import static bluej.groupwork.git.GitUtilities.findForkPoint;
+import static bluej.groupwork.git.GitUtilities.getDiffs;
+
+/**
+ * A cache of the status of a Git working tree, as found by a JGit status walk, and of its
+ * comparison with the remote branch.
+ *
+ * <p>The working tree is watched for changes (with a WatchService), and when the status
+ * is next needed only the changed paths are walked again.  The whole tree is walked again
+ * if the index, HEAD or a local branch changes, if a .gitignore file changes, or if
+ * changes may have been missed.  The watch service may report a change late (some
+ * implementations only deliver events after a delay), so a status which will be acted on,
+ * e.g. to commit or to pull, asks for a full walk instead.  The comparison with the remote branch is reused while
+ * neither HEAD nor the remote branch has changed, i.e. until a commit or a fetch.
+ *
+ * <p>There is one cache for each project directory (see {@link #getCache(File)}), which
+ * is closed when the project is closed.  On MacOS, where the JDK's watch service polls
+ * and may miss changes, the working tree is not watched and every status is a full walk.
+ */
+@OnThread(Tag.Worker)
+class GitStatusCache
+{
+    private static final String GIT_DIR = ".git";
+    // Files in the .git directory which affect the local status:
+    private static final Set<String> GIT_STATUS_FILES = new HashSet<>(Arrays.asList(
+            "index", "HEAD", "MERGE_HEAD", "CHERRY_PICK_HEAD", "packed-refs"));
+
+    // The cache for each working tree (see getCache):
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private static final Map<File, GitStatusCache> caches = new HashMap<>();
+
+    /**
+     * The local status: the same sets as a JGit Status, of paths relative to the working tree.
+     */
+    static class LocalStatus
+    {
+        final Set<String> missing = new HashSet<>();
+        final Set<String> removed = new HashSet<>();
+        final Set<String> uncommittedChanges = new HashSet<>();
+        final Set<String> untracked = new HashSet<>();
+        final Set<String> untrackedFolders = new HashSet<>();
+        final Set<String> conflicting = new HashSet<>();
+        final Map<String, IndexDiff.StageState> conflictingStageState = new HashMap<>();
+
+        private void add(Status s)
+        {
+            missing.addAll(s.getMissing());
+            removed.addAll(s.getRemoved());
+            uncommittedChanges.addAll(s.getUncommittedChanges());
+            untracked.addAll(s.getUntracked());
+            untrackedFolders.addAll(s.getUntrackedFolders());
+            conflicting.addAll(s.getConflicting());
+            conflictingStageState.putAll(s.getConflictingStageState());
+        }
+
+        /**
+         * Get the given paths, along with any untracked folders which contain one of them.
+         * A change within an untracked folder may change whether it is still an untracked
+         * folder (e.g. if it is now empty), so the whole folder must be walked again.
+         */
+        private Set<String> withUntrackedAncestors(Set<String> paths)
+        {
+            Set<String> result = new HashSet<>(paths);
+            for (String path : paths)
+            {
+                for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1))
+                {
+                    String ancestor = path.substring(0, slash);
+                    if (untrackedFolders.contains(ancestor))
+                    {
+                        result.add(ancestor);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Remove the given paths, and all paths within them.
+         */
+        private void removePaths(Set<String> paths)
+        {
+            for (Set<String> set : Arrays.asList(missing, removed, uncommittedChanges, untracked, untrackedFolders, conflicting))
+            {
+                set.removeIf(p -> isWithin(p, paths));
+            }
+            conflictingStageState.keySet().removeIf(p -> isWithin(p, paths));
+        }
+
+        private static boolean isWithin(String path, Set<String> paths)
+        {
+            if (paths.contains(path))
+            {
+                return true;
+            }
+            for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1))
+            {
+                if (paths.contains(path.substring(0, slash)))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The differences of HEAD and of the remote branch from their fork point.
+     */
+    static class RemoteComparison
+    {
+        private final String branch;
+        private final ObjectId headId;
+        private final ObjectId remoteId;
+        final List<DiffEntry> localDiffs;
+        final List<DiffEntry> remoteDiffs;
+
+        private RemoteComparison(String branch, ObjectId headId, ObjectId remoteId,
+                List<DiffEntry> localDiffs, List<DiffEntry> remoteDiffs)
+        {
+            this.branch = branch;
+            this.headId = headId;
+            this.remoteId = remoteId;
+            this.localDiffs = Collections.unmodifiableList(localDiffs);
+            this.remoteDiffs = Collections.unmodifiableList(remoteDiffs);
+        }
+    }
+
+    private final Path workTree;
+    private WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    // Set if not watching (e.g. because watching failed), so that every status is a full walk:
+    private boolean watchFailed;
+
+    private LocalStatus localStatus;
+    // Paths (relative, with '/' separators) changed since localStatus was found:
+    private final Set<String> changedPaths = new HashSet<>();
+    private boolean fullWalkNeeded;
+    private RemoteComparison remoteComparison;
+    private int fullWalks;
+    private int partialWalks;
+
+    @OnThread(Tag.Any)
+    private GitStatusCache(File workTree)
+    {
+        this.workTree = workTree.toPath();
+    }
+
+    /**
+     * Get the cache for the given working tree (the project directory), creating it if
+     * necessary.  There is one cache for each working tree, however many repository objects
+     * are made for it, until it is closed (see {@link #closeCache(File)}).
+     */
+    @OnThread(Tag.Any)
+    static synchronized GitStatusCache getCache(File workTree)
+    {
+        return caches.computeIfAbsent(workTree.getAbsoluteFile(), GitStatusCache::new);
+    }
+
+    /**
+     * Close the cache for the given working tree, if there is one, because the project
+     * has been closed.
+     */
+    @OnThread(Tag.Any)
+    static void closeCache(File workTree)
+    {
+        GitStatusCache cache = removeCache(workTree);
+        if (cache != null)
+        {
+            cache.close();
+        }
+    }
+
+    @OnThread(Tag.Any)
+    private static synchronized GitStatusCache removeCache(File workTree)
+    {
+        return caches.remove(workTree.getAbsoluteFile());
+    }
+
+    /**
+     * Get the local status of the working tree.  The returned status must not be modified,
+     * and is only valid until this method is next called.
+     *
+     * @param fullWalk  Whether to walk the whole working tree, rather than only the paths
+     *                  reported as changed since the last status.
+     */
+    synchronized LocalStatus getLocalStatus(Git git, boolean fullWalk) throws GitAPIException
+    {
+        if (watchService == null && !watchFailed)
+        {
+            startWatching();
+        }
+        // Find the changes before walking, so that changes made during the walk are seen next time:
+        collectChanges();
+
+        if (fullWalk || localStatus == null || fullWalkNeeded || watchFailed)
+        {
+            LocalStatus status = new LocalStatus();
+            status.add(git.status().call());
+            localStatus = status;
+            fullWalks += 1;
+        }
+        else if (!changedPaths.isEmpty())
+        {
+            Set<String> paths = localStatus.withUntrackedAncestors(changedPaths);
+            StatusCommand command = git.status();
+            paths.forEach(command::addPath);
+            Status status = command.call();
+            localStatus.removePaths(paths);
+            localStatus.add(status);
+            partialWalks += 1;
+        }
+        changedPaths.clear();
+        fullWalkNeeded = false;
+        return localStatus;
+    }
+
+    /**
+     * Get the comparison of HEAD and the remote branch (origin/branch) with their fork point.
+     */
+    synchronized RemoteComparison getRemoteComparison(Git git) throws IOException
+    {
+        Repository repository = git.getRepository();
+        String branch = repository.getBranch();
+        String remoteBranch = "origin/" + branch;
+        ObjectId headId = repository.resolve("HEAD");
+        ObjectId remoteId = repository.resolve(remoteBranch);
+        if (remoteComparison != null && remoteComparison.branch.equals(branch)
+                && Objects.equals(remoteComparison.headId, headId) && Objects.equals(remoteComparison.remoteId, remoteId))
+        {
+            return remoteComparison;
+        }
+
+        RevCommit forkPoint = findForkPoint(repository, remoteBranch, "HEAD");
+        //find diffs between <default branch>/head and the forkpoint.
+        List<DiffEntry> localDiffs = getDiffs(git, "HEAD", forkPoint);
+        //check for differences between forkpoint and remote repo head.
+        List<DiffEntry> remoteDiffs = getDiffs(git, remoteBranch, forkPoint);
+        remoteComparison = new RemoteComparison(branch, headId, remoteId, localDiffs, remoteDiffs);
+        return remoteComparison;
+    }
+
+    /**
+     * Get the number of full and partial walks of the working tree which have been done.
+     */
+    @OnThread(Tag.Any)
+    synchronized int[] getWalkCounts()
+    {
+        return new int[] {fullWalks, partialWalks};
+    }
+
+    /**
+     * Stop watching the working tree.  The cache can still be used, but each status is a
+     * full walk.
+     */
+    @OnThread(Tag.Any)
+    synchronized void close()
+    {
+        watchFailed = true;
+        if (watchService != null)
+        {
+            try
+            {
+                watchService.close();
+            }
+            catch (IOException e)
+            {
+                // Nothing more we can do
+            }
+            watchService = null;
+            watchedDirs.clear();
+        }
+    }
+
+    private void startWatching()
+    {
+        if (Config.isMacOS())
+        {
+            // The JDK's watch service on MacOS polls for changes, comparing modification times
+            // which may be too coarse to show that a file just saved has changed:
+            watchFailed = true;
+            return;
+        }
+        try
+        {
+            watchService = workTree.getFileSystem().newWatchService();
+            watchTree(workTree);
+            Path gitDir = workTree.resolve(GIT_DIR);
+            watch(gitDir);
+            Path localRefs = gitDir.resolve("refs").resolve("heads");
+            if (Files.isDirectory(localRefs))
+            {
+                watchTree(localRefs);
+            }
+        }
+        catch (IOException e)
+        {
+            Debug.message("Could not watch Git working tree, status will not be cached: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Watch the given directory and all directories within it, except the .git directory.
+     */
+    private void watchTree(Path dir) throws IOException
+    {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException
+            {
+                if (d.getFileName() != null && d.getFileName().toString().equals(GIT_DIR) && d.getParent().equals(workTree))
+                {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                watch(d);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc)
+            {
+                // It may have been deleted meanwhile; if so, we'll see that as a change:
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watch(Path dir) throws IOException
+    {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirs.put(key, dir);
+    }
+
+    /**
+     * Take the changes reported by the watch service since it was last checked.
+     */
+    private void collectChanges()
+    {
+        if (watchService == null)
+        {
+            return;
+        }
+        Path gitDir = workTree.resolve(GIT_DIR);
+        for (WatchKey key = watchService.poll(); key != null; key = watchService.poll())
+        {
+            Path dir = watchedDirs.get(key);
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null)
+                {
+                    // Some changes were lost:
+                    fullWalkNeeded = true;
+                    continue;
+                }
+                Path changed = dir.resolve((Path)event.context());
+                if (changed.startsWith(gitDir))
+                {
+                    // A local branch, or one of the files which determine the status:
+                    if (!dir.equals(gitDir) || GIT_STATUS_FILES.contains(changed.getFileName().toString()))
+                    {
+                        fullWalkNeeded = true;
+                    }
+                    if (dir.equals(gitDir) || event.kind() != StandardWatchEventKinds.ENTRY_CREATE
+                            || !Files.isDirectory(changed, LinkOption.NOFOLLOW_LINKS))
+                    {
+                        continue;
+                    }
+                }
+                else if (changed.getFileName().toString().equals(".gitignore"))
+                {
+                    fullWalkNeeded = true;
+                }
+                else
+                {
+                    changedPaths.add(GitUtilities.getRelativeFileName(workTree, changed.toFile()));
+                }
+
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed, LinkOption.NOFOLLOW_LINKS))
+                {
+                    try
+                    {
+                        watchTree(changed);
+                    }
+                    catch (IOException e)
+                    {
+                        Debug.message("Could not watch Git working tree, status will not be cached: " + e.getMessage());
+                        close();
+                        return;
+                    }
+                }
+            }
+            if (!key.reset())
+            {
+                // The directory has gone; its parent will have reported that:
+                watchedDirs.remove(key);
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2015,2016,2017,2018,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2015,2016,2017,2018,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,9 +26,7 @@ import bluej.groupwork.TeamStatusInfo;
 import bluej.groupwork.TeamStatusInfo.Status;
 import bluej.groupwork.TeamworkCommandError;
 import bluej.groupwork.TeamworkCommandResult;
-import static bluej.groupwork.git.GitUtilities.findForkPoint;
 import static bluej.groupwork.git.GitUtilities.getBehindCount;
-import static bluej.groupwork.git.GitUtilities.getDiffs;
 import static bluej.groupwork.git.GitUtilities.getFileNameFromDiff;
 import static bluej.groupwork.git.GitUtilities.isAheadOnly;
 import bluej.utility.Debug;
@@ -36,7 +34,8 @@ import bluej.utility.Debug;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -45,7 +44,6 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.errors.NoWorkTreeException;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.lib.IndexDiff;
 
 import threadchecker.OnThread;
@@ -61,13 +59,15 @@ public class GitStatusCommand extends GitCommand
     StatusListener listener;
     FileFilter filter;
     boolean includeRemote;
+    boolean fullWalk;
 
-    public GitStatusCommand(GitRepository repository, StatusListener listener, FileFilter filter, boolean includeRemote)
+    public GitStatusCommand(GitRepository repository, StatusListener listener, FileFilter filter, boolean includeRemote, boolean fullWalk)
     {
         super(repository);
         this.listener = listener;
         this.filter = filter;
         this.includeRemote = includeRemote;
+        this.fullWalk = fullWalk;
     }
 
     @Override
@@ -75,19 +75,20 @@ public class GitStatusCommand extends GitCommand
     public TeamworkCommandResult getResult()
     {
         boolean didFilesChange = true;
-        LinkedList<TeamStatusInfo> returnInfo = new LinkedList<>();
+        StatusInfoList returnInfo = new StatusInfoList();
         File gitPath = this.getRepository().getProjectPath();
+        GitStatusCache statusCache = getRepository().getStatusCache();
 
         try (Git repo = Git.open(this.getRepository().getProjectPath()))
         {
-            //check local status
-            org.eclipse.jgit.api.Status s = repo.status().call();
+            //check local status (unless fullWalk, only walking the files which have changed since the last check)
+            GitStatusCache.LocalStatus s = statusCache.getLocalStatus(repo, fullWalk);
 
             // A file which has had changes merged as a result of a pull will be in a "unmerged"
             // state, and will appear in "uncommitted changes" as well as "conflicting" (with
             // BOTH_MODIFIED or one of the other "stages").
             
-            s.getMissing().stream()
+            s.missing.stream()
                     .filter(p -> filter.accept(new File(gitPath, p)))
                     .forEach(item -> {
                         TeamStatusInfo teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.DELETED);
@@ -95,7 +96,7 @@ public class GitStatusCommand extends GitCommand
                     });
 
             // "removed" files have been staged for removal ("git rm")
-            s.getRemoved().stream()
+            s.removed.stream()
                     .filter(p -> filter.accept(new File(gitPath, p)))
                     .forEach(item -> {
                         // Note this status might get altered below, if the file has been re-created
@@ -104,30 +105,30 @@ public class GitStatusCommand extends GitCommand
                                 Status.DELETED));
                     });
             
-            s.getUncommittedChanges().stream()
+            s.uncommittedChanges.stream()
                     .filter(p -> filter.accept(new File(gitPath, p)))
                     .forEach(item -> {
                         TeamStatusInfo teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_COMMIT);
-                        TeamStatusInfo existingStatusInfo = getTeamStatusInfo(returnInfo, teamInfo.getFile());
+                        TeamStatusInfo existingStatusInfo = returnInfo.get(teamInfo.getFile());
                         if (existingStatusInfo == null) {
                             //add this new entry to the returnInfo.
                             returnInfo.add(teamInfo);
                         }
                     });
 
-            s.getUntracked().stream()
+            s.untracked.stream()
                     .filter(p -> filter.accept(new File(gitPath, p)))
                     .forEach(item -> returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_ADD)));
 
-            s.getUntrackedFolders().stream()
+            s.untrackedFolders.stream()
                     .filter(p -> filter.accept(new File(gitPath, p)))
                     .forEach(item -> returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_ADD)));
 
-            Map<String, IndexDiff.StageState> conflictsMap = s.getConflictingStageState();
-            s.getConflicting().stream()
+            Map<String, IndexDiff.StageState> conflictsMap = s.conflictingStageState;
+            s.conflicting.stream()
                     .filter(p -> filter.accept(new File(gitPath, p)))
                     .forEach(item -> {
-                        TeamStatusInfo teamInfo = getTeamStatusInfo(returnInfo, new File(gitPath, item));
+                        TeamStatusInfo teamInfo = returnInfo.get(new File(gitPath, item));
                         if (teamInfo == null)
                         {
                             Debug.message("Git unexpected status: file is "
@@ -162,8 +163,6 @@ public class GitStatusCommand extends GitCommand
                     });
 
             // check for files to push to remote repository.
-            List<DiffEntry> listOfDiffsLocal, listOfDiffsRemote;
-
             if (includeRemote) {
                 //update information about remote repository.
                 GitFetchCommand fetchCommand = new GitFetchCommand(this.getRepository());
@@ -174,14 +173,10 @@ public class GitStatusCommand extends GitCommand
                 }
             }
 
-            String defaultBranchName = repo.getRepository().getBranch();
-            RevCommit forkPoint = findForkPoint(repo.getRepository(), "origin/"+defaultBranchName, "HEAD");
-            
-            //find diffs between <default branch>/head and the forkpoint.
-            listOfDiffsLocal = getDiffs(repo, "HEAD", forkPoint);
-            //check for differences between forkpoint and remote repo head.
-            listOfDiffsRemote = getDiffs(repo, "origin/"+defaultBranchName, forkPoint);
-            updateRemoteStatus(gitPath, listOfDiffsLocal, listOfDiffsRemote, returnInfo);
+            // The diffs of HEAD and the remote branch from their fork point (only found again
+            // after a commit or a fetch):
+            GitStatusCache.RemoteComparison comparison = statusCache.getRemoteComparison(repo);
+            updateRemoteStatus(gitPath, comparison.localDiffs, comparison.remoteDiffs, returnInfo);
             
             if (returnInfo.isEmpty()){
                 didFilesChange = false;
@@ -191,8 +186,7 @@ public class GitStatusCommand extends GitCommand
                 // Git does not show any add up-to-date file. We need to add them manually to returnInfo.
                 addUpToDateFiles(returnInfo, gitPath);
                 
-                while (!returnInfo.isEmpty()) {
-                    TeamStatusInfo teamInfo = returnInfo.removeFirst();
+                for (TeamStatusInfo teamInfo : returnInfo.entries) {
                     listener.gotStatus(teamInfo);
                 }
                 listener.statusComplete(new GitStatusHandle(getRepository(), didFilesChange && isAheadOnly(repo), didFilesChange && getBehindCount(repo) > 0));
@@ -214,7 +208,7 @@ public class GitStatusCommand extends GitCommand
      * @param returnInfo  list of file status
      * @param path        path to search
      */
-    private void addUpToDateFiles(LinkedList<TeamStatusInfo> returnInfo, File path)
+    private void addUpToDateFiles(StatusInfoList returnInfo, File path)
     {
         if(!path.isDirectory())
             return;
@@ -225,7 +219,7 @@ public class GitStatusCommand extends GitCommand
                     addUpToDateFiles(returnInfo, item);
                 }
                 else {
-                    TeamStatusInfo itemStatus = getTeamStatusInfo(returnInfo, item);
+                    TeamStatusInfo itemStatus = returnInfo.get(item);
                     if (itemStatus == null) {
                         //file does not exist in the list, therefore it is up-to-date.
                         returnInfo.add(new TeamStatusInfo(item, "", null,
@@ -237,33 +231,38 @@ public class GitStatusCommand extends GitCommand
     }
 
     /**
-     * checks if a file already has an entry on returnInfo
-     *
-     * @param returnInfo list of TeamStatusInfo to be checked
-     * @param file file to check
-     * @return null if there is no entry of that file. The entry if it exists.
+     * The status entries found, in order, indexed by file.  A file may have more than one
+     * entry (e.g. if it was removed with "git rm" and then re-created); it is then found
+     * by its first entry.
      */
-    private TeamStatusInfo getTeamStatusInfo(LinkedList<TeamStatusInfo> returnInfo, File file)
+    private static class StatusInfoList
     {
-        try {
-            return returnInfo.stream().filter(entry -> entry.getFile().getPath().contains(file.getPath())).findFirst().get();
-        } catch (Exception e) {
-            return null;
+        private final List<TeamStatusInfo> entries = new ArrayList<>();
+        private final Map<File, TeamStatusInfo> entriesByFile = new HashMap<>();
+
+        private void add(TeamStatusInfo entry)
+        {
+            entries.add(entry);
+            entriesByFile.putIfAbsent(entry.getFile(), entry);
         }
-    }
 
+        /**
+         * Get the (first) entry for the given file, or null if there is none.
+         */
+        private TeamStatusInfo get(File file)
+        {
+            return entriesByFile.get(file);
+        }
 
-    private Optional<DiffEntry> getDiffFromList(List<DiffEntry> list, DiffEntry entry)
-    {
-        Optional<DiffEntry> result;
-        String entryFileName = getFileNameFromDiff(entry);
-        result = list.stream().filter(p -> getFileNameFromDiff(p).equals(entryFileName)).findFirst();
-        return result;
+        private boolean isEmpty()
+        {
+            return entries.isEmpty();
+        }
     }
 
-    private void updateRemoteStatus(LinkedList<TeamStatusInfo> returnInfo, File file, Status remoteStatus)
+    private void updateRemoteStatus(StatusInfoList returnInfo, File file, Status remoteStatus)
     {
-        TeamStatusInfo entry = getTeamStatusInfo(returnInfo, file);
+        TeamStatusInfo entry = returnInfo.get(file);
         if (entry != null) {
             entry.setRemoteStatus(remoteStatus);
         } else {
@@ -273,8 +272,13 @@ public class GitStatusCommand extends GitCommand
         }
     }
 
-    private void updateRemoteStatus(File gitPath, List<DiffEntry> listOfDiffsLocal, List<DiffEntry> listOfDiffsRemote, LinkedList<TeamStatusInfo> returnInfo)
+    private void updateRemoteStatus(File gitPath, List<DiffEntry> listOfDiffsLocal, List<DiffEntry> listOfDiffsRemote, StatusInfoList returnInfo)
     {
+        Map<String, DiffEntry> localDiffsByName = new HashMap<>();
+        for (DiffEntry localDiffItem : listOfDiffsLocal) {
+            localDiffsByName.putIfAbsent(getFileNameFromDiff(localDiffItem), localDiffItem);
+        }
+
         //first check local changes that does not appear in the remote list.
         for (DiffEntry localDiffItem : listOfDiffsLocal) {
             File file = new File(gitPath, getFileNameFromDiff(localDiffItem));
@@ -293,12 +297,12 @@ public class GitStatusCommand extends GitCommand
 
         //now check for changes between the remote and local.
         for (DiffEntry remoteDiffItem : listOfDiffsRemote) {
-            Optional<DiffEntry> localDiffItem = getDiffFromList(listOfDiffsLocal, remoteDiffItem);
+            Optional<DiffEntry> localDiffItem = Optional.ofNullable(localDiffsByName.get(getFileNameFromDiff(remoteDiffItem)));
             File file = new File(gitPath, getFileNameFromDiff(remoteDiffItem));
             switch (remoteDiffItem.getChangeType()) {
                 case MODIFY:
                     if (localDiffItem.isPresent()) {
-                        TeamStatusInfo entry = getTeamStatusInfo(returnInfo, file);
+                        TeamStatusInfo entry = returnInfo.get(file);
                         switch (localDiffItem.get().getChangeType()) {
                             case MODIFY:
                                 if (entry == null){
@@ -350,7 +354,7 @@ public class GitStatusCommand extends GitCommand
                         updateRemoteStatus(returnInfo, file, Status.NEEDS_CHECKOUT);
                         if (!file.exists()){
                             //this file will be added, but does not exist in the local repository.
-                            TeamStatusInfo tsi = getTeamStatusInfo(returnInfo, file);
+                            TeamStatusInfo tsi = returnInfo.get(file);
                             tsi.setStatus(Status.NEEDS_CHECKOUT);
                         }
                     }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2016,2017,2018,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 2016,2017,2018,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -370,7 +370,7 @@ public class CommitAndPushFrame extends FXCustomizedDialog<Void>
             super();
             response = new ArrayList<>();
             FileFilter filter = project.getTeamSettingsController().getFileFilter(false);
-            command = repository.getStatus(this, filter, false);
+            command = repository.getStatus(this, filter, false, true);
         }
         /*
          * @see bluej.groupwork.StatusListener#gotStatus(bluej.groupwork.TeamStatusInfo)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 1999-2009,2012,2014,2016,2017,2018,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2012,2014,2016,2017,2018,2019,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License
@@ -222,7 +222,7 @@ public class StatusFrame extends FXCustomizedDialog<Void>
             super();
             resources = FXCollections.observableArrayList();
             //Set files = project.getTeamSettingsController().getProjectFiles(true);
-            command = repository.getStatus(this, filter, true);
+            command = repository.getStatus(this, filter, true, false);
         }
 
         public void abort()
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 1999-2009,2014,2016,2017,2018,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2014,2016,2017,2018,2019,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License
@@ -316,7 +316,7 @@ public class UpdateFilesFrame extends FXCustomizedDialog<Void>
             super();
             response = new ArrayList<>();
             FileFilter filter = project.getTeamSettingsController().getFileFilter(false);
-            command = repository.getStatus(this, filter, true);
+            command = repository.getStatus(this, filter, true, true);
         }
 
         /* (non-Javadoc)
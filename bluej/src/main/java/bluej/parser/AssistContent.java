@@ -248,6 +248,7 @@ public abstract class AssistContent
         void gotJavadoc(AssistContent content);
     }
     
+    @OnThread(Tag.Any)
     public static Access fromModifiers(int modifiers)
     {
         if (Modifier.isPrivate(modifiers)) {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program.
- Copyright (C) 2014,2015,2016,2017,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2019,2020,2026 Michael Kölling and John Rosenberg
 
  This program is free software; you can redistribute it and/or
  modify it under the terms of the GNU General Public License
@@ -30,6 +30,7 @@ import java.util.stream.Collectors;
 import bluej.parser.AssistContent.Access;
 import bluej.pkgmgr.target.role.Kind;
 import bluej.stride.framedjava.elements.CodeElement;
+import bluej.utility.javafx.FXPlatformSupplier;
 import javafx.scene.control.Label;
 import javafx.scene.text.Font;
 import nu.xom.Attribute;
@@ -54,6 +55,13 @@ public final class AssistContentThreadSafe
     private final String javadoc;
     private final List<String> superTypes;
     private final String packageName;
+    // Looks up the javadoc when it is first asked for, if it was not known when this
+    // item was made (see getJavadoc()); null if not needed:
+    private final FXPlatformSupplier<String> javadocLookup;
+    @OnThread(Tag.FXPlatform)
+    private boolean lookedUpJavadoc;
+    @OnThread(Tag.FXPlatform)
+    private String foundJavadoc;
 
     @OnThread(Tag.FXPlatform)
     public AssistContentThreadSafe(AssistContent copyFrom)
@@ -68,6 +76,7 @@ public final class AssistContentThreadSafe
         superTypes = copyFrom.getSuperTypes();
         typeKind = copyFrom.getTypeKind();
         packageName = copyFrom.getPackage();
+        javadocLookup = null;
     }
     
     @OnThread(Tag.FXPlatform)
@@ -78,10 +87,22 @@ public final class AssistContentThreadSafe
 
     @OnThread(Tag.Any)
     public AssistContentThreadSafe(Access access, String declaringClass, String javadoc, CompletionKind kind, String name, String packageName, List<ParamInfo> params, List<String> superTypes, String type, Kind typeKind)
+    {
+        this(access, declaringClass, javadoc, kind, name, packageName, params, superTypes, type, typeKind, null);
+    }
+
+    /**
+     * As the other constructor, but with a means to look up the javadoc when it is first
+     * needed, if no javadoc is given.  This allows an item to be made on another thread
+     * without waiting for the FX thread, where javadoc must be looked up.
+     */
+    @OnThread(Tag.Any)
+    public AssistContentThreadSafe(Access access, String declaringClass, String javadoc, CompletionKind kind, String name, String packageName, List<ParamInfo> params, List<String> superTypes, String type, Kind typeKind, FXPlatformSupplier<String> javadocLookup)
     {
         this.access = access;
         this.declaringClass = declaringClass;
         this.javadoc = javadoc;
+        this.javadocLookup = javadoc == null ? javadocLookup : null;
         this.kind = kind;
         this.name = name;
         this.packageName = packageName;
@@ -120,10 +141,29 @@ public final class AssistContentThreadSafe
      * delimiters (slash-star at the start and star-slash at the end) and intermediate
      * star characters.
      */
-    public String getJavadoc() { return javadoc; }
+    @OnThread(Tag.FXPlatform)
+    public String getJavadoc()
+    {
+        if (javadocLookup == null)
+        {
+            return javadoc;
+        }
+        if (!lookedUpJavadoc)
+        {
+            foundJavadoc = javadocLookup.get();
+            lookedUpJavadoc = true;
+        }
+        return foundJavadoc;
+    }
     
     public String getPackage() { return packageName; }
 
+    /**
+     * Whether the javadoc is known without looking it up; if not, getJavadoc() will look it up,
+     * and it will not be included in the XML from toXML().
+     */
+    public boolean isJavadocKnown() { return javadocLookup == null; }
+
     public static Comparator<AssistContentThreadSafe> getComparator(String targetType)
     {
         return (a, b) -> { 
@@ -354,6 +394,7 @@ public final class AssistContentThreadSafe
         params = paramsList;
         superTypes = superTypesList;
         javadoc = javadocStr;
+        javadocLookup = null;
     }
 
     /**
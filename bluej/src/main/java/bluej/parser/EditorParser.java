@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2010,2011,2012,2013,2014,2016,2017,2019,2021,2022  Michael Kolling and John Rosenberg 
+ Copyright (C) 2010,2011,2012,2013,2014,2016,2017,2019,2021,2022,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -397,11 +397,12 @@ public class EditorParser extends JavaParser
                 newList.add(i.next());
                 newSize--;
             }
+            // The entity is stored unresolved (users of static imports resolve it as a type), so that
+            // parsing never calls back into the resolver:
             JavaEntity entity = ParseUtils.getImportEntity(parentResolver,
                     currentQuerySource(), newList);
-            TypeEntity tentity = (entity != null) ? entity.resolveAsType() : null;
-            if (tentity != null) {
-                pcuNode.getImports().addStaticImport(memberName, tentity, importToken, semiColonToken);
+            if (entity != null) {
+                pcuNode.getImports().addStaticImport(memberName, entity, importToken, semiColonToken);
             }
         }
         else {
@@ -432,10 +433,7 @@ public class EditorParser extends JavaParser
             pcuNode.getImports().addWildcardImport(importEntity, importToken, semiColonToken);
         }
         else {
-            TypeEntity tentity = importEntity.resolveAsType();
-            if (tentity != null) {
-                pcuNode.getImports().addStaticWildcardImport(tentity, importToken, semiColonToken);
-            }
+            pcuNode.getImports().addStaticWildcardImport(importEntity, importToken, semiColonToken);
         }
     }
     
@@ -48,7 +48,10 @@ public final class EscapedUnicodeReader extends Reader
     private boolean charIsBuffered;
     private int bufferedChar;
     
-    private LineColPos lineColPos = new LineColPos(1, 1, 0); // position within source stream
+    // Position within source stream (kept as separate values, as it changes with every character):
+    private int line = 1;
+    private int column = 1;
+    private int position = 0;
     
     public EscapedUnicodeReader(Reader source)
     {
@@ -57,7 +60,9 @@ public final class EscapedUnicodeReader extends Reader
     
     public void setLineColPos(LineColPos lineColPos)
     {
-        this.lineColPos = lineColPos;
+        line = lineColPos.line();
+        column = lineColPos.column();
+        position = lineColPos.position();
     }
 
     @Override
@@ -118,7 +123,8 @@ public final class EscapedUnicodeReader extends Reader
             int nchar = sourceReader.read();
 
             if (nchar == 'u') {
-                lineColPos = lineColPos.offsetSameLineBy(1);
+                column++;
+                position++;
                 return readEscapedUnicodeSequence();
             }
             putBuffer(nchar);             
@@ -180,16 +186,42 @@ public final class EscapedUnicodeReader extends Reader
     private void processChar(char ch)
     {
         if (ch == '\n') {
-            lineColPos = new LineColPos(lineColPos.line() + 1, 1, lineColPos.position() + 1);
+            line++;
+            column = 1;
         }
         else {
-            lineColPos = lineColPos.offsetSameLineBy(1);
+            column++;
         }
+        position++;
     }
         
     public LineColPos getLineColPos()
     {
-        return lineColPos;
+        return new LineColPos(line, column, position);
+    }
+
+    /**
+     * Get the current line (as in getLineColPos(), but without creating an object).
+     */
+    public int getLine()
+    {
+        return line;
+    }
+
+    /**
+     * Get the current column (as in getLineColPos(), but without creating an object).
+     */
+    public int getColumn()
+    {
+        return column;
+    }
+
+    /**
+     * Get the current position (as in getLineColPos(), but without creating an object).
+     */
+    public int getPosition()
+    {
+        return position;
     }
 
     @Override
@@ -205,6 +237,6 @@ public final class EscapedUnicodeReader extends Reader
     public void pushBack(String content, LineColPos lineColPos) throws IOException
     {
         sourceReader.unread(content.toCharArray());
-        this.lineColPos = lineColPos;
+        setLineColPos(lineColPos);
     }
 }
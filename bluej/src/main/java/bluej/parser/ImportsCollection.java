@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2013,2014,2017  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2013,2014,2017,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -76,7 +76,7 @@ public class ImportsCollection
     /** non-static wildcard imports. The entities should resolve to PackageOrClass */
     private List<LocatableImport> wildcardImports;
     /** static wildcard imports. The entities should resolve to types. */
-    private List<LocatableImport> staticWildcardImports; // list of TypeEntity
+    private List<LocatableImport> staticWildcardImports;
     private Map<String,List<LocatableImport>> staticImports; // The String gives
                                 // the name of the imported static member(s) from the given
                                 // class(es).
@@ -151,7 +151,7 @@ public class ImportsCollection
      * @param importEntity  The class from which members are imported
      * @param tokens        Either null if non-applicable, or the tokens making up the import
      */
-    public void addStaticWildcardImport(TypeEntity importEntity, LocatableToken firstToken, LocatableToken lastToken)
+    public void addStaticWildcardImport(JavaEntity importEntity, LocatableToken firstToken, LocatableToken lastToken)
     {
         staticWildcardImports.add(getLocatableImport(importEntity, firstToken, lastToken));
     }
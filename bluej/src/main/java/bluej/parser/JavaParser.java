@@ -61,6 +61,15 @@ public class JavaParser extends JavaParserCallbacks
         return new JavaLexer(r);
     }
     
+    /**
+     * Get a lexer which reads directly from the given text (which is faster than reading
+     * from a Reader).
+     */
+    public static TokenStream getLexer(CharSequence text)
+    {
+        return new JavaLexer(text);
+    }
+    
     public static TokenStream getLexer(Reader r, boolean handleComments, boolean handleMultilineStrings)
     {
         return new JavaLexer(r, handleComments, handleMultilineStrings);
@@ -77,6 +86,12 @@ public class JavaParser extends JavaParserCallbacks
         tokenStream = new JavaTokenFilter(lexer, this);
     }
     
+    public JavaParser(CharSequence text)
+    {
+        TokenStream lexer = getLexer(text);
+        tokenStream = new JavaTokenFilter(lexer, this);
+    }
+    
     public JavaParser(Reader r, boolean handleComments)
     {
         TokenStream lexer = getLexer(r, handleComments, true);
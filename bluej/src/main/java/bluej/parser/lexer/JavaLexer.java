@@ -24,6 +24,7 @@ package bluej.parser.lexer;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.OptionalInt;
@@ -37,17 +38,43 @@ import bluej.parser.TokenStream;
 /**
  * A Java lexer. Breaks up a source stream into tokens.
  * 
+ * <p>The lexer can read from a Reader, or directly from a CharSequence.  In the latter
+ * case, if the text contains no unicode escapes (which is almost always), characters are
+ * read straight from the text rather than through an EscapedUnicodeReader.
+ * 
  * @author Marion Zalk
  */
 public final class JavaLexer implements TokenStream
 {
-    private StringBuffer textBuffer = new StringBuffer(); // text of current token
+    private final StringBuilder textBuffer = new StringBuilder(); // text of current token
+    // The source, when reading via a reader (null when reading directly from a CharSequence):
     private EscapedUnicodeReader reader;
+    // The source, when reading directly from a CharSequence with no unicode escapes (null otherwise):
+    private CharSequence source;
+    private int sourceIndex; // index in source of the next character to read
+    private int sourcePositionOffset; // the position of the first character in source
+    // The line, column and position in source after the current character (rChar):
+    private int sourceLine;
+    private int sourceColumn;
+    private int sourcePosition;
     private int rChar; 
     // Only used in one frequently-called method, but stored as field to avoid recreating object each call:
     private final TreeMap<Integer, LineColPos> minusPositions = new TreeMap<>();
-    private LineColPos begin;
-    private LineColPos end;
+    // The beginning of the current token.  Positions are kept as separate values, and only turned
+    // into LineColPos objects when a token is made, as they change with every character:
+    private int beginLine;
+    private int beginColumn;
+    private int beginPosition;
+    // The end of the current token so far (i.e. the position before rChar):
+    private int endLine;
+    private int endColumn;
+    private int endPosition;
+    // The end of the last token made, which is usually the beginning of the next:
+    private LineColPos lastEnd;
+    // Token text which has been seen before, so that repeated identifiers, keywords and operators
+    // share a single String:
+    private String[] internedText = new String[256];
+    private int internedCount;
     private boolean generateWhitespaceTokens = false;
     private boolean handleComments = true; // When false, doesn't recognise /*..*/ or //..\n as comments (for frames)
     private boolean handleMultilineStrings = true; // When false, treats """ as a single token rather than trying to match start/end
@@ -138,11 +165,45 @@ public final class JavaLexer implements TokenStream
      * document.
      */
     public JavaLexer(Reader in, int line, int col, int position)
+    {
+        initReader(in, line, col, position);
+    }
+
+    /**
+     * Construct a lexer which reads the given text.
+     */
+    public JavaLexer(CharSequence text)
+    {
+        this(text, 1, 1, 0);
+    }
+
+    /**
+     * Construct a lexer which reads the given text, assuming that the text begins at the
+     * given line and column within the source document.
+     */
+    public JavaLexer(CharSequence text, int line, int col, int position)
+    {
+        if (hasUnicodeEscape(text)) {
+            // Unusual; let the EscapedUnicodeReader deal with the escapes:
+            initReader(new StringReader(text.toString()), line, col, position);
+            return;
+        }
+        
+        source = text;
+        sourcePositionOffset = position;
+        sourceLine = line;
+        sourceColumn = col;
+        sourcePosition = position;
+        setBeginAndEnd(new LineColPos(line, col, position));
+        readNextChar();
+    }
+
+    private void initReader(Reader in, int line, int col, int position)
     {
         reader = new EscapedUnicodeReader(in);
         LineColPos lineColPos = new LineColPos(line, col, position);
         reader.setLineColPos(lineColPos);
-        end = begin = lineColPos;
+        setBeginAndEnd(lineColPos);
         try {
             rChar = reader.read();
         }
@@ -150,6 +211,28 @@ public final class JavaLexer implements TokenStream
             rChar = -1;
         }
     }
+
+    /**
+     * Check whether the text contains a backslash followed by a 'u', which may be a unicode escape.
+     */
+    private static boolean hasUnicodeEscape(CharSequence text)
+    {
+        int length = text.length();
+        for (int i = 0; i + 1 < length; i++) {
+            if (text.charAt(i) == '\\' && text.charAt(i + 1) == 'u') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setBeginAndEnd(LineColPos lineColPos)
+    {
+        lastEnd = lineColPos;
+        beginLine = endLine = lineColPos.line();
+        beginColumn = endColumn = lineColPos.column();
+        beginPosition = endPosition = lineColPos.position();
+    }
     
     /**
      * Retrieve the next token.
@@ -160,19 +243,20 @@ public final class JavaLexer implements TokenStream
         
         if (generateWhitespaceTokens && Character.isWhitespace((char)rChar))
         {
-            StringBuilder whitespaceBuffer = new StringBuilder();
             while (Character.isWhitespace((char)rChar))
             {
-                whitespaceBuffer.append((char)rChar);                
+                textBuffer.append((char)rChar);                
                 readNextChar();
             }
-            return makeToken(JavaTokenTypes.WHITESPACE, whitespaceBuffer.toString());
+            return makeToken(JavaTokenTypes.WHITESPACE, textBuffer.toString());
         }
         else
         {        
             while (Character.isWhitespace((char)rChar)) {
-                begin = reader.getLineColPos();
                 readNextChar();
+                beginLine = endLine;
+                beginColumn = endColumn;
+                beginPosition = endPosition;
             }
         }
 
@@ -188,25 +272,92 @@ public final class JavaLexer implements TokenStream
         if (Character.isDigit(nextChar)) {
             return makeToken(readDigitToken(nextChar, false), textBuffer.toString());
         }
-        return makeToken(getSymbolType(nextChar), textBuffer.toString());
+        int type = getSymbolType(nextChar);
+        switch (type) {
+            case JavaTokenTypes.STRING_LITERAL:
+            case JavaTokenTypes.STRING_LITERAL_MULTILINE:
+            case JavaTokenTypes.CHAR_LITERAL:
+            case JavaTokenTypes.SL_COMMENT:
+            case JavaTokenTypes.ML_COMMENT:
+            case JavaTokenTypes.INVALID:
+                return makeToken(type, textBuffer.toString());
+            default:
+                // Operators and separators: the same few strings over and over
+                return makeToken(type, internText());
+        }
     }
     
     /**
      * Make a token of the given type, with the given text. The token
-     * begins where the previous token ended, and ends at the current
-     * position (as found in endLine and endColumn).
+     * begins where the previous token ended (or after any whitespace following
+     * it), and ends at the current position.
      */
     private LocatableToken makeToken(int type, String txt)
-    {           
+    {
+        LineColPos begin = lastEnd;
+        if (begin.position() != beginPosition) {
+            begin = new LineColPos(beginLine, beginColumn, beginPosition);
+        }
+        LineColPos end = begin;
+        if (endPosition != beginPosition) {
+            end = new LineColPos(endLine, endColumn, endPosition);
+        }
         LocatableToken tok = new LocatableToken(type, txt, begin, end);
-        begin = end;
+        lastEnd = end;
+        beginLine = endLine;
+        beginColumn = endColumn;
+        beginPosition = endPosition;
         return tok;
     }
 
     private LocatableToken createWordToken(char nextChar)
     {
         populateTextBuffer(nextChar);
-        return makeToken(getWordType(), textBuffer.toString());
+        String text = internText();
+        Integer keywordType = keywords.get(text);
+        return makeToken(keywordType == null ? JavaTokenTypes.IDENT : keywordType, text);
+    }
+
+    /**
+     * Get the content of the text buffer as a String, re-using the String from a previous
+     * token with the same text if there is one.
+     */
+    private String internText()
+    {
+        int length = textBuffer.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + textBuffer.charAt(i);
+        }
+        // Open addressing, with linear probing:
+        int mask = internedText.length - 1;
+        int index = hash & mask;
+        for (String existing = internedText[index]; existing != null; existing = internedText[index]) {
+            if (existing.hashCode() == hash && existing.contentEquals(textBuffer)) {
+                return existing;
+            }
+            index = (index + 1) & mask;
+        }
+        
+        String text = textBuffer.toString();
+        internedText[index] = text;
+        internedCount += 1;
+        if (internedCount * 2 > internedText.length) {
+            // Keep the table at most half full:
+            String[] oldTable = internedText;
+            internedText = new String[oldTable.length * 2];
+            mask = internedText.length - 1;
+            for (String old : oldTable) {
+                if (old != null) {
+                    int i = old.hashCode() & mask;
+                    while (internedText[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    internedText[i] = old;
+                }
+            }
+        }
+        return text;
     }
 
     /**
@@ -234,10 +385,16 @@ public final class JavaLexer implements TokenStream
             if (rval == '-')
             {
                 // Record when we see a minus for faster processing below:
-                minusPositions.put(textBuffer.length(), end);
+                minusPositions.put(textBuffer.length(), new LineColPos(endLine, endColumn, endPosition));
             }
             thisChar=(char)rval;
         } while (Character.isJavaIdentifierPart(thisChar) || thisChar == '-');
+        
+        if (minusPositions.isEmpty())
+        {
+            // The usual case: a plain identifier or keyword.
+            return;
+        }
 
         // We look for the first minus where the text before that minus matches a known keyword.
         // So e.g. if we consumed "non-sealed-pipe" we'd pick out the second minus as the first
@@ -249,20 +406,31 @@ public final class JavaLexer implements TokenStream
             IntStream.concat(minusPositions.keySet().stream().mapToInt(Integer::intValue).sorted(), IntStream.of(textBuffer.length()))
                 .filter(index -> keywords.containsKey(textBuffer.substring(0, index))).findFirst();
         
-        if (!minusPositions.isEmpty() && keywordEnd.orElse(-1) < textBuffer.length())
+        if (keywordEnd.orElse(-1) < textBuffer.length())
         {
             // We have found a minus but there either is not a keyword (keywordEnd will be empty)
             // or there are further minuses after the content (keywordEnd will be present,
             // but less than the full length of the string).
             int minusToPushBackFrom = keywordEnd.orElse(minusPositions.firstKey().intValue());
-            end = minusPositions.get(minusToPushBackFrom);
+            LineColPos minusPos = minusPositions.get(minusToPushBackFrom);
             try
             {
-                // If we found EOF then thisChar is already handled and we shouldn't push it back
-                // on to the buffer:
-                if (!eof)
-                    textBuffer.append(thisChar);
-                reader.pushBack(textBuffer.substring(minusToPushBackFrom), end);
+                if (source != null)
+                {
+                    // The text is exactly as in the source, so we can just go back to the minus:
+                    sourceIndex = minusPos.position() - sourcePositionOffset;
+                    sourceLine = minusPos.line();
+                    sourceColumn = minusPos.column();
+                    sourcePosition = minusPos.position();
+                }
+                else
+                {
+                    // If we found EOF then thisChar is already handled and we shouldn't push it back
+                    // on to the buffer:
+                    if (!eof)
+                        textBuffer.append(thisChar);
+                    reader.pushBack(textBuffer.substring(minusToPushBackFrom), minusPos);
+                }
                 // Prime the rChar variable which always holds the next pending character:
                 readNextChar();
             }
@@ -974,7 +1142,31 @@ public final class JavaLexer implements TokenStream
 
     private int readNextChar()
     {
-        end = reader.getLineColPos();
+        if (source != null) {
+            endLine = sourceLine;
+            endColumn = sourceColumn;
+            endPosition = sourcePosition;
+            if (sourceIndex >= source.length()) {
+                rChar = -1;
+            }
+            else {
+                char ch = source.charAt(sourceIndex++);
+                if (ch == '\n') {
+                    sourceLine++;
+                    sourceColumn = 1;
+                }
+                else {
+                    sourceColumn++;
+                }
+                sourcePosition++;
+                rChar = ch;
+            }
+            return rChar;
+        }
+        
+        endLine = reader.getLine();
+        endColumn = reader.getColumn();
+        endPosition = reader.getPosition();
         try{
             rChar = reader.read();
         } catch(IOException e) {
@@ -984,16 +1176,6 @@ public final class JavaLexer implements TokenStream
         return rChar;
     }
 
-    private int getWordType()
-    {
-        String text=textBuffer.toString();
-        Integer i = keywords.get(text);
-        if (i == null) {
-            return JavaTokenTypes.IDENT;
-        }
-        return i;
-    }
-
     public void setGenerateWhitespaceTokens(boolean generateWhitespaceTokens)
     {
         this.generateWhitespaceTokens = generateWhitespaceTokens;
@@ -21,8 +21,14 @@
  */
 package bluej.parser.symtab;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
+import bluej.parser.SourceLocation;
+import bluej.parser.SourceSpan;
 import bluej.utility.JavaUtils;
 import bluej.utility.SortedProperties;
 
@@ -520,6 +526,168 @@ public final class ClassInfo
         return hadParseError;
     }
 
+    /**
+     * Write this information to a stream, in a form which can be read back by
+     * {@link #readFrom(DataInputStream)}.
+     */
+    public void writeTo(DataOutputStream out) throws IOException
+    {
+        out.writeBoolean(foundPublicClass);
+        writeString(out, name);
+        writeString(out, superclass);
+        writeStrings(out, implemented);
+        writeStrings(out, imported);
+        writeStrings(out, used);
+        out.writeInt(comments.size());
+        for (SavedComment c : comments)
+        {
+            writeString(out, c.target);
+            writeString(out, c.comment);
+            writeString(out, c.paramnames);
+        }
+        writeStrings(out, typeParameterTexts);
+        writeSelection(out, typeParametersSelection);
+        writeSelection(out, extendsReplaceSelection);
+        writeSelection(out, superReplaceSelection);
+        out.writeBoolean(isInterface);
+        out.writeBoolean(isAbstract);
+        out.writeBoolean(isUnitTest);
+        out.writeBoolean(isEnum);
+        out.writeBoolean(hadParseError);
+        writeSelection(out, extendsInsertSelection);
+        writeSelection(out, implementsInsertSelection);
+        out.writeBoolean(interfaceSelections != null);
+        if (interfaceSelections != null)
+        {
+            out.writeInt(interfaceSelections.size());
+            for (Selection sel : interfaceSelections)
+            {
+                writeSelection(out, sel);
+            }
+        }
+        out.writeBoolean(packageStatementExists);
+        writeSelection(out, packageStatementSelection);
+        writeSelection(out, packageNameSelection);
+        writeSelection(out, packageSemiSelection);
+        writeString(out, packageName);
+    }
+
+    /**
+     * Read information which was written by {@link #writeTo(DataOutputStream)}.
+     */
+    public static ClassInfo readFrom(DataInputStream in) throws IOException
+    {
+        ClassInfo info = new ClassInfo();
+        info.foundPublicClass = in.readBoolean();
+        info.name = readString(in);
+        info.superclass = readString(in);
+        info.implemented = readStrings(in);
+        info.imported = readStrings(in);
+        info.used = readStrings(in);
+        int numComments = in.readInt();
+        for (int i = 0; i < numComments; i++)
+        {
+            // Note we don't use addComment, as the text has already been converted:
+            info.comments.add(info.new SavedComment(readString(in), readString(in), readString(in)));
+        }
+        info.typeParameterTexts = readStrings(in);
+        info.typeParametersSelection = readSelection(in);
+        info.extendsReplaceSelection = readSelection(in);
+        info.superReplaceSelection = readSelection(in);
+        info.isInterface = in.readBoolean();
+        info.isAbstract = in.readBoolean();
+        info.isUnitTest = in.readBoolean();
+        info.isEnum = in.readBoolean();
+        info.hadParseError = in.readBoolean();
+        info.extendsInsertSelection = readSelection(in);
+        info.implementsInsertSelection = readSelection(in);
+        if (in.readBoolean())
+        {
+            int numSelections = in.readInt();
+            info.interfaceSelections = new ArrayList<Selection>(numSelections);
+            for (int i = 0; i < numSelections; i++)
+            {
+                info.interfaceSelections.add(readSelection(in));
+            }
+        }
+        info.packageStatementExists = in.readBoolean();
+        info.packageStatementSelection = readSelection(in);
+        info.packageNameSelection = readSelection(in);
+        info.packageSemiSelection = readSelection(in);
+        info.packageName = readString(in);
+        return info;
+    }
+
+    // Strings may be null.  (We don't use writeUTF, as comments may be longer than it allows.)
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        if (s == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length == -1)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException
+    {
+        out.writeInt(strings.size());
+        for (String s : strings)
+        {
+            writeString(out, s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException
+    {
+        int size = in.readInt();
+        List<String> strings = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++)
+        {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeSelection(DataOutputStream out, Selection sel) throws IOException
+    {
+        out.writeBoolean(sel != null);
+        if (sel != null)
+        {
+            out.writeInt(sel.getLine());
+            out.writeInt(sel.getColumn());
+            out.writeInt(sel.getEndLine());
+            out.writeInt(sel.getEndColumn());
+        }
+    }
+
+    private static Selection readSelection(DataInputStream in) throws IOException
+    {
+        if (!in.readBoolean())
+        {
+            return null;
+        }
+        SourceLocation start = new SourceLocation(in.readInt(), in.readInt());
+        SourceLocation end = new SourceLocation(in.readInt(), in.readInt());
+        return new Selection(new SourceSpan(start, end));
+    }
+
     public void print()
     {
         System.out.println();
@@ -0,0 +1,457 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import bluej.pkgmgr.dependency.Dependency;
+import bluej.utility.Utility;
+import bluej.utility.javafx.FXPlatformSupplier;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The arrows drawn on the arrow layer of a package editor, with their geometry cached so
+ * that repainting the layer only recomputes and redraws the arrows which have changed.
+ *
+ * <p>Each arrow's geometry is cached with the state it was computed from (e.g. the bounds
+ * of the targets it joins), and is only recomputed when that state changes.  When the
+ * layer is painted, the arrows which have appeared, disappeared or changed since it was
+ * last painted are found, and only the regions they cover (before and after) are cleared
+ * and redrawn.  The arrows to draw in those regions are found using a grid index of the
+ * arrows' bounding boxes.
+ */
+@OnThread(Tag.FXPlatform)
+class ArrowCache
+{
+    private static final int ARROW_SIZE = 18; // pixels
+    private static final double ARROW_ANGLE = Math.PI / 6; // radians
+    private static final double DASHES[] = {5.0f, 2.0f};
+    // The space around an arrow's lines which its drawing may cover (for the line width,
+    // antialiasing and the mitred point of the arrow head):
+    private static final double MARGIN = 8;
+    // The size of the cells in the grid index:
+    private static final int CELL_SIZE = 128;
+    // If more regions than this need redrawing, their union is redrawn instead:
+    private static final int MAX_DIRTY_REGIONS = 32;
+
+    /**
+     * The geometry and style of one arrow, as drawn.
+     */
+    @OnThread(Tag.FXPlatform)
+    static class Arrow
+    {
+        private final Color color;
+        private final double lineWidth;
+        // The arrow head (drawn with solid lines), or null if it has none:
+        private final double[] headXPoints;
+        private final double[] headYPoints;
+        // The lines (x1, y1, x2, y2 for each line), and whether they are dashed:
+        private final double[] lines;
+        private final boolean dashed;
+        // The bounding box of the drawing, including the margin:
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        // The position of the arrow in the list last painted, which is the order of drawing:
+        private int order;
+
+        private Arrow(Color color, double lineWidth, double[] headXPoints, double[] headYPoints, double[] lines, boolean dashed)
+        {
+            this.color = color;
+            this.lineWidth = lineWidth;
+            this.headXPoints = headXPoints;
+            this.headYPoints = headYPoints;
+            this.lines = lines;
+            this.dashed = dashed;
+
+            double x1 = Double.MAX_VALUE, y1 = Double.MAX_VALUE, x2 = -Double.MAX_VALUE, y2 = -Double.MAX_VALUE;
+            for (int i = 0; i < lines.length; i += 2)
+            {
+                x1 = Math.min(x1, lines[i]);
+                x2 = Math.max(x2, lines[i]);
+                y1 = Math.min(y1, lines[i + 1]);
+                y2 = Math.max(y2, lines[i + 1]);
+            }
+            if (headXPoints != null)
+            {
+                for (int i = 0; i < headXPoints.length; i++)
+                {
+                    x1 = Math.min(x1, headXPoints[i]);
+                    x2 = Math.max(x2, headXPoints[i]);
+                    y1 = Math.min(y1, headYPoints[i]);
+                    y2 = Math.max(y2, headYPoints[i]);
+                }
+            }
+            this.minX = x1 - MARGIN;
+            this.minY = y1 - MARGIN;
+            this.maxX = x2 + MARGIN;
+            this.maxY = y2 + MARGIN;
+        }
+
+        private void draw(GraphicsContext g)
+        {
+            g.setStroke(color);
+            g.setLineWidth(lineWidth);
+            if (headXPoints != null)
+            {
+                g.setLineDashes();
+                g.strokePolygon(headXPoints, headYPoints, headXPoints.length);
+            }
+            if (dashed)
+            {
+                g.setLineDashes(DASHES);
+            }
+            else
+            {
+                g.setLineDashes();
+            }
+            for (int i = 0; i < lines.length; i += 4)
+            {
+                g.strokeLine(lines[i], lines[i + 1], lines[i + 2], lines[i + 3]);
+            }
+        }
+
+        private boolean intersects(Region r)
+        {
+            return minX < r.maxX && maxX > r.minX && minY < r.maxY && maxY > r.minY;
+        }
+    }
+
+    /**
+     * A rectangular region of the layer, in whole pixels.
+     */
+    private static class Region
+    {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+
+        private Region(double minX, double minY, double maxX, double maxY)
+        {
+            this.minX = Math.floor(minX);
+            this.minY = Math.floor(minY);
+            this.maxX = Math.ceil(maxX);
+            this.maxY = Math.ceil(maxY);
+        }
+
+        private Region(Arrow arrow)
+        {
+            this(arrow.minX, arrow.minY, arrow.maxX, arrow.maxY);
+        }
+
+        private Region union(Region other)
+        {
+            return new Region(Math.min(minX, other.minX), Math.min(minY, other.minY),
+                    Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+        }
+    }
+
+    private static class CacheEntry
+    {
+        private final double[] state;
+        private final Arrow arrow;
+
+        private CacheEntry(double[] state, Arrow arrow)
+        {
+            this.state = state;
+            this.arrow = arrow;
+        }
+    }
+
+    // The cached arrows, by owner (compared by identity):
+    private final IdentityHashMap<Object, CacheEntry> cache = new IdentityHashMap<>();
+    // The arrows last painted, in order:
+    private List<Arrow> painted = Collections.emptyList();
+    private Set<Arrow> paintedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+    // The grid index of the painted arrows: the arrows whose bounding box overlaps each cell:
+    private final Map<Long, List<Arrow>> grid = new HashMap<>();
+    // Whether the whole layer must be repainted next time:
+    private boolean invalid = true;
+    private int arrowsDrawn;
+
+    /**
+     * Make the arrow for an extends or implements dependency (or a new one being created),
+     * along the given line, with the arrow head at the "to" end.
+     */
+    static Arrow makeExtendsArrow(Dependency.Line line, boolean implementsArrow, boolean selected, boolean creating)
+    {
+        double fromY = line.from.getY();
+        double fromX = line.from.getX();
+        double toY = line.to.getY();
+        double toX = line.to.getX();
+
+        double angle = Math.atan2(-(fromY - toY), fromX - toX);
+
+        double arrowJoinX = toX + ((ARROW_SIZE - 2) * Math.cos(angle));
+        double arrowJoinY = toY - ((ARROW_SIZE - 2) * Math.sin(angle));
+
+        // the arrow head
+        double[] xPoints = {toX, toX + ((ARROW_SIZE) * Math.cos(angle + ARROW_ANGLE)),
+                toX + (ARROW_SIZE * Math.cos(angle - ARROW_ANGLE))};
+        double[] yPoints = {toY, toY - ((ARROW_SIZE) * Math.sin(angle + ARROW_ANGLE)),
+                toY - (ARROW_SIZE * Math.sin(angle - ARROW_ANGLE))};
+        return new Arrow(creating ? Color.BLUE : Color.BLACK, selected ? 3.0 : 1.0, xPoints, yPoints,
+                new double[] {fromX, fromY, arrowJoinX, arrowJoinY}, implementsArrow);
+    }
+
+    /**
+     * Make the arrow for a uses dependency, from the given source point to the given
+     * destination point (which should be rounded to the nearest integer+0.5 value).
+     */
+    static Arrow makeUsesArrow(double src_x, double src_y, double dst_x, double dst_y, boolean startTop, boolean endLeft)
+    {
+        List<Double> lines = new ArrayList<>();
+
+        // The end arrow
+        int delta_x = endLeft ? -10 : 10;
+        addLine(lines, dst_x, dst_y, dst_x + delta_x, dst_y + 4);
+        addLine(lines, dst_x, dst_y, dst_x + delta_x, dst_y - 4);
+
+        // The start
+        double corner_y = src_y + (startTop ? -15 : 15);
+        addLine(lines, src_x, corner_y, src_x, src_y);
+        src_y = corner_y;
+
+        // The last line segment
+        double corner_x = dst_x + (endLeft ? -15 : 15);
+        addLine(lines, corner_x, dst_y, dst_x, dst_y);
+        dst_x = corner_x;
+
+        // if arrow vertical corner, the first segment up to corner
+        if ((src_y != dst_y) && (startTop == (src_y < dst_y))) {
+            corner_x = Utility.roundHalf(((src_x + dst_x) / 2) + (endLeft ? 15 : -15));
+            corner_x = (endLeft ? Math.min(dst_x, corner_x) : Math.max(dst_x, corner_x));
+            addLine(lines, src_x, src_y, corner_x, src_y);
+            src_x = corner_x;
+        }
+
+        // if arrow horiz. corner, the first segment up to corner
+        if ((src_x != dst_x) && (endLeft == (src_x > dst_x))) {
+            corner_y = Utility.roundHalf(((src_y + dst_y) / 2) + (startTop ? 15 : -15));
+            corner_y = (startTop ? Math.min(src_y, corner_y) : Math.max(src_y, corner_y));
+            addLine(lines, dst_x, corner_y, dst_x, dst_y);
+            dst_y = corner_y;
+        }
+
+        // the middle bit
+        addLine(lines, src_x, src_y, src_x, dst_y);
+        addLine(lines, src_x, dst_y, dst_x, dst_y);
+
+        return new Arrow(Color.BLACK, 1.0, null, null, lines.stream().mapToDouble(d -> d).toArray(), true);
+    }
+
+    private static void addLine(List<Double> lines, double x1, double y1, double x2, double y2)
+    {
+        lines.add(x1);
+        lines.add(y1);
+        lines.add(x2);
+        lines.add(y2);
+    }
+
+    /**
+     * Get the arrow for the given owner (e.g. a dependency).  If the arrow was last made from
+     * the same state (e.g. the bounds of the targets it joins), the cached arrow is returned;
+     * otherwise a new arrow is made using the given function, and cached.
+     */
+    Arrow getArrow(Object owner, double[] state, FXPlatformSupplier<Arrow> makeArrow)
+    {
+        CacheEntry entry = cache.get(owner);
+        if (entry == null || !Arrays.equals(entry.state, state))
+        {
+            entry = new CacheEntry(state, makeArrow.get());
+            cache.put(owner, entry);
+        }
+        return entry.arrow;
+    }
+
+    /**
+     * Repaint the whole layer next time it is painted, e.g. because it has been resized.
+     */
+    void invalidate()
+    {
+        invalid = true;
+    }
+
+    /**
+     * Paint the given arrows (in order) on the layer, redrawing only the regions which have
+     * changed since the layer was last painted.
+     */
+    void paint(GraphicsContext g, List<Arrow> arrows, double width, double height)
+    {
+        Set<Arrow> arrowSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < arrows.size(); i++)
+        {
+            Arrow arrow = arrows.get(i);
+            arrowSet.add(arrow);
+            arrow.order = i;
+        }
+
+        // Find the regions which have changed, and update the grid:
+        List<Region> dirty = new ArrayList<>();
+        for (Arrow arrow : painted)
+        {
+            if (!arrowSet.contains(arrow))
+            {
+                dirty.add(new Region(arrow));
+                updateGrid(arrow, false);
+            }
+        }
+        for (Arrow arrow : arrows)
+        {
+            if (!paintedSet.contains(arrow))
+            {
+                dirty.add(new Region(arrow));
+                updateGrid(arrow, true);
+            }
+        }
+        painted = new ArrayList<>(arrows);
+        paintedSet = arrowSet;
+        // Forget arrows which are no longer shown:
+        cache.values().removeIf(e -> !arrowSet.contains(e.arrow));
+
+        if (invalid)
+        {
+            dirty = List.of(new Region(0, 0, width, height));
+            invalid = false;
+        }
+        else if (dirty.size() > MAX_DIRTY_REGIONS)
+        {
+            dirty = List.of(dirty.stream().reduce(Region::union).get());
+        }
+        if (dirty.isEmpty())
+        {
+            return;
+        }
+
+        // Clear and redraw the arrows within the changed regions:
+        g.save();
+        g.beginPath();
+        for (Region r : dirty)
+        {
+            g.rect(r.minX, r.minY, r.maxX - r.minX, r.maxY - r.minY);
+        }
+        g.clip();
+        for (Region r : dirty)
+        {
+            g.clearRect(r.minX, r.minY, r.maxX - r.minX, r.maxY - r.minY);
+        }
+        List<Arrow> toDraw = findArrows(dirty);
+        toDraw.sort(Comparator.comparingInt(a -> a.order));
+        for (Arrow arrow : toDraw)
+        {
+            arrow.draw(g);
+        }
+        arrowsDrawn += toDraw.size();
+        g.restore();
+    }
+
+    /**
+     * Find the painted arrows which overlap any of the given regions, using the grid.
+     */
+    private List<Arrow> findArrows(List<Region> regions)
+    {
+        Set<Arrow> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Region r : regions)
+        {
+            for (int x = cell(r.minX); x <= cell(r.maxX); x++)
+            {
+                for (int y = cell(r.minY); y <= cell(r.maxY); y++)
+                {
+                    List<Arrow> cellArrows = grid.get(cellKey(x, y));
+                    if (cellArrows != null)
+                    {
+                        for (Arrow arrow : cellArrows)
+                        {
+                            if (arrow.intersects(r))
+                            {
+                                found.add(arrow);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Add the given arrow to (or remove it from) each cell of the grid which its bounding
+     * box overlaps.
+     */
+    private void updateGrid(Arrow arrow, boolean add)
+    {
+        for (int x = cell(arrow.minX); x <= cell(arrow.maxX); x++)
+        {
+            for (int y = cell(arrow.minY); y <= cell(arrow.maxY); y++)
+            {
+                long key = cellKey(x, y);
+                if (add)
+                {
+                    grid.computeIfAbsent(key, k -> new ArrayList<>()).add(arrow);
+                }
+                else
+                {
+                    List<Arrow> cellArrows = grid.get(key);
+                    if (cellArrows != null)
+                    {
+                        cellArrows.remove(arrow);
+                        if (cellArrows.isEmpty())
+                        {
+                            grid.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int cell(double coordinate)
+    {
+        return (int)Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long cellKey(int x, int y)
+    {
+        return ((long)x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the total number of arrows drawn by all paints (for measuring).
+     */
+    int getArrowsDrawn()
+    {
+        return arrowsDrawn;
+    }
+}
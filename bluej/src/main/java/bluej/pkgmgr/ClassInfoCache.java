@@ -0,0 +1,758 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import bluej.Boot;
+import bluej.parser.InfoParser;
+import bluej.parser.symtab.ClassInfo;
+import bluej.pkgmgr.target.ClassTarget;
+import bluej.utility.Debug;
+import bluej.utility.Utility;
+import bluej.utility.javafx.JavaFXUtil;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A cache of the results of parsing the source files in a package (see
+ * {@link SourceInfo}), kept on disk between sessions so that when a project is
+ * re-opened, only the source files which have changed need to be parsed.
+ *
+ * <p>Entries are keyed by source file name, and are valid while the file's size
+ * and modification time are unchanged; if those have changed but the content (as
+ * checked by a hash) has not, the entry is still valid.  A file whose modification
+ * time was too close to when its content was last checked could have been changed
+ * again without its modification time changing, so its content is checked again.
+ *
+ * <p>Since the result of parsing also depends on the other classes in the package,
+ * on the classes in the rest of the project, and on the project classpath (which are
+ * all used to resolve names), each entry also records a hash of those, and is not
+ * used if they have changed.  For the rest of the project, this covers the names,
+ * sizes and modification times of the source files; for classpath jars, it covers
+ * their sizes and modification times.  (Class files are not included: compiling
+ * would invalidate every entry, and a class compiled from an unchanged source file
+ * resolves the same way.)  Finding these means walking the project, which is done
+ * on a worker thread.
+ *
+ * <p>The cache is loaded from disk when it is first used (or in advance, along with
+ * the package's source files, by a {@link Prefetch}), and saved along with the
+ * package.  It is stored in a ".ctxt" file, so that it is ignored by team and
+ * export functions in the same way as the per-class context files.
+ */
+@OnThread(Tag.Any)
+final class ClassInfoCache
+{
+    /** The name of the cache file within the package directory ("package" can't be a class name) */
+    static final String FILE_NAME = "package.ctxt";
+    // Identifies the file format; change if the format of the file or of ClassInfo changes:
+    private static final int FORMAT_VERSION = 2;
+    // The coarsest modification time granularity of the file systems we expect (FAT's):
+    private static final long MTIME_GRANULARITY_MILLIS = 2000;
+
+    private static class Entry
+    {
+        final long size;
+        long lastModified;
+        // When the file's content was last known to match contentHash:
+        long verified;
+        final byte[] contentHash;
+        final byte[] contextHash;
+        // The serialised ClassInfo:
+        final byte[] info;
+
+        Entry(long size, long lastModified, long verified, byte[] contentHash, byte[] contextHash, byte[] info)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.verified = verified;
+            this.contentHash = contentHash;
+            this.contextHash = contextHash;
+            this.info = info;
+        }
+    }
+
+    /**
+     * The content of a source file, read in advance.
+     */
+    private static class SourceContent
+    {
+        final long size;
+        final long lastModified;
+        // When the content was read:
+        final long read;
+        final byte[] content;
+        final byte[] contentHash;
+
+        SourceContent(long size, long lastModified, long read, byte[] content, byte[] contentHash)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.read = read;
+            this.content = content;
+            this.contentHash = contentHash;
+        }
+    }
+
+    /**
+     * A fingerprint of the things outside a package which names in it may resolve to: the
+     * source files in the directories of the project, and the classpath (see getDependencyHash).
+     */
+    private static class DependencyFingerprint
+    {
+        // The fingerprint of the source files in each directory of the project, by directory:
+        private final Map<File, String> packageFingerprints;
+        private final String classpathFingerprint;
+        // The resulting dependency hash for each package directory, by directory:
+        @OnThread(Tag.FXPlatform) private final Map<File, byte[]> dependencyHashes = new HashMap<>();
+
+        private DependencyFingerprint(Map<File, String> packageFingerprints, String classpathFingerprint)
+        {
+            this.packageFingerprints = packageFingerprints;
+            this.classpathFingerprint = classpathFingerprint;
+        }
+    }
+
+    /**
+     * The cache file and source files of a package, read in advance (on a worker thread)
+     * so that the cache does not have to read them when it is used.
+     */
+    static class Prefetch
+    {
+        // The entries read from the cache file, or null if they must be discarded:
+        private final Map<String, Entry> entries;
+        private final Map<String, SourceContent> sources;
+
+        private Prefetch(Map<String, Entry> entries, Map<String, SourceContent> sources)
+        {
+            this.entries = entries;
+            this.sources = sources;
+        }
+
+        /**
+         * Get a copy of this data without the source files, to keep once it is no longer
+         * worth keeping them in memory.
+         */
+        Prefetch withoutSources()
+        {
+            return new Prefetch(entries, new HashMap<>());
+        }
+
+        /**
+         * Get the total size of the source files which were read.
+         */
+        long getSourceBytes()
+        {
+            long total = 0;
+            for (SourceContent source : sources.values())
+            {
+                total += source.content.length;
+            }
+            return total;
+        }
+    }
+
+    private final File cacheFile;
+    // Null until loaded:
+    private Map<String, Entry> entries;
+    private boolean modified;
+    // Source files which have been read in advance, by name:
+    private Map<String, SourceContent> prefetchedSources = new HashMap<>();
+
+    private int hits;
+    private int misses;
+
+    // The latest fingerprint of each open project (see getDependencyHash):
+    @OnThread(Tag.FXPlatform) private static final Map<Project, DependencyFingerprint> fingerprints = new HashMap<>();
+    // The fingerprints being worked out on a worker thread, by project:
+    @OnThread(Tag.FXPlatform) private static final Map<Project, CompletableFuture<DependencyFingerprint>> pendingFingerprints = new HashMap<>();
+
+    /**
+     * Create a cache for the package in the given directory.  The cache is not
+     * loaded until it is used.
+     */
+    ClassInfoCache(File packageDir)
+    {
+        cacheFile = new File(packageDir, FILE_NAME);
+    }
+
+    /**
+     * Create a cache for the package in the given directory, using data which was
+     * read in advance by {@link #prefetch(File, long)}.
+     */
+    ClassInfoCache(File packageDir, Prefetch prefetch)
+    {
+        this(packageDir);
+        if (prefetch.entries == null)
+        {
+            entries = new HashMap<>();
+            modified = true;
+        }
+        else
+        {
+            entries = prefetch.entries;
+        }
+        prefetchedSources = prefetch.sources;
+    }
+
+    /**
+     * Read the cache file and source files for the package in the given directory, for
+     * later use by a cache.  Source files are read until their total size reaches the
+     * given limit.  This does not need the package to be loaded, and can be called on
+     * any thread.
+     */
+    @OnThread(Tag.Worker)
+    static Prefetch prefetch(File packageDir, long maxSourceBytes)
+    {
+        Map<String, Entry> entries = readEntries(new File(packageDir, FILE_NAME));
+        Map<String, SourceContent> sources = new HashMap<>();
+        File[] sourceFiles = packageDir.listFiles((dir, name) -> name.endsWith(".java"));
+        long total = 0;
+        if (sourceFiles != null)
+        {
+            for (File sourceFile : sourceFiles)
+            {
+                long size = sourceFile.length();
+                if (total + size > maxSourceBytes)
+                {
+                    break;
+                }
+                try
+                {
+                    // Get the modification time first, so a change while reading is noticed:
+                    long lastModified = sourceFile.lastModified();
+                    long read = System.currentTimeMillis();
+                    byte[] content = Files.readAllBytes(sourceFile.toPath());
+                    sources.put(sourceFile.getName(), new SourceContent(content.length, lastModified, read, content, hash(content)));
+                    total += content.length;
+                }
+                catch (IOException e)
+                {
+                    // Ignore; the file will be read again if it is needed.
+                }
+            }
+        }
+        return new Prefetch(entries, sources);
+    }
+
+    /**
+     * Get the information for the given source file, either from the cache, or by
+     * parsing the file (and caching the result).  Returns null if the file could not
+     * be parsed.
+     *
+     * @throws FileNotFoundException  if the source file does not exist
+     */
+    @OnThread(Tag.FXPlatform)
+    ClassInfo getInfo(File sourceFile, Package pkg) throws FileNotFoundException
+    {
+        if (!sourceFile.getParentFile().equals(cacheFile.getParentFile()))
+        {
+            // Not one of ours; don't cache it.
+            return InfoParser.parseWithPkg(sourceFile, pkg);
+        }
+
+        loadIfNecessary();
+        String name = sourceFile.getName();
+        long size = sourceFile.length();
+        long lastModified = sourceFile.lastModified();
+        byte[] contextHash = getContextHash(pkg);
+
+        Entry entry = entries.get(name);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified
+                && lastModified < entry.verified - MTIME_GRANULARITY_MILLIS
+                && Arrays.equals(entry.contextHash, contextHash))
+        {
+            ClassInfo info = readInfo(entry);
+            if (info != null)
+            {
+                hits += 1;
+                return info;
+            }
+        }
+
+        byte[] content;
+        byte[] contentHash;
+        long read;
+        SourceContent prefetched = prefetchedSources.remove(name);
+        if (prefetched != null && prefetched.size == size && prefetched.lastModified == lastModified)
+        {
+            content = prefetched.content;
+            contentHash = prefetched.contentHash;
+            read = prefetched.read;
+        }
+        else
+        {
+            read = System.currentTimeMillis();
+            try
+            {
+                content = Files.readAllBytes(sourceFile.toPath());
+            }
+            catch (NoSuchFileException e)
+            {
+                throw new FileNotFoundException(sourceFile.getPath());
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Error reading source file " + sourceFile, e);
+                return null;
+            }
+            contentHash = hash(content);
+        }
+
+        if (entry != null && Arrays.equals(entry.contentHash, contentHash)
+                && Arrays.equals(entry.contextHash, contextHash))
+        {
+            // The file has been touched, but not changed:
+            ClassInfo info = readInfo(entry);
+            if (info != null)
+            {
+                entry.lastModified = lastModified;
+                entry.verified = read;
+                modified = true;
+                hits += 1;
+                return info;
+            }
+        }
+
+        misses += 1;
+        String source = new String(content, pkg.getProject().getProjectCharset());
+        ClassInfo info = InfoParser.parseWithPkg(new StringReader(source), pkg);
+        entries.remove(name);
+        if (info != null)
+        {
+            try
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                info.writeTo(out);
+                out.close();
+                entries.put(name, new Entry(size, lastModified, read, contentHash, contextHash, bytes.toByteArray()));
+            }
+            catch (IOException e)
+            {
+                // Can't happen writing to a byte array
+                Debug.reportError(e);
+            }
+        }
+        modified = true;
+        return info;
+    }
+
+    /**
+     * Save the cache to disk, if it has changed since it was loaded.  Entries for
+     * source files which no longer exist are discarded.
+     */
+    @OnThread(Tag.FXPlatform)
+    void save()
+    {
+        // Any source files read in advance but not used are no longer needed:
+        prefetchedSources.clear();
+        if (entries == null || !modified)
+        {
+            return;
+        }
+
+        File dir = cacheFile.getParentFile();
+        for (Iterator<String> i = entries.keySet().iterator(); i.hasNext(); )
+        {
+            if (!new File(dir, i.next()).exists())
+            {
+                i.remove();
+            }
+        }
+
+        File tempFile = new File(dir, FILE_NAME + ".tmp");
+        try
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(Boot.BLUEJ_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet())
+                {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.lastModified);
+                    out.writeLong(entry.verified);
+                    writeBytes(out, entry.contentHash);
+                    writeBytes(out, entry.contextHash);
+                    writeBytes(out, entry.info);
+                }
+            }
+            // Replace the old file in one step, so a failed save can't leave a broken cache:
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+        }
+        catch (IOException e)
+        {
+            // Not serious; the files will just be parsed again next time.
+            Debug.message("Could not save class information cache " + cacheFile + ": " + e);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Write the hit and miss counts since the last call to the debug log.
+     */
+    @OnThread(Tag.FXPlatform)
+    void logStatistics(String packageName)
+    {
+        if (hits + misses > 0)
+        {
+            Debug.log("Class information cache for package \"" + packageName + "\": "
+                    + hits + " hits, " + misses + " misses");
+        }
+        hits = 0;
+        misses = 0;
+    }
+
+    @OnThread(Tag.FXPlatform)
+    private void loadIfNecessary()
+    {
+        if (entries != null)
+        {
+            return;
+        }
+
+        entries = readEntries(cacheFile);
+        if (entries == null)
+        {
+            entries = new HashMap<>();
+            modified = true;
+        }
+    }
+
+    /**
+     * Read the entries from the given cache file.  Returns an empty map if there is no
+     * file, or null if the file can't be read or was written by a different version
+     * (in which case it should be replaced).
+     */
+    private static Map<String, Entry> readEntries(File cacheFile)
+    {
+        Map<String, Entry> entries = new HashMap<>();
+        if (!cacheFile.exists())
+        {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile))))
+        {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(Boot.BLUEJ_VERSION))
+            {
+                // A different version of BlueJ may parse differently; start again.
+                return null;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                String name = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long verified = in.readLong();
+                entries.put(name, new Entry(size, lastModified, verified, readBytes(in), readBytes(in), readBytes(in)));
+            }
+            return entries;
+        }
+        catch (IOException e)
+        {
+            Debug.message("Could not load class information cache " + cacheFile + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Read the ClassInfo from a cache entry.  Returns null if the entry is corrupt.
+     */
+    private static ClassInfo readInfo(Entry entry)
+    {
+        try
+        {
+            return ClassInfo.readFrom(new DataInputStream(new ByteArrayInputStream(entry.info)));
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Get a hash of the things other than the source itself which affect the parse result:
+     * the classes in the package (and whether they are compiled), and the rest of the
+     * project and the classpath (see {@link #getDependencyHash}).
+     */
+    @OnThread(Tag.FXPlatform)
+    private static byte[] getContextHash(Package pkg)
+    {
+        StringBuilder context = new StringBuilder(pkg.getQualifiedName());
+        List<String> names = new ArrayList<>();
+        for (ClassTarget ct : pkg.getClassTargets())
+        {
+            names.add(ct.getBaseName() + (ct.isCompiled() ? "+" : "-"));
+        }
+        names.sort(null);
+        for (String name : names)
+        {
+            context.append('\n').append(name);
+        }
+        MessageDigest digest = newDigest();
+        digest.update(context.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(getDependencyHash(pkg));
+        return digest.digest();
+    }
+
+    /**
+     * Get a hash of the classes outside the given package which names in it may resolve to:
+     * the source files in the other directories of the project, and the classpath.
+     *
+     * <p>Finding these means walking the whole project, which is done on a worker thread
+     * (see {@link #refreshFingerprint}).  The latest fingerprint is used, and each use starts
+     * a new one being worked out, so that later changes (for example, to other packages, or
+     * to the classpath) are seen.
+     */
+    @OnThread(Tag.FXPlatform)
+    private static byte[] getDependencyHash(Package pkg)
+    {
+        Project project = pkg.getProject();
+        DependencyFingerprint fingerprint = fingerprints.get(project);
+        if (fingerprint == null)
+        {
+            // The first fingerprint is started when the project is opened, so waiting
+            // for it is no slower than working it out here:
+            CompletableFuture<DependencyFingerprint> pending = pendingFingerprints.remove(project);
+            fingerprint = pending != null ? pending.join()
+                    : fingerprint(project.getProjectDir(), project.getClassLoader().getClassPathAsFiles());
+            fingerprints.put(project, fingerprint);
+        }
+        else
+        {
+            refreshFingerprint(project);
+        }
+
+        File dir = pkg.getPath();
+        byte[] dependencyHash = fingerprint.dependencyHashes.get(dir);
+        if (dependencyHash == null)
+        {
+            MessageDigest digest = newDigest();
+            digest.update(fingerprint.classpathFingerprint.getBytes(StandardCharsets.UTF_8));
+            for (Map.Entry<File, String> packageFingerprint : fingerprint.packageFingerprints.entrySet())
+            {
+                // Changes to this package's own files are dealt with by each entry:
+                if (!packageFingerprint.getKey().equals(dir))
+                {
+                    digest.update((packageFingerprint.getKey().getPath() + "\n" + packageFingerprint.getValue()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            dependencyHash = digest.digest();
+            fingerprint.dependencyHashes.put(dir, dependencyHash);
+        }
+        return dependencyHash;
+    }
+
+    /**
+     * Start working out a new fingerprint of the given project on a worker thread, unless
+     * one is already being worked out.  It replaces the current one once it is complete.
+     */
+    @OnThread(Tag.FXPlatform)
+    static void refreshFingerprint(Project project)
+    {
+        if (pendingFingerprints.containsKey(project))
+        {
+            return;
+        }
+        File projectDir = project.getProjectDir();
+        List<File> classpath = project.getClassLoader().getClassPathAsFiles();
+        CompletableFuture<DependencyFingerprint> pending = new CompletableFuture<>();
+        pendingFingerprints.put(project, pending);
+        Utility.runBackground(() -> {
+            pending.complete(fingerprint(projectDir, classpath));
+            JavaFXUtil.runPlatformLater(() -> {
+                // Unless it was taken meanwhile, or the project has been closed:
+                if (pendingFingerprints.remove(project, pending))
+                {
+                    fingerprints.put(project, pending.join());
+                }
+            });
+        });
+    }
+
+    /**
+     * Discard the fingerprints of the given project, which has been closed.
+     */
+    @OnThread(Tag.FXPlatform)
+    static void forgetFingerprint(Project project)
+    {
+        fingerprints.remove(project);
+        pendingFingerprints.remove(project);
+    }
+
+    /**
+     * Work out the fingerprint of the project in the given directory, with the given classpath.
+     */
+    private static DependencyFingerprint fingerprint(File projectDir, List<File> classpath)
+    {
+        Map<File, String> packageFingerprints = new TreeMap<>();
+        fingerprintTree(projectDir, packageFingerprints, false);
+        return new DependencyFingerprint(packageFingerprints, getClasspathFingerprint(projectDir, classpath));
+    }
+
+    /**
+     * Get a fingerprint of the project classpath: the path of each entry, and for a jar, its
+     * size and modification time, or for a directory outside the project, the names, sizes
+     * and modification times of the files in it.
+     */
+    private static String getClasspathFingerprint(File projectDir, List<File> classpath)
+    {
+        Path projectPath = projectDir.toPath().toAbsolutePath();
+        StringBuilder fingerprint = new StringBuilder();
+        for (File f : classpath)
+        {
+            fingerprint.append(f.getPath()).append('\n');
+            if (f.isDirectory())
+            {
+                // The project's own directories are fingerprinted separately:
+                if (!f.toPath().toAbsolutePath().startsWith(projectPath))
+                {
+                    Map<File, String> dirFingerprints = new TreeMap<>();
+                    fingerprintTree(f, dirFingerprints, true);
+                    dirFingerprints.values().forEach(fingerprint::append);
+                }
+            }
+            else if (f.isFile())
+            {
+                fingerprint.append(f.length()).append(' ').append(f.lastModified()).append('\n');
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Add the fingerprint of each directory in the given tree (skipping hidden directories,
+     * such as version control metadata) which contains source files (or class files, if
+     * specified): their names, sizes and modification times.
+     */
+    private static void fingerprintTree(File root, Map<File, String> fingerprints, boolean includeClassFiles)
+    {
+        Map<Path, StringBuilder> dirFingerprints = new HashMap<>();
+        try
+        {
+            Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                {
+                    return !dir.equals(root.toPath()) && dir.getFileName().toString().startsWith(".")
+                            ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".java") || (includeClassFiles && name.endsWith(".class")))
+                    {
+                        dirFingerprints.computeIfAbsent(file.getParent(), d -> new StringBuilder())
+                                .append(name).append(' ').append(attrs.size()).append(' ')
+                                .append(attrs.lastModifiedTime().toMillis()).append('\n');
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc)
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            // Fingerprint what we could
+        }
+        // The files in a directory are not visited in any particular order:
+        dirFingerprints.forEach((dir, fingerprint) -> {
+            String[] lines = fingerprint.toString().split("\n");
+            Arrays.sort(lines);
+            fingerprints.put(dir.toFile(), String.join("\n", lines) + "\n");
+        });
+    }
+
+    private static byte[] hash(byte[] data)
+    {
+        return newDigest().digest(data);
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is required to be present in all Java implementations
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+    {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009  Michael Kolling and John Rosenberg 
+ Copyright (C) 1999-2009,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -21,20 +21,183 @@
  */
 package bluej.pkgmgr;
 
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
-import bluej.utility.GeneralCache;
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
 
 /**
- * A cache for class comments (javadoc/parameter names). Adding new entries to the cache
- * will purge old entries, if there are too many.
- * 
+ * A cache for class comments (javadoc/parameter names), keyed by class name. Adding
+ * new entries to the cache will purge the least recently used entries, if there are too
+ * many or if the total size of the cached comments is too large.
+ *
+ * <p>Each entry may record the file (source file or archive) its comments were read from;
+ * if that file has since been modified, the entry is discarded rather than returned, so
+ * that comments do not go stale when the user edits a class.
+ *
+ * <p>The cache may be used from any thread.
+ *
  * @author Davin McCall
  */
-public class CommentCache extends GeneralCache<String,Properties>
+@OnThread(Tag.Any)
+public class CommentCache
 {
+    private static final int DEFAULT_MAX_ENTRIES = 500;
+    // Measured in characters, of the property keys and values:
+    private static final long DEFAULT_MAX_SIZE = 4L * 1024 * 1024;
+
+    private static class Entry
+    {
+        private final Properties comments;
+        private final long size;
+        private final File source;
+        private final long sourceModified;
+        private final long sourceLength;
+
+        private Entry(Properties comments, long size, File source, long sourceModified, long sourceLength)
+        {
+            this.comments = comments;
+            this.size = size;
+            this.source = source;
+            this.sourceModified = sourceModified;
+            this.sourceLength = sourceLength;
+        }
+
+        /**
+         * Check whether the file the comments were read from has changed since.
+         */
+        private boolean isStale()
+        {
+            return source != null
+                    && (source.lastModified() != sourceModified || source.length() != sourceLength);
+        }
+    }
+
+    // In order of use (least recent first):
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxSize;
+    private long size;
+    private long hits;
+    private long misses;
+
     public CommentCache()
     {
-        super(20);
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Construct a cache holding at most the given number of entries, and at most the
+     * given total size (in characters) of comments.
+     */
+    public CommentCache(int maxEntries, long maxSize)
+    {
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieve the comments for the given class, or null if they are not cached (or
+     * the file they were read from has been modified since).
+     */
+    public synchronized Properties get(String className)
+    {
+        Entry entry = entries.get(className);
+        if (entry != null && entry.isStale())
+        {
+            entries.remove(className);
+            size -= entry.size;
+            entry = null;
+        }
+        if (entry == null)
+        {
+            misses += 1;
+            return null;
+        }
+        hits += 1;
+        return entry.comments;
+    }
+
+    /**
+     * Put the comments for a class in the cache, replacing any already cached.  If the
+     * comments alone are larger than the maximum size, they are not cached.  The entry
+     * is never considered stale.
+     */
+    public void put(String className, Properties comments)
+    {
+        put(className, comments, null, 0L, 0L);
+    }
+
+    /**
+     * Put the comments for a class in the cache, replacing any already cached.  If the
+     * comments alone are larger than the maximum size, they are not cached.
+     *
+     * @param source          The file (source file or archive) the comments were read from.
+     *                        May be null, in which case the entry is never considered stale.
+     * @param sourceModified  The modification time of the source file, taken before it was read
+     * @param sourceLength    The length of the source file, taken before it was read
+     */
+    public synchronized void put(String className, Properties comments, File source,
+            long sourceModified, long sourceLength)
+    {
+        long entrySize = 0;
+        for (Map.Entry<Object, Object> property : comments.entrySet())
+        {
+            entrySize += property.getKey().toString().length() + property.getValue().toString().length();
+        }
+
+        Entry old = entries.remove(className);
+        if (old != null)
+        {
+            size -= old.size;
+        }
+        if (entrySize > maxSize)
+        {
+            return;
+        }
+
+        entries.put(className, new Entry(comments, entrySize, source, sourceModified, sourceLength));
+        size += entrySize;
+        Iterator<Entry> i = entries.values().iterator();
+        while (entries.size() > maxEntries || size > maxSize)
+        {
+            size -= i.next().size;
+            i.remove();
+        }
+    }
+
+    /**
+     * Remove all cache entries.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Get the proportion of lookups which have found comments in the cache.
+     */
+    public synchronized double getHitRatio()
+    {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    /**
+     * Log the hit rate and the size of the cache.
+     */
+    public synchronized void logStatistics()
+    {
+        if (hits + misses > 0)
+        {
+            Debug.log("Comment cache: " + hits + " hits, " + misses + " misses, "
+                    + entries.size() + " classes cached (" + size + " characters)");
+        }
     }
 }
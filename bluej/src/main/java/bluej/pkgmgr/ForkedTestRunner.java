@@ -0,0 +1,278 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import bluej.Config;
+import bluej.debugger.DebuggerTestResult;
+import bluej.debugger.jdi.JdiTestResult;
+import bluej.runtime.TestWorker;
+import bluej.utility.Debug;
+import bluej.utility.javafx.FXPlatformConsumer;
+import javafx.application.Platform;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Runs all the tests in a set of test classes in a number of separate ("forked") VMs,
+ * rather than in the debug VM.  Each VM runs a {@link TestWorker}, which is given one
+ * test class at a time until all classes have been run, so that the classes are
+ * spread across the VMs and run in parallel.  Results are passed back to the FX
+ * thread as each test finishes.
+ *
+ * <p>Since the tests do not run in the debug VM, they cannot stop at breakpoints or
+ * use the object bench.
+ */
+@OnThread(Tag.Worker)
+class ForkedTestRunner
+{
+    // How long to wait for a worker VM to start and connect:
+    private static final int CONNECT_TIMEOUT_MS = 30000;
+
+    private final File projectDir;
+    private final String classPath;
+    private final Writer outWriter;
+    private final Writer errWriter;
+    private final int workerCount;
+
+    /**
+     * Create a runner.
+     *
+     * @param projectDir   the project directory, used as the worker VMs' working directory
+     * @param classPath    the classpath for the worker VMs (including the BlueJ runtime)
+     * @param outWriter    the destination for the worker VMs' standard output
+     * @param errWriter    the destination for the worker VMs' standard error
+     * @param workerCount  the maximum number of worker VMs to use
+     */
+    @OnThread(Tag.Any)
+    ForkedTestRunner(File projectDir, String classPath, Writer outWriter, Writer errWriter, int workerCount)
+    {
+        this.projectDir = projectDir;
+        this.classPath = classPath;
+        this.outWriter = outWriter;
+        this.errWriter = errWriter;
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Run all the tests in the given classes, and wait for them to finish.
+     *
+     * @param classNames     the fully qualified names of the test classes
+     * @param resultHandler  called on the FX thread with each test result
+     * @param runTimeHandler called on the FX thread with the run time of each test class
+     */
+    public void runTests(List<String> classNames, FXPlatformConsumer<DebuggerTestResult> resultHandler,
+            FXPlatformConsumer<Integer> runTimeHandler)
+    {
+        Queue<String> remaining = new ConcurrentLinkedQueue<>(classNames);
+        int numWorkers = Math.min(workerCount, classNames.size());
+        List<Process> processes = new ArrayList<>();
+        List<Thread> handlers = new ArrayList<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(0, numWorkers, InetAddress.getLoopbackAddress()))
+        {
+            serverSocket.setSoTimeout(CONNECT_TIMEOUT_MS);
+            for (int i = 0; i < numWorkers; i++)
+            {
+                processes.add(launchWorker(serverSocket.getLocalPort()));
+            }
+
+            for (int i = 0; i < numWorkers; i++)
+            {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread("Test worker " + i) {
+                    @Override
+                    @OnThread(value = Tag.Worker, ignoreParent = true)
+                    public void run()
+                    {
+                        handleWorker(socket, remaining, resultHandler, runTimeHandler);
+                    }
+                };
+                handler.start();
+                handlers.add(handler);
+            }
+        }
+        catch (SocketTimeoutException e)
+        {
+            // Some workers failed to start; carry on with those that did.
+            Debug.message("Timed out waiting for test worker VM to connect");
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Error starting test worker VMs", e);
+        }
+
+        for (Thread handler : handlers)
+        {
+            try
+            {
+                handler.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Any classes left over could not be run (e.g. because no worker started):
+        String className;
+        while ((className = remaining.poll()) != null)
+        {
+            DebuggerTestResult error = JdiTestResult.errorResult(className, "", "Test VM could not be started");
+            Platform.runLater(() -> resultHandler.accept(error));
+        }
+
+        for (Process process : processes)
+        {
+            try
+            {
+                if (!process.waitFor(5, TimeUnit.SECONDS))
+                {
+                    process.destroyForcibly();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hand test classes to a single worker VM until there are none left, passing back
+     * the results.
+     */
+    private void handleWorker(Socket socket, Queue<String> remaining,
+            FXPlatformConsumer<DebuggerTestResult> resultHandler, FXPlatformConsumer<Integer> runTimeHandler)
+    {
+        String className = null;
+        try (Socket s = socket)
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+            while ((className = remaining.poll()) != null)
+            {
+                TestWorker.writeString(out, TestWorker.RUN);
+                TestWorker.writeString(out, className);
+                out.flush();
+
+                String reply;
+                while (TestWorker.RESULT.equals(reply = TestWorker.readString(in)))
+                {
+                    String[] details = new String[JdiTestResult.RESULT_DETAILS_LENGTH];
+                    for (int i = 0; i < details.length; i++)
+                    {
+                        details[i] = TestWorker.readString(in);
+                    }
+                    DebuggerTestResult result = JdiTestResult.fromDetails(className, details);
+                    Platform.runLater(() -> resultHandler.accept(result));
+                }
+                if (TestWorker.DONE.equals(reply))
+                {
+                    int runTime = Integer.parseInt(TestWorker.readString(in));
+                    Platform.runLater(() -> runTimeHandler.accept(runTime));
+                }
+            }
+            className = null;
+
+            TestWorker.writeString(out, TestWorker.EXIT);
+            out.flush();
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            // The worker VM has gone away (e.g. System.exit in a test) part way through a class:
+            if (className != null)
+            {
+                DebuggerTestResult error = JdiTestResult.errorResult(className, "", "VM terminated");
+                Platform.runLater(() -> resultHandler.accept(error));
+            }
+        }
+    }
+
+    /**
+     * Launch a worker VM, which will connect back to the given port.
+     */
+    private Process launchWorker(int port) throws IOException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(Config.getJDKExecutablePath(null, "java"));
+        command.addAll(Config.getDebugVMArgs());
+        command.add("-classpath");
+        command.add(classPath);
+        command.add(TestWorker.class.getName());
+        command.add(String.valueOf(port));
+
+        Process process = new ProcessBuilder(command).directory(projectDir).start();
+        redirect(new InputStreamReader(process.getInputStream()), outWriter);
+        redirect(new InputStreamReader(process.getErrorStream()), errWriter);
+        return process;
+    }
+
+    /**
+     * Copy everything from the reader to the writer, on a new thread.
+     */
+    private static void redirect(Reader reader, Writer writer)
+    {
+        Thread thread = new Thread("Test worker I/O") {
+            @Override
+            @OnThread(value = Tag.Worker, ignoreParent = true)
+            public void run()
+            {
+                char[] buf = new char[4096];
+                try (Reader r = reader)
+                {
+                    int n;
+                    while ((n = r.read(buf)) != -1)
+                    {
+                        writer.write(buf, 0, n);
+                    }
+                }
+                catch (IOException e)
+                {
+                    // Stream closed; the worker has finished.
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021 Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026 Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -96,6 +96,10 @@ public final class Package
     @OnThread(value = Tag.Any, requireSynchronized = true)
     private PackageFile packageFile;
 
+    /** Cached results of parsing the package's source files; created when first needed */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private ClassInfoCache classInfoCache;
+
     /** Readme file name */
     public static final String readmeName = "README.TXT";
 
@@ -206,6 +210,55 @@ public final class Package
     @OnThread(value = Tag.FXPlatform)
     private final List<Dependency> extendsArrows = new ArrayList<>();
 
+    // The dependencies in usesArrows and extendsArrows, for lookup by their targets:
+    @OnThread(value = Tag.FXPlatform)
+    private final Map<DependencyKey, Dependency> dependencyIndex = new HashMap<>();
+
+    /**
+     * The key of a dependency in dependencyIndex.  The targets are compared by identity
+     * (as in Dependency.equals), since a target's name, and so its hash code, may change.
+     * Extends and implements dependencies share a key, as they share a list.
+     */
+    @OnThread(Tag.Any)
+    private static class DependencyKey
+    {
+        private final Target from;
+        private final Target to;
+        private final boolean uses;
+
+        private DependencyKey(Target from, Target to, boolean uses)
+        {
+            this.from = from;
+            this.to = to;
+            this.uses = uses;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof DependencyKey))
+                return false;
+            DependencyKey k = (DependencyKey) o;
+            return k.from == from && k.to == to && k.uses == uses;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * System.identityHashCode(from) + System.identityHashCode(to)) * 2 + (uses ? 1 : 0);
+        }
+    }
+
+    /**
+     * Get the dependency between the given targets: a uses dependency if uses is true, or
+     * an extends or implements dependency otherwise.  Returns null if there is none.
+     */
+    //package-visible
+    Dependency getDependency(DependentTarget from, DependentTarget to, boolean uses)
+    {
+        return dependencyIndex.get(new DependencyKey(from, to, uses));
+    }
+
     /** True if we currently have a compile queued up waiting for debugger to become idle */
     @OnThread(Tag.FXPlatform)
     private boolean waitingForIdleToCompile = false;
@@ -599,7 +652,9 @@ public final class Package
     @OnThread(Tag.FXPlatform)
     private void fireChangedEvent()
     {
-        for (PackageListener l : listeners)
+        // Copy the list, as listeners may remove themselves (e.g. the terminal's class name lookup):
+        List<PackageListener> listenersCopy = new ArrayList<PackageListener>(listeners);
+        for (PackageListener l : listenersCopy)
         {
             l.graphChanged();
         }
@@ -723,6 +778,19 @@ public final class Package
 
         packageFile = getPkgFile();
 
+        // The files may already have been read, while the project was opening:
+        ProjectPrefetcher.PackageData prefetched = getProject().takePrefetchedPackage(getPath());
+        if (prefetched != null)
+        {
+            if (prefetched.error != null)
+            {
+                throw prefetched.error;
+            }
+            lastSavedProps.putAll(prefetched.properties);
+            classInfoCache = new ClassInfoCache(getPath(), prefetched.classInfo);
+            return;
+        }
+
         // try to load the package file for this package
         packageFile.load(lastSavedProps);
     }
@@ -1045,6 +1113,8 @@ public final class Package
                 }
             }
 
+            getClassInfoCache().logStatistics(getQualifiedName());
+
             // update the flag
             hasPackageTargetsLoaded = true;
         }
@@ -1179,6 +1249,7 @@ public final class Package
                 ct.analyseSource();
             }
         }
+        getClassInfoCache().logStatistics(getQualifiedName());
 
         //Update class roles, and their state
         for (Target target : targetsCopy)
@@ -1312,6 +1383,20 @@ public final class Package
             return;
         }
         lastSavedProps = props;
+        getClassInfoCache().save();
+    }
+
+    /**
+     * Get the cache of parsed source information for this package's classes.
+     */
+    @OnThread(Tag.Any)
+    synchronized ClassInfoCache getClassInfoCache()
+    {
+        if (classInfoCache == null)
+        {
+            classInfoCache = new ClassInfoCache(getPath());
+        }
+        return classInfoCache;
     }
 
     /**
@@ -2959,27 +3044,19 @@ public final class Package
             return;
         }
 
+        DependencyKey key = new DependencyKey(from, to, d instanceof UsesDependency);
+        if (dependencyIndex.containsKey(key))
+        {
+            return;
+        }
+        dependencyIndex.put(key, d);
         if (d instanceof UsesDependency)
         {
-            if (usesArrows.contains(d))
-            {
-                return;
-            }
-            else
-            {
-                usesArrows.add((UsesDependency) d);
-            }
+            usesArrows.add((UsesDependency) d);
         }
         else
         {
-            if (extendsArrows.contains(d))
-            {
-                return;
-            }
-            else
-            {
-                extendsArrows.add(d);
-            }
+            extendsArrows.add(d);
         }
 
         DependentTarget from1 = d.getFrom();
@@ -2990,13 +3067,18 @@ public final class Package
 
     public void removeDependency(Dependency dependency, boolean recalc)
     {
+        boolean removed;
         if (dependency instanceof UsesDependency)
         {
-            usesArrows.remove(dependency);
+            removed = usesArrows.remove(dependency);
         }
         else
         {
-            extendsArrows.remove(dependency);
+            removed = extendsArrows.remove(dependency);
+        }
+        if (removed)
+        {
+            dependencyIndex.remove(new DependencyKey(dependency.getFrom(), dependency.getTo(), dependency instanceof UsesDependency));
         }
 
         DependentTarget from = dependency.getFrom();
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2012,2013,2014,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2012,2013,2014,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -37,26 +37,26 @@ import bluej.pkgmgr.target.DependentTarget;
 import bluej.pkgmgr.target.Target;
 import bluej.testmgr.record.InvokerRecord;
 import bluej.utility.DialogManager;
-import bluej.utility.Utility;
+import bluej.utility.javafx.FXPlatformRunnable;
 import bluej.utility.javafx.JavaFXUtil;
 import bluej.utility.javafx.ResizableCanvas;
 import bluej.views.CallableView;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.stage.Window;
 import threadchecker.OnThread;
@@ -86,6 +86,12 @@ public final class PackageEditor extends StackPane
 {
     private static final int RIGHT_PLACEMENT_MIN = 300;
     private static final int WHITESPACE_SIZE = 10;
+    // The number of targets in a package above which only the targets near the visible
+    // part of the diagram are given nodes in the diagram (0 to always give all targets nodes):
+    private static final String VIRTUALISE_THRESHOLD_PROPERTY = "bluej.classdiagram.virtualiseThreshold";
+    private static final int DEFAULT_VIRTUALISE_THRESHOLD = 500;
+    // The distance outside the visible part of the diagram within which targets are given nodes:
+    private static final double VIRTUALISE_MARGIN = 300;
     /**  The grid resolution for graph layout. */
     public static final int GRID_SIZE = 10;
     
@@ -99,7 +105,7 @@ public final class PackageEditor extends StackPane
 
     // Two class layers: one front (for normal classes),
     // and one back (for test classes)
-    private final AnchorPane frontClassLayer = new AnchorPaneExtraSpacing();
+    private final AnchorPaneExtraSpacing frontClassLayer = new AnchorPaneExtraSpacing();
     private final AnchorPane backClassLayer = new AnchorPane();
     // The layer at the front on which we draw the selection rectangle:
     private final Pane selectionLayer = new Pane();
@@ -107,6 +113,20 @@ public final class PackageEditor extends StackPane
     protected Label noClassesExistedMessage;
     // The layer at the back where we draw the arrows:
     private final Canvas arrowLayer = new ResizableCanvas();
+    // The arrows drawn on the arrow layer:
+    @OnThread(Tag.FXPlatform)
+    private final ArrowCache arrowCache = new ArrowCache();
+    // The number of targets above which the diagram is virtualised (see updateTargetNodes):
+    private final int virtualiseThreshold = Config.getPropInteger(VIRTUALISE_THRESHOLD_PROPERTY, DEFAULT_VIRTUALISE_THRESHOLD);
+    // The scroll pane showing this editor (null if not known):
+    @OnThread(Tag.FXPlatform)
+    private ScrollPane scrollPane;
+    // Removes our listeners from the scroll pane:
+    @OnThread(Tag.FXPlatform)
+    private final List<FXPlatformRunnable> scrollPaneListenerRemovers = new ArrayList<>();
+    // Whether all targets must have nodes, even if the diagram is virtualised (e.g. for printing):
+    @OnThread(Tag.FXPlatform)
+    private boolean showAllTargets = false;
     // Boolean remembering whether we've already scheduled a repaint.
     private boolean aboutToRepaint = false;
     // The ContextMenu that is currently being shown on screen (null if not visible)
@@ -159,8 +179,14 @@ public final class PackageEditor extends StackPane
         // in order to click on the back layer:
         frontClassLayer.setPickOnBounds(false);
 
-        JavaFXUtil.addChangeListenerPlatform(arrowLayer.widthProperty(), s -> repaint());
-        JavaFXUtil.addChangeListenerPlatform(arrowLayer.heightProperty(), s -> repaint());
+        JavaFXUtil.addChangeListenerPlatform(arrowLayer.widthProperty(), s -> {
+            arrowCache.invalidate();
+            repaint();
+        });
+        JavaFXUtil.addChangeListenerPlatform(arrowLayer.heightProperty(), s -> {
+            arrowCache.invalidate();
+            repaint();
+        });
         // The mouse events occur on us not on the selection layer.
         // We don't want the display getting in the way of mouse events:
         selectionLayer.setMouseTransparent(true);
@@ -377,6 +403,48 @@ public final class PackageEditor extends StackPane
     @OnThread(value = Tag.FXPlatform)
     public void graphChanged()
     {
+        updateTargetNodes();
+
+        pmf.graphChanged();
+        
+        //TODO make sure removed items aren't still in the selection
+
+        repaint();
+    }
+
+    /**
+     * Is the diagram virtualised?  In a package with very many targets, only the targets
+     * which are near the visible part of the diagram (or which is focused)
+     * have their nodes in the diagram, to save the cost of CSS and layout for the others.
+     * The other targets keep their position and size (which are all that is needed for
+     * layout, selection and keyboard navigation) and are given nodes when scrolled to
+     * or reached by the keyboard (see focusNextTarget).
+     */
+    private boolean isVirtualised()
+    {
+        return virtualiseThreshold > 0 && !showAllTargets && scrollPane != null
+                && pkg.getVertices().size() > virtualiseThreshold;
+    }
+
+    /**
+     * Make sure that the nodes of the targets which should be in the diagram (see
+     * isVirtualised) are in it, and that no others are.
+     */
+    private void updateTargetNodes()
+    {
+        boolean virtualised = isVirtualised();
+        double minX = 0, minY = 0, maxX = 0, maxY = 0;
+        double extentWidth = 0, extentHeight = 0;
+        if (virtualised)
+        {
+            // The viewport bounds are offset by the scroll position:
+            Bounds viewport = scrollPane.getViewportBounds();
+            minX = -viewport.getMinX() - VIRTUALISE_MARGIN;
+            minY = -viewport.getMinY() - VIRTUALISE_MARGIN;
+            maxX = -viewport.getMinX() + viewport.getWidth() + VIRTUALISE_MARGIN;
+            maxY = -viewport.getMinY() + viewport.getHeight() + VIRTUALISE_MARGIN;
+        }
+
         HashMap<Node, Boolean> keep = new HashMap<>();
 
         // We assume all components currently in the graph belong to vertices.
@@ -393,6 +461,20 @@ public final class PackageEditor extends StackPane
         // Add what needs to be added:
         for (Target v : pkg.getVertices())
         {
+            if (virtualised)
+            {
+                int x = v.getX(), y = v.getY(), width = v.getWidth(), height = v.getHeight();
+                // The diagram must be big enough for all targets, whether or not they have nodes:
+                extentWidth = Math.max(extentWidth, x + width);
+                extentHeight = Math.max(extentHeight, y + height);
+                boolean nearView = x < maxX && x + width > minX && y < maxY && y + height > minY;
+                // Selected targets don't keep their nodes (selecting all would otherwise
+                // give every target a node); selection is held by the target itself:
+                if (!nearView && !v.isFocused())
+                {
+                    continue;
+                }
+            }
             if (!keep.containsKey(v.getNode()))
             {
                 (v.isFront() ? frontClassLayer : backClassLayer).getChildren().add(v.getNode());
@@ -419,22 +501,95 @@ public final class PackageEditor extends StackPane
             }
         }
 
-        pmf.graphChanged();
-        
-        //TODO make sure removed items aren't still in the selection
+        frontClassLayer.setExtent(extentWidth, extentHeight);
+    }
 
-        repaint();
+    /**
+     * Set the scroll pane which shows this editor, so that the diagram can be virtualised
+     * (see isVirtualised).  Set to null when the editor is removed from the scroll pane.
+     */
+    public void setScrollPane(ScrollPane scrollPane)
+    {
+        scrollPaneListenerRemovers.forEach(FXPlatformRunnable::run);
+        scrollPaneListenerRemovers.clear();
+        this.scrollPane = scrollPane;
+        if (scrollPane != null)
+        {
+            // The nodes which should be in the diagram are updated on repaint:
+            scrollPaneListenerRemovers.add(JavaFXUtil.addChangeListenerPlatform(scrollPane.hvalueProperty(), v -> repaint()));
+            scrollPaneListenerRemovers.add(JavaFXUtil.addChangeListenerPlatform(scrollPane.vvalueProperty(), v -> repaint()));
+            scrollPaneListenerRemovers.add(JavaFXUtil.addChangeListenerPlatform(scrollPane.viewportBoundsProperty(), v -> repaint()));
+        }
+        updateTargetNodes();
+    }
+
+    /**
+     * Set whether all targets must have nodes in the diagram, even if it is virtualised
+     * (e.g. while taking a snapshot of the whole diagram for printing).
+     */
+    public void setShowAllTargets(boolean showAllTargets)
+    {
+        this.showAllTargets = showAllTargets;
+        updateTargetNodes();
+    }
+
+    /**
+     * Make sure the given target has a node in the diagram, and scroll to show it.
+     */
+    public void scrollToTarget(Target target)
+    {
+        if (target.getNode().getParent() == null && pkg.getVertices().contains(target))
+        {
+            AnchorPane layer = target.isFront() ? frontClassLayer : backClassLayer;
+            layer.getChildren().add(target.getNode());
+            // Position it, so that we can scroll to it:
+            layer.layout();
+        }
+        if (scrollPane != null)
+        {
+            JavaFXUtil.scrollTo(scrollPane, target.getNode());
+        }
     }
     
+    /**
+     * Move the focus from the given target to the next (or previous) target in the package's
+     * order, for keyboard traversal in a virtualised diagram (see isVirtualised), where the
+     * next target may not have a node in the diagram.  The target is given a node if needed,
+     * and scrolled into view.
+     *
+     * @return True if the focus was moved, false if the default focus traversal should be used.
+     */
+    public boolean focusNextTarget(Target from, boolean forward)
+    {
+        if (!isVirtualised())
+        {
+            return false;
+        }
+        List<Target> targets = pkg.getVertices();
+        int index = targets.indexOf(from);
+        if (index < 0)
+        {
+            return false;
+        }
+        for (int i = index + (forward ? 1 : -1); i >= 0 && i < targets.size(); i += forward ? 1 : -1)
+        {
+            Target next = targets.get(i);
+            // Hidden targets can't be focused:
+            if (next.getNode().isVisible())
+            {
+                scrollToTarget(next);
+                next.requestFocus();
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void graphClosed()
     {
         
     }
 
-    private static final int ARROW_SIZE = 18; // pixels
-    private static final double ARROW_ANGLE = Math.PI / 6; // radians
-    private static final double DASHES[] = {5.0f, 2.0f};
-
     /**
      * Schedules a repaint.  The repaint is done with a runLater,
      * but using this method avoids a double repaint in common cases,
@@ -529,179 +684,89 @@ public final class PackageEditor extends StackPane
     }
 
     /**
-     * A class caching the vital details needed to draw an extends dependency line,
-     * which could be either real and finished, or in-progress of being created.
+     * Computes the line for the extends arrow being created, from the selected subclass
+     * to either the class the mouse is hovering over, or to the mouse position.
      */
-    @OnThread(Tag.FXPlatform)
-    private static class ExtendsDepInfo
+    private Dependency.Line getNewExtendsLine()
     {
-        private final Dependency.Line line;
-        private final boolean selected;
-        private final boolean creating;
-        private Dependency.Type type;
-
-        public ExtendsDepInfo(Dependency d)
+        DependentTarget from = extendsSubClass;
+        // Compute centre points of source and dest target
+        Point2D pFrom = new Point2D(from.getX() + from.getWidth() / 2, from.getY() + from.getHeight() / 2);
+        Point2D pTo;
+        if (extendsSuperClassHover != null)
         {
-            this.line = d.computeLine();
-            this.selected = d.isSelected();
-            this.creating = false;
-            this.type=d.getType();
+            DependentTarget to = extendsSuperClassHover;
+            pTo = new Point2D(to.getX() + to.getWidth() / 2, to.getY() + to.getHeight() / 2);
         }
-
-        // When we have a firm from, but the to point is not currently
-        // over any target
-        public ExtendsDepInfo(DependentTarget from, double toX, double toY)
+        else
         {
-            // Compute centre points of source and dest target
-            Point2D pFrom = new Point2D(from.getX() + from.getWidth() / 2, from.getY() + from.getHeight() / 2);
-            Point2D pTo = new Point2D(toX, toY);
-
-            // Get the angle of the line from pFrom to pTo.
-            double angle = Math.atan2(-(pFrom.getY() - pTo.getY()), pFrom.getX() - pTo.getX());
-
-            // Compute intersection points with target border
-            pFrom = from.getAttachment(angle + Math.PI);
-
-            line = new Dependency.Line(pFrom, pTo, angle);
-            selected = false;
-            creating = true;
+            pTo = arrowLayer.sceneToLocal(newExtendsDestX, newExtendsDestY);
         }
 
-        // When we have a firm from, and the mouse is hovering over an
-        // actual target for a to.
-        public ExtendsDepInfo(DependentTarget from, DependentTarget to)
-        {
-            // Compute centre points of source and dest target
-            Point2D pFrom = new Point2D(from.getX() + from.getWidth() / 2, from.getY() + from.getHeight() / 2);
-            Point2D pTo = new Point2D(to.getX() + to.getWidth() / 2, to.getY() + to.getHeight() / 2);
-
-            // Get the angle of the line from pFrom to pTo.
-            double angle = Math.atan2(-(pFrom.getY() - pTo.getY()), pFrom.getX() - pTo.getX());
+        // Get the angle of the line from pFrom to pTo.
+        double angle = Math.atan2(-(pFrom.getY() - pTo.getY()), pFrom.getX() - pTo.getX());
 
-            // Compute intersection points with target border
-            pFrom = from.getAttachment(angle + Math.PI);
-            pTo = to.getAttachment(angle);
-
-            line = new Dependency.Line(pFrom, pTo, angle);
-            selected = false;
-            creating = true;
+        // Compute intersection points with target border
+        pFrom = from.getAttachment(angle + Math.PI);
+        if (extendsSuperClassHover != null)
+        {
+            pTo = extendsSuperClassHover.getAttachment(angle);
         }
+
+        return new Dependency.Line(pFrom, pTo, angle);
     }
 
     /**
      * Does the actual repaint of the arrowLayer (do not call directly;
-     * see repaint method).
+     * see repaint method).  Only the arrows which have changed since the last
+     * repaint are recomputed and redrawn (see ArrowCache).
      */
     private void actualRepaint()
     {
         aboutToRepaint = false;
-        List<Dependency> extendsDeps = isShowExtends() ? new ArrayList<>(pkg.getExtendsArrows()) : Collections.emptyList();;
-        List<UsesDependency> usesDeps = isShowUses() ? new ArrayList<>(pkg.getUsesArrows()) : Collections.emptyList();
-
-        List<ExtendsDepInfo> extendsLines = new ArrayList<>(Utility.mapList(extendsDeps, ExtendsDepInfo::new));
-        if (extendsSubClass != null)
+        if (isVirtualised() || frontClassLayer.hasExtent())
         {
-            if (extendsSuperClassHover != null)
-            {
-                extendsLines.add(new ExtendsDepInfo(extendsSubClass, extendsSuperClassHover));
-            }
-            else
-            {
-                Point2D p = arrowLayer.sceneToLocal(newExtendsDestX, newExtendsDestY);
-                extendsLines.add(new ExtendsDepInfo(extendsSubClass, p.getX(), p.getY()));
-            }
+            // Targets may have moved, or the diagram may have scrolled:
+            updateTargetNodes();
         }
-        
-        
-        GraphicsContext g = arrowLayer.getGraphicsContext2D();
-        g.clearRect(0, 0, arrowLayer.getWidth(), arrowLayer.getHeight());
+        List<ArrowCache.Arrow> arrows = new ArrayList<>();
 
-        for (ExtendsDepInfo d : extendsLines)
+        if (isShowExtends())
         {
-            g.setStroke(d.creating ? Color.BLUE : Color.BLACK);
-            g.setLineWidth(d.selected ? 3.0 : 1.0);
-            Dependency.Line line = d.line;
-            double fromY = line.from.getY();
-            double fromX = line.from.getX();
-            double toY = line.to.getY();
-            double toX = line.to.getX();
-
-
-            double angle = Math.atan2(-(fromY - toY), fromX - toX);
-
-            double arrowJoinX = toX + ((ARROW_SIZE - 2) * Math.cos(angle));
-            double arrowJoinY = toY - ((ARROW_SIZE - 2) * Math.sin(angle));
-
-            // draw the arrow head
-            double[] xPoints = {toX, toX + ((ARROW_SIZE) * Math.cos(angle + ARROW_ANGLE)),
-                    toX + (ARROW_SIZE * Math.cos(angle - ARROW_ANGLE))};
-            double[] yPoints = {toY, toY - ((ARROW_SIZE) * Math.sin(angle + ARROW_ANGLE)),
-                    toY - (ARROW_SIZE * Math.sin(angle - ARROW_ANGLE))};
-            g.setLineDashes();
-            g.strokePolygon(xPoints, yPoints, 3);
-            if (d.type==Dependency.Type.IMPLEMENTS)
+            for (Dependency d : pkg.getExtendsArrows())
             {
-                g.setLineDashes(DASHES);
+                DependentTarget from = d.getFrom();
+                DependentTarget to = d.getTo();
+                boolean implementsArrow = d.getType() == Dependency.Type.IMPLEMENTS;
+                double[] state = {from.getX(), from.getY(), from.getWidth(), from.getHeight(),
+                        to.getX(), to.getY(), to.getWidth(), to.getHeight(),
+                        d.isSelected() ? 1 : 0, implementsArrow ? 1 : 0};
+                arrows.add(arrowCache.getArrow(d, state,
+                        () -> ArrowCache.makeExtendsArrow(d.computeLine(), implementsArrow, d.isSelected(), false)));
             }
-            else
-            {
-                g.setLineDashes();
-            }
-            g.strokeLine(fromX, fromY, arrowJoinX, arrowJoinY);
         }
-
-        for (UsesDependency d : usesDeps)
+        if (extendsSubClass != null)
         {
-            // Special case - don't draw a dependency line between a Foo class and the FooTest class:
-            if (d.to instanceof DependentTarget && ((DependentTarget)d.to).getAssociation() == d.from)
-                continue;
-            
-            g.setLineWidth(1.0);
-            g.setLineDashes(DASHES);
-            // These should all be rounded to the nearest integer+0.5 value:
-            double src_x = d.getSourceX();
-            double src_y = d.getSourceY();
-            double dst_x = d.getDestX();
-            double dst_y = d.getDestY();
-
-            g.setStroke(Color.BLACK);
-            // Draw the end arrow
-            int delta_x = d.isEndLeft() ? -10 : 10;
-
-            g.strokeLine(dst_x, dst_y, dst_x + delta_x, dst_y + 4);
-            g.strokeLine(dst_x, dst_y, dst_x + delta_x, dst_y - 4);
-            g.setLineDashes(DASHES);
-
-            // Draw the start
-            double corner_y = src_y + (d.isStartTop() ? -15 : 15);
-            g.strokeLine(src_x, corner_y, src_x, src_y);
-            src_y = corner_y;
-
-            // Draw the last line segment
-            double corner_x = dst_x + (d.isEndLeft() ? -15 : 15);
-            g.strokeLine(corner_x, dst_y, dst_x, dst_y);
-            dst_x = corner_x;
-
-            // if arrow vertical corner, draw first segment up to corner
-            if ((src_y != dst_y) && (d.isStartTop() == (src_y < dst_y))) {
-                corner_x = Utility.roundHalf(((src_x + dst_x) / 2) + (d.isEndLeft() ? 15 : -15));
-                corner_x = (d.isEndLeft() ? Math.min(dst_x, corner_x) : Math.max(dst_x, corner_x));
-                g.strokeLine(src_x, src_y, corner_x, src_y);
-                src_x = corner_x;
-            }
+            arrows.add(ArrowCache.makeExtendsArrow(getNewExtendsLine(), false, false, true));
+        }
 
-            // if arrow horiz. corner, draw first segment up to corner
-            if ((src_x != dst_x) && (d.isEndLeft() == (src_x > dst_x))) {
-                corner_y = Utility.roundHalf(((src_y + dst_y) / 2) + (d.isStartTop() ? 15 : -15));
-                corner_y = (d.isStartTop() ? Math.min(src_y, corner_y) : Math.max(src_y, corner_y));
-                g.strokeLine(dst_x, corner_y, dst_x, dst_y);
-                dst_y = corner_y;
+        if (isShowUses())
+        {
+            for (UsesDependency d : pkg.getUsesArrows())
+            {
+                // Special case - don't draw a dependency line between a Foo class and the FooTest class:
+                if (d.to instanceof DependentTarget && ((DependentTarget)d.to).getAssociation() == d.from)
+                    continue;
+
+                double[] state = {d.getSourceX(), d.getSourceY(), d.getDestX(), d.getDestY(),
+                        d.isStartTop() ? 1 : 0, d.isEndLeft() ? 1 : 0};
+                arrows.add(arrowCache.getArrow(d, state,
+                        () -> ArrowCache.makeUsesArrow(d.getSourceX(), d.getSourceY(), d.getDestX(), d.getDestY(),
+                                d.isStartTop(), d.isEndLeft())));
             }
-
-            // draw the middle bit
-            g.strokeLine(src_x, src_y, src_x, dst_y);
-            g.strokeLine(src_x, dst_y, dst_x, dst_y);
         }
+
+        arrowCache.paint(arrowLayer.getGraphicsContext2D(), arrows, arrowLayer.getWidth(), arrowLayer.getHeight());
     }
 
 
@@ -793,33 +858,18 @@ public final class PackageEditor extends StackPane
      */
     public synchronized Dependency getDependency(DependentTarget origin, DependentTarget target, Dependency.Type type)
     {
-        List<? extends Dependency> dependencies;
-
         switch (type) {
             case USES :
-                dependencies = pkg.getUsesArrows();
-                break;
+                return pkg.getDependency(origin, target, true);
             case IMPLEMENTS :
             case EXTENDS :
-                dependencies = pkg.getExtendsArrows();
-                break;
+                return pkg.getDependency(origin, target, false);
             default :
                 // If the type of the dependency is UNKNOWN, the requested
                 // dependency does not exist anymore. In this case the method
                 // returns null.
                 return null;
         }
-
-        for (Dependency dependency : dependencies) {
-            DependentTarget from = dependency.getFrom();
-            DependentTarget to = dependency.getTo();
-
-            if (from.equals(origin) && to.equals(target)) {
-                return dependency;
-            }
-        }
-
-        return null;
     }
 
     public void setShowUses(boolean state)
@@ -1090,29 +1140,51 @@ public final class PackageEditor extends StackPane
     private static class AnchorPaneExtraSpacing extends AnchorPane
     {
         public static final double EXTRA_SPACE = 20.0;
+        // The size needed for targets which are not in the pane (see isVirtualised):
+        private double extentWidth = 0;
+        private double extentHeight = 0;
+
+        /**
+         * Set the size needed for targets whose nodes are not in the pane (the pane will
+         * be at least this size, plus the extra space).
+         */
+        public void setExtent(double width, double height)
+        {
+            if (width != extentWidth || height != extentHeight)
+            {
+                extentWidth = width;
+                extentHeight = height;
+                requestLayout();
+            }
+        }
+
+        public boolean hasExtent()
+        {
+            return extentWidth != 0 || extentHeight != 0;
+        }
 
         @Override
         protected double computePrefWidth(double height)
         {
-            return super.computePrefWidth(height) + EXTRA_SPACE;
+            return Math.max(super.computePrefWidth(height), extentWidth) + EXTRA_SPACE;
         }
 
         @Override
         protected double computePrefHeight(double width)
         {
-            return super.computePrefHeight(width) + EXTRA_SPACE;
+            return Math.max(super.computePrefHeight(width), extentHeight) + EXTRA_SPACE;
         }
 
         @Override
         protected double computeMinHeight(double width)
         {
-            return super.computeMinHeight(width) + EXTRA_SPACE;
+            return Math.max(super.computeMinHeight(width), extentHeight) + EXTRA_SPACE;
         }
 
         @Override
         protected double computeMinWidth(double height)
         {
-            return super.computeMinWidth(height) + EXTRA_SPACE;
+            return Math.max(super.computeMinWidth(height), extentWidth) + EXTRA_SPACE;
         }
     }
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -942,6 +942,7 @@ public class PkgMgrFrame
             this.editor = new PackageEditor(this, aPkg, showUsesProperty, showInheritsProperty, topOverlay);
 
             pkgEditorScrollPane.setContent(editor);
+            editor.setScrollPane(pkgEditorScrollPane);
             editor.setOnDragOver(event -> {
                 Dragboard db = event.getDragboard();
                 if (db.hasFiles())
@@ -1138,6 +1139,7 @@ public class PkgMgrFrame
             // Take a copy because we're about to null it:
             PackageEditor oldEd = editor;
             oldEd.removeEventFilter(javafx.scene.input.MouseEvent.MOUSE_PRESSED, editorMousePressed);
+            oldEd.setScrollPane(null);
             pkgEditorScrollPane.setContent(null);
 
             // Disassociate from the project team actions, so that we don't inadvertently disable the
@@ -1488,7 +1490,7 @@ public class PkgMgrFrame
                 editor.findSpaceForVertex(target);
             else
                 target.setPos((int)x, (int)y);
-            JavaFXUtil.scrollTo(pkgEditorScrollPane, target.getNode());
+            editor.scrollToTarget(target);
         }
 
         if (target.getRole() instanceof UnitTestClassRole) {
@@ -1525,7 +1527,7 @@ public class PkgMgrFrame
             if (editor != null)
             {
                 editor.findSpaceForVertex(target);
-                JavaFXUtil.scrollTo(pkgEditorScrollPane, target.getNode());
+                editor.scrollToTarget(target);
             }
             target.analyseSource();
 
@@ -3442,8 +3444,11 @@ public class PkgMgrFrame
         // It seems to print corrupted (though I don't know why),
         // so we thread hop to take a screenshot and print that;
         JavaFXUtil.runPlatformLater(() -> {
+            // All the targets must be in the snapshot, even in a virtualised diagram:
+            editor.setShowAllTargets(true);
             WritableImage snapshotImage = new WritableImage((int)editor.getWidth(), (int)editor.getHeight());
             this.editor.snapshot(null, snapshotImage);
+            editor.setShowAllTargets(false);
 
             // We want to print landscape so we need to rotate the snapshow.
             // No amount of rotate transforms during snapshot or on ImageView seem to produce
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -112,6 +112,9 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
     public static final String projectLibDirName = "+libs";
     /** Property specifying location of JDK source */
     private static final String JDK_SOURCE_PATH_PROPERTY = "bluej.jdk.source";
+    private static final String JDK_SOURCE_PRELOAD_PROPERTY = "bluej.jdk.source.preload";
+    /** Property specifying whether to read the project's package files in advance */
+    static final String PREFETCH_PROPERTY = "bluej.project.prefetch";
     private static final String PROJECT_CHARSET_PROP = "project.charset";
     public static final String RUN_ON_THREAD_PROP = "project.invoke.thread";
     /**
@@ -128,12 +131,15 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
     /** reference to the unnamed package */
     @OnThread(Tag.Any) private final Package unnamedPackage;
     /** Resolve javadoc for this project */
-    private final JavadocResolver javadocResolver;
+    private final ProjectJavadocResolver javadocResolver;
     /** collection of open packages in this project
       (indexed by the qualifiedName of the package).
        The unnamed package ie root package of the package tree
        can be obtained by retrieving "" from this collection */
     private Map<String, Package> packages;
+    /** reads the packages' files in advance, while they are opened */
+    @OnThread(Tag.Any)
+    private final ProjectPrefetcher prefetcher = new ProjectPrefetcher();
     /** the debugger for this project */
     @OnThread(Tag.Any)
     private final Debugger debugger;
@@ -304,6 +310,10 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         {
             sourcePath.add(new DocPathEntry(javafxSourceZip, ""));
         }
+        if (Config.getPropBoolean(JDK_SOURCE_PRELOAD_PROPERTY, true))
+        {
+            javadocResolver.preloadSourceArchives();
+        }
         
 
         this.projectDir = projectDir;
@@ -312,6 +322,10 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         packages = new TreeMap<String, Package>();
         docuGenerator = new DocuGenerator(this);
 
+        if (Config.getPropBoolean(PREFETCH_PROPERTY, true))
+        {
+            prefetcher.start(projectDir);
+        }
         unnamedPackage = new Package(this);
         Properties props = unnamedPackage.getLastSavedProperties();
         loadProjectProperties(props);
@@ -328,6 +342,8 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         debugger.setUserLibraries(libraryUrls.toArray(new URL[libraryUrls.size()]));
         debugger.newClassLoader(getClassLoader());
         debugger.addDebuggerListener(this);
+        // Fingerprint the project for the parse caches while its packages are loading:
+        ClassInfoCache.refreshFingerprint(this);
         // Note: this line must come after loadProjectProperties (currently above):
         debugger.setRunOnThread(getRunOnThread() == null ? RunOnThread.DEFAULT : getRunOnThread());
         debugger.launch();
@@ -626,7 +642,24 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         project.getDebugger().removeDebuggerListener(project);
         project.getDebugger().close(false);
 
+        if (project.teamSettingsController != null) {
+            project.teamSettingsController.getTeamworkProvider().projectClosed(project.getProjectDir());
+        }
+
         projects.remove(project.getProjectDir());
+        project.prefetcher.clear();
+        ClassInfoCache.forgetFingerprint(project);
+        project.javadocResolver.close();
+    }
+
+    /**
+     * Get the data for the package in the given directory which was read in advance,
+     * if any (see {@link ProjectPrefetcher#take(File)}).
+     */
+    @OnThread(Tag.Any)
+    ProjectPrefetcher.PackageData takePrefetchedPackage(File packageDir)
+    {
+        return prefetcher.take(packageDir);
     }
 
     /**
@@ -1933,6 +1966,7 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         if (skipUpdate) {
             return;
         }
+        Platform.runLater(Inspector::debugVMEventOccurred);
         if (event.getID() == DebuggerEvent.DEBUGGER_STATECHANGED)
         {
             Platform.runLater(() -> {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2010,2011,2014,2015,2016,2017,2019  Michael Kolling and John Rosenberg
+ Copyright (C) 2010,2011,2014,2015,2016,2017,2019,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -36,24 +36,31 @@ import bluej.utility.Utility;
 import bluej.views.CallableView;
 import bluej.views.Comment;
 import bluej.views.View;
+import threadchecker.OnThread;
+import threadchecker.Tag;
 
 import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
  * Resolves javadoc from classes within a project.
  * 
+ * <p>Comments found by parsing source are cached (see {@link CommentCache}), and
+ * archives on the source path are kept open (see {@link SourceArchiveCache}), since
+ * the same classes are looked up repeatedly by code completion.
+ * 
  * @author Davin McCall
  */
 public class ProjectJavadocResolver implements JavadocResolver
 {
     private Project project;
     private CommentCache commentCache = new CommentCache();
+    private SourceArchiveCache archiveCache = new SourceArchiveCache();
     
     public ProjectJavadocResolver(Project project)
     {
@@ -114,18 +121,7 @@ public class ProjectJavadocResolver implements JavadocResolver
             return;
         }
         
-        Properties comments = commentCache.get(declName);
-        if (comments == null) {
-            ClassInfo classInfo = getClassInfoFromSource(declaring.getModuleName(), declName);
-            if (classInfo != null)
-                comments = classInfo.getComments(); 
-            if (comments == null) {
-                // Record a blank so we don't bother looking next time:
-                commentCache.put(declName, new Properties());
-                return;
-            }
-            commentCache.put(declName, comments);
-        }
+        Properties comments = getComments(declaring.getModuleName(), declName);
 
         // Find the comment for the particular method we want
         for (int i = 0; ; i++) {
@@ -191,26 +187,8 @@ public class ProjectJavadocResolver implements JavadocResolver
         if (comments == null) {
             // Note: this is no longer async, but actually as it stands
             // this method isn't being used anyway...
-            //executor.execute(new Runnable() {
-                //@Override
-                //@OnThread(value = Tag.Worker, ignoreParent = true)
-                //public void run()
-                //{
-                    comments = getCommentsFromSource(declName);
-                    if (comments == null) {
-                        //Platform.runLater(() -> {
-                            // Javadoc not available; must notify callback.
-                            callback.gotJavadoc(method);
-                        //});
-                        //return;
-                    }
-                    
-                    //Platform.runLater(() -> {
-                        commentCache.put(declName, comments);
-                        findMethodComment(comments, callback, method, methodSig, true);
-                    //});
-                //}
-            //});
+            comments = getComments(declaring.getModuleName(), declName);
+            findMethodComment(comments, callback, method, methodSig, true);
             return false;
         }
         else {
@@ -259,6 +237,85 @@ public class ProjectJavadocResolver implements JavadocResolver
         }
     }
 
+    /**
+     * Get the comments for a given class, from the cache if possible, otherwise by
+     * parsing its source (see {@link #getClassInfoFromSource}).  If the source can't
+     * be found, the result is empty.  This is not cached, since the source may appear
+     * later (for example, if the source path changes).
+     * 
+     * @param moduleName The module name if known and applicable.  May be null.
+     * @param target The fully-qualified class name.
+     */
+    private Properties getComments(String moduleName, String target)
+    {
+        Properties comments = commentCache.get(target);
+        if (comments == null) {
+            ParsedSource parsed = getClassInfoFromSource(moduleName, target);
+            if (parsed == null) {
+                return new Properties();
+            }
+            comments = parsed.classInfo.getComments();
+            commentCache.put(target, comments, parsed.file, parsed.lastModified, parsed.length);
+        }
+        return comments;
+    }
+
+    /**
+     * The result of parsing a class's source: the class info, and the file (source file
+     * or archive) it was read from, with that file's modification time and length as they
+     * were before reading.  The file may be null if it is not known.
+     */
+    private static class ParsedSource
+    {
+        private final ClassInfo classInfo;
+        private final File file;
+        private final long lastModified;
+        private final long length;
+
+        private ParsedSource(ClassInfo classInfo, File file, long lastModified, long length)
+        {
+            this.classInfo = classInfo;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Parse the source read by the given reader, returning the result (or null if it
+     * could not be parsed).  The modification time and length of the given file must
+     * have been taken before the reader was opened.
+     */
+    private static ParsedSource parse(Reader r, EntityResolver resolver, File file, long lastModified, long length)
+    {
+        ClassInfo info = JavadocParser.parse(r, resolver, null);
+        return info == null ? null : new ParsedSource(info, file, lastModified, length);
+    }
+
+    /**
+     * Get the local file which a resource URL refers to: either the file itself, or
+     * the archive containing it.  Returns null if the resource is not in a local file.
+     */
+    private static File getResourceFile(URL url)
+    {
+        try {
+            URL fileUrl = url;
+            if (url.getProtocol().equals("jar")) {
+                String path = url.getPath();
+                int sep = path.indexOf("!/");
+                if (sep == -1) {
+                    return null;
+                }
+                fileUrl = new URL(path.substring(0, sep));
+            }
+            if (fileUrl.getProtocol().equals("file")) {
+                return new File(fileUrl.toURI());
+            }
+        }
+        catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {}
+        return null;
+    }
+
     /**
      * Find the javadoc for a given class (target) by searching the project source path.
      * In particular, this normally includes the JDK source. When source for the required
@@ -266,9 +323,9 @@ public class ProjectJavadocResolver implements JavadocResolver
      * 
      * @param moduleName The module name if known and applicable.  May be null.
      * @param target The fully-qualified class name.
-     * @return The discovered class info, or null if not found.
+     * @return The discovered class info and the file it was read from, or null if not found.
      */
-    private ClassInfo getClassInfoFromSource(String moduleName, String target)
+    private ParsedSource getClassInfoFromSource(String moduleName, String target)
     {
         List<DocPathEntry> sourcePath = project.getSourcePath();
         String pkg = JavaNames.getPrefix(target);
@@ -284,38 +341,14 @@ public class ProjectJavadocResolver implements JavadocResolver
                     fullEntryName += "/";
                 }
                 fullEntryName += entName;
-                Reader r = null;
-                try (ZipFile zipFile = new ZipFile(jarFile)) {
-                    List<String> possibleEntries = new ArrayList<>();
-                    possibleEntries.add(fullEntryName);
-                    if (moduleName != null)
-                    {
-                        possibleEntries.add(moduleName + "/" + fullEntryName);
-                    }
-                    for (String entryName : possibleEntries)
-                    {
-                        ZipEntry zipEnt = zipFile.getEntry(entryName);
-                        if (zipEnt != null)
-                        {
-                            InputStream zeis = zipFile.getInputStream(zipEnt);
-                            r = new InputStreamReader(zeis, project.getProjectCharset());
-                            ClassInfo info = JavadocParser.parse(r, resolver, null);
-                            if (info == null)
-                            {
-                                return null;
-                            }
-                            return info;
-                        }
-                    }
-                }
-                catch (IOException ioe) {}
-                finally {
-                    if (r != null) {
-                        try {
-                            r.close();
-                        }
-                        catch (IOException e) {}
-                    }
+                long lastModified = jarFile.lastModified();
+                long length = jarFile.length();
+                // If the module isn't known, the archive's module index will find the entry: 
+                byte[] source = moduleName == null ? archiveCache.readEntry(jarFile, fullEntryName)
+                        : archiveCache.readEntry(jarFile, fullEntryName, moduleName + "/" + fullEntryName);
+                if (source != null) {
+                    Reader r = new InputStreamReader(new ByteArrayInputStream(source), project.getProjectCharset());
+                    return parse(r, resolver, jarFile, lastModified, length);
                 }
             }
             else if (jarFile.isDirectory()) {
@@ -326,26 +359,13 @@ public class ProjectJavadocResolver implements JavadocResolver
                 }
                 
                 File srcFile = new File(base, entNameFs);
-                FileInputStream fis = null;
-                try {
-                    if (srcFile.canRead()) {
-                        fis = new FileInputStream(srcFile);
-                        Reader r = new InputStreamReader(fis, project.getProjectCharset());
-                        ClassInfo info = JavadocParser.parse(r, resolver, null);
-                        r.close();
-                        if (info == null) {
-                            return null;
-                        }
-                        return info;
-                    }
-                }
-                catch (IOException ioe) {
-                    if (fis != null) {
-                        try {
-                            fis.close();
-                        }
-                        catch (IOException e) {}
+                if (srcFile.canRead()) {
+                    long lastModified = srcFile.lastModified();
+                    long length = srcFile.length();
+                    try (Reader r = new InputStreamReader(new FileInputStream(srcFile), project.getProjectCharset())) {
+                        return parse(r, resolver, srcFile, lastModified, length);
                     }
+                    catch (IOException ioe) {}
                 }
             }
         }
@@ -355,11 +375,14 @@ public class ProjectJavadocResolver implements JavadocResolver
         String targetName = target.replace('.', '/') + "." + SourceType.Java.toString().toLowerCase();
         URL srcUrl = project.getClassLoader().findResource(targetName);
         if (srcUrl != null) {
-            try {
-                Reader r = new InputStreamReader(srcUrl.openStream(), project.getProjectCharset());
-                ClassInfo info = JavadocParser.parse(r, resolver, null);
-                if (info != null) {
-                    return info;
+            // This includes the source of the project's own classes, which the user may edit:
+            File srcFile = getResourceFile(srcUrl);
+            long lastModified = srcFile == null ? 0L : srcFile.lastModified();
+            long length = srcFile == null ? 0L : srcFile.length();
+            try (Reader r = new InputStreamReader(srcUrl.openStream(), project.getProjectCharset())) {
+                ParsedSource parsed = parse(r, resolver, srcFile, lastModified, length);
+                if (parsed != null) {
+                    return parsed;
                 }
             }
             catch (IOException ioe) {
@@ -407,114 +430,47 @@ public class ProjectJavadocResolver implements JavadocResolver
         return sig;
     }
     
-    /**
-     * Find the javadoc for a given class (target) by searching the project source path.
-     * In particular, this normally includes the JDK source. When source for the required
-     * class is found, it is parsed to extract comments.
-     */
-    private Properties getCommentsFromSource(String target)
+    @Override
+    public String getJavadoc(String moduleName, String className)
     {
-        List<DocPathEntry> sourcePath = project.getSourcePath();
-        String pkg = JavaNames.getPrefix(target);
-        String entName = target.replace('.', '/') + ".java";
-        String entNameFs = target.replace('.', File.separatorChar) + ".java";
-        EntityResolver resolver = new PackageResolver(project.getEntityResolver(), pkg);
+        Properties comments = getComments(moduleName, className);
         
-        for (DocPathEntry pathEntry : sourcePath) {
-            File jarFile = pathEntry.getFile();
-            if (jarFile.isFile()) {
-                String fullEntryName = pathEntry.getPathPrefix();
-                if (fullEntryName.length() != 0 && !fullEntryName.endsWith("/")) {
-                    fullEntryName += "/";
-                }
-                fullEntryName += entName;
-                Reader r = null;
-                try (ZipFile zipFile = new ZipFile(jarFile)) {
-                    ZipEntry zipEnt = zipFile.getEntry(fullEntryName);
-                    if (zipEnt != null) {
-                        InputStream zeis = zipFile.getInputStream(zipEnt);
-                        r = new InputStreamReader(zeis, project.getProjectCharset());
-                        ClassInfo info = JavadocParser.parse(r, resolver, null);
-                        if (info == null) {
-                            return null;
-                        }
-                        return info.getComments();
-                    }
-                }
-                catch (IOException ioe) {}
-                finally {
-                    if (r != null) {
-                        try {
-                            r.close();
-                        }
-                        catch (IOException e) {}
-                    }
-                }
+        // The comment for the class itself is the one whose target is the class name,
+        // rather than a method signature:
+        for (int i = 0; ; i++) {
+            String comtarget = comments.getProperty("comment" + i + ".target");
+            if (comtarget == null) {
+                return null;
             }
-            else if (jarFile.isDirectory()) {
-                File base = jarFile;
-                String prefix = pathEntry.getPathPrefix();
-                if (prefix != null && !prefix.isEmpty()) {
-                    base = new File(base, prefix);
-                }
-                
-                File srcFile = new File(base, entNameFs);
-                FileInputStream fis = null;
-                try {
-                    if (srcFile.canRead()) {
-                        fis = new FileInputStream(srcFile);
-                        Reader r = new InputStreamReader(fis, project.getProjectCharset());
-                        ClassInfo info = JavadocParser.parse(r, resolver, null);
-                        r.close();
-                        if (info == null) {
-                            return null;
-                        }
-                        return info.getComments();
-                    }
-                }
-                catch (IOException ioe) {
-                    if (fis != null) {
-                        try {
-                            fis.close();
-                        }
-                        catch (IOException e) {}
-                    }
-                }
+            String text = comments.getProperty("comment" + i + ".text");
+            if (comtarget.indexOf('(') == -1 && text != null) {
+                return text;
             }
         }
-        
-        // Try and load the source from the class path. This allows source to be bundled in
-        // with the classes.
-        String targetName = target.replace('.', '/') + ".java";
-        URL srcUrl = project.getClassLoader().findResource(targetName);
-        if (srcUrl != null) {
-            try {
-                Reader r = new InputStreamReader(srcUrl.openStream(), project.getProjectCharset());
-                ClassInfo info = JavadocParser.parse(r, resolver, null);
-                if (info != null) {
-                    return info.getComments();
-                }
-            }
-            catch (IOException ioe) {
-                Debug.message("I/O exception while trying to retrieve javadoc for " + target);
+    }
+
+    /**
+     * Open the archives on the source path in the background, so that they are ready
+     * when javadoc is first needed.
+     */
+    public void preloadSourceArchives()
+    {
+        for (DocPathEntry pathEntry : project.getSourcePath()) {
+            File archiveFile = pathEntry.getFile();
+            if (archiveFile.isFile()) {
+                Utility.runBackground(() -> archiveCache.preload(archiveFile));
             }
         }
-        
-        return null;
     }
-    
-    @Override
-    public String getJavadoc(String moduleName, String className)
+
+    /**
+     * Close any open archives, and log cache statistics.  Called when the project is closed.
+     */
+    @OnThread(Tag.Any)
+    public void close()
     {
-        ClassInfo ci = getClassInfoFromSource(moduleName, className);
-        
-        if (ci == null)
-            return null;
-        
-        return ci.getCommentsAsList().stream()
-                    .filter(sc -> ci.getName().equals(sc.target))
-                    .map(sc -> sc.comment)
-                    .filter(c -> c != null)
-                    .findFirst().orElse(null);
-   }
+        commentCache.logStatistics();
+        archiveCache.logStatistics();
+        archiveCache.close();
+    }
 }
@@ -0,0 +1,307 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import bluej.utility.Debug;
+import bluej.utility.Utility;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Reads the files of all the packages in a project in advance, in parallel on
+ * background threads, so that when a package is opened (on the FX thread) its files
+ * are already in memory.  For each package, this reads the package file, and the
+ * source files and parse cache (see {@link ClassInfoCache}).
+ *
+ * <p>Packages are found by walking the project directory: each package is read
+ * by a separate task, which first queues tasks for its sub-packages.  The tasks run on
+ * a small pool of threads of their own, so that a large project doesn't hold up other
+ * background work.  A package is opened on the FX thread, which must not wait for the
+ * data: if it has not been read yet, the package is read as normal instead.
+ *
+ * <p>The files of a package may change between being read and the package being opened
+ * (for example, by a version control update), so the data is only used if none of the
+ * files in the package directory have changed since.  Source files are mostly useful
+ * for the packages which are opened along with the project, so they are discarded
+ * (keeping the rest of the data) if they have not been used after a while, rather than
+ * being held until the project is closed.
+ */
+@OnThread(Tag.Any)
+class ProjectPrefetcher
+{
+    // The maximum total size of source files to hold in memory:
+    private static final long MAX_SOURCE_BYTES = 64L * 1024 * 1024;
+    // How long to keep source files which have not been used:
+    private static final long SOURCE_TIMEOUT_SECONDS = 30;
+    // The number of threads reading packages; more than one, so that reads overlap:
+    private static final int READER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    // The threads which read packages, shared between projects.  They finish when idle.
+    private static final ThreadPoolExecutor executor = createExecutor();
+
+    /**
+     * The data read for one package.
+     */
+    static class PackageData
+    {
+        // The package properties, or null if they could not be read:
+        final Properties properties;
+        final IOException error;
+        final ClassInfoCache.Prefetch classInfo;
+        // The state of the package directory before it was read (see getDirectoryState):
+        private final String directoryState;
+
+        private PackageData(Properties properties, IOException error, ClassInfoCache.Prefetch classInfo,
+                String directoryState)
+        {
+            this.properties = properties;
+            this.error = error;
+            this.classInfo = classInfo;
+            this.directoryState = directoryState;
+        }
+    }
+
+    // Data for each package directory, which may be still being read:
+    private final ConcurrentHashMap<File, CompletableFuture<PackageData>> packages = new ConcurrentHashMap<>();
+    private final AtomicLong sourceBytesRemaining = new AtomicLong(MAX_SOURCE_BYTES);
+    // Set once source files are no longer worth keeping (see dropSources):
+    private volatile boolean sourcesDropped = false;
+
+    // Statistics on the packages taken, for the debug log:
+    private final AtomicInteger taken = new AtomicInteger();
+    private final AtomicInteger notReady = new AtomicInteger();
+    private final AtomicInteger outOfDate = new AtomicInteger();
+
+    private static ThreadPoolExecutor createExecutor()
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(READER_THREADS, READER_THREADS,
+                10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "Read project packages");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Start reading all the packages in the project in the given directory.
+     */
+    void start(File projectDir)
+    {
+        submit(projectDir);
+        CompletableFuture.delayedExecutor(SOURCE_TIMEOUT_SECONDS, TimeUnit.SECONDS, executor).execute(this::dropSources);
+    }
+
+    private void submit(File dir)
+    {
+        CompletableFuture<PackageData> result = new CompletableFuture<>();
+        packages.put(dir, result);
+        Utility.BackgroundRunnable task = () -> read(dir, result);
+        executor.execute(task);
+    }
+
+    @OnThread(Tag.Worker)
+    private void read(File dir, CompletableFuture<PackageData> result)
+    {
+        try
+        {
+            // Queue the sub-packages first, so they are read in parallel with this one
+            // (even if this one is not needed):
+            File[] subDirs = dir.listFiles(File::isDirectory);
+            if (subDirs != null)
+            {
+                for (File subDir : subDirs)
+                {
+                    if (Package.isPackage(subDir))
+                    {
+                        submit(subDir);
+                    }
+                }
+            }
+            if (result.isDone())
+            {
+                // Cancelled (by take) before it was started:
+                return;
+            }
+
+            // Before reading anything, so that a change while reading is noticed:
+            String directoryState = getDirectoryState(dir);
+            Properties properties = new Properties();
+            IOException error = null;
+            try
+            {
+                PackageFileFactory.getPackageFile(dir).load(properties);
+            }
+            catch (IOException e)
+            {
+                properties = null;
+                error = e;
+            }
+
+            ClassInfoCache.Prefetch classInfo = ClassInfoCache.prefetch(dir, Math.max(0, sourceBytesRemaining.get()));
+            sourceBytesRemaining.addAndGet(-classInfo.getSourceBytes());
+            if (!result.complete(new PackageData(properties, error, classInfo, directoryState)))
+            {
+                // Cancelled while being read, so the source files won't be used:
+                sourceBytesRemaining.addAndGet(classInfo.getSourceBytes());
+                return;
+            }
+            if (sourcesDropped)
+            {
+                dropSources(dir, result);
+            }
+        }
+        catch (Throwable t)
+        {
+            // Make sure anyone waiting for the result doesn't wait forever:
+            result.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Take the data for the package in the given directory.  This never waits: it returns null
+     * if there is none ready (e.g. if it is still being read, has already been taken, could
+     * not be read, or is out of date); in that case, the package should be read as normal.
+     */
+    PackageData take(File dir)
+    {
+        CompletableFuture<PackageData> result = packages.remove(dir);
+        if (result == null)
+        {
+            return null;
+        }
+        if (!result.isDone())
+        {
+            // Reading it now is no slower than waiting for it, and doesn't block the FX thread:
+            result.cancel(false);
+            notReady.incrementAndGet();
+            return null;
+        }
+        try
+        {
+            PackageData data = result.get();
+            if (!data.directoryState.equals(getDirectoryState(dir)))
+            {
+                outOfDate.incrementAndGet();
+                return null;
+            }
+            taken.incrementAndGet();
+            return data;
+        }
+        catch (ExecutionException e)
+        {
+            return null;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Discard the source files which have been read but not taken, and stop reading any
+     * more.  The rest of the data is kept.
+     */
+    private void dropSources()
+    {
+        sourceBytesRemaining.set(0);
+        // Any package still being read will see this once it has been read:
+        sourcesDropped = true;
+        for (Map.Entry<File, CompletableFuture<PackageData>> e : packages.entrySet())
+        {
+            dropSources(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Discard the source files from the data for a package, if it has been read and has
+     * not been taken.
+     */
+    private void dropSources(File dir, CompletableFuture<PackageData> result)
+    {
+        if (!result.isDone() || result.isCompletedExceptionally())
+        {
+            return;
+        }
+        PackageData data = result.join();
+        if (data.classInfo.getSourceBytes() > 0)
+        {
+            PackageData stripped = new PackageData(data.properties, data.error,
+                    data.classInfo.withoutSources(), data.directoryState);
+            // Unless it has been taken meanwhile:
+            packages.replace(dir, result, CompletableFuture.completedFuture(stripped));
+        }
+    }
+
+    /**
+     * Get a description of the state of the files in a package directory (other than
+     * class files, which don't affect the data read): their names, sizes and modification
+     * times.
+     */
+    private static String getDirectoryState(File dir)
+    {
+        File[] files = dir.listFiles(f -> f.isFile() && !f.getName().endsWith(".class"));
+        if (files == null)
+        {
+            return "";
+        }
+        Arrays.sort(files);
+        StringBuilder state = new StringBuilder();
+        for (File f : files)
+        {
+            state.append(f.getName()).append(' ').append(f.length()).append(' ').append(f.lastModified()).append('\n');
+        }
+        return state.toString();
+    }
+
+    /**
+     * Discard any data which has not been taken, and write statistics on the data which
+     * was taken to the debug log.
+     */
+    void clear()
+    {
+        packages.values().forEach(result -> result.cancel(false));
+        packages.clear();
+        if (taken.get() + notReady.get() + outOfDate.get() > 0)
+        {
+            Debug.log("Project prefetch: " + taken.get() + " packages read in advance, " + notReady.get()
+                    + " not ready in time, " + outOfDate.get() + " out of date");
+        }
+    }
+}
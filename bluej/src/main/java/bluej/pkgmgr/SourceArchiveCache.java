@@ -0,0 +1,241 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A cache of open source archives (zip or jar files), such as the JDK's src.zip, used
+ * to find source files when looking up javadoc.  Opening an archive means reading its
+ * central directory, which for a large archive takes longer than finding and reading an
+ * entry, so archives are kept open and the least recently used is closed when there are
+ * too many.
+ *
+ * <p>When an archive is opened, it is also indexed by module: if it contains modules
+ * (i.e. "module/module-info.java" entries), each source file in a module can also be
+ * found by its name without the module directory.  This allows source to be found for
+ * classes whose module is not known.
+ */
+@OnThread(Tag.Any)
+class SourceArchiveCache
+{
+    private static final int MAX_OPEN_ARCHIVES = 8;
+    private static final String MODULE_INFO = "/module-info.java";
+
+    private static class Archive
+    {
+        private final ZipFile zipFile;
+        private final long lastModified;
+        // Maps entry names without the module directory to the full entry name, or null
+        // if the archive does not contain modules:
+        private final Map<String, String> moduleEntries;
+
+        private Archive(ZipFile zipFile, long lastModified, Map<String, String> moduleEntries)
+        {
+            this.zipFile = zipFile;
+            this.lastModified = lastModified;
+            this.moduleEntries = moduleEntries;
+        }
+
+        private ZipEntry getEntry(String name)
+        {
+            ZipEntry entry = zipFile.getEntry(name);
+            if (entry == null && moduleEntries != null)
+            {
+                String fullName = moduleEntries.get(name);
+                if (fullName != null)
+                {
+                    entry = zipFile.getEntry(fullName);
+                }
+            }
+            return entry;
+        }
+    }
+
+    // Open archives, in order of use (least recent first):
+    private final LinkedHashMap<File, Archive> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private int opens;
+    private int reuses;
+
+    /**
+     * Read the first of the given entries which is present in the given archive.  The
+     * archive is opened if necessary.
+     *
+     * @return  The content of the entry, or null if none of the entries are present or
+     *          the archive could not be read.
+     */
+    synchronized byte[] readEntry(File archiveFile, String... entryNames)
+    {
+        Archive archive = getArchive(archiveFile);
+        if (archive == null)
+        {
+            return null;
+        }
+
+        for (String entryName : entryNames)
+        {
+            ZipEntry entry = archive.getEntry(entryName);
+            if (entry != null)
+            {
+                try (InputStream is = archive.zipFile.getInputStream(entry))
+                {
+                    return is.readAllBytes();
+                }
+                catch (IOException ioe)
+                {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Open (and index) the given archive in advance, if it is not already open.
+     */
+    synchronized void preload(File archiveFile)
+    {
+        getArchive(archiveFile);
+    }
+
+    /**
+     * Get the given archive, opening it if it isn't already open or if it has been
+     * modified since it was opened.  Returns null if it can't be opened.
+     */
+    private Archive getArchive(File archiveFile)
+    {
+        Archive archive = archives.get(archiveFile);
+        if (archive != null)
+        {
+            if (archive.lastModified == archiveFile.lastModified())
+            {
+                reuses += 1;
+                return archive;
+            }
+            archives.remove(archiveFile);
+            close(archive);
+        }
+
+        long lastModified = archiveFile.lastModified();
+        ZipFile zipFile;
+        try
+        {
+            zipFile = new ZipFile(archiveFile);
+        }
+        catch (IOException ioe)
+        {
+            return null;
+        }
+        opens += 1;
+        archive = new Archive(zipFile, lastModified, indexModules(zipFile));
+        archives.put(archiveFile, archive);
+
+        if (archives.size() > MAX_OPEN_ARCHIVES)
+        {
+            Iterator<Archive> i = archives.values().iterator();
+            close(i.next());
+            i.remove();
+        }
+        return archive;
+    }
+
+    /**
+     * Build the index of module entries for an archive (see {@link Archive#moduleEntries}).
+     */
+    private static Map<String, String> indexModules(ZipFile zipFile)
+    {
+        Set<String> modules = new HashSet<>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements())
+        {
+            String name = entries.nextElement().getName();
+            int slash = name.indexOf('/');
+            if (slash != -1 && name.length() == slash + MODULE_INFO.length() && name.endsWith(MODULE_INFO))
+            {
+                modules.add(name.substring(0, slash));
+            }
+        }
+        if (modules.isEmpty())
+        {
+            return null;
+        }
+
+        Map<String, String> moduleEntries = new HashMap<>();
+        entries = zipFile.entries();
+        while (entries.hasMoreElements())
+        {
+            String name = entries.nextElement().getName();
+            int slash = name.indexOf('/');
+            if (slash != -1 && name.endsWith(".java") && modules.contains(name.substring(0, slash)))
+            {
+                // If several modules have the same class, use the first:
+                moduleEntries.putIfAbsent(name.substring(slash + 1), name);
+            }
+        }
+        return moduleEntries;
+    }
+
+    private static void close(Archive archive)
+    {
+        try
+        {
+            archive.zipFile.close();
+        }
+        catch (IOException ioe) {}
+    }
+
+    /**
+     * Close all the open archives.
+     */
+    synchronized void close()
+    {
+        archives.values().forEach(SourceArchiveCache::close);
+        archives.clear();
+    }
+
+    /**
+     * Log the number of times an archive was opened and the number of times an open
+     * archive was reused.
+     */
+    synchronized void logStatistics()
+    {
+        if (opens + reuses > 0)
+        {
+            Debug.log("Source archive cache: " + opens + " opened, " + reuses + " reused");
+        }
+    }
+}
@@ -24,13 +24,13 @@ package bluej.pkgmgr;
 import java.io.File;
 import java.io.FileNotFoundException;
 
-import bluej.parser.InfoParser;
 import bluej.parser.symtab.ClassInfo;
 
 /**
  * A container holding information about a class's source file. The
  * information is collected mainly by the class parser, and used for
- * automatic editing of the source.
+ * automatic editing of the source.  The parse results are cached on disk
+ * between sessions by the package's {@link ClassInfoCache}.
  *
  * @author  Michael Kolling
  * @version $Id: SourceInfo.java 16066 2016-06-21 20:19:57Z nccb $
@@ -55,7 +55,7 @@ public final class SourceInfo
         {
             try
             {
-                info = InfoParser.parseWithPkg(sourceFile, pkg);
+                info = pkg.getClassInfoCache().getInfo(sourceFile, pkg);
             }
             catch (FileNotFoundException fnfe)
             {
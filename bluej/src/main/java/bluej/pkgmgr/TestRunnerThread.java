@@ -21,18 +21,22 @@
  */
 package bluej.pkgmgr;
 
+import bluej.Boot;
 import bluej.Config;
 import bluej.collect.DataCollector;
 import bluej.debugger.DebuggerTestResult;
 import bluej.debugger.jdi.TestResultsWithRunTime;
 import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.role.UnitTestClassRole;
+import bluej.terminal.Terminal;
 import bluej.testmgr.TestDisplayFrame;
 import bluej.utility.Debug;
+import bluej.utility.Utility;
 import javafx.application.Platform;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -95,6 +99,13 @@ public class TestRunnerThread extends Thread
     @OnThread(value = Tag.Worker, ignoreParent = true)
     public void run()
     {
+        int workers = Config.getPropInteger("bluej.testrunner.workers", 0);
+        if (methodName == null && workers > 0)
+        {
+            runForked(workers);
+            return;
+        }
+
         while (testIterator.hasNext()) 
         {
 
@@ -145,6 +156,51 @@ public class TestRunnerThread extends Thread
         });
     }
 
+    /**
+     * Run all tests in all the test classes, in a number of forked VMs (rather than
+     * in the debug VM), in parallel.
+     */
+    @OnThread(Tag.Worker)
+    private void runForked(int workers)
+    {
+        List<ClassTarget> targets = new ArrayList<>();
+        testIterator.forEachRemaining(targets::add);
+
+        // Find out which classes can be run, and the classpath to run them with:
+        CompletableFuture<ForkedTestRunner> runnerFuture = new CompletableFuture<>();
+        CompletableFuture<List<String>> classesFuture = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            List<String> classNames = new ArrayList<>();
+            for (ClassTarget ct : targets)
+            {
+                if (ct.isCompiled() && ct.isUnitTest() && ! ct.isAbstract())
+                {
+                    classNames.add(ct.getQualifiedName());
+                }
+            }
+            List<File> classPath = new ArrayList<>();
+            classPath.addAll(Utility.urlsToFiles(Boot.getInstance().getRuntimeUserClassPath()));
+            classPath.addAll(project.getClassLoader().getClassPathAsFiles());
+            Terminal terminal = project.getTerminal();
+            runnerFuture.complete(new ForkedTestRunner(project.getProjectDir(),
+                    Utility.toClasspathString(classPath), terminal.getWriter(), terminal.getErrorWriter(),
+                    workers));
+            classesFuture.complete(classNames);
+        });
+
+        try
+        {
+            runnerFuture.get().runTests(classesFuture.get(), this::showNextResult,
+                    runTime -> TestDisplayFrame.getTestDisplay().updateTotalTimeMs(runTime));
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            Debug.reportError(e);
+        }
+
+        Platform.runLater(pmf::endTestRun);
+    }
+
     @OnThread(Tag.FXPlatform)
     private void showNextResult(DebuggerTestResult lastResult)
     {
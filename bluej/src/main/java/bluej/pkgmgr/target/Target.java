@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2013,2016,2017,2018,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2013,2016,2017,2018,2020,2021,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -38,6 +38,7 @@ import java.util.Properties;
 import bluej.utility.javafx.ResizableCanvas;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.AccessibleAttribute;
@@ -346,6 +347,13 @@ public abstract class Target
 
                 e.consume();
             }
+            else if (e.getCode() == KeyCode.TAB && !e.isControlDown() && pkg.getEditor() != null
+                    && pkg.getEditor().focusNextTarget(this, !e.isShiftDown()))
+            {
+                // In a virtualised diagram, the next target may not have a node yet, so
+                // the editor moves the focus in the package's order instead:
+                e.consume();
+            }
             else if (e.getCode() == KeyCode.ESCAPE)
             {
                 // We will still have focus, so rather than
@@ -771,6 +779,11 @@ public abstract class Target
     @OnThread(Tag.FXPlatform)
     public Bounds getBoundsInEditor()
     {
+        if (pane.getParent() == null)
+        {
+            // Not currently in a (virtualised) diagram, so has not been laid out:
+            return new BoundingBox(getX(), getY(), getWidth(), getHeight());
+        }
         return pane.getBoundsInParent();
     }
 
@@ -857,6 +870,12 @@ public abstract class Target
     @OnThread(Tag.FXPlatform)
     public void requestFocus()
     {
+        // In a virtualised diagram, we may need to be added to the diagram first:
+        PackageEditor editor = pane.getParent() == null && getPackage() != null ? getPackage().getEditor() : null;
+        if (editor != null)
+        {
+            editor.scrollToTarget(this);
+        }
         pane.requestFocus();
     }
 
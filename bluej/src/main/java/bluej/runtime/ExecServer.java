@@ -28,8 +28,6 @@ import java.awt.event.AWTEventListener;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -54,19 +52,6 @@ import javafx.collections.ListChangeListener.Change;
 import javafx.embed.swing.JFXPanel;
 import javafx.stage.Stage;
 
-import org.junit.jupiter.api.extension.InvocationInterceptor;
-import org.junit.platform.engine.TestExecutionResult;
-import org.junit.platform.engine.TestExecutionResult.Status;
-import org.junit.platform.launcher.Launcher;
-import org.junit.platform.launcher.LauncherDiscoveryRequest;
-import org.junit.platform.launcher.TestIdentifier;
-import org.junit.platform.launcher.TestPlan;
-import org.junit.platform.launcher.TestExecutionListener;
-import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
-import org.junit.platform.launcher.core.LauncherFactory;
-import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
-import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
-
 import bluej.utility.Utility;
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -623,97 +608,6 @@ public class ExecServer
         return null;
     }
 
-    /**
-     * A class to record successes and failures during a JUnit test run.
-     */
-    private static class TestRecorder implements TestExecutionListener
-    {
-        private final List<Object[]> testDetails = new ArrayList<>();
-        private long executionStartTime;
-        private long executionRunTime = -1;
-
-        public void testPlanExecutionStarted(TestPlan testPlan)
-        {
-            executionStartTime = System.currentTimeMillis();
-        }
-
-        public void testPlanExecutionFinished(TestPlan testPlan)
-        {
-            executionRunTime = System.currentTimeMillis() - executionStartTime;
-        }
-
-        public long getExecutionRunTime()
-        {
-            return executionRunTime;
-        }
-
-        public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult)
-        {
-            // Retrieved tests (not container)
-            if (testIdentifier.isTest())
-            {
-                Object[] r = new Object[9];
-                // The name of the method: we remove anything added by JUnit after the arguments brackets
-                // as for Junit 5 the framework may add the index of the test iteration
-                // if any argument value is available, we put it into the brackets
-                // Note: when JUnit 4 methods are reported, they do not contain brackets in their display name.
-                r[0] = (testIdentifier.getLegacyReportingName().contains("(")) ?
-                        testIdentifier.getLegacyReportingName()
-                                .substring(0, testIdentifier.getLegacyReportingName().lastIndexOf('(') + 1)
-                                + String.join(", ", UnitTestExtension.getArgsAsStrList())
-                                + ")" :
-                        (testIdentifier.getLegacyReportingName() + "()");
-                // The display name of the test for that method, if none we set it to an empty String
-                r[1] = (testIdentifier.getDisplayName() != null) ? testIdentifier.getDisplayName() : "";
-
-                // Check if the test was successful or not
-                if (testExecutionResult.getStatus() == Status.SUCCESSFUL)
-                {
-                    r[2] = r[3] = r[4] = r[5] = r[6] = r[7] = "";
-                    r[8] = "success";
-                }
-                else
-                {
-                    if (testExecutionResult.getThrowable().isPresent() && java.lang.AssertionError.class.isAssignableFrom(testExecutionResult.getThrowable().get().getClass()))
-                    {
-                        r[8] = "failure";
-                    }
-                    else
-                    {
-                        r[8] = "error";
-                    }
-                    if (testExecutionResult.getThrowable().isPresent())
-                    {
-                        Throwable throwableRes = testExecutionResult.getThrowable().get();
-
-                        r[2] = throwableRes.getMessage() != null ? throwableRes.getMessage() : "no exception message";
-                        StringWriter sw = new StringWriter();
-                        PrintWriter pw = new PrintWriter(sw);
-                        throwableRes.printStackTrace(pw);
-                        r[3] = throwableRes.getStackTrace().length > 0 ? sw.toString() : "no trace";
-                        // search the stack trace backward until finding a class not
-                        // part of the org.junit framework
-                        StackTraceElement[] ste = throwableRes.getStackTrace();
-                        int k = 0;
-                        while (k < ste.length && ste[k].getClassName().startsWith("org.junit."))
-                        {
-                            k++;
-                        }
-                        r[4] = ste[k].getClassName();
-                        r[5] = ste[k].getFileName();
-                        r[6] = ste[k].getMethodName();
-                        r[7] = String.valueOf(ste[k].getLineNumber());
-                    }
-                    else
-                    {
-                        r[2] = r[3] = r[4] = r[5] = r[6] = r[7] = "";
-                    }
-                }
-                testDetails.add(r);
-            }
-        }
-    }
-
     /**
      * Execute a JUnit test on a single test method or all test methods in a test class
      * and return the result.<p>
@@ -736,20 +630,10 @@ public class ExecServer
      */
     private static Object[] runTestMethod(String className, String methodName)
     {
-        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
-                .selectors((methodName != null) ? selectMethod(className + "#" +  methodName) : selectClass(className))
-                .configurationParameter("junit.jupiter.extensions.autodetection.enabled", "true") //required to use our extension
-                .build();
-
-        // Load the implementation of InvocationInterceptor with Java ServiceLoader.
-        ServiceLoader.load(InvocationInterceptor.class);
-
-        Launcher launcher = LauncherFactory.create();
-        TestRecorder recorder = new TestRecorder();
-        launcher.registerTestExecutionListeners(recorder);
-        launcher.execute(request);
+        List<Object[]> testDetails = new ArrayList<>();
+        TestRecorder recorder = TestRecorder.runTests(className, methodName, testDetails::add);
         return Stream.concat(Stream.of(String.valueOf(recorder.getExecutionRunTime())),
-                recorder.testDetails.stream().flatMap(t -> Arrays.stream(t))).toArray();
+                testDetails.stream().flatMap(t -> Arrays.stream(t))).toArray();
     }
 
     /**
@@ -0,0 +1,169 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.runtime;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ServiceLoader;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestExecutionResult.Status;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+
+/**
+ * A class to record successes and failures during a JUnit test run.
+ * 
+ * <p>Each test result is passed to a listener as it is recorded, as an array of nine
+ * strings (see ExecServer.runTestMethod for the format).  This is used both by the
+ * ExecServer in the debug VM and by TestWorker in forked test VMs.
+ */
+class TestRecorder implements TestExecutionListener
+{
+    private final Consumer<Object[]> resultListener;
+    private long executionStartTime;
+    private long executionRunTime = -1;
+
+    /**
+     * Create a recorder which passes each test result to the given listener.
+     */
+    TestRecorder(Consumer<Object[]> resultListener)
+    {
+        this.resultListener = resultListener;
+    }
+
+    /**
+     * Run a single test method, or all test methods in a test class, recording the results.
+     * 
+     * @param className       the fully qualified name of the test class
+     * @param methodName      the name of the test method, or null to run all test methods
+     * @param resultListener  the listener to receive each test result
+     * @return the recorder used, from which the execution time can be retrieved
+     */
+    static TestRecorder runTests(String className, String methodName, Consumer<Object[]> resultListener)
+    {
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors((methodName != null) ? selectMethod(className + "#" +  methodName) : selectClass(className))
+                .configurationParameter("junit.jupiter.extensions.autodetection.enabled", "true") //required to use our extension
+                .build();
+
+        // Load the implementation of InvocationInterceptor with Java ServiceLoader.
+        ServiceLoader.load(InvocationInterceptor.class);
+
+        Launcher launcher = LauncherFactory.create();
+        TestRecorder recorder = new TestRecorder(resultListener);
+        launcher.registerTestExecutionListeners(recorder);
+        launcher.execute(request);
+        return recorder;
+    }
+
+    public void testPlanExecutionStarted(TestPlan testPlan)
+    {
+        executionStartTime = System.currentTimeMillis();
+    }
+
+    public void testPlanExecutionFinished(TestPlan testPlan)
+    {
+        executionRunTime = System.currentTimeMillis() - executionStartTime;
+    }
+
+    public long getExecutionRunTime()
+    {
+        return executionRunTime;
+    }
+
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult)
+    {
+        // Retrieved tests (not container)
+        if (testIdentifier.isTest())
+        {
+            Object[] r = new Object[9];
+            // The name of the method: we remove anything added by JUnit after the arguments brackets
+            // as for Junit 5 the framework may add the index of the test iteration
+            // if any argument value is available, we put it into the brackets
+            // Note: when JUnit 4 methods are reported, they do not contain brackets in their display name.
+            r[0] = (testIdentifier.getLegacyReportingName().contains("(")) ?
+                    testIdentifier.getLegacyReportingName()
+                            .substring(0, testIdentifier.getLegacyReportingName().lastIndexOf('(') + 1)
+                            + String.join(", ", UnitTestExtension.getArgsAsStrList())
+                            + ")" :
+                    (testIdentifier.getLegacyReportingName() + "()");
+            // The display name of the test for that method, if none we set it to an empty String
+            r[1] = (testIdentifier.getDisplayName() != null) ? testIdentifier.getDisplayName() : "";
+
+            // Check if the test was successful or not
+            if (testExecutionResult.getStatus() == Status.SUCCESSFUL)
+            {
+                r[2] = r[3] = r[4] = r[5] = r[6] = r[7] = "";
+                r[8] = "success";
+            }
+            else
+            {
+                if (testExecutionResult.getThrowable().isPresent() && java.lang.AssertionError.class.isAssignableFrom(testExecutionResult.getThrowable().get().getClass()))
+                {
+                    r[8] = "failure";
+                }
+                else
+                {
+                    r[8] = "error";
+                }
+                if (testExecutionResult.getThrowable().isPresent())
+                {
+                    Throwable throwableRes = testExecutionResult.getThrowable().get();
+
+                    r[2] = throwableRes.getMessage() != null ? throwableRes.getMessage() : "no exception message";
+                    StringWriter sw = new StringWriter();
+                    PrintWriter pw = new PrintWriter(sw);
+                    throwableRes.printStackTrace(pw);
+                    r[3] = throwableRes.getStackTrace().length > 0 ? sw.toString() : "no trace";
+                    // search the stack trace backward until finding a class not
+                    // part of the org.junit framework
+                    StackTraceElement[] ste = throwableRes.getStackTrace();
+                    int k = 0;
+                    while (k < ste.length && ste[k].getClassName().startsWith("org.junit."))
+                    {
+                        k++;
+                    }
+                    r[4] = ste[k].getClassName();
+                    r[5] = ste[k].getFileName();
+                    r[6] = ste[k].getMethodName();
+                    r[7] = String.valueOf(ste[k].getLineNumber());
+                }
+                else
+                {
+                    r[2] = r[3] = r[4] = r[5] = r[6] = r[7] = "";
+                }
+            }
+            resultListener.accept(r);
+        }
+    }
+}
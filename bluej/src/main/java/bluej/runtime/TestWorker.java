@@ -0,0 +1,109 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The main class of a forked test VM, used to run unit tests in parallel outside
+ * the debug VM.  The worker connects back to BlueJ on the port given as its only
+ * argument, and then repeatedly receives a test class name, runs the tests in that
+ * class and sends back each result as soon as the test finishes.
+ * 
+ * <p>The protocol (in both directions) consists of strings, each written as a length
+ * followed by that many bytes of UTF-8. BlueJ sends either {@link #RUN} followed by a
+ * class name, or {@link #EXIT}.  The worker replies with {@link #RESULT} followed by the
+ * nine strings of each test result (see ExecServer.runTestMethod), and finally
+ * {@link #DONE} followed by the total run time in milliseconds.
+ */
+public class TestWorker
+{
+    public static final String RUN = "run";
+    public static final String EXIT = "exit";
+    public static final String RESULT = "result";
+    public static final String DONE = "done";
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = Integer.parseInt(args[0]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            while (RUN.equals(readString(in)))
+            {
+                String className = readString(in);
+                TestRecorder recorder = TestRecorder.runTests(className, null, r -> {
+                    try
+                    {
+                        writeString(out, RESULT);
+                        for (Object item : r)
+                        {
+                            writeString(out, item == null ? "" : item.toString());
+                        }
+                        // Send each result straight away, so BlueJ can display it:
+                        out.flush();
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writeString(out, DONE);
+                writeString(out, String.valueOf(recorder.getExecutionRunTime()));
+                out.flush();
+            }
+        }
+        // Tests may have left non-daemon threads running:
+        System.exit(0);
+    }
+
+    /**
+     * Read a string written by {@link #writeString}.
+     */
+    public static String readString(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a string as its length followed by its UTF-8 bytes.  (We don't use
+     * writeUTF, as that is limited to 64K, which a stack trace could exceed.)
+     */
+    public static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
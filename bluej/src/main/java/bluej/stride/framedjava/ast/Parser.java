@@ -87,7 +87,7 @@ public class Parser
     public static boolean parseableAsNameDef(String s)
     {
         // We don't need to parse, just lex and see if it comes out as an ident token:
-        JavaLexer lexer = new JavaLexer(new StringReader(s));
+        JavaLexer lexer = new JavaLexer(s);
         LocatableToken t = lexer.nextToken();
         LocatableToken t2 = lexer.nextToken();
         if (t.getType() == JavaTokenTypes.IDENT && t2.getType() == JavaTokenTypes.EOF)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2018,2019,2020,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2018,2019,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -47,6 +47,7 @@ import bluej.stride.framedjava.ast.NameDefSlotFragment;
 import bluej.stride.framedjava.ast.Parser;
 import bluej.stride.framedjava.ast.SlotFragment;
 import bluej.stride.framedjava.ast.TypeSlotFragment;
+import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.errors.CodeError;
 import bluej.stride.framedjava.errors.ErrorShower;
 import bluej.stride.framedjava.errors.SyntaxCodeError;
@@ -129,6 +130,15 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
      * (each ClassElement is immutable).
      */
     private final HashMap<String, DocAndPositions> documentCache = new HashMap<>();
+    /**
+     * The generated Java code of a previous version of this class, whose parsed document
+     * may be updated to become the document for this version (may be null).
+     */
+    private DocAndPositions previousDocument;
+    // The slot which was completing when previousDocument was generated:
+    private ExpressionSlot<?> previousDocumentCompleting;
+    /** The location map for this class's XML, built when first needed (may be null). */
+    private LocationMap locationMap;
 
     /**
      * Creates a class element from the given frame (when generating code elements for
@@ -466,7 +476,18 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
             }
             else
             {
-                sourceDocument = new DocAndPositions(src, java, positions);
+                // Update the document of the previous version, if it was generated for the
+                // same completing slot, so that only the changed parts need to be parsed again.
+                // We never take the document of another entry in our own cache, as that entry
+                // may be used again:
+                DocAndPositions previous = null;
+                if (previousDocument != null && previousDocumentCompleting == completing)
+                {
+                    previous = previousDocument;
+                    previousDocument = null;
+                    previousDocumentCompleting = null;
+                }
+                sourceDocument = new DocAndPositions(src, java, positions, previous);
                 documentCache.put(src, sourceDocument);
             }
         }
@@ -628,17 +649,45 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
         public final JavaSource java;
         public final IdentityHashMap<JavaFragment, Integer> fragmentPositions;
         private String src;
+        // Guarded by this object's lock, since another version may take it (see takeDocument):
         private JavaSyntaxView document;
-
-        public DocAndPositions(String src, JavaSource java, IdentityHashMap<JavaFragment, Integer> fragmentPositions)
+        // Whether document has been taken from a previous version and not yet updated to src:
+        private boolean documentOutOfDate;
+
+        /**
+         * @param previous  Generated code of a previous version, for the same completing slot,
+         *                  whose document (if it has one) is taken over by this one, and updated
+         *                  to this source when first needed.  May be null.
+         */
+        public DocAndPositions(String src, JavaSource java, IdentityHashMap<JavaFragment, Integer> fragmentPositions, DocAndPositions previous)
         {
             this.src = src;
             this.java = java;
             this.fragmentPositions = fragmentPositions;
+            JavaSyntaxView previousDocument = previous == null ? null : previous.takeDocument();
+            if (previousDocument != null)
+            {
+                this.document = previousDocument;
+                this.documentOutOfDate = true;
+            }
+        }
+
+        /**
+         * Take this code's document, if it has one, for use by another version.  This one
+         * will make a new document if it needs one again.
+         *
+         * @return The document, or null if there is none.
+         */
+        private synchronized JavaSyntaxView takeDocument()
+        {
+            JavaSyntaxView taken = document;
+            document = null;
+            documentOutOfDate = false;
+            return taken;
         }
         
         @OnThread(Tag.FXPlatform)
-        public JavaSyntaxView getDocument(EntityResolver projectResolver)
+        public synchronized JavaSyntaxView getDocument(EntityResolver projectResolver)
         {
             if (document == null)
             {
@@ -647,14 +696,61 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
                 doc.replaceText(0, 0, src);
                 this.document.enableParser(true);
             }
+            else if (documentOutOfDate)
+            {
+                document.updateFullText(src);
+                documentOutOfDate = false;
+            }
             return document;
         }
     }
 
+    @Override
+    public synchronized LocationMap getLocationMap()
+    {
+        if (locationMap == null)
+        {
+            locationMap = toXML().buildLocationMap();
+        }
+        return locationMap;
+    }
+
+    /**
+     * Allows the parsed document of a previous version of this class to be updated and
+     * used for this version, rather than parsing all of this version's code again.
+     * Only the document generated for the same completing slot is re-used.
+     * The previous version will make a new document if it needs one again.
+     */
+    public void reuseDocumentOf(ClassElement previous)
+    {
+        if (previous == null)
+            return;
+        DocAndPositions previousDAP;
+        ExpressionSlot<?> previousCompleting;
+        synchronized (previous)
+        {
+            if (previous.sourceDocument != null)
+            {
+                previousDAP = previous.sourceDocument;
+                previousCompleting = previous.sourceDocumentCompleting;
+            }
+            else
+            {
+                previousDAP = previous.previousDocument;
+                previousCompleting = previous.previousDocumentCompleting;
+            }
+        }
+        synchronized (this)
+        {
+            previousDocument = previousDAP;
+            previousDocumentCompleting = previousCompleting;
+        }
+    }
+
     @Override
     @OnThread(Tag.FXPlatform)
     public Stream<SyntaxCodeError> findEarlyErrors()
     {
-        return findEarlyErrors(toXML().buildLocationMap());
+        return findEarlyErrors(getLocationMap());
     }
 }
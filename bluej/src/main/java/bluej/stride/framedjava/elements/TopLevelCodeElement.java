@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2019,2020 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2019,2020,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -98,6 +98,20 @@ public interface TopLevelCodeElement
         return members;
     }
 
+    // Gets the child elements of the given collection (e.g. "methods"), without loading them
+    public static List<Element> getChildElements(Element el, String string)
+    {
+        List<Element> members = new ArrayList<>();
+        Element collectionChildElement = el.getFirstChildElement(string);
+        if (collectionChildElement != null ) {
+            Elements children = collectionChildElement.getChildElements();
+            for (int i = 0; i < children.size(); i++) {
+                members.add(children.get(i));
+            }
+        }
+        return members;
+    }
+
     public static Attribute getStrideVersionAttribute()
     {
         return new Attribute("strideversion", "1");
@@ -124,6 +138,13 @@ public interface TopLevelCodeElement
     // Methods mirroring CodeElement:
     public LocatableElement toXML();
 
+    /**
+     * Gets the location map of this element's XML, as built by
+     * {@link LocatableElement#buildLocationMap()}.  Since the element is immutable,
+     * the map is only built once.
+     */
+    public LocatableElement.LocationMap getLocationMap();
+
     public TopLevelFrame getFrame();
 
     public Stream<CodeElement> streamContained();
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2019,2020,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -35,6 +35,7 @@ import bluej.stride.framedjava.elements.ClassElement;
 import bluej.stride.framedjava.elements.CodeElement;
 import bluej.stride.framedjava.elements.ImportElement;
 import bluej.stride.framedjava.elements.NormalMethodElement;
+import bluej.stride.framedjava.elements.TopLevelCodeElement;
 import bluej.stride.framedjava.slots.TypeSlot;
 import bluej.stride.generic.*;
 import bluej.stride.generic.ExtensionDescription.ExtensionSource;
@@ -64,6 +65,7 @@ import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.util.Duration;
+import nu.xom.Element;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -228,10 +230,12 @@ public class ClassFrame extends TopLevelDocumentMultiCanvasFrame<ClassElement>
         List<CodeElement> constructors = getMembers(constructorsCanvas);
         List<CodeElement> methods = getMembers(methodsCanvas);
         List<ImportElement> imports = Utility.mapList(getMembers(importCanvas), e -> (ImportElement)e);
+        ClassElement previous = element;
         element = new ClassElement(this, projectResolver, abstractModifier.get(), paramName.getSlotElement(),
                     showingExtends.get() && !extendsSlot.getText().equals("") ? extendsSlot.getSlotElement() : null,
                     implementsSlot.getTypes(), fields, constructors, methods, new JavadocUnit(getDocumentation()),
                     packageNameLabel == null ? null : packageNameLabel.getText(), imports, frameEnabledProperty.get());
+        element.reuseDocumentOf(previous);
     }
 
     @Override
@@ -894,7 +898,7 @@ public class ClassFrame extends TopLevelDocumentMultiCanvasFrame<ClassElement>
     {
         paramName.setText(target.getName());
         abstractModifier.set(target.isAbstract());
-        restoreExtends(target);
+        restoreExtends(target.getExtends());
         implementsSlot.setTypes(target.getImplements());
         importCanvas.restore(target.getImports(), editor);
         methodsCanvas.restore(target.getMethods(), editor);
@@ -902,9 +906,22 @@ public class ClassFrame extends TopLevelDocumentMultiCanvasFrame<ClassElement>
         constructorsCanvas.restore(target.getConstructors(), editor);
     }
 
-    private void restoreExtends(ClassElement target)
+    @Override
+    public boolean restoreChanged(Element previous, Element target)
+    {
+        paramName.setText(target.getAttributeValue("name"));
+        abstractModifier.set(Boolean.valueOf(target.getAttributeValue("abstract")));
+        restoreExtends(target.getAttributeValue("extends"));
+        implementsSlot.setTypes(Utility.mapList(TopLevelCodeElement.xmlToTypeList(target, "implements", "implementstype", "type"),
+                TypeSlotFragment::getContent));
+        return restoreChangedMembers(importCanvas, previous, target, "imports")
+                && restoreChangedMembers(methodsCanvas, previous, target, "methods")
+                && restoreChangedMembers(fieldsCanvas, previous, target, "fields")
+                && restoreChangedMembers(constructorsCanvas, previous, target, "constructors");
+    }
+
+    private void restoreExtends(String targetExtends)
     {
-        String targetExtends = target.getExtends();
         if (targetExtends != null) {
             if (!extendsSlot.getText().equals(targetExtends)) {
                 extendsSlot.setText(targetExtends);
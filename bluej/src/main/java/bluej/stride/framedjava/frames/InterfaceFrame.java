@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2020,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2020,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -30,6 +30,7 @@ import bluej.stride.framedjava.ast.TypeSlotFragment;
 import bluej.stride.framedjava.elements.ImportElement;
 import bluej.stride.framedjava.elements.CodeElement;
 import bluej.stride.framedjava.elements.InterfaceElement;
+import bluej.stride.framedjava.elements.TopLevelCodeElement;
 import bluej.stride.framedjava.slots.TypeSlot;
 import bluej.stride.generic.ExtensionDescription;
 import bluej.stride.generic.Frame;
@@ -61,6 +62,7 @@ import java.util.stream.Stream;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import nu.xom.Element;
 
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -128,9 +130,11 @@ public class InterfaceFrame extends TopLevelDocumentMultiCanvasFrame<InterfaceEl
         List<CodeElement> fields = getMembers(fieldsCanvas);
         List<CodeElement> methods = getMembers(methodsCanvas);
         List<ImportElement> imports = Utility.mapList(getMembers(importCanvas), e -> (ImportElement)e);
+        InterfaceElement previous = element;
         element = new InterfaceElement(this, projectResolver, paramName.getSlotElement(), extendsList.getTypes(),
                 fields, methods, new JavadocUnit(getDocumentation()), packageNameLabel == null ? null : packageNameLabel.getText(),
                 imports, frameEnabledProperty.get());
+        element.reuseDocumentOf(previous);
     }
 
     @Override
@@ -290,6 +294,17 @@ public class InterfaceFrame extends TopLevelDocumentMultiCanvasFrame<InterfaceEl
         methodsCanvas.restore(target.getMethods(), editor);
     }
 
+    @Override
+    public boolean restoreChanged(Element previous, Element target)
+    {
+        paramName.setText(target.getAttributeValue("name"));
+        extendsList.setTypes(Utility.mapList(TopLevelCodeElement.xmlToTypeList(target, "extends", "extendstype", "type"),
+                TypeSlotFragment::getContent));
+        return restoreChangedMembers(importCanvas, previous, target, "imports")
+                && restoreChangedMembers(fieldsCanvas, previous, target, "fields")
+                && restoreChangedMembers(methodsCanvas, previous, target, "methods");
+    }
+
     @Override
     protected FrameContentRow makeHeader(String stylePrefix)
     {
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -41,6 +41,7 @@ import bluej.stride.generic.FrameCanvas;
 import bluej.stride.generic.RecallableFocus;
 import bluej.stride.slots.EditableSlot;
 import bluej.stride.slots.HeaderItem;
+import nu.xom.Element;
 
 public interface TopLevelFrame<T extends CodeElement & TopLevelCodeElement> extends CodeFrame<T>, CursorFinder
 {
@@ -87,6 +88,15 @@ public interface TopLevelFrame<T extends CodeElement & TopLevelCodeElement> exte
     public Stream<Frame> getAllFrames();
     
     public void restore(T target);
+
+    /**
+     * Restore from the given previous state (which this frame must currently match)
+     * to the given target state, both given as the XML of the top-level element.  Only
+     * the members which differ between the two are restored.
+     *
+     * @return True if restored, false if restoreCast must be used instead.
+     */
+    public boolean restoreChanged(Element previous, Element target);
     default public void restoreCast(TopLevelCodeElement target)
     {
         restore((T)target);
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2018,2021 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2018,2021,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -32,8 +32,10 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import bluej.stride.framedjava.ast.Loader;
 import bluej.stride.framedjava.ast.Parser;
 import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.elements.ContainerCodeElement;
 import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.frames.BlankFrame;
 
@@ -1201,6 +1203,89 @@ public class FrameCanvas implements FrameContentItem
         }
     }
 
+    /**
+     * Restore this canvas from the previous state of its contents to the target state,
+     * given as the XML elements of each frame.  Only the frames between the first and last
+     * elements which differ are replaced; unlike restore, the XML of the frames which are
+     * left alone is never generated.  The frames in this canvas must currently match the
+     * previous elements.
+     *
+     * @return True if restored, false if the canvas does not match the previous elements
+     *         (in which case nothing has been changed, and restore should be used instead).
+     */
+    public boolean restoreChanged(List<nu.xom.Element> previous, List<nu.xom.Element> target,
+                                  ContainerCodeElement parent, InteractionManager editor)
+    {
+        if (blockContents.size() != previous.size()
+                || getBlocksSubtype(CodeFrame.class).size() != previous.size())
+        {
+            return false;
+        }
+        List<String> previousXML = previous.stream().map(nu.xom.Element::toXML).collect(Collectors.toList());
+        List<String> targetXML = target.stream().map(nu.xom.Element::toXML).collect(Collectors.toList());
+
+        int maxCommon = Math.min(previousXML.size(), targetXML.size());
+        int prefix = 0;
+        while (prefix < maxCommon && previousXML.get(prefix).equals(targetXML.get(prefix)))
+        {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix && previousXML.get(previousXML.size() - 1 - suffix)
+                .equals(targetXML.get(targetXML.size() - 1 - suffix)))
+        {
+            suffix++;
+        }
+        int previousEnd = previousXML.size() - suffix;
+        int targetEnd = targetXML.size() - suffix;
+        if (prefix == previousEnd && prefix == targetEnd)
+        {
+            // Perfect match; don't need to do anything:
+            return true;
+        }
+
+        List<CodeElement> elements = new ArrayList<>(targetEnd - prefix);
+        for (int i = prefix; i < targetEnd; i++)
+        {
+            CodeElement element = Loader.loadElement(target.get(i));
+            element.setParent(parent);
+            elements.add(element);
+        }
+
+        // Just one frame was changed; can we re-purpose the frame in question?
+        if (previousEnd - prefix == 1 && elements.size() == 1
+                && blockContents.get(prefix).tryRestoreTo(elements.get(0)))
+        {
+            return true;
+        }
+
+        // Otherwise replace the changed frames, re-using any which have only moved.  As in
+        // restore, we must remove so that two identical frames aren't both re-used:
+        Map<String, List<Frame>> existingLookup = new HashMap<>();
+        for (int i = prefix; i < previousEnd; i++)
+        {
+            existingLookup.computeIfAbsent(previousXML.get(i), k -> new ArrayList<>()).add(blockContents.get(i));
+        }
+        List<Frame> newContents = new ArrayList<>(elements.size());
+        for (int i = 0; i < elements.size(); i++)
+        {
+            List<Frame> fs = existingLookup.get(targetXML.get(prefix + i));
+            newContents.add(fs != null && fs.size() > 0 ? fs.remove(0) : elements.get(i).createFrame(editor));
+        }
+
+        for (int i = previousEnd - 1; i >= prefix; i--)
+        {
+            removeBlock(blockContents.get(i));
+        }
+        FrameCursor cursor = prefix == 0 ? getFirstCursor() : getCursorAfter(blockContents.get(prefix - 1));
+        for (Frame f : newContents)
+        {
+            insertBlockAfter(f, cursor);
+            cursor = getCursorAfter(f);
+        }
+        return true;
+    }
+
     public double getCurlyBracketHeight()
     {
         return canvas.getCurlyBracketHeight();
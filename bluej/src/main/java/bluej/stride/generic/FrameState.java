@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2017,2019 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2017,2019,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -29,6 +29,7 @@ import java.util.stream.Collectors;
 import javafx.scene.Node;
 
 import nu.xom.Builder;
+import nu.xom.Element;
 import bluej.parser.entity.EntityResolver;
 import bluej.stride.framedjava.elements.ClassElement;
 import bluej.stride.framedjava.elements.TopLevelCodeElement;
@@ -36,24 +37,47 @@ import bluej.stride.framedjava.frames.TopLevelFrame;
 import nu.xom.ParsingException;
 
 /**
- * Stores a ClassElement's state as XML
+ * Stores a ClassElement's state as XML.
+ * 
+ * To save memory when many states are kept (see UndoRedoManager), a state may instead
+ * store its XML as a delta from that of another state (see storeAsDeltaFrom), in which
+ * case it must be restored (see restoreFromDelta) before its content can be used.
  */
 public class FrameState
 {
+    // The XML, or null if this state is stored as a delta:
     private String classElementXML;
+    // When stored as a delta: the lengths of the prefix and suffix which are the same
+    // as the other state, and the text between them:
+    private int deltaPrefix;
+    private int deltaSuffix;
+    private String deltaMiddle;
+    // The hash of the XML, which stays the same when stored as a delta:
+    private final int contentHash;
     private int cursorIndex; // Which cursor
     private int cursorInfo; // Saved state, e.g. caret position
 
     public FrameState(TopLevelCodeElement topLevelElement)
     {
         this.classElementXML = topLevelElement.toXML().toXML();
+        contentHash = classElementXML.hashCode();
         cursorIndex = -1;
         cursorInfo = -1;
     }
     
+    // For testing:
+    FrameState(String classElementXML)
+    {
+        this.classElementXML = classElementXML;
+        contentHash = classElementXML.hashCode();
+        cursorIndex = -1;
+        cursorInfo = -1;
+    }
+
     public FrameState(TopLevelFrame<?> frame, TopLevelCodeElement classElement, RecallableFocus focusOverride)
     {
         this.classElementXML = classElement.toXML().toXML();
+        contentHash = classElementXML.hashCode();
         List<RecallableFocus> focusables = frame.getFocusables().collect(Collectors.toList());
         this.cursorIndex = -1;    
 
@@ -74,18 +98,96 @@ public class FrameState
     }
     
     /**
-     * Create a ClassElement corresponding to this FrameState.
+     * Check whether this state is stored as a delta, rather than in full.
+     */
+    public boolean isDelta()
+    {
+        return classElementXML == null;
+    }
+
+    /**
+     * Store this state as a delta from the given state, which must be stored in full.
+     * Only the part of the XML which differs from the given state is kept.
+     */
+    public void storeAsDeltaFrom(FrameState other)
+    {
+        if (isDelta() || other.isDelta())
+        {
+            throw new IllegalStateException();
+        }
+        String xml = classElementXML;
+        String otherXML = other.classElementXML;
+        int maxCommon = Math.min(xml.length(), otherXML.length());
+        int prefix = 0;
+        while (prefix < maxCommon && xml.charAt(prefix) == otherXML.charAt(prefix))
+        {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && xml.charAt(xml.length() - 1 - suffix) == otherXML.charAt(otherXML.length() - 1 - suffix))
+        {
+            suffix++;
+        }
+        deltaPrefix = prefix;
+        deltaSuffix = suffix;
+        deltaMiddle = xml.substring(prefix, xml.length() - suffix);
+        classElementXML = null;
+    }
+
+    /**
+     * Restore this state to being stored in full, from the state which it was stored as a
+     * delta from (see storeAsDeltaFrom).  That state must be stored in full, and must not
+     * have changed since.
+     */
+    public void restoreFromDelta(FrameState other)
+    {
+        if (!isDelta() || other.isDelta())
+        {
+            throw new IllegalStateException();
+        }
+        String otherXML = other.classElementXML;
+        classElementXML = otherXML.substring(0, deltaPrefix) + deltaMiddle
+                + otherXML.substring(otherXML.length() - deltaSuffix);
+        deltaMiddle = null;
+    }
+
+    /**
+     * Get the (approximate) number of characters used to store this state.
+     */
+    public int getStoredSize()
+    {
+        return isDelta() ? deltaMiddle.length() : classElementXML.length();
+    }
+
+    // For testing:
+    String getXML()
+    {
+        return classElementXML;
+    }
+
+    /**
+     * Create a ClassElement corresponding to this FrameState.  The state must be stored
+     * in full.
      * 
      * @param resolver   The resolver used to resolve identifiers
      * @param packageName  The name of the package containing the class (empty string for default package)
      * @return  A new ClassElement.
      */
     public ClassElement getClassElement(EntityResolver resolver, String packageName)
+    {
+        return new ClassElement(getRootElement(), resolver, packageName);
+    }
+
+    /**
+     * Parse the XML of this state, without creating any code elements.  The state must be
+     * stored in full.
+     */
+    public Element getRootElement()
     {
         try
         {
-            return new ClassElement(new Builder().build(new StringReader(classElementXML))
-                    .getRootElement(), resolver, packageName);
+            return new Builder().build(new StringReader(classElementXML)).getRootElement();
         }
         catch (IOException | ParsingException e)
         {
@@ -100,6 +202,11 @@ public class FrameState
             return false;
         }
         FrameState otherState = (FrameState)obj;
+        // States stored as deltas can't be compared:
+        if (isDelta() || otherState.isDelta())
+        {
+            return this == otherState;
+        }
         // Currently, it is equality on the contents only, not on the cursor position.
         return otherState.classElementXML.equals(classElementXML);//&& cursorPosition == otherState.cursorPosition;
     }
@@ -107,7 +214,7 @@ public class FrameState
     @Override
     public int hashCode()
     {
-        return classElementXML.hashCode();
+        return contentHash;
     }
 
     public Node recallFocus(TopLevelFrame<?> frame)
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2016,2017,2021,2022 Michael Kölling and John Rosenberg
+ Copyright (C) 2016,2017,2021,2022,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,6 +26,7 @@ import bluej.parser.entity.EntityResolver;
 import bluej.stride.framedjava.ast.JavadocUnit;
 import bluej.stride.framedjava.ast.NameDefSlotFragment;
 import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.elements.ContainerCodeElement;
 import bluej.stride.framedjava.elements.ImportElement;
 import bluej.stride.framedjava.elements.LocatableElement.LocationMap;
 import bluej.stride.framedjava.elements.TopLevelCodeElement;
@@ -58,6 +59,7 @@ import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
+import nu.xom.Element;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
@@ -294,6 +296,17 @@ public abstract class TopLevelDocumentMultiCanvasFrame<ELEMENT extends CodeEleme
         return members;
     }
 
+    /**
+     * Restore the given canvas from the previous to the target state of the given collection
+     * (e.g. "methods") of the top-level element.  If this returns false, the whole frame
+     * should be restored using restore, which copes with any canvases already restored here.
+     */
+    protected boolean restoreChangedMembers(FrameCanvas frameCanvas, Element previous, Element target, String collection)
+    {
+        return frameCanvas.restoreChanged(TopLevelCodeElement.getChildElements(previous, collection),
+                TopLevelCodeElement.getChildElements(target, collection), (ContainerCodeElement)getCode(), editor);
+    }
+
     private FrameCanvas createImportsCanvas(final List<ImportElement> imports)
     {
         FrameCanvas importCanvas = new FrameCanvas(editor, new CanvasParent() {
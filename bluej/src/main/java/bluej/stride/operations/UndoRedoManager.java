@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017 Michael Kölling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2026 Michael Kölling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -22,7 +22,6 @@
 package bluej.stride.operations;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import bluej.stride.generic.FrameState;
@@ -33,6 +32,11 @@ import bluej.utility.javafx.FXRunnable;
  * the "beginFrameState()" and "endFrameState()" methods can be used to 
  * create a frame state  (which is treated as a single state for undo/redo purposes).
  * 
+ * Only the current state is stored in full.  Each other state is stored as a delta from
+ * its neighbour towards the current state, so a state costs memory in proportion to the
+ * size of the edit, not the size of the class.  The oldest states are discarded when the
+ * total stored size exceeds a limit.
+ * 
  * @author Amjad Altadmri
  */
 public class UndoRedoManager
@@ -40,13 +44,25 @@ public class UndoRedoManager
     private int current;
     private boolean recording = false;
     private boolean restoring = false;
-    private final List<FrameState> statesStack = new LinkedList<>();
+    private final List<FrameState> statesStack = new ArrayList<>();
     private final List<FXRunnable> listeners = new ArrayList<>();
-    // TODO Add it to the defs file
-    private static final int MAX_CAPACITY = 30;
+    // The maximum total size of the stored states, in characters:
+    private static final long MAX_STORED_SIZE = 4L * 1024 * 1024;
+    // An estimate of the overhead of each state, in characters:
+    private static final int STATE_OVERHEAD = 64;
+    private final long maxStoredSize;
 
     public UndoRedoManager(FrameState initialState)
     {
+        this(initialState, MAX_STORED_SIZE);
+    }
+
+    /**
+     * Create a manager which keeps states up to the given total size (in characters).
+     */
+    public UndoRedoManager(FrameState initialState, long maxStoredSize)
+    {
+        this.maxStoredSize = maxStoredSize;
         current = 0;
         statesStack.add(initialState);
     }
@@ -66,12 +82,10 @@ public class UndoRedoManager
                 while (canRedo()) {
                     statesStack.remove(statesStack.size() - 1);
                 }
+                statesStack.get(current).storeAsDeltaFrom(state);
                 statesStack.add(state);
                 current++;
-                if (statesStack.size() > MAX_CAPACITY) {
-                    current--;
-                    statesStack.remove(0);
-                }
+                discardOldStates();
             }
             runListeners();
         }
@@ -103,13 +117,42 @@ public class UndoRedoManager
     {
         recording = false;
         if ( canUndo() ) {
-            current--;
+            moveTo(current - 1);
             runListeners();
             return statesStack.get(current);
         }
         return null;
     }
 
+    /**
+     * Make the state at the given index (next to the current state) the current state,
+     * restoring it in full and storing the previous current state as a delta from it.
+     */
+    private void moveTo(int index)
+    {
+        FrameState from = statesStack.get(current);
+        FrameState to = statesStack.get(index);
+        to.restoreFromDelta(from);
+        from.storeAsDeltaFrom(to);
+        current = index;
+    }
+
+    /**
+     * Discard the oldest states while the total stored size is too large.  The current
+     * state is never discarded.
+     */
+    private void discardOldStates()
+    {
+        long total = 0;
+        for (FrameState state : statesStack) {
+            total += state.getStoredSize() + STATE_OVERHEAD;
+        }
+        while (total > maxStoredSize && current > 0) {
+            total -= statesStack.remove(0).getStoredSize() + STATE_OVERHEAD;
+            current--;
+        }
+    }
+
     private void runListeners()
     {
         // Take copy to allow removal by listeners:
@@ -121,7 +164,7 @@ public class UndoRedoManager
     {
         recording = false;
         if ( canRedo() ) {
-            current++;
+            moveTo(current + 1);
             runListeners();
             return statesStack.get(current);
         }
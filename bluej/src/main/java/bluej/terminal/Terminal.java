@@ -38,6 +38,7 @@ import bluej.editor.flow.FlowEditor;
 import bluej.editor.flow.FlowEditor.OffScreenFlowEditorPaneListener;
 import bluej.editor.base.LineContainer;
 import bluej.pkgmgr.Package;
+import bluej.pkgmgr.PackageListener;
 import bluej.pkgmgr.Project;
 import bluej.pkgmgr.print.PrintProgressDialog;
 import bluej.prefmgr.PrefMgr;
@@ -81,11 +82,11 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -111,6 +112,11 @@ public final class Terminal
     private static final List<String> STDERR_LINKED_STACK_TRACE = Collections.singletonList("terminal-stack-link");
     private static final List<String> STDERR_FOREIGN_STACK_TRACE = Collections.singletonList("terminal-stack-foreign");
 
+    // Matches stack trace lines with a source file and line number:
+    private static final Pattern STACK_TRACE_FILE_AND_LINE = Pattern.compile("at (\\S+)\\((\\S+)\\.java:(\\d+)\\)");
+    // Matches stack trace lines without a source location:
+    private static final Pattern STACK_TRACE_NO_SOURCE = Pattern.compile("at \\S+\\((Native Method|Unknown Source)\\)");
+
     private static final String WINDOWTITLE = Config.getApplicationName() + ": " + Config.getString("terminal.title");
 
     private static final String RECORDMETHODCALLSPROPNAME = "bluej.terminal.recordcalls";
@@ -138,7 +144,14 @@ public final class Terminal
     private boolean errorShown = false;
     private final InputBuffer buffer;
     private final BooleanProperty showingProperty = new SimpleBooleanProperty(false);
-
+    // The number of error pane lines already scanned for stack traces, counted from
+    // the first line ever written (see TerminalTextPane.getRemovedLineCount()):
+    private int errorLinesScanned = 0;
+    // Cached class names for packages mentioned in stack traces:
+    private final Map<Package, Set<String>> knownClassNames = new HashMap<>();
+
+    // Output from the debug VM, waiting to be written to the panes:
+    @OnThread(Tag.Any) private final TerminalOutputQueue outputQueue = new TerminalOutputQueue(this::writeOutput);
     @OnThread(Tag.Any) private final Reader in = new TerminalReader();
     @OnThread(Tag.Any) private final Writer out = new TerminalWriter(false);
     @OnThread(Tag.Any) private final Writer err = new TerminalWriter(true);
@@ -396,7 +409,7 @@ public final class Terminal
         }
         else if (job.showPrintDialog(window))
         {
-            List<List<TextLine.StyledSegment>> lines = text.getStyledLines();
+            List<List<TextLine.StyledSegment>> lines = text.copyStyledLines();
                         
             BorderPane root = new BorderPane();
             Scene scene = new Scene(root);
@@ -459,6 +472,36 @@ public final class Terminal
         pane.scrollToEnd();
     }
 
+    /**
+     * Write output from the debug VM to the appropriate pane.
+     */
+    private void writeOutput(boolean isError, String s)
+    {
+        try
+        {
+            if (isError)
+            {
+                showErrorPane();
+                writeToPane(errorText, s, STDERR_NORMAL);
+            }
+            else
+                writeToPane(text, s, STDOUT_OUTPUT);
+        }
+        catch (Throwable t)
+        {
+            Debug.reportError(t);
+        }
+    }
+
+    /**
+     * Get the rate at which the program has been writing output to the terminal,
+     * in lines per second, during the current burst of output (or the most recent one).
+     */
+    public double getOutputLinesPerSecond()
+    {
+        return outputQueue.getLinesPerSecond();
+    }
+
     /**
      * Prepare the terminal for I/O.
      */
@@ -554,24 +597,26 @@ public final class Terminal
     }
 
     /**
-     * Looks through the contents of the terminal for lines
+     * Looks through the newly added contents of the error pane for lines
      * that look like they are part of a stack trace.
+     * 
+     * Only lines which have not already been scanned are examined (plus the
+     * final line, which may have been extended since it was last scanned).
      */
     private void scanForStackTrace()
     {
+        int removedLines = errorText.getRemovedLineCount();
+        int lineCount = errorText.getLineCount();
+        // Lines may have been removed from the start since we last scanned:
+        int firstLine = Math.max(0, errorLinesScanned - removedLines);
         try {
-            List<String> allLines = errorText.getLines();
-
-            Pattern fileAndLine = java.util.regex.Pattern.compile("at (\\S+)\\((\\S+)\\.java:(\\d+)\\)");
-            Pattern noSource = java.util.regex.Pattern.compile("at \\S+\\((Native Method|Unknown Source)\\)");
-            
             // Matches things like:
             // at greenfoot.localdebugger.LocalDebugger$QueuedExecution.run(LocalDebugger.java:267)
             //    ^--------------------group 1----------------------------^ ^--group 2--^      ^3^
-            for (int i = 0; i < allLines.size(); i++)
+            for (int i = firstLine; i < lineCount; i++)
             {
-                String line = allLines.get(i);
-                Matcher m = fileAndLine.matcher(line);
+                String line = errorText.getLineText(i);
+                Matcher m = STACK_TRACE_FILE_AND_LINE.matcher(line);
                 
                 while (m.find())
                 {
@@ -589,7 +634,7 @@ public final class Terminal
                     //Find out if that file is available, and only link if it is:
                     Package pkg = project.getPackage(packageName);
 
-                    if (pkg != null && pkg.getAllClassnames().contains(javaFile))
+                    if (pkg != null && getKnownClassNames(pkg).contains(javaFile))
                     {
                         errorText.setStyleForLineSegment(i, m.start(1), m.end(), STDERR_LINKED_STACK_TRACE, new ExceptionSourceLocation(m.start(1), m.end(), pkg, javaFile, lineNumber));
                     }
@@ -604,7 +649,7 @@ public final class Terminal
                 
                 // Matches things like:
                 //  at sun.reflect.NativeMethodAccessorImpl.invoke0(Native Method)
-                m = noSource.matcher(line);
+                m = STACK_TRACE_NO_SOURCE.matcher(line);
                 while (m.find())
                 {
                     errorText.setStyleForLineSegment(i, m.start(), m.end(), STDERR_FOREIGN_STACK_TRACE, null);
@@ -615,10 +660,42 @@ public final class Terminal
             //In case it looks like an exception but has a large line number:
             e.printStackTrace();
         }
+        // The last line may still be incomplete, so it will be scanned again next time:
+        errorLinesScanned = removedLines + Math.max(0, lineCount - 1);
         errorText.refreshDisplay();
     }
 
+    /**
+     * Gets the names of the classes in the given package, for linking stack traces.
+     * The names are cached, and the cache entry is discarded when a class is added to
+     * or removed from the package.
+     */
+    private Set<String> getKnownClassNames(Package pkg)
+    {
+        Set<String> names = knownClassNames.get(pkg);
+        if (names == null)
+        {
+            names = new HashSet<>(pkg.getAllClassnames());
+            knownClassNames.put(pkg, names);
+            pkg.addListener(new PackageListener()
+            {
+                @Override
+                public void graphClosed()
+                {
+                    knownClassNames.remove(pkg);
+                    pkg.removeListener(this);
+                }
 
+                @Override
+                public void graphChanged()
+                {
+                    knownClassNames.remove(pkg);
+                    pkg.removeListener(this);
+                }
+            });
+        }
+        return names;
+    }
 
     /**
      * Return the input stream that can be used to read from this terminal.
@@ -873,40 +950,7 @@ public final class Terminal
 
         public void write(final char[] cbuf, final int off, final int len)
         {
-            try {
-                // We use a wait so that terminal output is limited to
-                // the processing speed of the event queue. This means the UI
-                // will still respond to user input even if the output is really
-                // gushing.
-                CompletableFuture<Boolean> written = new CompletableFuture<>();
-                Platform.runLater(() -> {
-                    try
-                    {
-                        String s = new String(cbuf, off, len);
-                        if (isErrorOut)
-                        {
-                            showErrorPane();
-                            writeToPane(errorText, s, STDERR_NORMAL);
-                        }
-                        else
-                            writeToPane(text, s, STDOUT_OUTPUT);
-                    }
-                    catch (Throwable t)
-                    {
-                        Debug.reportError(t);
-                    }
-                    finally
-                    {
-                        written.complete(true);
-                    }
-                });
-                // Timeout in case something goes wrong with the printing:
-                written.get(2000, TimeUnit.MILLISECONDS);
-            }
-            catch (InterruptedException | ExecutionException | TimeoutException ie)
-            {
-                Debug.reportError(ie);
-            }
+            outputQueue.write(isErrorOut, cbuf, off, len);
         }
 
         public void flush() { }
@@ -0,0 +1,270 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import bluej.utility.Debug;
+import bluej.utility.javafx.FXPlatformBiConsumer;
+import bluej.utility.javafx.JavaFXUtil;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A queue of output text, written by the threads which read the debug VM's output
+ * and error streams, and applied to the terminal on the FX thread.
+ *
+ * <p>Writers do not wait for their text to be displayed.  Instead, text is queued
+ * (without locking) and a single flush is scheduled on the FX thread, which applies
+ * all text queued by that point, coalescing consecutive writes to the same stream.
+ * So a program which writes output in a tight loop causes one terminal update per
+ * FX event cycle rather than one per write.
+ *
+ * <p>The amount of queued text is bounded: if the FX thread falls too far behind,
+ * writers block until it catches up (or until a timeout passes, in case the FX
+ * thread is stuck).  This keeps memory bounded and the UI responsive even if
+ * output is really gushing.
+ */
+@OnThread(Tag.Any)
+class TerminalOutputQueue
+{
+    // The maximum number of characters which may be queued before writers must wait:
+    private static final int MAX_PENDING_CHARS = 256 * 1024;
+    // The maximum time that a writer will wait for space in the queue:
+    private static final long MAX_WAIT_MILLIS = 2000;
+    // A burst of output lasting at least this long is reported in the debug log:
+    private static final long REPORT_BURST_MILLIS = 1000;
+    // A gap of this long between flushes ends a burst of output:
+    private static final long BURST_GAP_MILLIS = 1000;
+
+    private static class Chunk
+    {
+        final boolean isError;
+        final String text;
+
+        Chunk(boolean isError, String text)
+        {
+            this.isError = isError;
+            this.text = text;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Chunk> chunks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingChars = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // Used only for writers waiting for space in the queue:
+    private final Object spaceMonitor = new Object();
+    // Receives (isError, text) on the FX thread:
+    private final FXPlatformBiConsumer<Boolean, String> output;
+
+    // Throughput statistics, only accessed on the FX thread:
+    @OnThread(Tag.FXPlatform) private long burstStart = -1;
+    @OnThread(Tag.FXPlatform) private long lastFlush;
+    @OnThread(Tag.FXPlatform) private long burstLines;
+    @OnThread(Tag.FXPlatform) private double linesPerSecond;
+
+    /**
+     * Create a new output queue.
+     *
+     * @param output  The destination for the output, which will be called on the FX
+     *                thread with a flag indicating error output, and the text.
+     */
+    TerminalOutputQueue(FXPlatformBiConsumer<Boolean, String> output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Queue some output text. This returns without waiting for the text to be displayed,
+     * unless the queue is full.
+     */
+    public void write(boolean isError, char[] cbuf, int off, int len)
+    {
+        if (len == 0)
+        {
+            return;
+        }
+
+        waitForSpace();
+        chunks.add(new Chunk(isError, new String(cbuf, off, len)));
+        pendingChars.addAndGet(len);
+        if (flushScheduled.compareAndSet(false, true))
+        {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * If the queue is full, wait until the FX thread has flushed it (up to a time limit).
+     */
+    private void waitForSpace()
+    {
+        if (pendingChars.get() < MAX_PENDING_CHARS)
+        {
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        synchronized (spaceMonitor)
+        {
+            try
+            {
+                long remaining;
+                while (pendingChars.get() >= MAX_PENDING_CHARS
+                        && (remaining = deadline - System.currentTimeMillis()) > 0)
+                {
+                    spaceMonitor.wait(remaining);
+                }
+            }
+            catch (InterruptedException ie)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Apply all queued output to the terminal.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void flush()
+    {
+        // Clear the flag first, so that any write which races with this flush
+        // schedules another:
+        flushScheduled.set(false);
+
+        StringBuilder run = new StringBuilder();
+        boolean runIsError = false;
+        int drained = 0;
+        int lines = 0;
+        Chunk chunk;
+        while ((chunk = chunks.poll()) != null)
+        {
+            if (run.length() > 0 && chunk.isError != runIsError)
+            {
+                output.accept(runIsError, run.toString());
+                run.setLength(0);
+            }
+            runIsError = chunk.isError;
+            run.append(chunk.text);
+            drained += chunk.text.length();
+            lines += countLines(chunk.text);
+        }
+        if (run.length() > 0)
+        {
+            output.accept(runIsError, run.toString());
+        }
+
+        if (drained > 0)
+        {
+            pendingChars.addAndGet(-drained);
+            synchronized (spaceMonitor)
+            {
+                spaceMonitor.notifyAll();
+            }
+            recordThroughput(lines);
+        }
+    }
+
+    /**
+     * Record that the given number of lines was output now, for throughput statistics.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void recordThroughput(int lines)
+    {
+        long now = System.currentTimeMillis();
+        if (burstStart == -1)
+        {
+            burstStart = now;
+            burstLines = 0;
+            JavaFXUtil.runAfter(Duration.millis(BURST_GAP_MILLIS), this::checkBurstEnded);
+        }
+        burstLines += lines;
+        lastFlush = now;
+        long duration = now - burstStart;
+        if (duration > 0)
+        {
+            linesPerSecond = burstLines * 1000.0 / duration;
+        }
+    }
+
+    /**
+     * Check whether the current burst of output has ended (there has been no output for
+     * a while).  If so, report it; if not, check again when it could next have ended.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void checkBurstEnded()
+    {
+        long sinceLastFlush = System.currentTimeMillis() - lastFlush;
+        if (sinceLastFlush >= BURST_GAP_MILLIS)
+        {
+            reportBurst();
+            burstStart = -1;
+        }
+        else
+        {
+            JavaFXUtil.runAfter(Duration.millis(BURST_GAP_MILLIS - sinceLastFlush), this::checkBurstEnded);
+        }
+    }
+
+    /**
+     * Get the output rate, in lines per second, during the current burst of output, or
+     * the most recent one if there is no output at the moment.
+     */
+    @OnThread(Tag.FXPlatform)
+    public double getLinesPerSecond()
+    {
+        return linesPerSecond;
+    }
+
+    /**
+     * Report the throughput of the burst of output which has just ended to the debug log,
+     * if it was long enough to be interesting.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void reportBurst()
+    {
+        long duration = lastFlush - burstStart;
+        if (burstStart != -1 && duration >= REPORT_BURST_MILLIS)
+        {
+            Debug.log("Terminal output: " + burstLines + " lines in " + duration + "ms ("
+                    + Math.round(linesPerSecond) + " lines/s)");
+        }
+    }
+
+    private static int countLines(String s)
+    {
+        int count = 0;
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (s.charAt(i) == '\n')
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -37,7 +37,10 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
+import threadchecker.OnThread;
+import threadchecker.Tag;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -59,6 +62,11 @@ public abstract class TerminalTextPane extends BaseEditorPane
     private final ArrayList<ContentLine> content = new ArrayList<>();
     // Listeners to call when the content of the pane changes
     private final ArrayList<FXPlatformRunnable> contentListeners = new ArrayList<>();
+    // The total number of lines which have ever been removed from the start of the content,
+    // by trimming or clearing.  Allows listeners to track lines across such removals:
+    private int removedLineCount = 0;
+    // The longest line in the content, or null if it needs to be recalculated:
+    private String longestLine = null;
     
     // The position of the caret and the anchor.  The Pos class is immutable so the instance
     // will be swapped out as a whole if it changes.
@@ -308,6 +316,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
         {
             // Important to take a copy, as content will be blanked during the set:
             int linesToSubtract = content.size() - numLines;
+            removedLineCount += linesToSubtract;
             setContent(new ArrayList<>(content.subList(linesToSubtract, content.size())));
             // Adjust caret and anchor positions upwards by the trimmed lines:
             int newCaretLine = Math.max(0, caretPos.getLine() - linesToSubtract);
@@ -325,6 +334,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
     // Helper to set content and call listeners:
     private void setContent(List<ContentLine> lines)
     {
+        longestLine = null;
         content.clear();
         content.addAll(lines);
         refreshDisplay();
@@ -353,6 +363,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
         // while updating the display:
         caretPos = new Pos(0, 0, 0);
         anchorPos = new Pos(0, 0, 0);
+        removedLineCount += content.size();
         setContent(Collections.singletonList(new ContentLine(new ArrayList<>())));
     }
 
@@ -365,6 +376,24 @@ public abstract class TerminalTextPane extends BaseEditorPane
         return content.stream().map(line -> line.getText()).collect(Collectors.toList());
     }
 
+    /**
+     * Get the text content of a single line, without any newline character.
+     */
+    public String getLineText(int lineIndex)
+    {
+        return content.get(lineIndex).getText();
+    }
+
+    /**
+     * Gets the total number of lines which have been removed from the start of the content,
+     * by trimming or clearing, since this pane was created.  Adding this to a line index
+     * gives a line number which does not change when earlier lines are removed.
+     */
+    public int getRemovedLineCount()
+    {
+        return removedLineCount;
+    }
+
     @Override
     protected int getLineLength(int lineIndex)
     {
@@ -380,7 +409,11 @@ public abstract class TerminalTextPane extends BaseEditorPane
     @Override
     protected String getLongestLineInWholeDocument()
     {
-        return content.stream().map(l -> l.getText()).max(Comparator.comparing(String::length)).orElse("");
+        if (longestLine == null)
+        {
+            longestLine = content.stream().map(l -> l.getText()).max(Comparator.comparing(String::length)).orElse("");
+        }
+        return longestLine;
     }
 
     @Override
@@ -389,8 +422,31 @@ public abstract class TerminalTextPane extends BaseEditorPane
         return content.size();
     }
 
+    // Returns a view which only copies each line when it is accessed, so that rendering
+    // (which only accesses the visible lines) does not copy the whole buffer.
+    @Override
+    protected List<List<StyledSegment>> getStyledLines()
+    {
+        return new AbstractList<List<StyledSegment>>()
+        {
+            @Override
+            @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+            public List<StyledSegment> get(int index)
+            {
+                return ImmutableList.copyOf(content.get(index));
+            }
+
+            @Override
+            @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+            public int size()
+            {
+                return content.size();
+            }
+        };
+    }
+
     // Returns a copy, to avoid sharing.
-    public List<List<StyledSegment>> getStyledLines()
+    public List<List<StyledSegment>> copyStyledLines()
     {
         return content.stream().map(line -> ImmutableList.copyOf(line)).collect(Collectors.toList());
     }
@@ -422,6 +478,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
             {
                 // No newline, just append it:
                 content.get(content.size() - 1).append(new StyledSegment(styledSegment.getStyleClasses(), remainder));
+                updateLongestLine(content.size() - 1);
                 remainder = "";
             }
             else
@@ -429,6 +486,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
                 // Chop '\r' before '\n', if it is present:
                 String beforeNewline = remainder.substring(0, newlineIndex > 0 && remainder.charAt(newlineIndex - 1) == '\r' ? newlineIndex - 1 : newlineIndex);
                 content.get(content.size() - 1).append(new StyledSegment(styledSegment.getStyleClasses(), beforeNewline));
+                updateLongestLine(content.size() - 1);
                 content.add(new ContentLine(new ArrayList<>()));
                 remainder = remainder.substring(newlineIndex + 1);
             }
@@ -437,6 +495,16 @@ public abstract class TerminalTextPane extends BaseEditorPane
         contentChanged();
     }
 
+    // Lines only ever grow by appending, so the longest line can be kept up to date cheaply:
+    private void updateLongestLine(int lineIndex)
+    {
+        String text = content.get(lineIndex).getText();
+        if (longestLine != null && text.length() > longestLine.length())
+        {
+            longestLine = text;
+        }
+    }
+
     /**
      * Scrolls the pane all the way to the end
      */
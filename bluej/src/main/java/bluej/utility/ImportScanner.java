@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2017,2019,2020,2021  Michael Kolling and John Rosenberg
+ Copyright (C) 2014,2015,2016,2017,2019,2020,2021,2026  Michael Kolling and John Rosenberg
 
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -29,9 +29,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
@@ -48,15 +51,22 @@ import nu.xom.Element;
 import nu.xom.ParsingException;
 
 import bluej.Boot;
+import bluej.StartupTimeline;
 import bluej.parser.ImportedTypeCompletion;
 import bluej.pkgmgr.JavadocResolver;
 import bluej.pkgmgr.Project;
 import bluej.parser.AssistContentThreadSafe;
+import bluej.pkgmgr.target.role.Kind;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
 /**
  * A class which manages scanning the classpath for available imports.
+ * 
+ * The types found are kept in a {@link TypeIndex}, which is saved between sessions so that
+ * only the parts of the classpath which have changed need to be scanned again, and which
+ * allows completions for the types to be made without loading them.  Only types are
+ * indexed, not their members, since only types can be imported.
  */
 public class ImportScanner
 {
@@ -64,8 +74,13 @@ public class ImportScanner
     private final Object monitor = new Object();
     // Root package with "" as ident.
     private CompletableFuture<RootPackageInfo> root;
+    // The index of all types found; set before root is completed:
+    private TypeIndex typeIndex;
     // The Project which we are scanning for:
     private final Project project;
+    // The saved type index, loaded at startup (see prepareIndex), ready for the first
+    // project to use; null if not prepared, or once used:
+    private static CompletableFuture<TypeIndex> preparedIndex;
 
     public ImportScanner(Project project)
     {
@@ -119,6 +134,14 @@ public class ImportScanner
         private AssistContentThreadSafe getType(String prefix, String name, JavadocResolver javadocResolver)
         {
             return types.computeIfAbsent(name, s -> {
+                TypeIndex.IndexedType indexed = typeIndex == null ? null : typeIndex.getType(prefix + s);
+                if (indexed != null)
+                {
+                    // The index has all we need, so we don't need to load the class.  The javadoc
+                    // must be found on the FXPlatform thread, so it is looked up when first shown:
+                    return typeIndex.makeCompletion(indexed,
+                            () -> javadocResolver.getJavadoc(indexed.moduleName, indexed.getCanonicalName()));
+                }
                 // To safely get an AssistContentThreadSafe, we must create one from the FXPlatform thread.
                 // So we need to hop across to the FXPlatform thread.  Because we are an arbitrary background
                 // worker thread, it is safe to use wait afterwards; without risk of deadlock:
@@ -286,6 +309,73 @@ public class ImportScanner
         }
     }
 
+    /**
+     * Gets the type index ready in the background, for the first project to be scanned:
+     * loads the saved index, and indexes the system libraries if they have changed since
+     * it was saved (e.g. on first use, or after the JDK changes), which may take several
+     * seconds.  This is called at startup, so that it runs while the initial windows open;
+     * so as not to compete with them for the processor, it runs at low priority (as do the
+     * scanner's threads, which inherit it) and scans on a single thread.
+     */
+    @OnThread(Tag.Any)
+    public static synchronized void prepareIndex()
+    {
+        if (preparedIndex != null)
+        {
+            return;
+        }
+        CompletableFuture<TypeIndex> prepared = new CompletableFuture<>();
+        preparedIndex = prepared;
+        File indexPath = getTypeIndexPath();
+        String version = getVersion();
+        Thread thread = new Thread("Import index")
+        {
+            @OnThread(value = Tag.Worker, ignoreParent = true)
+            public void run()
+            {
+                StartupTimeline.phaseStarted("import index");
+                TypeIndex savedIndex = TypeIndex.load(indexPath, version);
+                try
+                {
+                    TypeIndex systemIndex = new TypeIndex();
+                    if (indexSystemLibraries(savedIndex, systemIndex, getSystemClassGraph(), 1))
+                    {
+                        savedIndex = mergeTypeIndex(savedIndex, systemIndex);
+                        savedIndex.save(indexPath, version);
+                    }
+                }
+                finally
+                {
+                    prepared.complete(savedIndex);
+                    StartupTimeline.phaseFinished("import index");
+                }
+            }
+        };
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Gets the saved type index: the one prepared at startup, if it hasn't been used yet
+     * (waiting for it if need be), otherwise loaded from the file.
+     */
+    @OnThread(Tag.Worker)
+    private static TypeIndex getSavedIndex()
+    {
+        CompletableFuture<TypeIndex> prepared;
+        synchronized (ImportScanner.class)
+        {
+            prepared = preparedIndex;
+            // Projects opened later must load the file, which may have been updated since:
+            if (prepared != null)
+            {
+                preparedIndex = CompletableFuture.completedFuture(null);
+            }
+        }
+        TypeIndex index = prepared == null ? null : prepared.join();
+        return index != null ? index : TypeIndex.load(getTypeIndexPath(), getVersion());
+    }
+
     /**
      * Given an import source (e.g. "java.lang.String", "java.util.*"), finds all the
      * types that will be imported.
@@ -309,13 +399,28 @@ public class ImportScanner
     }
 
     /**
-     * Gets a list of ClassGraph items which can be used to find available classes.
+     * The ClassGraph items which can be used to find available classes.
      * 
      * Because of the way ClassGraph works, one item is not enough for all classes;
      * we use one for system classes and one for user classes.
      */
+    private static class ClassGraphs
+    {
+        private final ClassGraph userClassGraph;
+        private final ClassGraph systemClassGraph;
+
+        private ClassGraphs(ClassGraph userClassGraph, ClassGraph systemClassGraph)
+        {
+            this.userClassGraph = userClassGraph;
+            this.systemClassGraph = systemClassGraph;
+        }
+    }
+
+    /**
+     * Gets the ClassGraph items which can be used to find available classes.
+     */
     @OnThread(Tag.Worker)
-    private List<ClassGraph> getClassloaderConfig()
+    private ClassGraphs getClassloaderConfig()
     {
         // When you override the class loaders in ClassGraph's config, it no longer
         // loads the JDK classes.  So we have one ClassGraph for user code libraries
@@ -342,23 +447,37 @@ public class ImportScanner
                 .overrideClassLoaders(cl.toArray(new ClassLoader[0]))
                 .rejectPackages("bluej.*");
         
+        return new ClassGraphs(userClassGraph.enableClassInfo(), getSystemClassGraph());
+    }
+
+    /**
+     * Gets the ClassGraph used to find the classes in the system libraries.
+     */
+    @OnThread(Tag.Any)
+    private static ClassGraph getSystemClassGraph()
+    {
         // We have a separate class graph for system libraries (java.*, javafx.*), from which
         // we only take public packages, thus avoiding all the com.sun classes and so on:
         // This has to be separate because enableSystemPackages() doesn't work alongside 
         // overrideClassLoaders():
-        ClassGraph systemClassGraph = new ClassGraph()
+        return new ClassGraph()
             .enableSystemJarsAndModules()
-            .acceptPackages("java.*", "javax.*", "javafx.*");
+            .acceptPackages("java.*", "javax.*", "javafx.*")
+            .enableClassInfo();
+    }
 
-        return List.of(
-            userClassGraph.enableClassInfo(),
-            systemClassGraph.enableClassInfo()
-        );
+    @OnThread(Tag.Any)
+    private static int getScanThreads()
+    {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     }
 
     /**
      * Gets a package-tree structure which includes all packages and class-names
      * on the current class-path (by scanning all JARs and class-files on the path).
+     * 
+     * Classpath elements which have not changed since they were last scanned are not
+     * scanned again; their types are taken from the saved type index instead.
      *
      * @return A package-tree structure with all class names present, but not any further
      * details about the classes.
@@ -366,31 +485,194 @@ public class ImportScanner
     @OnThread(Tag.Worker)
     private RootPackageInfo findAllTypes()
     {
-        List<ClassGraph> classGraphs = getClassloaderConfig();
+        ClassGraphs classGraphs = getClassloaderConfig();
         RootPackageInfo r = new RootPackageInfo();
+        TypeIndex savedIndex = getSavedIndex();
+        TypeIndex index = new TypeIndex();
         
         if (classGraphs != null)
         {
             // Special case -- ClassGraph library (deliberately) doesn't return Object in its list
             // so we must add it ourselves to avoid problems like "Unknown type: Object" messages.
             r.addClass("java.lang.Object");
-            final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
-            for (ClassGraph classGraph : classGraphs)
+            final int threads = getScanThreads();
+            boolean scanned = false;
+
+            // Each user classpath element (jar or directory) is indexed separately:
+            for (File file : classGraphs.userClassGraph.getClasspathFiles())
             {
-                try (ScanResult result = classGraph.scan(threads))
-                {
-                    for (ClassInfo c : result.getAllClasses())
-                    {
-                        r.addClass(c.getName());
-                    }
-                }
-                catch (Throwable t)
+                ClassGraph elementClassGraph = new ClassGraph()
+                        .overrideClasspath(Collections.singletonList(file))
+                        .rejectPackages("bluej.*");
+                scanned |= indexElement(savedIndex, index, file.getAbsolutePath(),
+                        TypeIndex.getFingerprint(file), elementClassGraph, threads);
+            }
+
+            scanned |= indexSystemLibraries(savedIndex, index, classGraphs.systemClassGraph, threads);
+
+            if (scanned)
+            {
+                saveTypeIndex(savedIndex, index);
+            }
+        }
+
+        for (TypeIndex.Element element : index.getElements())
+        {
+            for (TypeIndex.IndexedType type : element.types)
+            {
+                r.addClass(type.name);
+            }
+        }
+        typeIndex = index;
+        return r;
+    }
+
+    /**
+     * Adds the types in the system libraries to an index, as for {@link #indexElement}.
+     * The system libraries are indexed as one, which only changes along with the JDK.
+     * 
+     * @return true if the system libraries were scanned.
+     */
+    @OnThread(Tag.Worker)
+    private static boolean indexSystemLibraries(TypeIndex savedIndex, TypeIndex index, ClassGraph systemClassGraph, int threads)
+    {
+        String javaHome = System.getProperty("java.home");
+        return indexElement(savedIndex, index, "system:" + javaHome,
+                TypeIndex.getFingerprint(new File(javaHome, "lib" + File.separator + "modules")),
+                systemClassGraph, threads);
+    }
+
+    /**
+     * Adds the types in a classpath element to an index: from the saved index, if the element
+     * has not changed since it was saved, or else by scanning the element.
+     * 
+     * @param key  The key for the element in the index (e.g. its path)
+     * @param fingerprint  The modification time and size of the element
+     *                     (see {@link TypeIndex#getFingerprint(File)})
+     * @return true if the element was scanned.
+     */
+    @OnThread(Tag.Worker)
+    private static boolean indexElement(TypeIndex savedIndex, TypeIndex index, String key, long[] fingerprint,
+            ClassGraph classGraph, int threads)
+    {
+        TypeIndex.Element element = savedIndex.getElement(key, fingerprint[0], fingerprint[1]);
+        if (element != null)
+        {
+            index.addElement(element);
+            return false;
+        }
+
+        // We need external classes to find the names of superclasses in other elements:
+        try (ScanResult result = classGraph.enableClassInfo().enableExternalClasses().scan(threads))
+        {
+            List<TypeIndex.IndexedType> types = new ArrayList<>();
+            for (ClassInfo c : result.getAllClasses())
+            {
+                if (!c.isExternalClass())
                 {
-                    Debug.reportError(t);
+                    types.add(indexType(c));
                 }
             }
+            index.addElement(new TypeIndex.Element(key, fingerprint[0], fingerprint[1], types));
         }
-        return r;
+        catch (Throwable t)
+        {
+            Debug.reportError(t);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the information needed about a type, for the type index, from its scanned bytecode.
+     * This mirrors what ImportedTypeCompletion takes from a loaded class.
+     */
+    @OnThread(Tag.Worker)
+    private static TypeIndex.IndexedType indexType(ClassInfo c)
+    {
+        String name = c.getName();
+
+        // The enclosing classes, outermost (i.e. shortest name) first:
+        List<ClassInfo> outerClasses = new ArrayList<>(c.getOuterClasses());
+        outerClasses.sort(Comparator.comparingInt(o -> o.getName().length()));
+        List<String> outerNames = new ArrayList<>();
+        String enclosingName = c.getPackageName().isEmpty() ? null : c.getPackageName();
+        for (ClassInfo outer : outerClasses)
+        {
+            outerNames.add(getSimpleName(outer.getName(), enclosingName));
+            enclosingName = outer.getName();
+        }
+        String simpleName = c.isAnonymousInnerClass() ? "" : getSimpleName(name, enclosingName);
+
+        Kind typeKind;
+        if (c.isInterface() || c.isAnnotation())
+        {
+            typeKind = Kind.INTERFACE;
+        }
+        else if (c.isEnum())
+        {
+            typeKind = Kind.ENUM;
+        }
+        else
+        {
+            typeKind = c.isFinal() ? Kind.CLASS_FINAL : Kind.CLASS_NON_FINAL;
+        }
+
+        ClassInfo superclass = c.getSuperclass();
+        return new TypeIndex.IndexedType(name, simpleName, c.getPackageName(),
+                c.getModuleInfo() == null ? null : c.getModuleInfo().getName(), c.getModifiers(), typeKind,
+                outerNames, superclass == null ? null : superclass.getName(),
+                new ArrayList<>(c.getInterfaces().directOnly().getNames()));
+    }
+
+    /**
+     * Gets the simple name of a class from its binary name, given the binary name of its
+     * enclosing class (or its package, for a top-level class; null for the default package).
+     * As with Class.getSimpleName(), the numbers which prefix the names of local classes
+     * are removed.
+     */
+    private static String getSimpleName(String name, String enclosingName)
+    {
+        String simpleName = enclosingName == null ? name : name.substring(enclosingName.length() + 1);
+        int start = 0;
+        while (start < simpleName.length() && Character.isDigit(simpleName.charAt(start)))
+        {
+            start++;
+        }
+        return simpleName.substring(start);
+    }
+
+    /**
+     * Saves the given type index, along with the elements of the previously saved index which
+     * were not used this time (as they may be used by other projects), if they still exist.
+     */
+    @OnThread(Tag.Worker)
+    private static void saveTypeIndex(TypeIndex savedIndex, TypeIndex index)
+    {
+        mergeTypeIndex(savedIndex, index).save(getTypeIndexPath(), getVersion());
+    }
+
+    /**
+     * Makes an index of the elements of the given index, and the elements of the previously
+     * saved index which are not in it, if they still exist.
+     */
+    @OnThread(Tag.Worker)
+    private static TypeIndex mergeTypeIndex(TypeIndex savedIndex, TypeIndex index)
+    {
+        TypeIndex merged = new TypeIndex();
+        Set<String> keys = new HashSet<>();
+        for (TypeIndex.Element element : index.getElements())
+        {
+            merged.addElement(element);
+            keys.add(element.key);
+        }
+        for (TypeIndex.Element element : savedIndex.getElements())
+        {
+            if (!keys.contains(element.key) && new File(element.key).exists())
+            {
+                merged.addElement(element);
+            }
+        }
+        return merged;
     }
 
     /**
@@ -450,6 +732,12 @@ public class ImportScanner
         return new File(Config.getUserConfigDir(), "import-cache.xml");
     }
 
+    /** Type index path to save to/load from */
+    private static File getTypeIndexPath()
+    {
+        return new File(Config.getUserConfigDir(), "type-index.dat");
+    }
+
     /**
      * Loads cached (java.**) imports into the given root package, if possible.
      */
@@ -511,7 +799,8 @@ public class ImportScanner
     {
         Element el = new Element("package");
         el.addAttribute(new Attribute("name", name));
-        pkg.types.values().forEach(acts -> {if (acts != null) el.appendChild(acts.toXML());});
+        // Types from the type index are not saved, as they will be found in the index again:
+        pkg.types.values().forEach(acts -> {if (acts != null && acts.isJavadocKnown()) el.appendChild(acts.toXML());});
         pkg.subPackages.forEach((subName, subPkg) -> el.appendChild(toXML(subPkg, subName)));
         return el;
     }
@@ -34,7 +34,6 @@ import bluej.parser.lexer.LocatableToken;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
-import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -821,7 +820,7 @@ public abstract class JavaUtils
     @OnThread(Tag.FXPlatform)
     public static String blankCodeCommentsAndStringLiterals(String codeStr, char obfChar)
     {
-        JavaLexer l = new JavaLexer(new StringReader(codeStr));
+        JavaLexer l = new JavaLexer(codeStr);
         StringBuilder sb = new StringBuilder();
         int currReaderPosition = 0;
         LocatableToken lastToken = null;
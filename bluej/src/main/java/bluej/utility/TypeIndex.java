@@ -0,0 +1,396 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import bluej.parser.AssistContent;
+import bluej.parser.AssistContent.CompletionKind;
+import bluej.parser.AssistContentThreadSafe;
+import bluej.pkgmgr.target.role.Kind;
+import bluej.utility.javafx.FXPlatformSupplier;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * An index of the types found by scanning classpath elements (jars and class directories),
+ * with the information needed to offer them as completions (see {@link ImportScanner}),
+ * as read from their bytecode.
+ *
+ * <p>The index is saved between sessions.  Each classpath element is stored with its
+ * modification time and size, so that only elements which have changed since they were
+ * last scanned need to be scanned again.
+ *
+ * <p>Only types are indexed, not their members: the index serves import completion, which
+ * only offers types.  Completion of members still loads the class (see ParseUtils).
+ */
+@OnThread(Tag.Any)
+class TypeIndex
+{
+    // Increase this when the format of the index file changes:
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The information about one type, as needed for an AssistContentThreadSafe.
+     */
+    static class IndexedType
+    {
+        // The binary name, e.g. "java.util.Map$Entry":
+        final String name;
+        final String simpleName;
+        final String packageName;
+        // May be null:
+        final String moduleName;
+        final int modifiers;
+        final Kind typeKind;
+        // The simple names of the enclosing classes, outermost first:
+        final List<String> outerClasses;
+        // The binary name of the direct superclass, or null if none:
+        final String superclass;
+        // The binary names of the directly implemented interfaces:
+        final List<String> interfaces;
+
+        IndexedType(String name, String simpleName, String packageName, String moduleName, int modifiers,
+                Kind typeKind, List<String> outerClasses, String superclass, List<String> interfaces)
+        {
+            this.name = name;
+            this.simpleName = simpleName;
+            this.packageName = packageName;
+            this.moduleName = moduleName;
+            this.modifiers = modifiers;
+            this.typeKind = typeKind;
+            this.outerClasses = outerClasses;
+            this.superclass = superclass;
+            this.interfaces = interfaces;
+        }
+
+        /**
+         * The name to use to find the javadoc for this type, e.g. "java.util.Map.Entry".
+         */
+        String getCanonicalName()
+        {
+            return name.replace('$', '.');
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException
+        {
+            writeString(out, name);
+            writeString(out, simpleName);
+            writeString(out, packageName);
+            writeString(out, moduleName);
+            out.writeInt(modifiers);
+            out.writeByte(typeKind.ordinal());
+            writeStrings(out, outerClasses);
+            writeString(out, superclass);
+            writeStrings(out, interfaces);
+        }
+
+        private static IndexedType readFrom(DataInputStream in) throws IOException
+        {
+            return new IndexedType(readString(in), readString(in), readString(in), readString(in), in.readInt(),
+                    Kind.values()[in.readByte()], readStrings(in), readString(in), readStrings(in));
+        }
+    }
+
+    /**
+     * The types found in one classpath element, and the state of the element when it was
+     * scanned.
+     */
+    static class Element
+    {
+        final String key;
+        final long lastModified;
+        final long size;
+        final List<IndexedType> types;
+
+        Element(String key, long lastModified, long size, List<IndexedType> types)
+        {
+            this.key = key;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.types = types;
+        }
+    }
+
+    // Elements, by key:
+    private final Map<String, Element> elements = new LinkedHashMap<>();
+    // All types, by binary name.  Where a type is in several elements, the first is used:
+    private final Map<String, IndexedType> types = new HashMap<>();
+
+    /**
+     * Get the element with the given key, if it is in the index and has the given
+     * modification time and size; otherwise returns null.
+     */
+    synchronized Element getElement(String key, long lastModified, long size)
+    {
+        Element element = elements.get(key);
+        if (element != null && element.lastModified == lastModified && element.size == size)
+        {
+            return element;
+        }
+        return null;
+    }
+
+    /**
+     * Add an element to the index, replacing any element with the same key.
+     */
+    synchronized void addElement(Element element)
+    {
+        elements.put(element.key, element);
+        for (IndexedType type : element.types)
+        {
+            types.putIfAbsent(type.name, type);
+        }
+    }
+
+    synchronized Collection<Element> getElements()
+    {
+        return new ArrayList<>(elements.values());
+    }
+
+    /**
+     * Get the type with the given binary name, or null if it is not in the index.
+     */
+    synchronized IndexedType getType(String name)
+    {
+        return types.get(name);
+    }
+
+    /**
+     * Make a completion for the given type, which need not be loaded.  This is equivalent to
+     * making an AssistContentThreadSafe from an ImportedTypeCompletion for the type.  The
+     * superclasses are found by looking them up in this index; if one is not in the index,
+     * the chain of superclasses stops there.
+     *
+     * @param javadocLookup  Looks up the javadoc for the type, when it is first needed.
+     */
+    AssistContentThreadSafe makeCompletion(IndexedType type, FXPlatformSupplier<String> javadocLookup)
+    {
+        List<String> superTypes = new ArrayList<>(type.interfaces);
+        if (type.typeKind != Kind.INTERFACE)
+        {
+            String superName = type.superclass;
+            while (superName != null && !superTypes.contains(superName))
+            {
+                superTypes.add(superName);
+                IndexedType superType = getType(superName);
+                superName = superType == null ? null : superType.superclass;
+            }
+            if (!type.name.equals("java.lang.Object") && !superTypes.contains("java.lang.Object"))
+            {
+                superTypes.add("java.lang.Object");
+            }
+        }
+        String declaringClass = type.outerClasses.isEmpty() ? null : String.join(".", type.outerClasses);
+        return new AssistContentThreadSafe(AssistContent.fromModifiers(type.modifiers), declaringClass, null,
+                CompletionKind.TYPE, type.simpleName, type.packageName, null, superTypes, null, type.typeKind, javadocLookup);
+    }
+
+    /**
+     * Get the modification time and size of a classpath element, to tell whether it has
+     * changed since it was last scanned.  For a jar, these are those of the file; for a
+     * directory, they are the latest modification time of the files within it, and the
+     * total size and number of files.
+     */
+    @OnThread(Tag.Worker)
+    static long[] getFingerprint(File file)
+    {
+        if (!file.isDirectory())
+        {
+            return new long[] {file.lastModified(), file.length()};
+        }
+        long[] fingerprint = new long[] {file.lastModified(), 0};
+        addFingerprint(file, fingerprint);
+        return fingerprint;
+    }
+
+    @OnThread(Tag.Worker)
+    private static void addFingerprint(File dir, long[] fingerprint)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+        for (File f : files)
+        {
+            if (f.isDirectory())
+            {
+                fingerprint[0] = Math.max(fingerprint[0], f.lastModified());
+                addFingerprint(f, fingerprint);
+            }
+            else if (f.getName().endsWith(".class"))
+            {
+                fingerprint[0] = Math.max(fingerprint[0], f.lastModified());
+                // Count each file, so that replacing one file by another of the same size shows:
+                fingerprint[1] += f.length() + 1;
+            }
+        }
+    }
+
+    /**
+     * Load an index from the given file.  Returns an empty index if the file doesn't
+     * exist or can't be read, or if it was written by a different version.
+     */
+    @OnThread(Tag.Worker)
+    static TypeIndex load(File file, String version)
+    {
+        TypeIndex index = new TypeIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != FORMAT_VERSION || !version.equals(readString(in)))
+            {
+                return index;
+            }
+            int count = in.readInt();
+            List<Element> elements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+            {
+                String key = readString(in);
+                long lastModified = in.readLong();
+                long size = in.readLong();
+                int typeCount = in.readInt();
+                List<IndexedType> types = new ArrayList<>(typeCount);
+                for (int j = 0; j < typeCount; j++)
+                {
+                    types.add(IndexedType.readFrom(in));
+                }
+                elements.add(new Element(key, lastModified, size, types));
+            }
+            // Only use the index if it was all read successfully:
+            elements.forEach(index::addElement);
+        }
+        catch (FileNotFoundException e)
+        {
+            // No index yet
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Debug.message(e.getClass().getName() + " while reading type index: " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Save this index to the given file.
+     */
+    @OnThread(Tag.Worker)
+    void save(File file, String version)
+    {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, version);
+                Collection<Element> elements = getElements();
+                out.writeInt(elements.size());
+                for (Element element : elements)
+                {
+                    writeString(out, element.key);
+                    out.writeLong(element.lastModified);
+                    out.writeLong(element.size);
+                    out.writeInt(element.types.size());
+                    for (IndexedType type : element.types)
+                    {
+                        type.writeTo(out);
+                    }
+                }
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Error saving type index", e);
+            tempFile.delete();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        if (s == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length == -1)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException
+    {
+        out.writeInt(strings.size());
+        for (String s : strings)
+        {
+            writeString(out, s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException
+    {
+        int count = in.readInt();
+        if (count == 0)
+        {
+            return Collections.emptyList();
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+}
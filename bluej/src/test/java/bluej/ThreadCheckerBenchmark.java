@@ -0,0 +1,173 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * A benchmark (not a test; run it manually, via the threadcheckerBenchmark task) of how
+ * much time the threadchecker compiler plugin adds to compiling the bluej module.  The
+ * module is compiled in-process, repeatedly:
+ * 
+ *  - without the checker,
+ *  - with the checker checking everything,
+ *  - with the checker using its cache (see TCCache), with nothing changed, and
+ *  - with the checker using its cache, after a change to the body of one class.
+ *
+ * The arguments are the processor path (containing the checker), the source directories
+ * (separated by the path separator), and then any other options to pass to javac, such as
+ * the class path.
+ */
+public class ThreadCheckerBenchmark
+{
+    private static final int RUNS = 5;
+    private static final String PLUGIN = "-Xplugin:threadchecker.TCPlugin";
+    
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: ThreadCheckerBenchmark <processor path> <source dirs> [javac options...]");
+            System.exit(1);
+        }
+        
+        List<File> sources = new ArrayList<>();
+        for (String dir : args[1].split(File.pathSeparator))
+        {
+            try (Stream<Path> paths = Files.walk(Path.of(dir)))
+            {
+                paths.filter(p -> p.toString().endsWith(".java")).map(Path::toFile).forEach(sources::add);
+            }
+        }
+        
+        Path tempDir = Files.createTempDirectory("threadchecker-benchmark");
+        try
+        {
+            String cache = "cache=" + tempDir.resolve("threadchecker.txt");
+            List<String> options = new ArrayList<>(Arrays.asList("-d", tempDir.resolve("classes").toString(),
+                    "-processorpath", args[0], "-proc:none", "-implicit:none", "-nowarn", "-encoding", "UTF-8"));
+            options.addAll(Arrays.asList(args).subList(2, args.length));
+            
+            // Fill the cache before we start:
+            compile(sources, options, PLUGIN + " " + cache, null);
+            
+            // The first run of each warms up the JIT:
+            long[] best = new long[] {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+            for (int run = 0; run <= RUNS; run++)
+            {
+                long[] times = new long[] {
+                    compile(sources, options, null, null),
+                    compile(sources, options, PLUGIN, null),
+                    compile(sources, options, PLUGIN + " " + cache, null),
+                    // Change the first source, differently each time:
+                    compile(sources, options, PLUGIN + " " + cache, "\n// Changed for run " + run + "\n")
+                };
+                if (run > 0)
+                {
+                    for (int i = 0; i < times.length; i++)
+                    {
+                        best[i] = Math.min(best[i], times[i]);
+                    }
+                }
+            }
+            
+            System.out.println(String.format("%d source files; best of %d runs:", sources.size(), RUNS));
+            System.out.println(String.format("  without checker:               %6d ms", best[0] / 1000000));
+            System.out.println(String.format("  with checker:                  %6d ms (+%d ms)", best[1] / 1000000, (best[1] - best[0]) / 1000000));
+            System.out.println(String.format("  with checker, cached:          %6d ms (+%d ms)", best[2] / 1000000, (best[2] - best[0]) / 1000000));
+            System.out.println(String.format("  with checker, one file edited: %6d ms (+%d ms)", best[3] / 1000000, (best[3] - best[0]) / 1000000));
+        }
+        finally
+        {
+            try (Stream<Path> paths = Files.walk(tempDir))
+            {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+    
+    /**
+     * Compile the sources, returning the time taken in nanoseconds.
+     * 
+     * @param plugin  The plugin option, or null to compile without the checker
+     * @param change  Text to add to the end of the first source file, or null to leave it unchanged
+     */
+    private static long compile(List<File> sources, List<String> options, String plugin, String change) throws IOException
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))
+        {
+            List<JavaFileObject> units = new ArrayList<>();
+            fileManager.getJavaFileObjectsFromFiles(sources).forEach(units::add);
+            if (change != null)
+            {
+                // The same URI, so that the checker sees it as the same file:
+                JavaFileObject original = units.get(0);
+                String content = original.getCharContent(true) + change;
+                units.set(0, new SimpleJavaFileObject(original.toUri(), JavaFileObject.Kind.SOURCE)
+                {
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors)
+                    {
+                        return content;
+                    }
+                });
+            }
+            
+            List<String> allOptions = new ArrayList<>(options);
+            if (plugin != null)
+            {
+                allOptions.add(plugin);
+            }
+            
+            long start = System.nanoTime();
+            boolean success = compiler.getTask(null, fileManager, diagnostics, allOptions, null, units).call();
+            long time = System.nanoTime() - start;
+            if (!success)
+            {
+                throw new IllegalStateException("Compilation failed:\n" + diagnostics.getDiagnostics().stream()
+                        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                        .map(Object::toString).collect(Collectors.joining("\n")));
+            }
+            return time;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * A benchmark (not a test; run it manually via main) of sending Blackbox events to a
+ * server on this machine, in events per second:
+ *
+ * <ul>
+ * <li>as before the spool: a new HTTP client (and so a new connection) for each event,
+ * as DataSubmitter.postData did;</li>
+ * <li>adding the events to an EventSpool, which is all the recording thread now waits for;</li>
+ * <li>sending the spooled events with a SpoolSender, over one kept-alive connection.</li>
+ * </ul>
+ *
+ * <p>The server does nothing but read each body and reply, so these are the costs of the
+ * client side and of the connections; a real server, and the network, add their own time
+ * to each post (and over the network, each new connection costs at least one more round
+ * trip, plus a TLS handshake for the real server).  The server is a minimal HTTP/1.1 one
+ * with a thread per connection, because the JDK's HttpServer is slow to serve the next
+ * request on a kept-alive connection (over 1ms per request here), which would make
+ * connection reuse look worse than it is.
+ */
+public class EventSpoolBenchmark
+{
+    private static final int EVENTS = 2000;
+    private static final int EVENT_SIZE = 2000;
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws Exception
+    {
+        AtomicInteger received = new AtomicInteger();
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread acceptThread = new Thread("Accept") {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    while (true)
+                    {
+                        Socket socket = server.accept();
+                        Thread connectionThread = new Thread(() -> serve(socket, received), "Connection");
+                        connectionThread.setDaemon(true);
+                        connectionThread.start();
+                    }
+                }
+                catch (IOException e)
+                {
+                    // Server closed; we are finished
+                }
+            }
+        };
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        String url = "http://127.0.0.1:" + server.getLocalPort() + "/master_events";
+
+        byte[] body = new byte[EVENT_SIZE];
+        Arrays.fill(body, (byte)'x');
+
+        try
+        {
+            double bestPerClient = 0, bestSpooled = 0, bestSent = 0;
+            for (int run = 0; run < RUNS; run++)
+            {
+                received.set(0);
+                long start = System.nanoTime();
+                for (int i = 0; i < EVENTS; i++)
+                {
+                    postWithNewClient(url, body);
+                }
+                bestPerClient = Math.max(bestPerClient, perSecond(EVENTS, System.nanoTime() - start));
+                check(received, EVENTS);
+
+                received.set(0);
+                File dir = Files.createTempDirectory("spool").toFile();
+                EventSpool spool = new EventSpool(dir);
+                SpoolSender sender = new SpoolSender(spool, url, 10000, 60000, () -> {});
+                start = System.nanoTime();
+                for (int i = 0; i < EVENTS; i++)
+                {
+                    spool.add("text/plain", body);
+                }
+                bestSpooled = Math.max(bestSpooled, perSecond(EVENTS, System.nanoTime() - start));
+
+                start = System.nanoTime();
+                sender.start();
+                if (!spool.waitUntilEmpty(120000))
+                {
+                    throw new IllegalStateException("Spool was not sent");
+                }
+                bestSent = Math.max(bestSent, perSecond(EVENTS, System.nanoTime() - start));
+                sender.stop();
+                spool.close();
+                check(received, EVENTS);
+                for (File f : dir.listFiles())
+                {
+                    f.delete();
+                }
+                dir.delete();
+            }
+
+            System.out.println(String.format("%d events of %d bytes; best of %d runs:", EVENTS, EVENT_SIZE, RUNS));
+            System.out.println(String.format("  new client per event (before): %8.0f events/s", bestPerClient));
+            System.out.println(String.format("  added to spool:                %8.0f events/s", bestSpooled));
+            System.out.println(String.format("  sent from spool:               %8.0f events/s", bestSent));
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+
+    /**
+     * Serve the requests on one connection, until the client closes it.
+     */
+    private static void serve(Socket socket, AtomicInteger received)
+    {
+        try (Socket s = socket)
+        {
+            s.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            byte[] response = "HTTP/1.1 200 OK\r\nX-Status: Created\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+            while (true)
+            {
+                int contentLength = -1;
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty())
+                {
+                    if (line.toLowerCase().startsWith("content-length:"))
+                    {
+                        contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                    }
+                }
+                if (line == null || contentLength < 0)
+                {
+                    return;
+                }
+                if (in.readNBytes(contentLength).length < contentLength)
+                {
+                    return;
+                }
+                received.incrementAndGet();
+                out.write(response);
+                out.flush();
+            }
+        }
+        catch (IOException e)
+        {
+            // Connection closed
+        }
+    }
+
+    /**
+     * Read a line ending in CRLF, without the line ending, or null at the end of the stream.
+     */
+    private static String readLine(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1)
+        {
+            if (c == '\n')
+            {
+                String s = line.toString(StandardCharsets.US_ASCII);
+                return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+            }
+            line.write(c);
+        }
+        return null;
+    }
+
+    private static void postWithNewClient(String url, byte[] body) throws Exception
+    {
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, 10000);
+        HttpConnectionParams.setSoTimeout(params, 10000);
+        HttpClient client = new DefaultHttpClient(params);
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new ByteArrayEntity(body));
+        HttpResponse response = client.execute(post);
+        EntityUtils.consume(response.getEntity());
+        client.getConnectionManager().shutdown();
+    }
+
+    private static double perSecond(int events, long nanos)
+    {
+        return events / (nanos / 1e9);
+    }
+
+    private static void check(AtomicInteger received, int expected)
+    {
+        if (received.get() != expected)
+        {
+            throw new IllegalStateException("Server received " + received.get() + " events, not " + expected);
+        }
+    }
+}
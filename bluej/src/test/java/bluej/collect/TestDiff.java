@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014  Michael Kolling and John Rosenberg 
+ Copyright (C) 2014,2026  Michael Kolling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -54,7 +54,13 @@ public class TestDiff extends TestCase
     private void assertDiffRoundTrip(String[] orig, String[] mod) throws IOException, InterruptedException
     {
         // Get the diff using our library:
-        Patch patch = DiffUtils.diff(Arrays.asList(orig), Arrays.asList(mod));
+        assertDiffRoundTrip(orig, mod, DiffUtils.diff(Arrays.asList(orig), Arrays.asList(mod)));
+        // And skipping the lines which are the same at the start and end:
+        assertDiffRoundTrip(orig, mod, DataCollectorImpl.diffLines(Arrays.asList(orig), Arrays.asList(mod)));
+    }
+
+    private void assertDiffRoundTrip(String[] orig, String[] mod, Patch patch) throws IOException, InterruptedException
+    {
         String diff = DataCollectorImpl.makeDiff(patch);
         // Now send it on a round trip with the system diff.
         
@@ -117,6 +123,49 @@ public class TestDiff extends TestCase
 "}"});
     }
     
+    public void testEditsInMiddle() throws IOException, InterruptedException
+    {
+        String[] orig = new String[] {
+"class Foo",
+"{",
+"  public int x;",
+"  public int y;",
+"",
+"  public int z;",
+"}"};
+        assertDiffRoundTrip(orig, new String[] {
+"class Foo",
+"{",
+"  public int x;",
+"  public int w;",
+"  public int y;",
+"",
+"  public int z;",
+"}"});
+        assertDiffRoundTrip(orig, new String[] {
+"class Foo",
+"{",
+"  public int x;",
+"  public int z;",
+"}"});
+        assertDiffRoundTrip(orig, new String[] {
+"class Foo",
+"{",
+"  public int x;",
+"  public int y = 3;",
+"",
+"  public int z;",
+"}"});
+        assertDiffRoundTrip(orig, new String[] {
+"class Foo",
+"{",
+"  public int y;",
+"",
+"  public int z;",
+"  public int x;",
+"}"});
+    }
+    
     // This test can take a little while -- 75 seconds on my machine
     /*
     public void testBruteForceDiffs() throws IOException, InterruptedException
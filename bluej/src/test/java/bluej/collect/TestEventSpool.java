@@ -0,0 +1,282 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.collect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+public class TestEventSpool extends TestCase
+{
+    private File dir;
+    private HttpServer server;
+    // The bodies received by the server, in order:
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    // The number of requests for which the server should fail:
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("spool").toFile();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/master_events", exchange -> {
+            String body;
+            try (InputStream is = exchange.getRequestBody())
+            {
+                body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+            {
+                exchange.sendResponseHeaders(503, -1);
+            }
+            else if (body.startsWith("reject"))
+            {
+                exchange.getResponseHeaders().add("X-Status", "Error");
+                exchange.sendResponseHeaders(200, -1);
+            }
+            else
+            {
+                received.add(body);
+                exchange.getResponseHeaders().add("X-Status", "Created");
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        server.stop(0);
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private String getUrl()
+    {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/master_events";
+    }
+
+    private static void add(EventSpool spool, String body)
+    {
+        spool.add("text/plain", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String take(EventSpool spool)
+    {
+        EventSpool.Record record = spool.peek();
+        spool.remove(record);
+        return new String(record.body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Events not sent in one session should be there in the next, in order.
+     */
+    public void testPersistence()
+    {
+        EventSpool spool = new EventSpool(dir);
+        for (int i = 0; i < 10; i++)
+        {
+            add(spool, "event " + i);
+        }
+        assertEquals("event 0", take(spool));
+        assertEquals("event 1", take(spool));
+        spool.close();
+
+        spool = new EventSpool(dir);
+        assertEquals(8, spool.size());
+        add(spool, "event 10");
+        for (int i = 2; i <= 10; i++)
+        {
+            assertEquals("event " + i, take(spool));
+        }
+        assertEquals(0, spool.size());
+        spool.close();
+
+        spool = new EventSpool(dir);
+        assertEquals(0, spool.size());
+        spool.close();
+    }
+
+    /**
+     * A record only partly written (e.g. if BlueJ was killed) should be ignored.
+     */
+    public void testTornWrite() throws IOException
+    {
+        EventSpool spool = new EventSpool(dir);
+        add(spool, "event 0");
+        add(spool, "event 1");
+        spool.close();
+
+        File segment = dir.listFiles((d, name) -> name.endsWith(".seg"))[0];
+        byte[] content = Files.readAllBytes(segment.toPath());
+        Files.write(segment.toPath(), Arrays.copyOf(content, content.length - 3));
+
+        spool = new EventSpool(dir);
+        assertEquals(1, spool.size());
+        assertEquals("event 0", take(spool));
+        add(spool, "event 2");
+        assertEquals("event 2", take(spool));
+        spool.close();
+    }
+
+    /**
+     * A second spool in the same directory (another BlueJ) should work, in memory only.
+     */
+    public void testLocked()
+    {
+        EventSpool spool = new EventSpool(dir);
+        EventSpool other = new EventSpool(dir);
+        add(spool, "event 0");
+        add(other, "other 0");
+        assertEquals("other 0", take(other));
+        assertEquals("event 0", take(spool));
+        other.close();
+        spool.close();
+    }
+
+    /**
+     * Events should be sent in order, using one connection, and then removed from the spool.
+     */
+    public void testSend()
+    {
+        final int count = 500;
+        AtomicInteger reported = new AtomicInteger();
+        EventSpool spool = new EventSpool(dir);
+        SpoolSender sender = new SpoolSender(spool, getUrl(), 10000, 60000, reported::incrementAndGet);
+        sender.start();
+        for (int i = 0; i < count; i++)
+        {
+            add(spool, "event " + i);
+        }
+        assertTrue(spool.waitUntilEmpty(30000));
+        sender.stop();
+        spool.close();
+
+        assertEquals(0, reported.get());
+        assertEquals(count, received.size());
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals("event " + i, received.get(i));
+        }
+    }
+
+    /**
+     * If the server is down for a while, events should be sent (in order) once it is back.
+     */
+    public void testOutage()
+    {
+        AtomicInteger reported = new AtomicInteger();
+        EventSpool spool = new EventSpool(dir);
+        SpoolSender sender = new SpoolSender(spool, getUrl(), 10000, 60000, reported::incrementAndGet);
+        failures.set(2);
+        for (int i = 0; i < 5; i++)
+        {
+            add(spool, "event " + i);
+        }
+        sender.start();
+        // Retried after 1s, then 2s:
+        assertTrue(spool.waitUntilEmpty(10000));
+        sender.stop();
+        spool.close();
+
+        assertEquals(0, reported.get());
+        assertEquals(5, received.size());
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("event " + i, received.get(i));
+        }
+        assertEquals(2, sender.getCounts()[1]);
+    }
+
+    /**
+     * If sending fails for too long, the failure should be reported, and the unsent
+     * events kept for the next session.
+     */
+    public void testGiveUp() throws InterruptedException
+    {
+        AtomicInteger reported = new AtomicInteger();
+        server.stop(0);
+        EventSpool spool = new EventSpool(dir);
+        SpoolSender sender = new SpoolSender(spool, getUrl(), 1000, 0, reported::incrementAndGet);
+        add(spool, "event 0");
+        sender.start();
+        for (int i = 0; i < 50 && reported.get() == 0; i++)
+        {
+            Thread.sleep(100);
+        }
+        sender.stop();
+        spool.close();
+        assertEquals(1, reported.get());
+
+        spool = new EventSpool(dir);
+        assertEquals(1, spool.size());
+        spool.close();
+    }
+
+    /**
+     * If the server rejects an event, the rest of that session's events should not be
+     * sent, but those of other sessions should.
+     */
+    public void testRejected()
+    {
+        EventSpool spool = new EventSpool(dir);
+        add(spool, "reject 0");
+        add(spool, "event 1");
+        spool.close();
+
+        AtomicInteger reported = new AtomicInteger();
+        spool = new EventSpool(dir);
+        add(spool, "event 2");
+        add(spool, "reject 3");
+        add(spool, "event 4");
+        SpoolSender sender = new SpoolSender(spool, getUrl(), 10000, 60000, reported::incrementAndGet);
+        sender.start();
+        assertTrue(spool.waitUntilEmpty(10000));
+        sender.stop();
+        spool.close();
+
+        assertEquals(1, reported.get());
+        assertEquals(Arrays.asList("event 2"), received);
+
+        spool = new EventSpool(dir);
+        assertEquals(0, spool.size());
+        spool.close();
+    }
+}
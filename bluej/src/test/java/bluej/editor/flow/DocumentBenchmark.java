@@ -0,0 +1,110 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A benchmark (not a test; run it manually via main) of keystroke latency in a
+ * HoleDocument holding a large file.  It simulates typing in bursts at random places
+ * in the document: inserting characters, newlines and backspaces, and after each
+ * keystroke doing the lookups that the editor does (the caret's line and column,
+ * the start of the caret's line).  It reports the time taken per keystroke.
+ */
+public class DocumentBenchmark
+{
+    private static final int[] LINE_COUNTS = {1000, 20000, 100000};
+    private static final int KEYSTROKES = 20000;
+    private static final int WARMUP_KEYSTROKES = 20000;
+
+    public static void main(String[] args)
+    {
+        for (int lineCount : LINE_COUNTS)
+        {
+            // Warm up the JIT on the same workload before measuring:
+            run(lineCount, WARMUP_KEYSTROKES, false);
+            run(lineCount, KEYSTROKES, true);
+        }
+    }
+
+    private static void run(int lineCount, int keystrokes, boolean report)
+    {
+        Random r = new Random(1);
+        HoleDocument document = new HoleDocument();
+        document.replaceText(0, 0, makeContent(lineCount, r));
+        TrackedPosition caret = document.trackPosition(0, Document.Bias.FORWARD);
+
+        long[] times = new long[keystrokes];
+        for (int i = 0; i < keystrokes; i++)
+        {
+            // Jump to a new place every so often, as the user moves around:
+            if (i % 50 == 0)
+            {
+                caret.moveTo(r.nextInt(document.getLength() + 1));
+            }
+
+            long start = System.nanoTime();
+            int pos = caret.getPosition();
+            int kind = r.nextInt(20);
+            if (kind == 0)
+            {
+                document.replaceText(pos, pos, "\n");
+            }
+            else if (kind == 1 && pos > 0)
+            {
+                document.replaceText(pos - 1, pos, "");
+            }
+            else
+            {
+                document.replaceText(pos, pos, "x");
+            }
+            int line = caret.getLine();
+            caret.getColumn();
+            document.getLineStart(line);
+            document.getLineEnd(line);
+            times[i] = System.nanoTime() - start;
+        }
+
+        if (report)
+        {
+            Arrays.sort(times);
+            System.out.println(String.format("%,7d lines: median %,6d ns, 99th percentile %,7d ns, max %,9d ns per keystroke",
+                    lineCount, times[keystrokes / 2], times[keystrokes * 99 / 100], times[keystrokes - 1]));
+        }
+    }
+
+    private static String makeContent(int lineCount, Random r)
+    {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < lineCount; i++)
+        {
+            int indent = r.nextInt(4) * 4;
+            for (int j = 0; j < indent; j++)
+            {
+                content.append(' ');
+            }
+            content.append("int value").append(i).append(" = ").append(r.nextInt()).append(";\n");
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import bluej.groupwork.StatusHandle;
+import bluej.groupwork.StatusListener;
+import bluej.groupwork.TeamStatusInfo;
+import bluej.groupwork.TeamworkCommandResult;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.RefUpdate;
+
+/**
+ * A benchmark (not a test; run it manually via main) of the local Git status, as shown
+ * in the status window, for a generated repository of 5000 files in 50 directories.
+ * It times a status with a new repository object (cold, as before the status was cached),
+ * a status with nothing changed since the last (warm), and a status after changing one
+ * file, which only walks that file again.
+ */
+public class GitStatusBenchmark
+{
+    private static final int DIRECTORIES = 50;
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+        File projectDir = Files.createTempDirectory("bluej-git-benchmark").toFile();
+        try
+        {
+            generateRepository(projectDir);
+            File changedFile = new File(new File(projectDir, "dir0"), "Class0.java");
+
+            long cold = Long.MAX_VALUE;
+            long warm = Long.MAX_VALUE;
+            long changed = Long.MAX_VALUE;
+            int[] walks = null;
+            // The first run warms up the JIT and the file cache:
+            for (int run = 0; run <= RUNS; run++)
+            {
+                GitRepository repository = new GitRepository(projectDir, "file", "", "master", "", "", "Benchmark", "benchmark@example.com");
+
+                long start = System.nanoTime();
+                int entries = getStatus(repository);
+                long coldTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                getStatus(repository);
+                long warmTime = System.nanoTime() - start;
+
+                Files.writeString(changedFile.toPath(), "public class Class0 { int run" + run + "; }\n");
+                // Let the change be reported by the file system:
+                Thread.sleep(200);
+                start = System.nanoTime();
+                getStatus(repository);
+                long changedTime = System.nanoTime() - start;
+
+                if (run > 0)
+                {
+                    cold = Math.min(cold, coldTime);
+                    warm = Math.min(warm, warmTime);
+                    changed = Math.min(changed, changedTime);
+                }
+                walks = repository.getStatusCache().getWalkCounts();
+                GitStatusCache.closeCache(projectDir);
+                if (run == 0)
+                {
+                    System.out.println(String.format("%d files, %d status entries; best of %d runs:",
+                            DIRECTORIES * FILES_PER_DIRECTORY, entries, RUNS));
+                }
+            }
+
+            System.out.println(String.format("  cold status:                 %7.1f ms", cold / 1e6));
+            System.out.println(String.format("  warm status, no changes:     %7.1f ms", warm / 1e6));
+            System.out.println(String.format("  warm status, 1 file changed: %7.1f ms", changed / 1e6));
+            System.out.println(String.format("  (in each run: %d full walk(s), %d partial walk(s))", walks[0], walks[1]));
+        }
+        finally
+        {
+            try (Stream<Path> paths = Files.walk(projectDir.toPath()))
+            {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Get the status of all files (without fetching), returning the number of entries.
+     */
+    private static int getStatus(GitRepository repository)
+    {
+        int[] entries = new int[1];
+        TeamworkCommandResult result = new GitStatusCommand(repository, new StatusListener() {
+            @Override
+            public void gotStatus(TeamStatusInfo info)
+            {
+                entries[0] += 1;
+            }
+
+            @Override
+            public void statusComplete(StatusHandle statusHandle)
+            {
+            }
+        }, f -> !f.getName().equals(".git"), false, false).getResult();
+        if (result.isError())
+        {
+            throw new IllegalStateException(result.getErrorMessage());
+        }
+        return entries[0];
+    }
+
+    /**
+     * Generate a repository with one commit, and a remote branch at the same commit.
+     */
+    private static void generateRepository(File projectDir) throws Exception
+    {
+        try (Git git = Git.init().setDirectory(projectDir).call())
+        {
+            for (int d = 0; d < DIRECTORIES; d++)
+            {
+                File dir = new File(projectDir, "dir" + d);
+                dir.mkdirs();
+                for (int i = 0; i < FILES_PER_DIRECTORY; i++)
+                {
+                    Files.writeString(new File(dir, "Class" + i + ".java").toPath(),
+                            "public class Class" + i + "\n{\n    private int field" + d + ";\n}\n");
+                }
+            }
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Generated").setAuthor("Benchmark", "benchmark@example.com")
+                    .setCommitter("Benchmark", "benchmark@example.com").call();
+
+            RefUpdate update = git.getRepository().updateRef("refs/remotes/origin/" + git.getRepository().getBranch());
+            update.setNewObjectId(git.getRepository().resolve("HEAD"));
+            if (update.update() == RefUpdate.Result.REJECTED)
+            {
+                throw new IOException("Could not create remote branch");
+            }
+        }
+    }
+}
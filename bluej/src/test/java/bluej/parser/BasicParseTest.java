@@ -21,6 +21,10 @@
  */
 package bluej.parser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
@@ -1053,4 +1057,47 @@ public class BasicParseTest
         assertNotNull(info);
         assertTrue(info.hadParseError());
     }
+
+    /**
+     * Check that class information is unchanged by writing it out and reading it back
+     * (as is done by the class information cache).
+     */
+    @Test
+    public void testClassInfoSerialisation() throws Exception
+    {
+        String[] files = {"java_basic.dat", "A.dat", "15_generic.dat", "AffinedTransformer.dat"};
+        for (String fileName : files)
+        {
+            ClassInfo info = InfoParser.parse(getFile(fileName));
+            assertNotNull(info);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            info.writeTo(new DataOutputStream(bytes));
+            ClassInfo copy = ClassInfo.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            assertEquals(fileName, info.getName(), copy.getName());
+            assertEquals(fileName, info.foundPublicClass(), copy.foundPublicClass());
+            assertEquals(fileName, info.getSuperclass(), copy.getSuperclass());
+            assertEquals(fileName, info.getImplements(), copy.getImplements());
+            assertEquals(fileName, info.getUsed(), copy.getUsed());
+            assertEquals(fileName, info.getComments(), copy.getComments());
+            assertEquals(fileName, info.getTypeParameterTexts(), copy.getTypeParameterTexts());
+            assertEquals(fileName, info.hasTypeParameter(), copy.hasTypeParameter());
+            assertEquals(fileName, info.isInterface(), copy.isInterface());
+            assertEquals(fileName, info.isAbstract(), copy.isAbstract());
+            assertEquals(fileName, info.isUnitTest(), copy.isUnitTest());
+            assertEquals(fileName, info.isEnum(), copy.isEnum());
+            assertEquals(fileName, info.hadParseError(), copy.hadParseError());
+            assertEquals(fileName, info.hasPackageStatement(), copy.hasPackageStatement());
+            assertEquals(fileName, info.getPackage(), copy.getPackage());
+            assertEquals(fileName, String.valueOf(info.getPackageStatementSelection()), String.valueOf(copy.getPackageStatementSelection()));
+            assertEquals(fileName, String.valueOf(info.getPackageNameSelection()), String.valueOf(copy.getPackageNameSelection()));
+            assertEquals(fileName, String.valueOf(info.getPackageSemiSelection()), String.valueOf(copy.getPackageSemiSelection()));
+            assertEquals(fileName, String.valueOf(info.getSuperReplaceSelection()), String.valueOf(copy.getSuperReplaceSelection()));
+            assertEquals(fileName, String.valueOf(info.getExtendsReplaceSelection()), String.valueOf(copy.getExtendsReplaceSelection()));
+            assertEquals(fileName, String.valueOf(info.getExtendsInsertSelection()), String.valueOf(copy.getExtendsInsertSelection()));
+            assertEquals(fileName, String.valueOf(info.getImplementsInsertSelection()), String.valueOf(copy.getImplementsInsertSelection()));
+            assertEquals(fileName, String.valueOf(info.getInterfaceSelections()), String.valueOf(copy.getInterfaceSelections()));
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import bluej.parser.lexer.JavaTokenTypes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A benchmark (not a test; run it manually via main) of lexer and parser throughput.
+ * It reads the parser test fixtures and, if present, the sources in the JDK's src.zip,
+ * and reports the throughput of lexing and parsing them, both from a Reader and
+ * directly from the text.  (Parsing stops at the first error, so sources using syntax
+ * which the parser does not support are only partly parsed.)
+ *
+ * <p>The first argument, if given, is the directory containing the fixtures (by default,
+ * src/test/resources/bluej/parser, relative to the working directory).
+ */
+public class LexerBenchmark
+{
+    // Limit the number of JDK sources, to keep the run time reasonable:
+    private static final int MAX_JDK_SOURCES = 3000;
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) throws IOException
+    {
+        File fixtures = new File(args.length > 0 ? args[0] : "src/test/resources/bluej/parser");
+        List<String> sources = new ArrayList<>();
+        File[] files = fixtures.listFiles((dir, name) -> name.endsWith(".dat"));
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                sources.add(Files.readString(file.toPath(), StandardCharsets.UTF_8));
+            }
+        }
+        addJdkSources(sources);
+
+        long chars = 0;
+        for (String source : sources)
+        {
+            chars += source.length();
+        }
+        System.out.println(String.format("%,d sources, %,d characters", sources.size(), chars));
+
+        // Run everything twice, the first time to warm up the JIT:
+        for (int run = 0; run < 2; run++)
+        {
+            boolean report = run == 1;
+            measure("Lex from Reader", sources, chars, report, s -> lex(JavaParser.getLexer(new StringReader(s))));
+            measure("Lex from text", sources, chars, report, s -> lex(JavaParser.getLexer(s)));
+            measure("Parse from Reader", sources, chars, report, s -> parse(new JavaParser(new StringReader(s))));
+            measure("Parse from text", sources, chars, report, s -> parse(new JavaParser(s)));
+        }
+    }
+
+    private static void addJdkSources(List<String> sources) throws IOException
+    {
+        File srcZip = new File(System.getProperty("java.home"), "lib/src.zip");
+        if (!srcZip.exists())
+        {
+            System.out.println("No JDK sources found at " + srcZip);
+            return;
+        }
+        try (ZipFile zip = new ZipFile(srcZip))
+        {
+            int count = 0;
+            for (ZipEntry entry : Collections.list(zip.entries()))
+            {
+                if (entry.getName().endsWith(".java") && count++ < MAX_JDK_SOURCES)
+                {
+                    try (InputStream is = zip.getInputStream(entry))
+                    {
+                        sources.add(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void lex(TokenStream lexer)
+    {
+        while (lexer.nextToken().getType() != JavaTokenTypes.EOF)
+        {
+        }
+    }
+
+    private static void parse(JavaParser parser)
+    {
+        try
+        {
+            parser.parseCU();
+        }
+        catch (ParseFailure pf)
+        {
+            // The plain JavaParser gives up at the first error, and some JDK sources use
+            // syntax which it doesn't support.  Either way, the same work is done in each mode.
+        }
+    }
+
+    private static void measure(String name, List<String> sources, long chars, boolean report,
+            Consumer<String> process)
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++)
+        {
+            for (String source : sources)
+            {
+                process.accept(source);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        if (report)
+        {
+            double megabytesPerSecond = (chars * REPETITIONS / 1e6) / (nanos / 1e9);
+            System.out.println(String.format("%-18s %7.1f MB/s", name + ":", megabytesPerSecond));
+        }
+    }
+}
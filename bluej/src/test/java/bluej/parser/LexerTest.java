@@ -1058,4 +1058,42 @@ public class LexerTest extends junit.framework.TestCase
             }
         }
     }
+    
+    /**
+     * Check that lexing from a CharSequence gives the same tokens, with the same positions,
+     * as lexing from a Reader (including where the text has unicode escapes, or minus signs
+     * which might be part of a keyword).
+     */
+    public void testCharSequenceLexer()
+    {
+        String[] sources = {
+            "class A { int x = a-b; String s = \"abc\"; }",
+            "sealed non-sealed non-sealedx non-sealed- a-b-c\n  x--y",
+            "int \\u0061b = 1;\n char c = '\\u0022';",
+            "/* comment\n */ // line\n\"\"\"\n  text\n  \"\"\"\n0x1F 1.5e3f 'c'",
+            "",
+        };
+        for (String source : sources)
+        {
+            TokenStream fromReader = getNonfilteringLexerFor(source);
+            TokenStream fromText = JavaParser.getLexer(source);
+            while (true)
+            {
+                LocatableToken expected = fromReader.nextToken();
+                LocatableToken actual = fromText.nextToken();
+                assertEquals(source, expected.getType(), actual.getType());
+                assertEquals(source, expected.getText(), actual.getText());
+                assertEquals(source, expected.getPosition(), actual.getPosition());
+                assertEquals(source, expected.getEndPosition(), actual.getEndPosition());
+                assertEquals(source, expected.getLine(), actual.getLine());
+                assertEquals(source, expected.getColumn(), actual.getColumn());
+                assertEquals(source, expected.getEndLine(), actual.getEndLine());
+                assertEquals(source, expected.getEndColumn(), actual.getEndColumn());
+                if (expected.getType() == JavaTokenTypes.EOF)
+                {
+                    break;
+                }
+            }
+        }
+    }
 }
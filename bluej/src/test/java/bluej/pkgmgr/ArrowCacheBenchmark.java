@@ -0,0 +1,232 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import bluej.pkgmgr.dependency.Dependency;
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.WritableImage;
+
+/**
+ * A benchmark (not a test; run it manually via main) of repainting the arrow layer
+ * of a class diagram while a class is dragged.  The generated diagram has 400 classes
+ * in a grid, each with an extends arrow and two uses arrows to other classes.  One class
+ * is dragged across the diagram, one step per frame, and each frame is painted either
+ * in full (as before the ArrowCache) or incrementally.
+ *
+ * <p>The time to paint each frame is measured, and also the time to paint and render it
+ * (by taking a snapshot of the canvas, which includes copying the whole canvas, so that
+ * part is the same for both).
+ */
+public class ArrowCacheBenchmark
+{
+    private static final int COLUMNS = 20;
+    private static final int ROWS = 20;
+    private static final int WIDTH = 120;
+    private static final int HEIGHT = 50;
+    private static final int SPACING_X = 160;
+    private static final int SPACING_Y = 100;
+    private static final int FRAMES = 300;
+    private static final int RUNS = 5;
+
+    private static class Box
+    {
+        private int x;
+        private int y;
+
+        private Box(int x, int y)
+        {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static class Edge
+    {
+        private final Box from;
+        private final Box to;
+        private final boolean uses;
+
+        private Edge(Box from, Box to, boolean uses)
+        {
+            this.from = from;
+            this.to = to;
+            this.uses = uses;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        CountDownLatch finished = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try
+            {
+                run();
+            }
+            finally
+            {
+                finished.countDown();
+            }
+        });
+        finished.await();
+        Platform.exit();
+    }
+
+    private static void run()
+    {
+        List<Box> boxes = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++)
+        {
+            for (int column = 0; column < COLUMNS; column++)
+            {
+                boxes.add(new Box(20 + column * SPACING_X, 20 + row * SPACING_Y));
+            }
+        }
+        Random random = new Random(42);
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 1; i < boxes.size(); i++)
+        {
+            edges.add(new Edge(boxes.get(i), boxes.get(random.nextInt(i)), false));
+        }
+        for (int i = 0; i < boxes.size(); i++)
+        {
+            for (int j = 0; j < 2; j++)
+            {
+                edges.add(new Edge(boxes.get(i), boxes.get(random.nextInt(boxes.size())), true));
+            }
+        }
+
+        Canvas canvas = new Canvas(COLUMNS * SPACING_X + 40, ROWS * SPACING_Y + 40);
+        WritableImage image = new WritableImage((int)canvas.getWidth(), (int)canvas.getHeight());
+        Box dragged = boxes.get(ROWS / 2 * COLUMNS + COLUMNS / 2);
+        int startX = dragged.x;
+
+        // The first run of each warms up the JIT:
+        double[] best = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        int drawnFull = 0, drawnIncremental = 0;
+        for (int run = 0; run <= RUNS; run++)
+        {
+            for (int mode = 0; mode < 2; mode++)
+            {
+                boolean full = mode == 0;
+                ArrowCache cache = new ArrowCache();
+                canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                dragged.x = startX;
+                long paintTime = 0;
+                long start = System.nanoTime();
+                for (int frame = 0; frame < FRAMES; frame++)
+                {
+                    dragged.x = startX + (frame % 100) * 3;
+                    long paintStart = System.nanoTime();
+                    if (full)
+                    {
+                        cache.invalidate();
+                    }
+                    cache.paint(canvas.getGraphicsContext2D(), makeArrows(cache, edges), canvas.getWidth(), canvas.getHeight());
+                    paintTime += System.nanoTime() - paintStart;
+                    canvas.snapshot(null, image);
+                }
+                long totalTime = System.nanoTime() - start;
+                if (run > 0)
+                {
+                    best[mode * 2] = Math.min(best[mode * 2], paintTime / 1e6 / FRAMES);
+                    best[mode * 2 + 1] = Math.min(best[mode * 2 + 1], totalTime / 1e6 / FRAMES);
+                }
+                if (full)
+                    drawnFull = cache.getArrowsDrawn() / FRAMES;
+                else
+                    drawnIncremental = cache.getArrowsDrawn() / FRAMES;
+            }
+        }
+
+        System.out.println(String.format("%d classes, %d arrows, %d frames; best of %d runs, per frame:",
+                boxes.size(), edges.size(), FRAMES, RUNS));
+        System.out.println(String.format("  full repaint:        paint %6.2f ms, paint and render %6.2f ms, %4d arrows drawn",
+                best[0], best[1], drawnFull));
+        System.out.println(String.format("  incremental repaint: paint %6.2f ms, paint and render %6.2f ms, %4d arrows drawn",
+                best[2], best[3], drawnIncremental));
+    }
+
+    /**
+     * Make the arrows for the edges, in the way that PackageEditor does for dependencies.
+     * Uses arrows are simplified: they go from the top or bottom of one box to the side of
+     * the other.
+     */
+    private static List<ArrowCache.Arrow> makeArrows(ArrowCache cache, List<Edge> edges)
+    {
+        List<ArrowCache.Arrow> arrows = new ArrayList<>();
+        for (Edge e : edges)
+        {
+            if (!e.uses)
+            {
+                double[] state = {e.from.x, e.from.y, e.to.x, e.to.y};
+                arrows.add(cache.getArrow(e, state, () -> ArrowCache.makeExtendsArrow(computeLine(e.from, e.to), false, false, false)));
+            }
+        }
+        for (Edge e : edges)
+        {
+            if (e.uses)
+            {
+                boolean startTop = e.to.y < e.from.y;
+                boolean endLeft = e.to.x > e.from.x;
+                double srcX = e.from.x + WIDTH / 2 + 0.5;
+                double srcY = startTop ? e.from.y - 3.5 : e.from.y + HEIGHT + 3.5;
+                double dstX = endLeft ? e.to.x - 3.5 : e.to.x + WIDTH + 3.5;
+                double dstY = e.to.y + HEIGHT / 2 + 0.5;
+                double[] state = {srcX, srcY, dstX, dstY, startTop ? 1 : 0, endLeft ? 1 : 0};
+                arrows.add(cache.getArrow(e, state, () -> ArrowCache.makeUsesArrow(srcX, srcY, dstX, dstY, startTop, endLeft)));
+            }
+        }
+        return arrows;
+    }
+
+    /**
+     * Compute the line between the centres of two boxes, clipped to their borders, as
+     * Dependency.computeLine does for targets.
+     */
+    private static Dependency.Line computeLine(Box from, Box to)
+    {
+        Point2D pFrom = new Point2D(from.x + WIDTH / 2, from.y + HEIGHT / 2);
+        Point2D pTo = new Point2D(to.x + WIDTH / 2, to.y + HEIGHT / 2);
+        double angle = Math.atan2(-(pFrom.getY() - pTo.getY()), pFrom.getX() - pTo.getX());
+        return new Dependency.Line(getAttachment(from, angle + Math.PI), getAttachment(to, angle), angle);
+    }
+
+    private static Point2D getAttachment(Box box, double angle)
+    {
+        double sin = Math.sin(angle);
+        double cos = Math.cos(angle);
+        double m = (double) HEIGHT / WIDTH;
+        double radius = Math.abs(sin / cos) < m ? 0.5 * WIDTH / Math.abs(cos) : 0.5 * HEIGHT / Math.abs(sin);
+        return new Point2D(box.x + WIDTH / 2 + (int)(radius * cos), box.y + HEIGHT / 2 - (int)(radius * sin));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the bounds and invalidation of CommentCache.
+ */
+public class CommentCacheTest
+{
+    private static Properties comments(String text)
+    {
+        Properties props = new Properties();
+        props.setProperty("comment0.target", "C");
+        props.setProperty("comment0.text", text);
+        return props;
+    }
+
+    @Test
+    public void testEntryLimit()
+    {
+        CommentCache cache = new CommentCache(2, 1000);
+        cache.put("a", comments("a"));
+        cache.put("b", comments("b"));
+        // Use "a", so that "b" is the least recently used:
+        assertNotNull(cache.get("a"));
+        cache.put("c", comments("c"));
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testSizeLimit()
+    {
+        // Each entry is 15 + 12 + 30 = 57 characters:
+        String text = "x".repeat(30);
+        CommentCache cache = new CommentCache(100, 120);
+        cache.put("a", comments(text));
+        cache.put("b", comments(text));
+        cache.put("c", comments(text));
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+
+        // Replacing an entry should not count its old size:
+        cache.put("c", comments(text));
+        assertNotNull(cache.get("b"));
+
+        // Too large to cache at all:
+        cache.put("d", comments("x".repeat(200)));
+        assertNull(cache.get("d"));
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testHitRatio()
+    {
+        CommentCache cache = new CommentCache();
+        cache.put("a", comments("a"));
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(0.75, cache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testModifiedSource() throws IOException
+    {
+        File source = File.createTempFile("Comment", ".java");
+        try
+        {
+            Files.writeString(source.toPath(), "class C { }");
+            CommentCache cache = new CommentCache();
+            cache.put("C", comments("a"), source, source.lastModified(), source.length());
+            assertNotNull(cache.get("C"));
+
+            // An edit which doesn't change the length:
+            Files.writeString(source.toPath(), "class D { }");
+            source.setLastModified(source.lastModified() + 10000);
+            assertNull(cache.get("C"));
+
+            // An edit within the same modification time:
+            long lastModified = source.lastModified();
+            cache.put("C", comments("b"), source, lastModified, source.length());
+            Files.writeString(source.toPath(), "class D { int x; }");
+            source.setLastModified(lastModified);
+            assertNull(cache.get("C"));
+        }
+        finally
+        {
+            source.delete();
+        }
+    }
+}
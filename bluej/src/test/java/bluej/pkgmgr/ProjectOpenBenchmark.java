@@ -0,0 +1,216 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import bluej.Boot;
+import bluej.Config;
+import javafx.application.Platform;
+
+/**
+ * A benchmark (not a test; run it manually via main) of opening a generated project
+ * with 50 packages, each with 20 classes: opening the project and then each of its
+ * packages (loading its targets), in the order BlueJ opens them: each after its parent.
+ * It compares opening the project with the package files read in advance, in parallel,
+ * by a ProjectPrefetcher (as normal) and without (as before, by setting the
+ * bluej.project.prefetch property to false).
+ *
+ * <p>Since the files will be in the OS file cache after the first run, this measures
+ * the best case for reading serially; with a cold cache, or a network drive, the
+ * difference is larger.  Opening a project also starts its debug VM in the background,
+ * which is included in neither time, but may compete with the packages being opened.
+ */
+public class ProjectOpenBenchmark
+{
+    // With the unnamed package, this gives 1 + 7 + 7 * 6 = 50 packages:
+    private static final int TOP_LEVEL_PACKAGES = 7;
+    private static final int SUB_PACKAGES = 6; // per top-level package
+    private static final int CLASSES_PER_PACKAGE = 20;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception
+    {
+        Properties commandLineProps = new Properties();
+        commandLineProps.put("bluej.debug", "true");
+        Config.initialise(Boot.getBluejLibDir(), commandLineProps, false);
+
+        File projectDir = Files.createTempDirectory("bluej-benchmark").toFile();
+        try
+        {
+            List<String> packageNames = generateProject(projectDir);
+
+            CountDownLatch started = new CountDownLatch(1);
+            Platform.startup(started::countDown);
+            started.await();
+
+            CountDownLatch finished = new CountDownLatch(1);
+            Platform.runLater(() -> {
+                try
+                {
+                    run(projectDir, packageNames);
+                }
+                finally
+                {
+                    finished.countDown();
+                }
+            });
+            finished.await();
+            Platform.exit();
+        }
+        finally
+        {
+            try (Stream<Path> paths = Files.walk(projectDir.toPath()))
+            {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static void run(File projectDir, List<String> packageNames)
+    {
+        // The first run of each warms up the JIT and the file cache:
+        long serial = Long.MAX_VALUE;
+        long prefetched = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++)
+        {
+            long serialTime = open(projectDir, packageNames, false);
+            long prefetchedTime = open(projectDir, packageNames, true);
+            if (run > 0)
+            {
+                serial = Math.min(serial, serialTime);
+                prefetched = Math.min(prefetched, prefetchedTime);
+            }
+        }
+
+        System.out.println(String.format("%d packages, %d classes; best of %d runs:",
+                packageNames.size(), packageNames.size() * CLASSES_PER_PACKAGE, RUNS));
+        System.out.println(String.format("  files read on opening each package: %7.1f ms", serial / 1e6));
+        System.out.println(String.format("  files read in advance:               %7.1f ms", prefetched / 1e6));
+    }
+
+    /**
+     * Open the project and all its packages, then close it, returning the time taken
+     * to open them (in nanoseconds).
+     */
+    private static long open(File projectDir, List<String> packageNames, boolean prefetch)
+    {
+        Config.putPropString(Project.PREFETCH_PROPERTY, String.valueOf(prefetch));
+        long start = System.nanoTime();
+        Project project = Project.openProject(projectDir.getPath());
+        if (project == null)
+        {
+            throw new IllegalStateException("Could not open " + projectDir);
+        }
+        project.getPackage("").loadTargets();
+        for (String name : packageNames)
+        {
+            Package pkg = project.getPackage(name);
+            if (pkg == null || pkg.getClassTargets().size() != CLASSES_PER_PACKAGE)
+            {
+                throw new IllegalStateException("Could not open package \"" + name + "\"");
+            }
+        }
+        long time = System.nanoTime() - start;
+        Project.cleanUp(project);
+        return time;
+    }
+
+    /**
+     * Generate the project, returning the names of the packages in the order they would
+     * be opened.
+     */
+    private static List<String> generateProject(File projectDir) throws IOException
+    {
+        List<String> packageNames = new ArrayList<>();
+        generatePackage(projectDir, "", packageNames);
+        for (int i = 0; i < TOP_LEVEL_PACKAGES; i++)
+        {
+            String name = "pkg" + i;
+            File dir = new File(projectDir, name);
+            generatePackage(dir, name, packageNames);
+            for (int j = 0; j < SUB_PACKAGES; j++)
+            {
+                String subName = "sub" + j;
+                generatePackage(new File(dir, subName), name + "." + subName, packageNames);
+            }
+        }
+        return packageNames;
+    }
+
+    private static void generatePackage(File dir, String packageName, List<String> packageNames) throws IOException
+    {
+        dir.mkdirs();
+        Properties props = new Properties();
+        props.setProperty("package.numTargets", String.valueOf(CLASSES_PER_PACKAGE));
+        props.setProperty("package.numDependencies", "0");
+        for (int i = 0; i < CLASSES_PER_PACKAGE; i++)
+        {
+            String className = "Class" + i;
+            String prefix = "target" + (i + 1);
+            props.setProperty(prefix + ".name", className);
+            props.setProperty(prefix + ".type", "ClassTarget");
+            props.setProperty(prefix + ".x", String.valueOf(20 + (i % 5) * 150));
+            props.setProperty(prefix + ".y", String.valueOf(20 + (i / 5) * 100));
+            props.setProperty(prefix + ".width", "120");
+            props.setProperty(prefix + ".height", "50");
+            Files.writeString(new File(dir, className + ".java").toPath(), generateClass(packageName, className));
+        }
+        PackageFileFactory.getPackageFile(dir).save(props);
+        // The unnamed package is opened with the project:
+        if (!packageName.isEmpty())
+        {
+            packageNames.add(packageName);
+        }
+    }
+
+    private static String generateClass(String packageName, String className)
+    {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+        {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * A generated class.\n */\npublic class ").append(className).append("\n{\n");
+        for (int i = 0; i < 30; i++)
+        {
+            source.append("    private int field").append(i).append(";\n");
+        }
+        for (int i = 0; i < 30; i++)
+        {
+            source.append("\n    /**\n     * Get field ").append(i).append(".\n     */\n");
+            source.append("    public int getField").append(i).append("(int offset)\n    {\n");
+            source.append("        return field").append(i).append(" + offset;\n    }\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for finding entries in archives using SourceArchiveCache.
+ */
+public class SourceArchiveCacheTest
+{
+    private File archiveFile;
+    private SourceArchiveCache cache;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        archiveFile = File.createTempFile("sources", ".zip");
+        writeArchive("");
+        cache = new SourceArchiveCache();
+    }
+
+    @After
+    public void tearDown()
+    {
+        cache.close();
+        archiveFile.delete();
+    }
+
+    private void writeArchive(String suffix) throws IOException
+    {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archiveFile)))
+        {
+            writeEntry(out, "plain/Plain.java", "class Plain {}" + suffix);
+            writeEntry(out, "mod.a/module-info.java", "module mod.a {}");
+            writeEntry(out, "mod.a/pkg/A.java", "class A {}" + suffix);
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream out, String name, String content) throws IOException
+    {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    private String read(String... names)
+    {
+        byte[] content = cache.readEntry(archiveFile, names);
+        return content == null ? null : new String(content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEntries()
+    {
+        assertEquals("class Plain {}", read("plain/Plain.java"));
+        assertEquals("class A {}", read("mod.a/pkg/A.java"));
+        // Found without the module, via the module index:
+        assertEquals("class A {}", read("pkg/A.java"));
+        // The first entry present is used:
+        assertEquals("class Plain {}", read("missing/Missing.java", "plain/Plain.java"));
+        assertNull(read("missing/Missing.java"));
+        assertNull(read("A.java"));
+    }
+
+    @Test
+    public void testModifiedArchive() throws IOException
+    {
+        assertEquals("class A {}", read("pkg/A.java"));
+        writeArchive(" // changed");
+        // Make sure the modification time differs:
+        archiveFile.setLastModified(archiveFile.lastModified() + 2000);
+        assertEquals("class A {} // changed", read("pkg/A.java"));
+    }
+
+    @Test
+    public void testMissingArchive()
+    {
+        archiveFile.delete();
+        cache.close();
+        assertNull(read("plain/Plain.java"));
+    }
+}
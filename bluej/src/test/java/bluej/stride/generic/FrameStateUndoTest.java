@@ -0,0 +1,143 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import bluej.stride.operations.UndoRedoManager;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for undo and redo with states stored as deltas (see FrameState and UndoRedoManager).
+ */
+public class FrameStateUndoTest
+{
+    @Test
+    public void testDelta()
+    {
+        String[][] pairs = {
+            {"<class><method name=\"a\"/></class>", "<class><method name=\"ab\"/></class>"},
+            {"<class/>", "<class><field/></class>"},
+            {"abcabc", "abc"},
+            {"aaaa", "aa"},
+            {"", "x"},
+            {"same", "same"},
+        };
+        for (String[] pair : pairs)
+        {
+            FrameState a = new FrameState(pair[0]);
+            FrameState b = new FrameState(pair[1]);
+            a.storeAsDeltaFrom(b);
+            assertTrue(a.isDelta());
+            assertTrue(a.getStoredSize() <= Math.max(pair[0].length(), 1));
+            a.restoreFromDelta(b);
+            assertFalse(a.isDelta());
+            assertEquals(pair[0], a.getXML());
+        }
+    }
+
+    @Test
+    public void testUndoRedo()
+    {
+        Random r = new Random(1);
+        List<String> contents = new ArrayList<>();
+        StringBuilder content = new StringBuilder("<class>");
+        contents.add(content.toString());
+        UndoRedoManager manager = new UndoRedoManager(new FrameState(content.toString()));
+        List<FrameState> states = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++)
+        {
+            // Make an edit at a random position:
+            int pos = r.nextInt(content.length() + 1);
+            if (r.nextInt(4) == 0 && pos < content.length())
+                content.delete(pos, Math.min(content.length(), pos + 5));
+            else
+                content.insert(pos, "<frame" + i + "/>");
+            contents.add(content.toString());
+            FrameState state = new FrameState(content.toString());
+            states.add(state);
+            manager.endFrameState(state);
+        }
+
+        // Undo all the way, checking each state:
+        for (int i = contents.size() - 2; i >= 0; i--)
+        {
+            assertTrue(manager.canUndo());
+            assertEquals(contents.get(i), manager.undo().getXML());
+        }
+        assertFalse(manager.canUndo());
+
+        // Redo half way, then make a new edit, which discards the rest:
+        for (int i = 1; i <= 100; i++)
+        {
+            assertEquals(contents.get(i), manager.redo().getXML());
+        }
+        manager.endFrameState(new FrameState("<new/>"));
+        assertFalse(manager.canRedo());
+        assertEquals(contents.get(100), manager.undo().getXML());
+        assertEquals(contents.get(99), manager.undo().getXML());
+        assertEquals(contents.get(100), manager.redo().getXML());
+        assertEquals("<new/>", manager.redo().getXML());
+    }
+
+    @Test
+    public void testSizeLimit()
+    {
+        UndoRedoManager manager = new UndoRedoManager(new FrameState(""), 5000);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            content.append("0123456789");
+            manager.endFrameState(new FrameState(content.toString()));
+        }
+        // The states stored as deltas are small, so many can be undone, but not all:
+        int undos = 0;
+        while (manager.canUndo())
+        {
+            manager.undo();
+            undos++;
+        }
+        assertTrue(undos > 30);
+        assertTrue(undos < 100);
+        assertEquals(content.length() - undos * 10, manager.getCurrent().getXML().length());
+    }
+
+    @Test
+    public void testRepeatedState()
+    {
+        UndoRedoManager manager = new UndoRedoManager(new FrameState("a"));
+        manager.beginFrameState(new FrameState("b"));
+        // Same content; replaces the current state:
+        FrameState b = new FrameState("b");
+        manager.endFrameState(b);
+        assertSame(b, manager.getCurrent());
+        assertEquals("a", manager.undo().getXML());
+        assertFalse(manager.canUndo());
+        assertSame(b, manager.redo());
+        assertEquals("b", b.getXML());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+
+import bluej.parser.AssistContent.Access;
+import bluej.parser.AssistContentThreadSafe;
+import bluej.pkgmgr.target.role.Kind;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for TypeIndex: saving and loading, and making completions from indexed types.
+ */
+public class TypeIndexTest
+{
+    private static TypeIndex.IndexedType type(String name, String simpleName, List<String> outerClasses,
+            Kind kind, String superclass, List<String> interfaces)
+    {
+        return new TypeIndex.IndexedType(name, simpleName, "p", null, Modifier.PUBLIC, kind, outerClasses,
+                superclass, interfaces);
+    }
+
+    private static TypeIndex makeIndex()
+    {
+        TypeIndex index = new TypeIndex();
+        index.addElement(new TypeIndex.Element("a.jar", 100, 200, List.of(
+                type("p.Base", "Base", Collections.emptyList(), Kind.CLASS_NON_FINAL, "java.lang.Object", Collections.emptyList()),
+                type("p.Sub", "Sub", Collections.emptyList(), Kind.CLASS_FINAL, "p.Base", List.of("p.Iface")),
+                type("p.Sub$Inner$Deeper", "Deeper", List.of("Sub", "Inner"), Kind.INTERFACE, "java.lang.Object", List.of("p.Iface"))
+        )));
+        index.addElement(new TypeIndex.Element("b.jar", 300, 400, List.of(
+                type("p.Iface", "Iface", Collections.emptyList(), Kind.INTERFACE, "java.lang.Object", Collections.emptyList())
+        )));
+        return index;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException
+    {
+        File file = File.createTempFile("type-index", ".dat");
+        try
+        {
+            makeIndex().save(file, "1.0");
+
+            // A different version should not be loaded:
+            assertNull(TypeIndex.load(file, "2.0").getType("p.Sub"));
+
+            TypeIndex loaded = TypeIndex.load(file, "1.0");
+            assertNotNull(loaded.getElement("a.jar", 100, 200));
+            assertNotNull(loaded.getElement("b.jar", 300, 400));
+            // A changed element should not be found:
+            assertNull(loaded.getElement("a.jar", 101, 200));
+            assertNull(loaded.getElement("a.jar", 100, 201));
+
+            TypeIndex.IndexedType deeper = loaded.getType("p.Sub$Inner$Deeper");
+            assertEquals("Deeper", deeper.simpleName);
+            assertEquals(List.of("Sub", "Inner"), deeper.outerClasses);
+            assertEquals(Kind.INTERFACE, deeper.typeKind);
+            assertEquals(List.of("p.Iface"), deeper.interfaces);
+            assertEquals("p.Sub.Inner.Deeper", deeper.getCanonicalName());
+            assertNull(deeper.moduleName);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMissingFile()
+    {
+        TypeIndex index = TypeIndex.load(new File("does-not-exist.dat"), "1.0");
+        assertTrue(index.getElements().isEmpty());
+    }
+
+    @Test
+    public void testCompletion()
+    {
+        TypeIndex index = makeIndex();
+
+        AssistContentThreadSafe sub = index.makeCompletion(index.getType("p.Sub"), () -> "Javadoc");
+        assertEquals("Sub", sub.getName());
+        assertNull(sub.getDeclaringClass());
+        assertEquals("p", sub.getPackage());
+        assertEquals("Javadoc", sub.getJavadoc());
+        assertEquals(Access.PUBLIC, sub.getAccessPermission());
+        assertEquals(Kind.CLASS_FINAL, sub.getTypeKind());
+        assertNull(sub.getParams());
+        // Interfaces, then the chain of superclasses:
+        assertEquals(List.of("p.Iface", "p.Base", "java.lang.Object"), sub.getSuperTypes());
+
+        AssistContentThreadSafe deeper = index.makeCompletion(index.getType("p.Sub$Inner$Deeper"), () -> null);
+        assertEquals("Sub.Inner", deeper.getDeclaringClass());
+        // Interfaces have no superclasses:
+        assertEquals(List.of("p.Iface"), deeper.getSuperTypes());
+    }
+
+    @Test
+    public void testDirectoryFingerprint() throws IOException
+    {
+        File dir = java.nio.file.Files.createTempDirectory("classes").toFile();
+        File classFile = new File(dir, "A.class");
+        try
+        {
+            long[] empty = TypeIndex.getFingerprint(dir);
+            java.nio.file.Files.write(classFile.toPath(), new byte[10]);
+            long[] oneFile = TypeIndex.getFingerprint(dir);
+            assertEquals(11, oneFile[1]);
+            assertTrue(oneFile[1] != empty[1]);
+        }
+        finally
+        {
+            classFile.delete();
+            dir.delete();
+        }
+    }
+}
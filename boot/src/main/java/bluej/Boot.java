@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022  Michael Kolling and John Rosenberg
+ Copyright (C) 1999-2009,2010,2011,2012,2013,2014,2015,2016,2017,2018,2019,2020,2021,2022,2026  Michael Kolling and John Rosenberg
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -31,14 +31,17 @@ import threadchecker.Tag;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 
 /**
  * This class is the BlueJ boot loader. bluej.Boot is the class that should be 
@@ -47,6 +50,15 @@ import java.util.concurrent.ExecutionException;
  * This loader finds and loads the known BlueJ classes and sets up the classpath.
  * While doing this, it displays a splash screen.
  *
+ * To start faster, the class path is set up while the JavaFX toolkit starts, and the
+ * classes listed in lib/bluej-startup-classes.txt (or greenfoot-startup-classes.txt)
+ * are loaded in the background, ahead of when they are needed.  That list is made by
+ * starting BlueJ with the command line property -bluej.startup.recordClasses=&lt;file&gt;,
+ * which records the classes that are loaded until the initial windows are shown (and with
+ * -bluej.startup.exit=true, then exits).  The build does this in the recordStartupClasses
+ * task, before packaging if run with -PwithStartupClasses=true; without the list, nothing
+ * is loaded ahead.
+ *
  * @author  Andrew Patterson
  * @author  Damiano Bolla
  * @author  Michael Kolling
@@ -82,6 +94,10 @@ public class Boot
         "guava-*.jar",
         "http*.jar"};
     private static final int greenfootUserBuildJars = 4;
+    // The list of classes to load in the background during startup (see above):
+    private static final String STARTUP_CLASSES_SUFFIX = "-startup-classes.txt";
+    private static final String RECORD_CLASSES_PROP = "bluej.startup.recordClasses";
+    private static final String EXIT_AFTER_STARTUP_PROP = "bluej.startup.exit";
     
     // A singleton boot object so the rest of BlueJ can pick up args etc.
     private static Boot instance;
@@ -118,29 +134,19 @@ public class Boot
     private ClassLoader bootLoader; // The loader this class is loaded with
     private URL[] runtimeUserClassPath; // The initial class path used to run code within BlueJ
     private URL[] runtimeClassPath;     // The class path containing all the BlueJ classes
+    private RuntimeClassLoader runtimeLoader; // The loader for the BlueJ classes
+    // Completed once initializeBoot has been run (in the background, while JavaFX starts):
+    private CompletableFuture<Void> initialized;
+    // Set once startup has finished, to stop loading the startup classes:
+    private volatile boolean startupFinished = false;
 
     /**
      * Constructor for the singleton Boot object.
      * 
      * @param props the properties (created from the args)
      */
-    private Boot(Properties props, final FXPlatformSupplier<Image> image)
+    private Boot(Properties props)
     {
-        CompletableFuture<Boolean> shown = new CompletableFuture<>();
-        // Display the splash window:
-        Platform.runLater(() -> {
-            splashWindow = new SplashWindow(image.get());
-            shown.complete(true);
-        });
-        try
-        {
-            shown.get();
-        }
-        catch (InterruptedException | ExecutionException e)
-        {
-            // Just ignore it and continue, I guess...
-        }
-
         this.commandLineProps = props;
     }
 
@@ -151,7 +157,20 @@ public class Boot
      */
     public static void main(String[] args)
     {
+        StartupTimeline.phaseFinished("Java VM");
         cmdLineArgs = args;
+        Properties commandLineProps = processCommandLineProperties(args);
+        isGreenfoot = commandLineProps.getProperty("greenfoot", "false").equals("true");
+        if(isGreenfoot) {
+            runtimeJars = greenfootUserJars;
+            userJars = greenfootUserJars;
+        }
+        
+        // Finding the jars and loading classes doesn't need JavaFX, so we do it while
+        // the JavaFX toolkit starts:
+        instance = new Boot(commandLineProps);
+        instance.initialized = CompletableFuture.runAsync(instance::initializeBoot);
+        StartupTimeline.phaseStarted("JavaFX toolkit");
         Application.launch(App.class, args);
     }
 
@@ -181,9 +200,6 @@ public class Boot
     @OnThread(Tag.Any)
     public static void subMain()
     {
-        Properties commandLineProps = processCommandLineProperties(cmdLineArgs);
-        isGreenfoot = commandLineProps.getProperty("greenfoot", "false").equals("true");
-        
         FXPlatformSupplier<Image> image = new FXPlatformSupplier<Image>()
         {
             @Override
@@ -208,13 +224,16 @@ public class Boot
                 }
             }
         };
-        if(isGreenfoot) {
-            runtimeJars = greenfootUserJars;
-            userJars = greenfootUserJars;
-        }
         
         try {
-            instance = new Boot(commandLineProps, image);
+            // Display the splash window (there's no need to wait for it to show before
+            // carrying on, as we only show other windows, or hide it, on the FX thread):
+            Platform.runLater(() -> {
+                StartupTimeline.phaseStarted("splash window");
+                instance.splashWindow = new SplashWindow(image.get());
+                StartupTimeline.phaseFinished("splash window");
+            });
+            instance.initialized.join();
             instance.bootBluej();
         }
         catch (Throwable t) {
@@ -393,6 +412,43 @@ public class Boot
         return false;
     }
 
+    /**
+     * Record that startup has finished (the initial windows are showing).  This
+     * stops loading the startup classes in the background, and if requested by the
+     * command line properties, saves the list of classes loaded so far, and exits.
+     */
+    public void startupFinished()
+    {
+        startupFinished = true;
+        StartupTimeline.startupFinished();
+        String recordFile = commandLineProps.getProperty(RECORD_CLASSES_PROP);
+        List<String> loaded = runtimeLoader == null ? null : runtimeLoader.stopRecording();
+        if (recordFile != null && loaded != null)
+        {
+            try
+            {
+                Files.write(new File(recordFile).toPath(), loaded, StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+                if (isExitAfterStartup())
+                {
+                    System.exit(1);
+                }
+            }
+        }
+        if (isExitAfterStartup())
+        {
+            System.exit(0);
+        }
+    }
+
+    private boolean isExitAfterStartup()
+    {
+        return "true".equals(commandLineProps.getProperty(EXIT_AFTER_STARTUP_PROP));
+    }
+
     /**
      * Hide (and dispose) the splash window
      */
@@ -465,10 +521,7 @@ public class Boot
     @OnThread(Tag.Any)
     private void bootBluej()
     {
-        initializeBoot();
         try {
-            URLClassLoader runtimeLoader = new URLClassLoader(runtimeClassPath, bootLoader);
- 
             // Construct a bluej.Main object. This starts BlueJ "proper".
             Class<?> mainClass = Class.forName("bluej.Main", true, runtimeLoader);
             mainClass.getDeclaredConstructor(ClassLoader.class).newInstance(runtimeLoader);
@@ -479,8 +532,10 @@ public class Boot
         }
     }
 
+    @OnThread(Tag.Any)
     private void initializeBoot()
     {
+        StartupTimeline.phaseStarted("class path");
         // Retrieve the current classLoader, this is the boot loader.
         bootLoader = getClass().getClassLoader();
 
@@ -494,6 +549,100 @@ public class Boot
         catch (Exception exc) {
             exc.printStackTrace();
         }
+        
+        boolean record = commandLineProps.getProperty(RECORD_CLASSES_PROP) != null;
+        runtimeLoader = new RuntimeClassLoader(runtimeClassPath, bootLoader, record);
+        StartupTimeline.phaseFinished("class path");
+        
+        // If we are recording the classes needed, we mustn't load any others:
+        if (!record)
+        {
+            File startupClasses = new File(getBluejLibDir(), (isGreenfoot ? "greenfoot" : "bluej") + STARTUP_CLASSES_SUFFIX);
+            Thread preloader = new Thread(() -> loadStartupClasses(startupClasses), "Startup class loader");
+            preloader.setDaemon(true);
+            preloader.start();
+        }
+    }
+
+    /**
+     * Load (but not initialise) the classes listed in the given file, in order, until
+     * startup has finished.  This runs in the background, so that the classes are already
+     * loaded when they are needed; the loader allows several threads to load classes at once.
+     */
+    @OnThread(Tag.Worker)
+    private void loadStartupClasses(File startupClasses)
+    {
+        List<String> classNames;
+        try
+        {
+            classNames = Files.readAllLines(startupClasses.toPath(), StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            // No list; we just load the classes as they are needed.
+            return;
+        }
+        
+        StartupTimeline.phaseStarted("startup classes");
+        for (String className : classNames)
+        {
+            if (startupFinished)
+            {
+                break;
+            }
+            try
+            {
+                Class.forName(className, false, runtimeLoader);
+            }
+            catch (ClassNotFoundException | LinkageError e)
+            {
+                // The list may be out of date; it doesn't matter.
+            }
+        }
+        StartupTimeline.phaseFinished("startup classes");
+    }
+    
+    /**
+     * The class loader for the BlueJ classes, which can record which classes are loaded.
+     */
+    @OnThread(Tag.Any)
+    private static class RuntimeClassLoader extends URLClassLoader
+    {
+        static
+        {
+            registerAsParallelCapable();
+        }
+        
+        // The names of the classes loaded so far, in order, or null if not recording:
+        private List<String> loaded;
+        
+        private RuntimeClassLoader(URL[] urls, ClassLoader parent, boolean record)
+        {
+            super(urls, parent);
+            loaded = record ? new ArrayList<>() : null;
+        }
+        
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException
+        {
+            Class<?> c = super.findClass(name);
+            synchronized (this)
+            {
+                if (loaded != null)
+                    loaded.add(name);
+            }
+            return c;
+        }
+        
+        /**
+         * Stop recording, and get the names of the classes loaded so far (null if we weren't recording).
+         */
+        private synchronized List<String> stopRecording()
+        {
+            List<String> r = loaded == null ? null : Collections.unmodifiableList(loaded);
+            loaded = null;
+            return r;
+        }
     }
 
     /**
@@ -617,6 +766,7 @@ public class Boot
         @Override
         @OnThread(value = Tag.FXPlatform, ignoreParent = true)
         public void start(Stage s) throws Exception {
+            StartupTimeline.phaseFinished("JavaFX toolkit");
             Platform.setImplicitExit(false);
             s.setTitle("BlueJ");
             new Thread(() -> subMain(), "subMain thread").start();
@@ -0,0 +1,121 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A record of the phases of startup (e.g. starting JavaFX, loading the configuration),
+ * with when each started and finished, so that we can see which take the time, and
+ * which run at the same time.  Times are measured from when the Java VM started.
+ * 
+ * This is in the boot module so that Boot can record its phases, but BlueJ records its
+ * phases here too.
+ */
+@OnThread(Tag.Any)
+public class StartupTimeline
+{
+    private static class Phase
+    {
+        private final String name;
+        private final String thread;
+        private final long start;
+        private long end = -1;
+
+        private Phase(String name, String thread, long start)
+        {
+            this.name = name;
+            this.thread = thread;
+            this.start = start;
+        }
+    }
+
+    // When the Java VM started, in milliseconds since the epoch:
+    private static final long vmStart = ProcessHandle.current().info().startInstant()
+            .map(i -> i.toEpochMilli()).orElse(System.currentTimeMillis());
+    // The phases, by name, in the order they were started:
+    private static final Map<String, Phase> phases = new LinkedHashMap<>();
+    // When startup was finished, or -1 if it hasn't yet:
+    private static long ready = -1;
+
+    /**
+     * Record that the given phase has started (on the current thread).
+     */
+    public static synchronized void phaseStarted(String name)
+    {
+        phases.put(name, new Phase(name, Thread.currentThread().getName(), now()));
+    }
+
+    /**
+     * Record that the given phase has finished.  If it was not recorded as started,
+     * it is taken to have started when the Java VM started.
+     */
+    public static synchronized void phaseFinished(String name)
+    {
+        Phase phase = phases.computeIfAbsent(name, n -> new Phase(n, Thread.currentThread().getName(), 0));
+        phase.end = now();
+    }
+
+    /**
+     * Record that startup has finished (i.e. the initial windows are showing).
+     */
+    public static synchronized void startupFinished()
+    {
+        if (ready == -1)
+        {
+            ready = now();
+        }
+    }
+
+    /**
+     * Gets a description of the phases recorded, one per line, in order of starting.
+     */
+    public static synchronized String getSummary()
+    {
+        List<Phase> sorted = new ArrayList<>(phases.values());
+        sorted.sort(Comparator.comparingLong(p -> p.start));
+        StringBuilder summary = new StringBuilder("Startup timeline (ms since the Java VM started):");
+        for (Phase phase : sorted)
+        {
+            summary.append(String.format("%n  %6d - %6s %-20s %6s  [%s]", phase.start,
+                    phase.end == -1 ? "" : String.valueOf(phase.end), phase.name,
+                    phase.end == -1 ? "unfinished" : (phase.end - phase.start) + " ms", phase.thread));
+        }
+        if (ready != -1)
+        {
+            summary.append(String.format("%n  Ready after %d ms", ready));
+        }
+        return summary.toString();
+    }
+
+    private static long now()
+    {
+        return System.currentTimeMillis() - vmStart;
+    }
+}
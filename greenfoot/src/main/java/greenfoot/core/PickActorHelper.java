@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -26,71 +26,77 @@ import greenfoot.World;
 import greenfoot.WorldVisitor;
 
 import java.awt.Point;
+import java.util.function.IntConsumer;
 
 /**
- * A helper class which can be instantiated to fetch a reference to the
- * actor at a particular mouse location, where the user has left/right-clicked
- * in the interface.  If the location is outside the world, or there are no
- * actors at that point, the world is picked instead.
+ * Fetches the actors at a particular mouse location, where the user has
+ * left/right-clicked in the interface.  If the location is outside the world,
+ * or there are no actors at that point, the world is picked instead.
+ *
+ * <p>Picks are requested over the shared memory channel (see
+ * {@link greenfoot.vmcomm.Command#COMMAND_PICK}).  The result of the most
+ * recent pick is kept in a static field, which the server VM reads once it
+ * has been told that the pick is complete.
  */
 public class PickActorHelper
 {
+    // Special field read by GreenfootDebugHandler.  Do not rename
+    // without also renaming there:
+    private static volatile PickActorHelper latestPick;
+
     // Special fields examined by GreenfootDebugHandler.  Do not rename
     // without also renaming there:
-    public Actor[] actorPicks;
+    public final Actor[] actorPicks;
     // Relevant only if actorPicks.length == 0 after a pick:
-    public World worldPick;
-    public int pickId;
+    public final World worldPick;
+    public final int pickId;
+
+    private PickActorHelper(Actor[] actorPicks, World worldPick, int pickId)
+    {
+        this.actorPicks = actorPicks;
+        this.worldPick = worldPick;
+        this.pickId = pickId;
+    }
 
     /**
-     * Finds an actor at the given location.  If the location is invalid
-     * or there are no actors there, the world is picked instead.
+     * Finds the actors at the given location, on the simulation thread.  If the
+     * location is invalid or there are no actors there, the world is picked instead.
      *
-     * @param sx       The x pixel coordinate in the world (will be an integer)
-     * @param sy       The y pixel coordinate in the world (will be an integer)
-     * @param spickId  The pick request ID
-     * @param requestType  The request type.  If "drag", a drag on that actor will begin.
+     * @param x        The x pixel coordinate in the world
+     * @param y        The y pixel coordinate in the world
+     * @param pickId   The pick request ID
+     * @param drag     If true, a drag on the topmost actor at that point will begin.
+     * @param picked   Called (on the simulation thread) with the pick ID, once the
+     *                 result of the pick is available from {@link #latestPick}.
      */
-    public PickActorHelper(String sx, String sy, String spickId, String requestType)
+    public static void pick(int x, int y, int pickId, boolean drag, IntConsumer picked)
     {
-        int x = Integer.parseInt(sx);
-        int y = Integer.parseInt(sy);
-        int pickId = Integer.parseInt(spickId);
-
         Simulation.getInstance().runLater(() -> {
-            // The fields must be up to date and valid at the point we call picked():
             WorldHandler worldHandler = WorldHandler.getInstance();
-            this.worldPick = worldHandler.getWorld();
-            if (worldPick != null && x >= 0 && x < WorldVisitor.getWidthInPixels(worldPick)
-                    && y >= 0 && y < WorldVisitor.getHeightInPixels(worldPick))
+            World world = worldHandler.getWorld();
+            Actor[] actors;
+            if (world != null && x >= 0 && x < WorldVisitor.getWidthInPixels(world)
+                    && y >= 0 && y < WorldVisitor.getHeightInPixels(world))
             {
-                this.actorPicks = WorldVisitor.getObjectsAtPixel(this.worldPick, x, y).toArray(new Actor[0]);
+                actors = WorldVisitor.getObjectsAtPixel(world, x, y).toArray(new Actor[0]);
             }
             else
             {
-                this.actorPicks = new Actor[0];
+                actors = new Actor[0];
             }
-            this.pickId = pickId;
-            if ("drag".equals(requestType))
+            if (drag)
             {
                 // If there are any actors at that point, drag the topmost one:
-                if (actorPicks.length > 0)
+                if (actors.length > 0)
                 {
                     // The top-most actor is actually the last in the list:
-                    Actor topMost = actorPicks[actorPicks.length - 1];
-                    worldHandler.startDrag(topMost, new Point(x, y), this.pickId);
+                    Actor topMost = actors[actors.length - 1];
+                    worldHandler.startDrag(topMost, new Point(x, y), pickId);
                 }
             }
-            picked();
+            // The result must be in place before we report the pick as complete:
+            latestPick = new PickActorHelper(actors, world, pickId);
+            picked.accept(pickId);
         });
     }
-
-    /**
-     * A special method which will have a breakpoint set by GreenfootDebugHandler.  Do
-     * not remove/inline/rename without also editing that class.
-     */
-    public void picked()
-    {
-        // Used as a special breakpoint signifier so that JDI can be used to inspect the picks field
-    }
 }
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2017,2018,2019,2019,2020,2021,2022  Poul Henriksen and Michael Kolling
+ Copyright (C) 2017,2018,2019,2019,2020,2021,2022,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -31,7 +31,6 @@ import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
 import bluej.compiler.Diagnostic;
 import bluej.compiler.FXCompileObserver;
-import bluej.debugger.Debugger;
 import bluej.debugger.DebuggerObject;
 import bluej.debugger.DebuggerResult;
 import bluej.debugger.ExceptionDescription;
@@ -1756,28 +1755,28 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
     private void pickRequest(Point2D worldPosition, PickType pickType)
     {
         curPickType = pickType;
-        Debugger debugger = project.getDebugger();
-        // Bit hacky to pass positions as strings, but mirroring the values as integers
-        // would have taken a lot of code changes to route through to VMReference:
-        DebuggerObject xObject = debugger.getMirror("" + (int) worldPosition.getX());
-        DebuggerObject yObject = debugger.getMirror("" + (int) worldPosition.getY());
         int thisPickId = nextPickId++;
-        DebuggerObject pickIdObject = debugger.getMirror("" + thisPickId);
-        String requestTypeString = pickType == PickType.DRAG ? "drag" : "";
-        DebuggerObject requestTypeObject = debugger.getMirror(requestTypeString);
         // One pick at a time only:
         curPickRequest = thisPickId;
         curPickPoint = worldPosition;
-        
 
-        // Need to find out which actors are at the point.  Do this in background thread to
-        // avoid blocking the GUI thread:
-        Utility.runBackground(() -> 
-            debugger.instantiateClass("greenfoot.core.PickActorHelper",
-                new String[] {"java.lang.String", "java.lang.String", "java.lang.String", "java.lang.String"},
-                new DebuggerObject[] {xObject, yObject, pickIdObject, requestTypeObject})
-        );
-        // Once that completes, pickResults(..) will be called.
+        debugHandler.getVmComms().pick(thisPickId, (int) worldPosition.getX(), (int) worldPosition.getY(),
+                pickType == PickType.DRAG);
+        // Once that completes, pickCompleted(..) and then pickResults(..) will be called.
+    }
+
+    /**
+     * A pick request has completed on the debug VM.  If it is the most recent pick,
+     * fetch the results (which will then be passed to pickResults).
+     * 
+     * @param pickId The ID of the completed pick
+     */
+    public void pickCompleted(int pickId)
+    {
+        if (pickId == curPickRequest)
+        {
+            debugHandler.fetchPickResult();
+        }
     }
 
     /**
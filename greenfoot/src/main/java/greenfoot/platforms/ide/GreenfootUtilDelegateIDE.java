@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2013,2014,2015,2018  Poul Henriksen and Michael Kolling
+ Copyright (C) 2005-2013,2014,2015,2018,2026  Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -28,22 +28,12 @@ import greenfoot.core.GreenfootMain;
 import greenfoot.platforms.GreenfootUtilDelegate;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.InputStreamReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 
-import au.com.bytecode.opencsv.CSVReader;
-import au.com.bytecode.opencsv.CSVWriter;
 import bluej.Config;
 import bluej.runtime.ExecServer;
 import bluej.utility.Debug;
@@ -73,6 +63,9 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
         return instance;
     }
     
+    // The local storage for UserInfo, in the scenario directory:
+    private final UserInfoStore storage = new UserInfoStore(new File("storage.csv"));
+
     private GreenfootUtilDelegateIDE()
     {
         // Nothing to do.
@@ -137,18 +130,19 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
         if (getUserName() == null || getUserName().isEmpty())
             return null;
         
-        ArrayList<UserInfo> all = getAllDataSorted(true);
-        
-        if (all == null)
-            return null; // Error reading file
-        
-        for (int i = 0; i < all.size(); i++)
+        try
         {
-            if (getUserName().equals(all.get(i).getUserName()))
+            String[] line = storage.get(getUserName());
+            if (line != null)
             {
-                return all.get(i);
+                return makeStorage(line, storage.getRank(getUserName()), true);
             }
         }
+        catch (IOException e)
+        {
+            Debug.message("Error reading user data: " + e.getMessage());
+            return null;
+        }
         
         // Couldn't find them anywhere, return blank:
         return UserInfoVisitor.allocate(getUserName(), -1, getUserName());
@@ -212,49 +206,9 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
         if (getUserName() == null || getUserName().isEmpty())
             return false;
         
-        List<String[]> all;
         try
         {
-            CSVReader csv = new CSVReader(new InputStreamReader(new FileInputStream("storage.csv"), "UTF-8"));
-            all = csv.readAll();
-            csv.close();
-        }
-        catch (FileNotFoundException e)
-        {
-            // No previous storage, make a new blank one:
-            all = new ArrayList<>();
-        }
-        catch (IOException e)
-        {
-            Debug.message("Error reading user data: " + e.getMessage());
-            return false;
-        }
-        
-        // First, remove any existing line:
-        Iterator<String[]> lineIt = all.iterator();
-        while (lineIt.hasNext())
-        {
-            String[] line = lineIt.next();
-            if (line.length > 1 && getUserName().equals(line[0]))
-            {
-                lineIt.remove();
-                break;
-            }
-        }
-        
-        // Then add a line on to the end:
-        if (data != null)
-        {
-            // No line for that user, add a new one:
-            all.add(makeLine(getUserName(), data));
-        }
-        
-        try
-        {
-            CSVWriter csvOut = new CSVWriter(new OutputStreamWriter(new FileOutputStream("storage.csv"), "UTF-8"));
-            csvOut.writeAll(all);
-            csvOut.close();
-            
+            storage.put(getUserName(), data == null ? null : makeLine(getUserName(), data));
             return true;
         }
         catch (IOException e)
@@ -264,39 +218,29 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
         }
     }
     
-    private ArrayList<UserInfo> getAllDataSorted(boolean useSingleton)
+    /**
+     * Get the stored data for the users ranked from (and including) the first given rank
+     * to (but excluding) the second, where the top rank is 1.
+     */
+    private List<UserInfo> getRanked(int fromRank, int toRank) throws IOException
     {
-        try
+        List<UserInfo> ret = new ArrayList<>();
+        int rank = fromRank;
+        for (String[] line : storage.getRanked(fromRank, toRank))
         {
-            ArrayList<UserInfo> ret = new ArrayList<>();
-            
-            CSVReader csv = new CSVReader(new InputStreamReader(new FileInputStream("storage.csv"), "UTF-8"));
-            
-            List<String[]> all = csv.readAll();
-            
-            Collections.sort(all, new Comparator<String[]>() {
-                @Override
-                public int compare(String[] o1, String[] o2)
-                {
-                    // Sort in reverse order:
-                    return -(Integer.parseInt(o1[1]) - Integer.parseInt(o2[1]));
-                }
-            });
-            
-            int rank = 1;
-            for (String[] line : all)
-            {
-                ret.add(makeStorage(line, rank, useSingleton));
-                rank++;
-            }
-            
-            csv.close();
-            return ret;
+            ret.add(makeStorage(line, rank, false));
+            rank++;
         }
-        catch (FileNotFoundException e)
+        return ret;
+    }
+
+    @Override
+    public List<UserInfo> getTopUserInfo(int limit)
+    {
+        try
         {
-            // No previous storage, return the blank list:
-            return new ArrayList<>();
+            int count = storage.getRankedCount();
+            return getRanked(1, 1 + (limit <= 0 ? count : Math.min(limit, count)));
         }
         catch (IOException e)
         {
@@ -305,18 +249,6 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
         }
     }
 
-    @Override
-    public List<UserInfo> getTopUserInfo(int limit)
-    {
-        ArrayList<UserInfo> ret = getAllDataSorted(false);
-        if (ret == null)
-            return null;
-        else if (ret.size() <= limit || limit <= 0)
-            return ret;
-        else
-            return ret.subList(0, limit);
-    }
-
     @Override
     public GreenfootImage getUserImage(String userName)
     {
@@ -330,59 +262,15 @@ public class GreenfootUtilDelegateIDE implements GreenfootUtilDelegate
         if (getUserName() == null || getUserName().isEmpty())
             return null;
         
-        ArrayList<UserInfo> all = getAllDataSorted(false);
-        
-        if (all == null)
-            return null;
-        
-        int index = -1;
-        
-        for (int i = 0; i < all.size();i++)
-        {
-            if (getUserName() != null && getUserName().equals(all.get(i).getUserName()))
-            {
-                index = i;
-                break;
-            }
-        }
-        
-        if (index == -1 || maxAmount == 0)
-            return new ArrayList<>();
-        
-        int availableBefore = index;
-        int availableAfter = all.size() - 1 - index;
-        
-        int desiredBefore = maxAmount / 2;
-        int desiredAfter = Math.max(0, maxAmount - 1) / 2;
-        
-        // maxAmount | desiredBefore | desiredAfter | before+after+1
-        // 1 | 0 | 0 | 1
-        // 2 | 1 | 0 | 2
-        // 3 | 1 | 1 | 3
-        // 4 | 2 | 1 | 4
-        // 5 | 2 | 2 | 5
-        // 6 | 3 | 2 | 6
-        // and so on...
-        
-        if (availableAfter + availableBefore + 1 <= maxAmount)
-        {
-            //Less overall that we want, use everything:
-            return all;
-        }
-        else if (availableBefore <= desiredBefore)
-        {
-            // Not enough available before-hand, but must be enough in total:
-            return all.subList(index - availableBefore, index - availableBefore + maxAmount + 1);
-        }
-        else if (availableAfter <= desiredAfter)
+        try
         {
-            // Not enough available after, but must be enough in total:
-            return all.subList(index + availableAfter - maxAmount, index + availableAfter + 1);
+            int[] ranks = storage.getNearbyRanks(getUserName(), maxAmount);
+            return getRanked(ranks[0], ranks[1]);
         }
-        else
+        catch (IOException e)
         {
-            // Must have enough available before and after:
-            return all.subList(index - desiredBefore, index + desiredAfter + 1);
+            Debug.message("Error reading user data: " + e.getMessage());
+            return null;
         }
     }    
 }
@@ -0,0 +1,439 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.platforms.ide;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import au.com.bytecode.opencsv.CSVReader;
+import au.com.bytecode.opencsv.CSVWriter;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The local storage for UserInfo data, as used in the IDE.  The data is kept in memory,
+ * indexed by user name and sorted by score, so that queries don't need to read any files.
+ *
+ * <p>The data is stored in a CSV file (storage.csv), with one line per user: the user
+ * name, the score, the ints and then the strings.  Rather than rewriting the whole file
+ * each time a user's data is stored, the change is appended to a log file alongside it.
+ * The log is merged into the CSV file (compacted) when it is first read in a session, and
+ * when it grows larger than the CSV file.  Each line of the log has a checksum, so that
+ * a line only partly written when the VM was killed is ignored.  The CSV file is only
+ * ever replaced as a whole (by renaming a new file over it), so it is always complete.
+ *
+ * <p>If the CSV file is changed by something else (e.g. the user edits or replaces it),
+ * it is read again.
+ */
+@OnThread(Tag.Simulation)
+class UserInfoStore
+{
+    // The log is always compacted once it has this many lines, however few users there are:
+    private static final int MIN_COMPACT_LOG_LINES = 100;
+
+    /**
+     * The stored line for one user.
+     */
+    private static class Entry
+    {
+        private final String userName;
+        private final String[] line;
+        // The order in which the lines were stored, which decides the rank of equal scores:
+        private final long seq;
+        // Lines without a valid score are kept, but not ranked:
+        private final boolean ranked;
+        private final int score;
+
+        private Entry(String[] line, long seq)
+        {
+            this.userName = line[0];
+            this.line = line;
+            this.seq = seq;
+            int score = 0;
+            boolean ranked = false;
+            if (line.length > 1)
+            {
+                try
+                {
+                    score = Integer.parseInt(line[1]);
+                    ranked = true;
+                }
+                catch (NumberFormatException e)
+                {
+                    // Not ranked
+                }
+            }
+            this.score = score;
+            this.ranked = ranked;
+        }
+    }
+
+    // Highest score first, and then the earliest stored:
+    private static final Comparator<Entry> RANK_ORDER = Comparator.<Entry>comparingInt(e -> e.score)
+            .reversed().thenComparingLong(e -> e.seq);
+
+    private final File csvFile;
+    private final File logFile;
+
+    // All entries, by user name, in the order they were stored:
+    private final LinkedHashMap<String, Entry> byName = new LinkedHashMap<>();
+    // The ranked entries, in rank order:
+    private final ArrayList<Entry> byRank = new ArrayList<>();
+    private long nextSeq;
+    private int logLines;
+
+    private boolean loaded;
+    // The modification time and length of the CSV file when we last read or wrote it:
+    private long csvLastModified;
+    private long csvLength;
+
+    /**
+     * Construct a store using the given CSV file.  Nothing is read until it is needed.
+     */
+    UserInfoStore(File csvFile)
+    {
+        this.csvFile = csvFile;
+        this.logFile = new File(csvFile.getPath() + ".log");
+    }
+
+    /**
+     * Get the stored line for the given user, or null if there is none.
+     */
+    String[] get(String userName) throws IOException
+    {
+        ensureLoaded();
+        Entry entry = byName.get(userName);
+        return entry == null ? null : entry.line;
+    }
+
+    /**
+     * Get the rank (starting at 1) of the given user, or -1 if the user has no stored
+     * score.
+     */
+    int getRank(String userName) throws IOException
+    {
+        ensureLoaded();
+        Entry entry = byName.get(userName);
+        if (entry == null || !entry.ranked)
+        {
+            return -1;
+        }
+        return Collections.binarySearch(byRank, entry, RANK_ORDER) + 1;
+    }
+
+    /**
+     * Get the number of users with a stored score.
+     */
+    int getRankedCount() throws IOException
+    {
+        ensureLoaded();
+        return byRank.size();
+    }
+
+    /**
+     * Get the range of ranks of the users around the given user (including the user),
+     * centred on the user where possible, for UserInfo.getNearby(maxAmount).  The range is from (and
+     * including) the first rank to (but excluding) the second, where the top rank is 1.
+     * The range is empty if the user has no stored score.
+     */
+    int[] getNearbyRanks(String userName, int maxAmount) throws IOException
+    {
+        int rank = getRank(userName);
+        if (rank < 1 || maxAmount <= 0)
+        {
+            return new int[] {1, 1};
+        }
+
+        // Indexes here are from 0, unlike ranks:
+        int index = rank - 1;
+        int count = getRankedCount();
+        int availableBefore = index;
+        int availableAfter = count - 1 - index;
+
+        int desiredBefore = maxAmount / 2;
+        int desiredAfter = Math.max(0, maxAmount - 1) / 2;
+
+        // maxAmount | desiredBefore | desiredAfter | before+after+1
+        // 1 | 0 | 0 | 1
+        // 2 | 1 | 0 | 2
+        // 3 | 1 | 1 | 3
+        // 4 | 2 | 1 | 4
+        // 5 | 2 | 2 | 5
+        // 6 | 3 | 2 | 6
+        // and so on...
+
+        // The range of indexes to return, exclusive at the end:
+        int from;
+        int to;
+        if (availableAfter + availableBefore + 1 <= maxAmount)
+        {
+            //Less overall that we want, use everything:
+            from = 0;
+            to = count;
+        }
+        else if (availableBefore <= desiredBefore)
+        {
+            // Not enough available before-hand, but must be enough in total:
+            from = index - availableBefore;
+            to = index - availableBefore + maxAmount + 1;
+        }
+        else if (availableAfter <= desiredAfter)
+        {
+            // Not enough available after, but must be enough in total:
+            from = index + availableAfter - maxAmount;
+            to = index + availableAfter + 1;
+        }
+        else
+        {
+            // Must have enough available before and after:
+            from = index - desiredBefore;
+            to = index + desiredAfter + 1;
+        }
+        return new int[] {from + 1, to + 1};
+    }
+
+    /**
+     * Get the lines of the users ranked from (and including) the first given rank to
+     * (but excluding) the second, where the top rank is 1.
+     */
+    List<String[]> getRanked(int fromRank, int toRank) throws IOException
+    {
+        ensureLoaded();
+        List<String[]> lines = new ArrayList<>(toRank - fromRank);
+        for (Entry entry : byRank.subList(fromRank - 1, toRank - 1))
+        {
+            lines.add(entry.line);
+        }
+        return lines;
+    }
+
+    /**
+     * Store the line for a user, replacing any line already stored for them.
+     * 
+     * @param userName  The user name
+     * @param line      The line to store, whose first element is the user name.
+     *                  If null, any line for the user is removed.
+     */
+    void put(String userName, String[] line) throws IOException
+    {
+        ensureLoaded();
+        String[] logLine = line == null ? new String[] {userName} : line;
+        appendToLog(logLine);
+        apply(logLine);
+
+        if (logLines >= Math.max(MIN_COMPACT_LOG_LINES, byName.size()))
+        {
+            compact();
+        }
+    }
+
+    /**
+     * Read the CSV file and the log, if not already read or if the CSV file has changed.
+     */
+    private void ensureLoaded() throws IOException
+    {
+        if (loaded && csvFile.lastModified() == csvLastModified && csvFile.length() == csvLength)
+        {
+            return;
+        }
+
+        loaded = false;
+        byName.clear();
+        byRank.clear();
+        nextSeq = 0;
+        logLines = 0;
+        csvLastModified = csvFile.lastModified();
+        csvLength = csvFile.length();
+
+        try (CSVReader csv = new CSVReader(new InputStreamReader(new FileInputStream(csvFile), StandardCharsets.UTF_8)))
+        {
+            String[] line;
+            while ((line = csv.readNext()) != null)
+            {
+                apply(line);
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            // No previous storage
+        }
+
+        readLog();
+        loaded = true;
+        if (logLines > 0)
+        {
+            compact();
+        }
+    }
+
+    /**
+     * Apply the lines in the log to the data read from the CSV file.  If a line is found
+     * which was not completely written, it and any following lines are ignored.
+     */
+    private void readLog() throws IOException
+    {
+        try (CSVReader csv = new CSVReader(new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8)))
+        {
+            String[] logLine;
+            while ((logLine = csv.readNext()) != null)
+            {
+                if (logLine.length < 2 || !logLine[0].equals(checksum(logLine)))
+                {
+                    break;
+                }
+                apply(Arrays.copyOfRange(logLine, 1, logLine.length));
+                logLines += 1;
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            // No changes since the last compaction
+        }
+        catch (IOException e)
+        {
+            // The last line was not completely written (e.g. it has an unterminated quote);
+            // the lines before it have been applied.
+        }
+    }
+
+    /**
+     * Apply a line (from the CSV file or the log) to the data in memory.  A line with only
+     * a user name removes that user's data.
+     */
+    private void apply(String[] line)
+    {
+        if (line.length == 0 || line[0] == null)
+        {
+            return;
+        }
+
+        Entry old = byName.remove(line[0]);
+        if (old != null && old.ranked)
+        {
+            byRank.remove(Collections.binarySearch(byRank, old, RANK_ORDER));
+        }
+
+        if (line.length > 1)
+        {
+            Entry entry = new Entry(line, nextSeq++);
+            byName.put(entry.userName, entry);
+            if (entry.ranked)
+            {
+                // The entry is not in the list, so binarySearch gives -(insertion point) - 1:
+                byRank.add(-Collections.binarySearch(byRank, entry, RANK_ORDER) - 1, entry);
+            }
+        }
+    }
+
+    /**
+     * Append a line to the log, making sure it has reached the disk before returning.
+     */
+    private void appendToLog(String[] line) throws IOException
+    {
+        String[] logLine = new String[line.length + 1];
+        System.arraycopy(line, 0, logLine, 1, line.length);
+        logLine[0] = checksum(logLine);
+
+        StringWriter text = new StringWriter();
+        try (CSVWriter csv = new CSVWriter(text))
+        {
+            csv.writeNext(logLine);
+        }
+        try (FileOutputStream out = new FileOutputStream(logFile, true))
+        {
+            out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        logLines += 1;
+    }
+
+    /**
+     * Get the checksum of a log line (excluding its first element, where the checksum is kept).
+     */
+    private static String checksum(String[] logLine)
+    {
+        CRC32 crc = new CRC32();
+        for (int i = 1; i < logLine.length; i++)
+        {
+            // CSVWriter writes null as an empty string, so we must treat them the same:
+            if (logLine[i] != null)
+            {
+                crc.update(logLine[i].getBytes(StandardCharsets.UTF_8));
+            }
+            crc.update(0);
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Write all the data to the CSV file, and empty the log.  The lines are written in
+     * the order they were stored, as they would be if each change rewrote the file.
+     */
+    private void compact() throws IOException
+    {
+        File tempFile = new File(csvFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile))
+        {
+            CSVWriter csv = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (Entry entry : byName.values())
+            {
+                csv.writeNext(entry.line);
+            }
+            csv.flush();
+            out.getFD().sync();
+        }
+
+        try
+        {
+            Files.move(tempFile.toPath(), csvFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(tempFile.toPath(), csvFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        csvLastModified = csvFile.lastModified();
+        csvLength = csvFile.length();
+
+        // If we crash before the log is deleted, the lines in it will be applied again,
+        // which gives the same data:
+        Files.deleteIfExists(logFile.toPath());
+        logLines = 0;
+    }
+}
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2018  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2018,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -72,6 +72,9 @@ public class Command
     // Discard the world, but don't make a new one
     public static final int COMMAND_DISCARD_WORLD = 29;
     public static final int COMMAND_SET_SPEED = 30;
+    // Followed by pick-ID, X, Y (in pixels), and 1 if the topmost actor
+    // should be dragged or 0 if not:
+    public static final int COMMAND_PICK = 31;
 
     public static final int COMMAND_WORLD_FOCUS_GAINED = 40;
     public static final int COMMAND_WORLD_FOCUS_LOST = 41;
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2010,2011,2012,2013,2015,2018,2019,2020,2021 Poul Henriksen and Michael Kolling
+ Copyright (C) 2010,2011,2012,2013,2015,2018,2019,2020,2021,2026 Poul Henriksen and Michael Kolling
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -60,6 +60,7 @@ import bluej.debugmgr.objectbench.ObjectBenchListener;
 import bluej.pkgmgr.Project;
 import bluej.utility.Debug;
 import bluej.utility.JavaNames;
+import bluej.utility.Utility;
 import javafx.geometry.Point2D;
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -97,12 +98,12 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
     private static final String NAME_ACTOR_KEY = "NAME_ACTOR";
 
     private static final String PICK_HELPER_CLASS = PickActorHelper.class.getName();
-    private static final String PICK_HELPER_KEY = "PICK_HELPER_PICKED";
     private PickListener pickListener;
 
     private Project project;
     private DebuggerThread simulationThread;
     private DebuggerClass simulationClass;
+    private DebuggerClass pickHelperClass;
     private GreenfootRecorder greenfootRecorder;
     private SimulationStateListener simulationListener;
     private Map<String,GreenfootObject> objectBench = new HashMap<>();
@@ -159,6 +160,8 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             // We have to initialise the class; the IBM JDK otherwise throws an ObjectCollectedException
             // exception, seemingly in error.
             simulationClass = debugger.getClass(SIMULATION_CLASS, true).get();
+            // Fetched now, so that we don't need to load it for each pick:
+            pickHelperClass = debugger.getClass(PICK_HELPER_CLASS, true).get();
 
             setBreakpoint(debugger, SIMULATION_CLASS, "run", SIMULATION_THREAD_RUN_KEY);
             setBreakpoint(debugger, SIMULATION_CLASS, PAUSED_METHOD, SIMULATION_THREAD_PAUSED_KEY);
@@ -168,13 +171,63 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             setBreakpoint(debugger, WORLD_HANDLER_CLASS, "worldChanged", WORLD_CHANGED_KEY);
             setBreakpoint(debugger, WORLD_HANDLER_CLASS, "worldInstantiationError", WORLD_INSTANTIATION_ERROR_KEY);
             setBreakpoint(debugger, NAME_ACTOR_CLASS, "nameActors", NAME_ACTOR_KEY);
-            setBreakpoint(debugger, PICK_HELPER_CLASS, "picked", PICK_HELPER_KEY);
         }
         catch (ClassNotFoundException cnfe) {
             Debug.reportError("Simulation class could not be located. Possible installation problem.", cnfe);
         }
     }
 
+    /**
+     * Fetch the result of the most recently completed pick request from the debug VM, and
+     * pass it to the pick listener.  The result is read from a static field of the pick
+     * helper class, which doesn't need the debug VM to be suspended or any code to be run
+     * there.
+     */
+    @OnThread(Tag.FXPlatform)
+    public void fetchPickResult()
+    {
+        DebuggerClass pickHelper = pickHelperClass;
+        if (pickHelper != null)
+        {
+            // Done in the background, to avoid waiting for the debug VM on the GUI thread:
+            Utility.runBackground(() -> readPickResult(pickHelper));
+        }
+    }
+
+    @OnThread(Tag.Worker)
+    private void readPickResult(DebuggerClass pickHelper)
+    {
+        DebuggerField latestPickField = pickHelper.getStaticFields().stream().filter(f -> f.getName().equals("latestPick")).findFirst().orElse(null);
+        DebuggerObject latestPick = latestPickField == null ? null : latestPickField.getValueObject();
+        // Should always be non-null, but check in case:
+        if (latestPick == null || latestPick.isNullObject())
+        {
+            return;
+        }
+        List<DebuggerField> fields = latestPick.getFields();
+        DebuggerField actorPicksField = fields.stream().filter(f -> f.getName().equals("actorPicks")).findFirst().orElse(null);
+        DebuggerField worldPickField = fields.stream().filter(f -> f.getName().equals("worldPick")).findFirst().orElse(null);
+        DebuggerField pickIdField = fields.stream().filter(f -> f.getName().equals("pickId")).findFirst().orElse(null);
+        // Should always be non-null, but check in case:
+        if (actorPicksField != null && worldPickField != null && pickIdField != null)
+        {
+            DebuggerObject actorPicksValue = actorPicksField.getValueObject();
+            DebuggerObject worldPickValue = worldPickField.getValueObject();
+            int pickIdValue = Integer.parseInt(pickIdField.getValueString());
+            // Should always be true, but check in case:
+            if (actorPicksValue != null && actorPicksValue.isArray() && worldPickValue != null)
+            {
+                List<DebuggerObject> picksElements = fetchArray(actorPicksValue);
+                Platform.runLater(() -> {
+                    if (pickListener != null)
+                    {
+                        pickListener.picked(pickIdValue, picksElements, worldPickValue);
+                    }
+                });
+            }
+        }
+    }
+
     /**
      * Sets a breakpoint in the given class and method, and identifies it by setting a
      * breakpoint point property with breakpointKey mapped to "TRUE"
@@ -301,34 +354,6 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             e.getThread().cont();
             return true;
         }
-        else if (atBreakpoint && e.getBreakpointProperties().get(PICK_HELPER_KEY) != null)
-        {
-            List<DebuggerField> fields = e.getThread().getCurrentObject(0).getFields();
-            DebuggerField actorPicksField = fields.stream().filter(f -> f.getName().equals("actorPicks")).findFirst().orElse(null);
-            DebuggerField worldPickField = fields.stream().filter(f -> f.getName().equals("worldPick")).findFirst().orElse(null);
-            DebuggerField pickIdField = fields.stream().filter(f -> f.getName().equals("pickId")).findFirst().orElse(null);
-            // Should always be non-null, but check in case:
-            if (actorPicksField != null && worldPickField != null && pickIdField != null)
-            {
-                DebuggerObject actorPicksValue = actorPicksField.getValueObject();
-                DebuggerObject worldPickValue = worldPickField.getValueObject();
-                int pickIdValue = Integer.parseInt(pickIdField.getValueString());
-                // Should always be true, but check in case:
-                if (actorPicksValue != null && actorPicksValue.isArray() && worldPickValue != null)
-                {
-                    List<DebuggerObject> picksElements = fetchArray(actorPicksValue);
-                    Platform.runLater(() -> {
-                        if (pickListener != null)
-                        {
-                            pickListener.picked(pickIdValue, picksElements, worldPickValue);
-                        }
-                    });
-                }
-            }
-            // Must resume the thread afterwards:
-            e.getThread().cont();
-            return true;
-        }
         else if (e.isHalt() && isSimulationThread(e.getThread()))
         {
             if (atBreakpoint && e.getBreakpointProperties().get(SIMULATION_THREAD_PAUSED_KEY) != null)
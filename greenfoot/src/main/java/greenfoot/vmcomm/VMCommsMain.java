@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2018,2021 Poul Henriksen and Michael Kolling 
+ Copyright (C) 2018,2021,2026 Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -136,6 +136,10 @@ public class VMCommsMain implements Closeable
     private boolean vmReadyForInvocations = false;
     private int askId = -1;
     private boolean workerWaiting = false;
+    // The ID of the most recently completed pick request (0 if none), and the
+    // ID of the most recent one that we've passed on to the stage:
+    private int completedPickId = 0;
+    private int reportedPickId = 0;
 
     /**
      * Constructor for VMCommsMain. Creates a temporary file and maps it into memory.
@@ -330,6 +334,12 @@ public class VMCommsMain implements Closeable
         }
 
         stage.setLastUserExecutionStartTime(lastExecStartTime, delayLoop);
+
+        if (completedPickId != reportedPickId)
+        {
+            reportedPickId = completedPickId;
+            stage.pickCompleted(completedPickId);
+        }
             
         checkingIO = false;
         
@@ -444,6 +454,7 @@ public class VMCommsMain implements Closeable
                     delayLoop = delayLoopStatus == 1;
                     int vmReadyStatus = sharedMemory.get();
                     vmReadyForInvocations = vmReadyStatus == 1;
+                    completedPickId = sharedMemory.get();
                 }
             }
         }
@@ -561,11 +572,26 @@ public class VMCommsMain implements Closeable
         pendingCommands.add(new Command(COMMAND_PAUSE));
     }
     
+    /**
+     * Send a pick request, to find the actors at the given point.  When the pick
+     * has completed, the stage is notified via {@link GreenfootStage#pickCompleted(int)}.
+     * 
+     * @param pickId  The pick ID (a new ID must be used for each pick)
+     * @param x       The x-coordinate (in pixels)
+     * @param y       The y-coordinate (in pixels)
+     * @param drag    If true, a drag (with the pick ID as drag ID) will begin on the
+     *                topmost actor at that point, if any
+     */
+    public synchronized void pick(int pickId, int x, int y, boolean drag)
+    {
+        pendingCommands.add(new Command(COMMAND_PICK, pickId, x, y, drag ? 1 : 0));
+    }
+
     /**
      * Continue a mouse drag, identified by the given id. Note that drags are initiated by
-     * a pick request executed via a separate mechanism
+     * a pick request.
      * 
-     * @see greenfoot.core.PickActorHelper
+     * @see #pick(int, int, int, boolean)
      */
     public synchronized void continueDrag(int dragId, int x, int y)
     {
@@ -650,6 +676,8 @@ public class VMCommsMain implements Closeable
         lastAnswer = -1;
         previousStoppedWithErrorCount = 0;
         prevWorldCounter = 0;
+        completedPickId = 0;
+        reportedPickId = 0;
         
         // Zero the buffer:
         sharedMemoryByte.position(0);
@@ -1,6 +1,6 @@
 /*
  This file is part of the Greenfoot program. 
- Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018,2019,2021  Poul Henriksen and Michael Kolling 
+ Copyright (C) 2005-2009,2010,2011,2012,2013,2014,2015,2016,2018,2019,2021,2026  Poul Henriksen and Michael Kolling 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -24,6 +24,7 @@ package greenfoot.vmcomm;
 import bluej.utility.Debug;
 import greenfoot.World;
 import greenfoot.WorldVisitor;
+import greenfoot.core.PickActorHelper;
 import greenfoot.core.ShadowProjectProperties;
 import greenfoot.core.Simulation;
 import greenfoot.core.WorldHandler;
@@ -76,6 +77,10 @@ public class VMCommsSimulation
     @OnThread(value = Tag.Any, requireSynchronized = true)
     private boolean delayLoopEntered;
 
+    /** The ID of the most recently completed pick request, or 0 if none */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private int completedPickId;
+
     private final ShadowProjectProperties projectProperties;
     
     /**
@@ -128,6 +133,9 @@ public class VMCommsSimulation
      *              If awaiting, it is count (P) of following codepoints which make up prompt.
      * Pos 11+(W*H) to 11+(W*H)+P excl: codepoints making up ask prompt.
      * Pos 11+(W*H)+P: 1 if the the delay loop is currently running, or 0 otherwise.
+     * Pos 12+(W*H)+P: 1 if the VM is ready for invocations, or 0 otherwise.
+     * Pos 13+(W*H)+P: The ID of the most recently completed pick request, or 0 if none.
+     *                 The result of the pick can then be read from PickActorHelper.
      */
     private final IntBuffer sharedMemory;
     private int seq = 1;
@@ -390,6 +398,7 @@ public class VMCommsSimulation
                 // Write the status of the delay loop
                 sharedMemory.put(delayLoopEntered ? 1 : 0);
                 sharedMemory.put(userVMReadyForInvocations.get() ? 1 : 0);
+                sharedMemory.put(completedPickId);
             }
 
             putLock.release();
@@ -450,6 +459,15 @@ public class VMCommsSimulation
         notifyAll();
     }
 
+    /**
+     * A pick request has completed; let the server VM know in the next frame.
+     */
+    @OnThread(Tag.Any)
+    private synchronized void pickCompleted(int pickId)
+    {
+        completedPickId = pickId;
+    }
+
     /**
      * Read commands from the server VM.  Eventually, at the end of the Greenfoot
      * rewrite, this should live elsewhere (probably in WorldHandler or similar).
@@ -543,6 +561,10 @@ public class VMCommsSimulation
                         // Will be drag-ID:
                         WorldHandler.getInstance().finishDrag(data[1]);
                         break;
+                    case Command.COMMAND_PICK:
+                        // Will be pick-ID, X, Y, drag:
+                        PickActorHelper.pick(data[2], data[3], data[1], data[4] == 1, this::pickCompleted);
+                        break;
                     case Command.COMMAND_ANSWERED:
                         // Store the codepoints we received:
                         answer[0] = new String(data, 1, data.length - 1);
@@ -0,0 +1,413 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.Bootstrap;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.Method;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.AttachingConnector;
+import com.sun.jdi.connect.Connector;
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.EventRequest;
+
+/**
+ * A benchmark (not a test; run it manually via main) of the latency of picking the actors
+ * at a point in the world, from the server VM, in the two ways Greenfoot has done it:
+ *
+ * <ul>
+ * <li>Through JDI (as before the shared memory channel was used): the x, y, pick ID and
+ * request type are mirrored as strings, the helper is constructed in the debug VM on a
+ * thread waiting at a breakpoint, and the result is read when the helper's picked()
+ * method hits a breakpoint, after which the thread is resumed.</li>
+ * <li>Over the shared memory channel (as PickActorHelper now does): the request is written
+ * to shared memory, the debug VM picks and writes back the ID of the completed pick, and
+ * the result is then read through JDI from a static field, with nothing suspended.</li>
+ * </ul>
+ *
+ * <p>The debug VM is a real second VM (launched with JDWP), so the JDI costs are real.
+ * It picks from plain rectangles rather than a Greenfoot world, and both sides poll the
+ * shared memory every POLL_MICROS rather than exchanging it in lock-step with the frames
+ * of a running Greenfoot; each pick via the channel in Greenfoot also waits for the next
+ * exchange, which is not modelled here.  The time is from the start of the request until
+ * the server VM has the mirrors of all the picked actors.
+ */
+public class PickLatencyBenchmark
+{
+    private static final int ACTORS = 2000;
+    private static final int WORLD_WIDTH = 800;
+    private static final int WORLD_HEIGHT = 600;
+    private static final int WARMUP_PICKS = 200;
+    private static final int PICKS = 1000;
+    // How often each side polls the shared memory for a request or a result:
+    private static final int POLL_MICROS = 100;
+
+    // The layout of the shared memory, in bytes: the ID of the requested pick (written
+    // last by the server VM), its x and y, and the ID of the completed pick:
+    private static final int REQUEST_ID = 0;
+    private static final int REQUEST_X = 4;
+    private static final int REQUEST_Y = 8;
+    private static final int COMPLETED_ID = 12;
+    private static final int SHARED_SIZE = 16;
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /**
+     * The debug VM side: some actors, a pick helper which is constructed through JDI,
+     * and a thread which picks in response to requests over the shared memory.
+     */
+    public static class DebugVM
+    {
+        private static Box[] actors;
+        // Read by the server VM through JDI, once told that a pick is complete:
+        private static volatile ChannelPick latestPick;
+
+        public static class Box
+        {
+            private final int x;
+            private final int y;
+            private final int width;
+            private final int height;
+
+            private Box(int x, int y, int width, int height)
+            {
+                this.x = x;
+                this.y = y;
+                this.width = width;
+                this.height = height;
+            }
+        }
+
+        public static class JdiPick
+        {
+            public final Box[] actorPicks;
+            public final int pickId;
+
+            public JdiPick(String sx, String sy, String spickId, String requestType)
+            {
+                actorPicks = pick(Integer.parseInt(sx), Integer.parseInt(sy));
+                pickId = Integer.parseInt(spickId);
+                picked();
+            }
+
+            // The server VM sets a breakpoint here to read the result:
+            public void picked()
+            {
+            }
+        }
+
+        public static class ChannelPick
+        {
+            public final Box[] actorPicks;
+            public final int pickId;
+
+            private ChannelPick(Box[] actorPicks, int pickId)
+            {
+                this.actorPicks = actorPicks;
+                this.pickId = pickId;
+            }
+        }
+
+        private static Box[] pick(int x, int y)
+        {
+            List<Box> picks = new ArrayList<>();
+            for (Box b : actors)
+            {
+                if (x >= b.x && x < b.x + b.width && y >= b.y && y < b.y + b.height)
+                {
+                    picks.add(b);
+                }
+            }
+            return picks.toArray(new Box[0]);
+        }
+
+        // The server VM sets a breakpoint here, to have a suspended thread to invoke on:
+        private static void ready()
+        {
+        }
+
+        public static void main(String[] args) throws Exception
+        {
+            Random random = new Random(1);
+            actors = new Box[ACTORS];
+            for (int i = 0; i < ACTORS; i++)
+            {
+                actors[i] = new Box(random.nextInt(WORLD_WIDTH), random.nextInt(WORLD_HEIGHT),
+                        20 + random.nextInt(60), 20 + random.nextInt(60));
+            }
+            // Make sure the classes are loaded before the server VM looks for them:
+            new JdiPick("0", "0", "0", "");
+            latestPick = new ChannelPick(new Box[0], 0);
+
+            MappedByteBuffer shared;
+            try (FileChannel channel = FileChannel.open(new File(args[0]).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                shared = channel.map(FileChannel.MapMode.READ_WRITE, 0, SHARED_SIZE);
+            }
+            Thread channelThread = new Thread("Channel picks") {
+                @Override
+                public void run()
+                {
+                    int lastId = 0;
+                    while (true)
+                    {
+                        int id = (int) INTS.getVolatile(shared, REQUEST_ID);
+                        if (id != lastId)
+                        {
+                            lastId = id;
+                            Box[] picks = pick((int) INTS.getVolatile(shared, REQUEST_X), (int) INTS.getVolatile(shared, REQUEST_Y));
+                            // The result must be in place before we report the pick as complete:
+                            latestPick = new ChannelPick(picks, id);
+                            INTS.setVolatile(shared, COMPLETED_ID, id);
+                        }
+                        else
+                        {
+                            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(POLL_MICROS));
+                        }
+                    }
+                }
+            };
+            channelThread.setDaemon(true);
+            channelThread.start();
+
+            while (true)
+            {
+                ready();
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        File sharedFile = File.createTempFile("greenfoot-pick", ".shm");
+        sharedFile.deleteOnExit();
+        MappedByteBuffer shared;
+        try (FileChannel channel = FileChannel.open(sharedFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            shared = channel.map(FileChannel.MapMode.READ_WRITE, 0, SHARED_SIZE);
+        }
+
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        Process process = new ProcessBuilder(java, "-agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=127.0.0.1:0",
+                "-cp", System.getProperty("java.class.path"), DebugVM.class.getName(), sharedFile.getPath())
+                .redirectErrorStream(true).start();
+        try
+        {
+            // The first line says which port to attach to:
+            String line = new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+            String port = line.substring(line.lastIndexOf(':') + 1).trim();
+            AttachingConnector connector = Bootstrap.virtualMachineManager().attachingConnectors().stream()
+                    .filter(c -> c.transport().name().equals("dt_socket")).findFirst().get();
+            Map<String, Connector.Argument> connectorArgs = connector.defaultArguments();
+            connectorArgs.get("hostname").setValue("127.0.0.1");
+            connectorArgs.get("port").setValue(port);
+            VirtualMachine vm = connector.attach(connectorArgs);
+            try
+            {
+                run(vm, shared);
+            }
+            finally
+            {
+                vm.exit(0);
+            }
+        }
+        finally
+        {
+            process.destroy();
+        }
+    }
+
+    private static ClassType waitForClass(VirtualMachine vm, Class<?> c) throws InterruptedException
+    {
+        while (vm.classesByName(c.getName()).isEmpty())
+        {
+            Thread.sleep(10);
+        }
+        return (ClassType) vm.classesByName(c.getName()).get(0);
+    }
+
+    private static void run(VirtualMachine vm, MappedByteBuffer shared) throws Exception
+    {
+        ClassType debugVMClass = waitForClass(vm, DebugVM.class);
+        ClassType jdiPickClass = waitForClass(vm, DebugVM.JdiPick.class);
+        ClassType channelPickClass = waitForClass(vm, DebugVM.ChannelPick.class);
+        // Wait for the debug VM to finish setting up (see DebugVM.main):
+        while (debugVMClass.getValue(debugVMClass.fieldByName("latestPick")) == null)
+        {
+            Thread.sleep(10);
+        }
+
+        CompletableFuture<ThreadReference> execThread = new CompletableFuture<>();
+        // The pick in progress through JDI, completed with the time it finished:
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Long>[] jdiPick = new CompletableFuture[1];
+        Field jdiActorPicks = jdiPickClass.fieldByName("actorPicks");
+        Field jdiPickId = jdiPickClass.fieldByName("pickId");
+        Method ready = debugVMClass.methodsByName("ready").get(0);
+        Method picked = jdiPickClass.methodsByName("picked").get(0);
+
+        BreakpointRequest readyRequest = vm.eventRequestManager().createBreakpointRequest(ready.location());
+        readyRequest.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+        readyRequest.enable();
+        BreakpointRequest pickedRequest = vm.eventRequestManager().createBreakpointRequest(picked.location());
+        pickedRequest.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+        pickedRequest.enable();
+
+        Thread eventThread = new Thread("JDI events") {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    while (true)
+                    {
+                        EventSet eventSet = vm.eventQueue().remove();
+                        boolean resume = true;
+                        for (Event event : eventSet)
+                        {
+                            if (event instanceof BreakpointEvent && event.request() == readyRequest)
+                            {
+                                // Keep the thread suspended, to invoke on:
+                                readyRequest.disable();
+                                execThread.complete(((BreakpointEvent) event).thread());
+                                resume = false;
+                            }
+                            else if (event instanceof BreakpointEvent && event.request() == pickedRequest)
+                            {
+                                // As GreenfootDebugHandler did: read the fields, then the array:
+                                ObjectReference helper = ((BreakpointEvent) event).thread().frame(0).thisObject();
+                                Map<Field, Value> values = helper.getValues(Arrays.asList(jdiActorPicks, jdiPickId));
+                                ((ArrayReference) values.get(jdiActorPicks)).getValues();
+                                ((IntegerValue) values.get(jdiPickId)).value();
+                                if (jdiPick[0] != null)
+                                {
+                                    jdiPick[0].complete(System.nanoTime());
+                                }
+                            }
+                        }
+                        if (resume)
+                        {
+                            eventSet.resume();
+                        }
+                    }
+                }
+                catch (Exception e)
+                {
+                    // VM has gone; we are finished
+                }
+            }
+        };
+        eventThread.setDaemon(true);
+        eventThread.start();
+
+        ThreadReference thread = execThread.get();
+        Method constructor = jdiPickClass.methodsByName("<init>").get(0);
+        Field latestPick = debugVMClass.fieldByName("latestPick");
+        Field channelActorPicks = channelPickClass.fieldByName("actorPicks");
+        Field channelPickId = channelPickClass.fieldByName("pickId");
+
+        Random random = new Random(2);
+        long[] jdiTimes = new long[PICKS];
+        long[] channelTimes = new long[PICKS];
+        int pickId = 0;
+        int actorsPicked = 0;
+        for (int i = -WARMUP_PICKS; i < PICKS; i++)
+        {
+            int x = random.nextInt(WORLD_WIDTH);
+            int y = random.nextInt(WORLD_HEIGHT);
+
+            // Through JDI:
+            pickId += 1;
+            jdiPick[0] = new CompletableFuture<>();
+            long start = System.nanoTime();
+            List<Value> mirrors = Arrays.asList(vm.mirrorOf("" + x), vm.mirrorOf("" + y),
+                    vm.mirrorOf("" + pickId), vm.mirrorOf(""));
+            jdiPickClass.newInstance(thread, constructor, mirrors, ClassType.INVOKE_SINGLE_THREADED);
+            long jdiTime = jdiPick[0].get() - start;
+
+            // Over the channel:
+            pickId += 1;
+            start = System.nanoTime();
+            INTS.setVolatile(shared, REQUEST_X, x);
+            INTS.setVolatile(shared, REQUEST_Y, y);
+            INTS.setVolatile(shared, REQUEST_ID, pickId);
+            while ((int) INTS.getVolatile(shared, COMPLETED_ID) != pickId)
+            {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(POLL_MICROS));
+            }
+            // As GreenfootDebugHandler does: read the static field, then its fields, then the array:
+            ObjectReference result = (ObjectReference) debugVMClass.getValue(latestPick);
+            Map<Field, Value> values = result.getValues(Arrays.asList(channelActorPicks, channelPickId));
+            int picks = ((ArrayReference) values.get(channelActorPicks)).getValues().size();
+            ((IntegerValue) values.get(channelPickId)).value();
+            long channelTime = System.nanoTime() - start;
+
+            if (i >= 0)
+            {
+                jdiTimes[i] = jdiTime;
+                channelTimes[i] = channelTime;
+                actorsPicked += picks;
+            }
+        }
+
+        System.out.println(String.format("%d actors, %d picks (%.1f actors per pick), after %d warm-up picks:",
+                ACTORS, PICKS, (double) actorsPicked / PICKS, WARMUP_PICKS));
+        report("JDI construction and breakpoint", jdiTimes);
+        report("shared memory channel", channelTimes);
+    }
+
+    private static void report(String name, long[] times)
+    {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        System.out.println(String.format("  %-32s median %7.3f ms, 90th percentile %7.3f ms, mean %7.3f ms",
+                name + ":", sorted[sorted.length / 2] / 1e6, sorted[sorted.length * 9 / 10] / 1e6, mean / 1e6));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.platforms.ide;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class UserInfoStoreTest extends TestCase
+{
+    private File dir;
+    private File csvFile;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("userinfo").toFile();
+        csvFile = new File(dir, "storage.csv");
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private static String[] line(String userName, int score)
+    {
+        return new String[] {userName, Integer.toString(score), "1", "x"};
+    }
+
+    private static String names(List<String[]> lines)
+    {
+        StringBuilder names = new StringBuilder();
+        for (String[] line : lines)
+        {
+            names.append(line[0]).append(' ');
+        }
+        return names.toString().trim();
+    }
+
+    public void testRanking() throws IOException
+    {
+        UserInfoStore store = new UserInfoStore(csvFile);
+        assertEquals(0, store.getRankedCount());
+        assertNull(store.get("a"));
+        assertEquals(-1, store.getRank("a"));
+
+        store.put("a", line("a", 10));
+        store.put("b", line("b", 30));
+        store.put("c", line("c", 20));
+        // Equal scores are ranked in the order they were stored:
+        store.put("d", line("d", 20));
+        assertEquals("b c d a", names(store.getRanked(1, 5)));
+        assertEquals(3, store.getRank("d"));
+        assertEquals("c d", names(store.getRanked(2, 4)));
+
+        // Storing again moves the user after others with the same score:
+        store.put("c", line("c", 20));
+        assertEquals("b d c a", names(store.getRanked(1, 5)));
+        store.put("a", line("a", 40));
+        assertEquals(1, store.getRank("a"));
+        assertEquals("40", store.get("a")[1]);
+
+        store.put("b", null);
+        assertNull(store.get("b"));
+        assertEquals(-1, store.getRank("b"));
+        assertEquals("a d c", names(store.getRanked(1, 4)));
+    }
+
+    public void testPersistence() throws IOException
+    {
+        UserInfoStore store = new UserInfoStore(csvFile);
+        store.put("a", line("a", 10));
+        store.put("b", line("b", 30));
+        store.put("a", line("a", 50));
+        store.put("c", line("c", 5));
+        store.put("c", null);
+
+        UserInfoStore reopened = new UserInfoStore(csvFile);
+        assertEquals("a b", names(reopened.getRanked(1, 3)));
+        assertEquals(2, reopened.getRankedCount());
+
+        // Reading the log merges it into the CSV file, which can be read as before:
+        assertFalse(new File(csvFile.getPath() + ".log").exists());
+        List<String> csvLines = Files.readAllLines(csvFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, csvLines.size());
+        assertEquals("\"b\",\"30\",\"1\",\"x\"", csvLines.get(0));
+        assertEquals("\"a\",\"50\",\"1\",\"x\"", csvLines.get(1));
+    }
+
+    public void testCompaction() throws IOException
+    {
+        UserInfoStore store = new UserInfoStore(csvFile);
+        for (int i = 0; i < 250; i++)
+        {
+            store.put("user" + (i % 3), line("user" + (i % 3), i));
+        }
+        // The log is compacted once it has enough lines:
+        File logFile = new File(csvFile.getPath() + ".log");
+        assertTrue(logFile.length() < 100 * 40);
+        assertEquals(3, Files.readAllLines(csvFile.toPath()).size());
+
+        UserInfoStore reopened = new UserInfoStore(csvFile);
+        assertEquals("user0 user2 user1", names(reopened.getRanked(1, 4)));
+        assertEquals("249", reopened.get("user0")[1]);
+    }
+
+    public void testPartlyWrittenLog() throws IOException
+    {
+        UserInfoStore store = new UserInfoStore(csvFile);
+        store.put("a", line("a", 10));
+        store.put("b", line("b", 20));
+
+        // Simulate a crash while appending to the log:
+        File logFile = new File(csvFile.getPath() + ".log");
+        try (FileOutputStream out = new FileOutputStream(logFile, true))
+        {
+            out.write("\"0\",\"c\",\"3".getBytes(StandardCharsets.UTF_8));
+        }
+
+        UserInfoStore reopened = new UserInfoStore(csvFile);
+        assertEquals("b a", names(reopened.getRanked(1, 3)));
+        assertNull(reopened.get("c"));
+    }
+
+    public void testCsvChangedElsewhere() throws IOException
+    {
+        Files.write(csvFile.toPath(), "a,10\nb,20,3\nbad,score\n".getBytes(StandardCharsets.UTF_8));
+        UserInfoStore store = new UserInfoStore(csvFile);
+        assertEquals("b a", names(store.getRanked(1, 3)));
+        // Lines without a valid score are kept, but not ranked:
+        assertEquals(-1, store.getRank("bad"));
+        assertNotNull(store.get("bad"));
+
+        Files.write(csvFile.toPath(), "c,5\n".getBytes(StandardCharsets.UTF_8));
+        csvFile.setLastModified(csvFile.lastModified() + 2000);
+        assertEquals("c", names(store.getRanked(1, 2)));
+
+        store.put("d", line("d", 1));
+        assertEquals("c d", names(new UserInfoStore(csvFile).getRanked(1, 3)));
+    }
+
+    public void testNearbyRanks() throws IOException
+    {
+        UserInfoStore store = new UserInfoStore(csvFile);
+        for (int i = 0; i < 10; i++)
+        {
+            store.put("user" + i, line("user" + i, 100 - i));
+        }
+        store.put("bad", new String[] {"bad", "score"});
+
+        // A user who has not stored anything, or has no score, has no one nearby:
+        int[] absent = store.getNearbyRanks("nobody", 5);
+        assertEquals(absent[0], absent[1]);
+        int[] unranked = store.getNearbyRanks("bad", 5);
+        assertEquals(unranked[0], unranked[1]);
+
+        // user4 has rank 5, so ranks 3 to 7 are around it:
+        assertEquals(3, store.getNearbyRanks("user4", 5)[0]);
+        assertEquals(8, store.getNearbyRanks("user4", 5)[1]);
+        assertEquals(0, store.getNearbyRanks("user4", 0)[1] - store.getNearbyRanks("user4", 0)[0]);
+        // Fewer than asked for in total:
+        assertEquals(1, store.getNearbyRanks("user4", 20)[0]);
+        assertEquals(11, store.getNearbyRanks("user4", 20)[1]);
+    }
+}
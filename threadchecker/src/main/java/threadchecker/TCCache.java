@@ -0,0 +1,315 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package threadchecker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+
+/**
+ * A record of the compilation units which passed the thread checks, so that they need
+ * not be checked again if they are compiled again without changes.  This is saved in a
+ * file (in the build directory) between compilations.
+ *
+ * A compilation unit's checks also depend on the tags and type hierarchy of the other
+ * classes it uses, so as well as a hash of each unit's source, we keep a hash of its
+ * "signature": its imports, and the declarations (with their annotations) of its classes,
+ * methods and fields, but not the method bodies or field initialisers.  A unit is only
+ * skipped if its source is unchanged, and the signatures of all the units being compiled
+ * are unchanged.  So changing a method body only rechecks that one unit, but changing a
+ * tag (or a method signature, or a superclass) anywhere rechecks everything.
+ * 
+ * Classes that are not being compiled (e.g. another module's classes, or jars on the
+ * classpath) are not tracked individually.  A changed tag in one of those would not change
+ * any unit being compiled, so the build passes a hash of the classpath in the checker
+ * settings (see TCPlugin); if that changes, the saved entries are discarded and everything
+ * is checked.
+ */
+class TCCache
+{
+    private static final String HEADER = "threadchecker-cache-1";
+
+    private static class Entry
+    {
+        private final String sourceHash;
+        private final String signatureHash;
+
+        private Entry(String sourceHash, String signatureHash)
+        {
+            this.sourceHash = sourceHash;
+            this.signatureHash = signatureHash;
+        }
+    }
+
+    private final Path file;
+    // A hash of the checker itself and its settings; if this changes, the saved entries are discarded:
+    private final String checkerHash;
+    // The saved entries, by source file URI.  Only units which passed are in here:
+    private final Map<String, Entry> saved = new HashMap<>();
+    // The entries for the units in this compilation, by source file URI:
+    private final Map<String, Entry> current = new HashMap<>();
+    // Whether all the signatures of the units in this compilation are as saved:
+    private boolean signaturesUnchanged;
+    // The units which have been checked (or skipped) in this compilation, and those that failed:
+    private final Set<String> checked = new HashSet<>();
+    private final Set<String> failed = new HashSet<>();
+
+    /**
+     * Load the cache from the given file (if it exists).
+     * 
+     * @param checkerSettings The settings for the checker (e.g. packages to ignore), which
+     *                        affect the result of the checks.
+     */
+    TCCache(Path file, List<String> checkerSettings)
+    {
+        this.file = file;
+        this.checkerHash = hashChecker(checkerSettings);
+        try
+        {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && lines.get(0).equals(HEADER + "\t" + checkerHash))
+            {
+                for (String line : lines.subList(1, lines.size()))
+                {
+                    String[] fields = line.split("\t");
+                    if (fields.length == 3)
+                    {
+                        saved.put(fields[0], new Entry(fields[1], fields[2]));
+                    }
+                }
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // Nothing saved yet
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not read threadchecker cache " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Work out the hashes of all the compilation units in this compilation.  This must be
+     * called, with all the units, before any calls to isUnchanged.
+     */
+    void prepare(List<CompilationUnitTree> units)
+    {
+        signaturesUnchanged = true;
+        for (CompilationUnitTree unit : units)
+        {
+            String uri = getKey(unit);
+            Entry entry;
+            try
+            {
+                entry = new Entry(hash(unit.getSourceFile().getCharContent(true).toString()), hash(getSignature(unit)));
+            }
+            catch (IOException e)
+            {
+                // Will check it, and will not save it:
+                signaturesUnchanged = false;
+                continue;
+            }
+            current.put(uri, entry);
+            Entry savedEntry = saved.get(uri);
+            if (savedEntry == null || !savedEntry.signatureHash.equals(entry.signatureHash))
+            {
+                signaturesUnchanged = false;
+            }
+        }
+    }
+
+    /**
+     * Check whether the given compilation unit passed the checks last time, and neither it
+     * nor the signatures of any of the units in this compilation have changed since.
+     * If so, it is recorded as checked (and passing) in this compilation.
+     */
+    boolean isUnchanged(CompilationUnitTree unit)
+    {
+        String uri = getKey(unit);
+        Entry entry = current.get(uri);
+        Entry savedEntry = saved.get(uri);
+        if (signaturesUnchanged && entry != null && savedEntry != null && entry.sourceHash.equals(savedEntry.sourceHash))
+        {
+            checked.add(uri);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Record the result of checking the given unit.  (A unit may be checked more than once,
+     * if it has several top-level classes; it passes only if all checks pass.)
+     */
+    void recordResult(CompilationUnitTree unit, boolean passed)
+    {
+        String uri = getKey(unit);
+        checked.add(uri);
+        if (!passed)
+        {
+            failed.add(uri);
+        }
+    }
+
+    /**
+     * Save the cache to the file: the units which passed in this compilation, and any
+     * saved units which were not part of this compilation.
+     */
+    void save()
+    {
+        Map<String, Entry> toSave = new TreeMap<>(saved);
+        current.forEach((uri, entry) -> {
+            if (checked.contains(uri) && !failed.contains(uri))
+                toSave.put(uri, entry);
+            else
+                toSave.remove(uri);
+        });
+
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER + "\t" + checkerHash);
+        toSave.forEach((uri, entry) -> lines.add(uri + "\t" + entry.sourceHash + "\t" + entry.signatureHash));
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try
+        {
+            if (file.getParent() != null)
+            {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not save threadchecker cache " + file + ": " + e);
+        }
+    }
+
+    private static String getKey(CompilationUnitTree unit)
+    {
+        return unit.getSourceFile().toUri().toString();
+    }
+
+    /**
+     * Gets the parts of a compilation unit which other units' checks may depend on.
+     */
+    private static String getSignature(CompilationUnitTree unit)
+    {
+        StringBuilder sig = new StringBuilder();
+        sig.append(unit.getPackage()).append('\n');
+        unit.getImports().forEach(i -> sig.append(i).append('\n'));
+        for (Tree t : unit.getTypeDecls())
+        {
+            if (t instanceof ClassTree)
+            {
+                appendSignature(sig, (ClassTree)t);
+            }
+        }
+        return sig.toString();
+    }
+
+    private static void appendSignature(StringBuilder sig, ClassTree c)
+    {
+        sig.append(c.getModifiers()).append(c.getKind()).append(' ').append(c.getSimpleName())
+            .append(c.getTypeParameters()).append(" extends ").append(c.getExtendsClause())
+            .append(" implements ").append(c.getImplementsClause()).append(" {\n");
+        for (Tree member : c.getMembers())
+        {
+            if (member instanceof ClassTree)
+            {
+                appendSignature(sig, (ClassTree)member);
+            }
+            else if (member instanceof MethodTree)
+            {
+                MethodTree m = (MethodTree)member;
+                sig.append(m.getModifiers()).append(m.getTypeParameters()).append(m.getReturnType())
+                    .append(' ').append(m.getName()).append('(');
+                m.getParameters().forEach(p -> sig.append(p.getModifiers()).append(p.getType()).append(','));
+                sig.append(")\n");
+            }
+            else if (member instanceof VariableTree)
+            {
+                VariableTree v = (VariableTree)member;
+                sig.append(v.getModifiers()).append(v.getType()).append(' ').append(v.getName()).append('\n');
+            }
+        }
+        sig.append("}\n");
+    }
+
+    /**
+     * Hash the code of the checker and its annotations, the Java version, and the given settings.
+     */
+    private static String hashChecker(List<String> checkerSettings)
+    {
+        // The library classes may differ between versions of Java:
+        StringBuilder s = new StringBuilder(System.getProperty("java.version") + " " + String.join(" ", checkerSettings));
+        for (Class<?> c : new Class<?>[] {TCPlugin.class, TCScanner.class, TCCache.class, Tag.class, LocatedTag.class})
+        {
+            try (InputStream is = c.getResourceAsStream(c.getSimpleName() + ".class"))
+            {
+                s.append('\n').append(is == null ? c.getName() : hash(new String(is.readAllBytes(), StandardCharsets.ISO_8859_1)));
+            }
+            catch (IOException e)
+            {
+                s.append('\n').append(c.getName());
+            }
+        }
+        return hash(s.toString());
+    }
+
+    private static String hash(String s)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest)
+            {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is always available:
+            throw new IllegalStateException(e);
+        }
+    }
+}
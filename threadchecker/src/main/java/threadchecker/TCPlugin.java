@@ -2,15 +2,33 @@ package threadchecker;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.util.JavacTask;
 import com.sun.source.util.Plugin;
 import com.sun.source.util.TaskEvent;
 import com.sun.source.util.TaskListener;
 
+/**
+ * The threadchecker compiler plugin, which checks the thread tags (see OnThread) of
+ * all the code being compiled.
+ * 
+ * The plugin's arguments are packages to ignore, except for an argument "cache=path",
+ * which saves the results in the given file, so that compilation units which have not
+ * changed since they last passed are not checked again (see TCCache).  The path
+ * must not contain spaces, as javac splits the plugin arguments at spaces.  An argument
+ * "classpath=hash" gives a hash of the classes on the classpath; if it changes, the
+ * cached results are discarded.
+ */
 public class TCPlugin implements Plugin
 {
+    private static final String CACHE_ARG = "cache=";
+    private static final String CLASSPATH_ARG = "classpath=";
+    
     private File tagsDump = new File("found-tags.txt");
     
     public TCPlugin()
@@ -26,41 +44,78 @@ public class TCPlugin implements Plugin
     }
 
     @Override
-    public void init(JavacTask task, String... ignorePackages) 
+    public void init(JavacTask task, String... args) 
     {
-        task.setTaskListener(new TCTaskListener(task, ignorePackages));
+        List<String> ignorePackages = new ArrayList<>();
+        String cachePath = null;
+        String classpathHash = "";
+        for (String arg : args)
+        {
+            if (arg.startsWith(CACHE_ARG))
+                cachePath = arg.substring(CACHE_ARG.length());
+            else if (arg.startsWith(CLASSPATH_ARG))
+                classpathHash = arg.substring(CLASSPATH_ARG.length());
+            else
+                ignorePackages.add(arg);
+        }
+        List<String> cacheSettings = new ArrayList<>(ignorePackages);
+        cacheSettings.add(CLASSPATH_ARG + classpathHash);
+        TCCache cache = cachePath == null ? null : new TCCache(Paths.get(cachePath), cacheSettings);
+        task.setTaskListener(new TCTaskListener(task, ignorePackages, cache));
     }
     
     private class TCTaskListener implements TaskListener
     {
         private TCScanner scanner = null;
         private JavacTask task;
-        private String[] ignorePackages;
+        private List<String> ignorePackages;
+        // Null if we are not using a cache:
+        private final TCCache cache;
+        // The compilation units parsed, until we start analysing them:
+        private List<CompilationUnitTree> units = new ArrayList<>();
 
-        public TCTaskListener(JavacTask task, String[] ignorePackages)
+        public TCTaskListener(JavacTask task, List<String> ignorePackages, TCCache cache)
         {
             this.task = task;
             this.ignorePackages = ignorePackages;
+            this.cache = cache;
         }
 
         @Override
         public void finished(TaskEvent evt)
         {
-            if (evt.getKind() == TaskEvent.Kind.ANALYZE)
+            if (evt.getKind() == TaskEvent.Kind.PARSE && units != null)
+            {
+                units.add(evt.getCompilationUnit());
+            }
+            else if (evt.getKind() == TaskEvent.Kind.ANALYZE)
             {
                 if (scanner == null)
                 {
                     try
                     {
-                        this.scanner = new TCScanner(task, Arrays.asList(ignorePackages));
+                        this.scanner = new TCScanner(task, ignorePackages);
                     }
                     catch (NoSuchMethodException e)
                     {
                         e.printStackTrace();
                     }
                 }
+                // All units are parsed before any are analysed:
+                if (units != null)
+                {
+                    if (cache != null)
+                        cache.prepare(units);
+                    units = null;
+                }
 
-                scanner.scan(evt.getCompilationUnit(), null);
+                CompilationUnitTree unit = evt.getCompilationUnit();
+                if (cache != null && cache.isUnchanged(unit))
+                    return;
+                int errorsBefore = scanner.getErrorCount();
+                scanner.scan(unit, null);
+                if (cache != null)
+                    cache.recordResult(unit, scanner.getErrorCount() == errorsBefore);
                 // Uncomment to get tags dump:
                 /*
                 try
@@ -73,6 +128,10 @@ public class TCPlugin implements Plugin
                 }
                 */
             }
+            else if (evt.getKind() == TaskEvent.Kind.COMPILATION && cache != null)
+            {
+                cache.save();
+            }
         }
 
         @Override
@@ -1,6 +1,6 @@
 /*
  This file is part of the BlueJ program. 
- Copyright (C) 2014,2015,2016,2021,2022 Michael Kölling and John Rosenberg 
+ Copyright (C) 2014,2015,2016,2021,2022,2026 Michael Kölling and John Rosenberg 
  
  This program is free software; you can redistribute it and/or 
  modify it under the terms of the GNU General Public License 
@@ -110,6 +110,17 @@ class TCScanner extends TreePathScanner<Void, Void>
     private final LinkedList<LocatedTag> lambdaScopeStack = new LinkedList<>();
     private final Map<String, LocatedTag> fields = new HashMap<>();
     private final List<String> objectMembers;
+    // The tags of elements, looked up by getRemoteTag.  The same classes, methods and packages
+    // are looked up many times over, from every compilation unit, so we keep the result for each.
+    // An element without a tag maps to null.  (An element can only have one OnThread annotation,
+    // so the lookup cannot issue an error, and we lose nothing by not repeating it.)
+    private final HashMap<Element, LocatedTag> remoteTags = new HashMap<>();
+    // The result of allSuperTypes for each type, which is needed for every method
+    // declaration, method call and field access.  Types don't override equals, so this
+    // is by identity, but the type of the class being scanned is always the same object:
+    private final HashMap<TypeMirror, List<TypeMirror>> superTypesCache = new HashMap<>();
+    // The number of errors we have issued, so that TCPlugin can tell whether a compilation unit passed:
+    private int errorCount;
     
     // Types and methods can nest, e.g.
     // class A {public void foo() { Platform.runLater(new Runnable() { public void run() { } }) } }
@@ -613,7 +624,7 @@ class TCScanner extends TreePathScanner<Void, Void>
         {
             System.err.println("Last: " + typeScopeStack.getLast());
             e.printStackTrace();
-            trees.printMessage(Kind.ERROR, "NPE", invocation, cu);
+            printError("NPE", invocation);
         }
         
         List<TypeMirror> argTypes = invocation.getArguments().stream()
@@ -721,7 +732,7 @@ class TCScanner extends TreePathScanner<Void, Void>
             // TODO Although it also matters if the parent tags for each candidate differ!
             if (candidateDirectTags.size() > 1)
             {
-                trees.printMessage(Kind.ERROR, "\nCould not find unambigious declaration of method " + name + " in " + invokedOn.asType().toString() + " (and tags differ between resolutions)", errorLocation, cu);
+                printError("\nCould not find unambigious declaration of method " + name + " in " + invokedOn.asType().toString() + " (and tags differ between resolutions)", errorLocation);
                 
             }
             else if (candidates.size() == 0)
@@ -877,7 +888,14 @@ class TCScanner extends TreePathScanner<Void, Void>
     {
         long startPosition = trees.getSourcePositions().getStartPosition(cu, errorLocation);
         String link = cu.getLineMap() == null ? "" : cu.getSourceFile().getName() + ":" + cu.getLineMap().getLineNumber(startPosition) + ": error:"; // [line added as IntelliJ location link]";
-        trees.printMessage(Kind.ERROR, "\n" + link + errorMsg, errorLocation, cu);
+        printError("\n" + link + errorMsg, errorLocation);
+    }
+
+    // All errors go through here, so that we count them:
+    private void printError(String errorMsg, Tree errorLocation)
+    {
+        errorCount += 1;
+        trees.printMessage(Kind.ERROR, errorMsg, errorLocation, cu);
     }
 
     private boolean inSynthetic()
@@ -1069,15 +1087,25 @@ class TCScanner extends TreePathScanner<Void, Void>
             return Collections.emptyList();
         }
         
+        List<TypeMirror> cached = superTypesCache.get(orig);
+        if (cached != null)
+        {
+            return cached;
+        }
+        
         LocatedTag ttag = getRemoteTag(types.asElement(orig), () -> orig.toString(), errorLocation);
         if (ttag != null && ttag.ignoreParent())
         {
-            return Collections.emptyList();
+            cached = Collections.emptyList();
         }
-        
-        List<? extends TypeMirror> supers = types.directSupertypes(orig);
-        return Stream.concat(supers.stream(), supers.stream()
-                .flatMap(t -> allSuperTypes(t, errorLocation).stream())).collect(Collectors.toList());
+        else
+        {
+            List<? extends TypeMirror> supers = types.directSupertypes(orig);
+            cached = Collections.unmodifiableList(Stream.concat(supers.stream(), supers.stream()
+                    .flatMap(t -> allSuperTypes(t, errorLocation).stream())).collect(Collectors.toList()));
+        }
+        superTypesCache.put(orig, cached);
+        return cached;
     }
 
     /**
@@ -1156,7 +1184,21 @@ class TCScanner extends TreePathScanner<Void, Void>
      */
     private LocatedTag getRemoteTag(Element e, Supplier<String> info, Tree errorLocation)
     {
-        return checkSingle(e.getAnnotationMirrors().stream().map(m -> getRemoteTag(m, info)), errorLocation);
+        if (remoteTags.containsKey(e))
+        {
+            return remoteTags.get(e);
+        }
+        LocatedTag tag = checkSingle(e.getAnnotationMirrors().stream().map(m -> getRemoteTag(m, info)), errorLocation);
+        remoteTags.put(e, tag);
+        return tag;
+    }
+    
+    /**
+     * Gets the number of errors issued so far, by all the scans.
+     */
+    public int getErrorCount()
+    {
+        return errorCount;
     }
     
     /**
@@ -1258,7 +1300,7 @@ class TCScanner extends TreePathScanner<Void, Void>
         if (lambdaClassMembers.size() != 1)
         {
             if (issueError && !(lambdaClassType.getKind() == TypeKind.TYPEVAR))
-                trees.printMessage(Kind.ERROR, "\n    Lambda type " + (lambdaClassElement == null ? "Unknown" : lambdaClassElement.getSimpleName()) + " seems to have multiple members: " + lambdaClassMembers.stream().map(Element::getSimpleName).map(Object::toString).collect(Collectors.joining(", ")), errorLocation, cu);
+                printError("\n    Lambda type " + (lambdaClassElement == null ? "Unknown" : lambdaClassElement.getSimpleName()) + " seems to have multiple members: " + lambdaClassMembers.stream().map(Element::getSimpleName).map(Object::toString).collect(Collectors.joining(", ")), errorLocation);
             return null;
         }
         LocatedTag lambdaAnn = null;
@@ -1614,7 +1656,7 @@ class TCScanner extends TreePathScanner<Void, Void>
                 {
                     TypeMirror typeMirror = trees.getTypeMirror(trees.getPath(cu, node));
                     if (typeMirror == null)
-                        trees.printMessage(Kind.ERROR, "Null TypeMirror", node, cu);
+                        printError("Null TypeMirror", node);
                     Element element = types.asElement(typeMirror);
                     if (element == null)
                     {